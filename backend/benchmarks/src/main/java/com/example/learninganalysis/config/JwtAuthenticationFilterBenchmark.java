@@ -0,0 +1,113 @@
+package com.example.learninganalysis.config;
+
+import com.example.learninganalysis.model.User;
+import com.example.learninganalysis.model.UserRole;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求过滤器中的令牌处理
+ *
+ * cachedToken 为同一令牌反复访问的常见情况，只查缓存；
+ * uncachedToken 轮换使用多于缓存容量的令牌，每次都要验签并解析负载；
+ * invalidSignature 为签名被篡改的令牌。每次调用都会新建模拟请求，其分配计入结果。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final int TOKEN_POOL = 64;
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    private JwtAuthenticationFilter cachingFilter;
+    private JwtAuthenticationFilter nonCachingFilter;
+    private String cachedToken;
+    private String[] tokens;
+    private String tamperedToken;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        JwtTokenProvider cachingProvider = provider(10000);
+        JwtTokenProvider nonCachingProvider = provider(1);
+        cachingFilter = new JwtAuthenticationFilter(cachingProvider);
+        nonCachingFilter = new JwtAuthenticationFilter(nonCachingProvider);
+
+        tokens = new String[TOKEN_POOL];
+        for (int i = 0; i < TOKEN_POOL; i++) {
+            tokens[i] = cachingProvider.generateToken(user(i + 1L));
+        }
+        cachedToken = tokens[0];
+        // 改动签名中间的字符：末位字符可能只含填充位，改动后解码出的签名字节不变
+        int middle = (cachedToken.lastIndexOf('.') + 1 + cachedToken.length()) / 2;
+        char original = cachedToken.charAt(middle);
+        tamperedToken = cachedToken.substring(0, middle) + (original == 'A' ? 'B' : 'A') + cachedToken.substring(middle + 1);
+        try {
+            if (filter(cachingFilter, tamperedToken) != null) {
+                throw new IllegalStateException("篡改后的令牌未被拒绝");
+            }
+        } catch (ServletException | IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private JwtTokenProvider provider(int cacheSize) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(provider, "secret", "mySecretKey12345678901234567890123456789012");
+        ReflectionTestUtils.setField(provider, "expirationMs", 86_400_000L);
+        ReflectionTestUtils.setField(provider, "cacheMaxSize", cacheSize);
+        return provider;
+    }
+
+    private User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("student" + id);
+        user.setRole(UserRole.STUDENT);
+        return user;
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public Object cachedToken() throws ServletException, IOException {
+        return filter(cachingFilter, cachedToken);
+    }
+
+    @Benchmark
+    public Object uncachedToken() throws ServletException, IOException {
+        next = (next + 1) % TOKEN_POOL;
+        return filter(nonCachingFilter, tokens[next]);
+    }
+
+    @Benchmark
+    public Object invalidSignature() throws ServletException, IOException {
+        return filter(cachingFilter, tamperedToken);
+    }
+
+    private Object filter(JwtAuthenticationFilter filter, String token) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/student/activities");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), NO_OP_CHAIN);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
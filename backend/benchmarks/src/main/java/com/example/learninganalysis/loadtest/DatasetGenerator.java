@@ -0,0 +1,96 @@
+package com.example.learninganalysis.loadtest;
+
+import com.example.learninganalysis.LearningAnalysisApplication;
+import com.example.learninganalysis.repository.DatasetSeeder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 合成数据生成器
+ *
+ * 以不启动 Web 服务器的方式启动应用上下文，由 Flyway 迁移脚本建表，
+ * 再用 {@link DatasetSeeder} 填充数据。参数与 Spring Boot 命令行参数相同：
+ * 数据源用 spring.datasource.*，规模用 dataset.*，未指定的规模参数按学生数等比例取默认值。
+ *
+ * <pre>
+ * --dataset.students=100000                  学生数
+ * --dataset.teachers=1000                    教师数
+ * --dataset.classes-per-teacher=3            每位教师的班级数
+ * --dataset.activities=20000                 活动数
+ * --dataset.hot-activities=5                 热门活动数（不预置报名，供报名高峰场景使用）
+ * --dataset.hot-activity-capacity=100        热门活动容量
+ * --dataset.participations-per-student=10    每名学生的报名数
+ * --dataset.goals-per-student=5              每名学生的学习目标数
+ * --dataset.evaluations-per-student=2        每名学生的评价数
+ * --dataset.pending-applications-per-class=10 每个班级的待处理入班申请数
+ * --dataset.logs-per-user=5                  每个用户的操作日志数
+ * --dataset.password=password123             全部用户的登录密码
+ * </pre>
+ *
+ * 目标库必须为空；MySQL 连接串建议带 rewriteBatchedStatements=true，批量写入快一个数量级。
+ * 使用 H2 时须以 spring.jpa.properties.hibernate.dialect 覆盖 application.properties 中的 MySQL 方言。
+ */
+public final class DatasetGenerator {
+
+    /** 生成器自身的默认参数，命令行中出现同名参数时以命令行为准 */
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "spring.jpa.show-sql", "false",
+            "logging.level.root", "WARN",
+            "logging.level.com.example.learninganalysis.repository.DatasetSeeder", "INFO");
+
+    private DatasetGenerator() {
+    }
+
+    public static void main(String[] args) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        DEFAULTS.forEach((key, value) -> {
+            if (arguments.stream().noneMatch(arg -> arg.startsWith("--" + key + "="))) {
+                arguments.add("--" + key + "=" + value);
+            }
+        });
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LearningAnalysisApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments.toArray(String[]::new))) {
+            Environment env = context.getEnvironment();
+            DatasetSeeder.Scale defaults = DatasetSeeder.Scale.of(env.getProperty("dataset.students", Integer.class, 10000));
+            DatasetSeeder.Scale scale = new DatasetSeeder.Scale(
+                    defaults.students(),
+                    env.getProperty("dataset.teachers", Integer.class, defaults.teachers()),
+                    env.getProperty("dataset.classes-per-teacher", Integer.class, defaults.classesPerTeacher()),
+                    env.getProperty("dataset.activities", Integer.class, defaults.activities()),
+                    env.getProperty("dataset.hot-activities", Integer.class, defaults.hotActivities()),
+                    env.getProperty("dataset.hot-activity-capacity", Integer.class, defaults.hotActivityCapacity()),
+                    env.getProperty("dataset.participations-per-student", Integer.class, defaults.participationsPerStudent()),
+                    env.getProperty("dataset.goals-per-student", Integer.class, defaults.goalsPerStudent()),
+                    env.getProperty("dataset.evaluations-per-student", Integer.class, defaults.evaluationsPerStudent()),
+                    env.getProperty("dataset.pending-applications-per-class", Integer.class, defaults.pendingApplicationsPerClass()),
+                    env.getProperty("dataset.logs-per-user", Integer.class, defaults.logsPerUser()));
+            String password = env.getProperty("dataset.password", "password123");
+
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+            if (existing != null && existing > 0) {
+                throw new IllegalStateException("目标库的 users 表已有 " + existing + " 行数据，请使用空库");
+            }
+
+            // 所有用户共用一个哈希，使用与服务相同强度的编码器，登录压测的哈希开销与线上一致
+            String passwordHash = context.getBean(PasswordEncoder.class).encode(password);
+            DatasetSeeder.Dataset dataset = new DatasetSeeder(jdbcTemplate).seed(scale, passwordHash);
+
+            System.out.println("生成完成: " + scale);
+            System.out.println("登录账号: admin, teacher0..teacher" + (dataset.teachers() - 1)
+                    + ", student0..student" + (dataset.students() - 1) + "，密码均为 " + password);
+            System.out.println("热门活动ID: 1.." + dataset.hotActivities());
+        }
+    }
+}
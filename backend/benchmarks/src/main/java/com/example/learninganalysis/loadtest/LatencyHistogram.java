@@ -0,0 +1,133 @@
+package com.example.learninganalysis.loadtest;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 线程安全的延迟直方图
+ *
+ * 以微秒记录，桶按 2 的幂分段、每段再等分 16 份，相对误差不超过 1/16，
+ * 分位数取所在桶的上界。最小值、最大值和总和精确记录。
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    /** 分布图的区间上界，单位毫秒 */
+    private static final long[] CHART_BOUNDS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000};
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(index(value));
+        total.increment();
+        sum.add(value);
+        min.accumulate(value);
+        max.accumulate(value);
+    }
+
+    public long count() {
+        return total.sum();
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (msb - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (msb - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int msb = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (msb - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * 返回指定分位（0 到 100）的延迟上界，单位微秒
+     */
+    public long percentile(double percent) {
+        long n = count();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(n * percent / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * 分位数摘要，单位毫秒
+     */
+    public String summary() {
+        long n = count();
+        if (n == 0) {
+            return "无数据";
+        }
+        return String.format(Locale.ROOT,
+                "min=%.2f avg=%.2f p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f (ms)",
+                min.get() / 1000.0, sum.sum() / 1000.0 / n, percentile(50) / 1000.0, percentile(90) / 1000.0,
+                percentile(99) / 1000.0, percentile(99.9) / 1000.0, max.get() / 1000.0);
+    }
+
+    /**
+     * 按 1-2-5 毫秒区间合并后的分布图，每行一个区间
+     */
+    public String chart() {
+        long n = count();
+        if (n == 0) {
+            return "";
+        }
+        long[] groups = new long[CHART_BOUNDS_MS.length + 1];
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = counts.get(i);
+            if (c > 0) {
+                long bound = upperBound(i);
+                int group = 0;
+                while (group < CHART_BOUNDS_MS.length && bound >= CHART_BOUNDS_MS[group] * 1000) {
+                    group++;
+                }
+                groups[group] += c;
+            }
+        }
+        long peak = 0;
+        int first = -1;
+        int last = -1;
+        for (int g = 0; g < groups.length; g++) {
+            if (groups[g] > 0) {
+                peak = Math.max(peak, groups[g]);
+                first = first < 0 ? g : first;
+                last = g;
+            }
+        }
+        StringBuilder chart = new StringBuilder();
+        for (int g = first; g <= last; g++) {
+            String range = g == 0 ? "<" + CHART_BOUNDS_MS[0] + "ms"
+                    : g == CHART_BOUNDS_MS.length ? ">=" + CHART_BOUNDS_MS[g - 1] + "ms"
+                    : CHART_BOUNDS_MS[g - 1] + "-" + CHART_BOUNDS_MS[g] + "ms";
+            int width = (int) Math.round(40.0 * groups[g] / peak);
+            chart.append(String.format(Locale.ROOT, "  %14s %8d %6.2f%% %s%n",
+                    range, groups[g], 100.0 * groups[g] / n, "#".repeat(width)));
+        }
+        return chart.toString();
+    }
+}
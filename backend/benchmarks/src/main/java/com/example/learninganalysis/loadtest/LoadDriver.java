@@ -0,0 +1,325 @@
+package com.example.learninganalysis.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 开学高峰压测驱动
+ *
+ * 对运行中的服务按脚本场景发起 HTTP 请求，每类请求单独统计延迟分布、吞吐量和按状态码的错误率。
+ * 账号按 {@link DatasetGenerator} 的命名规则（studentN、teacherN，同一密码）选取，须先用生成器填充数据。
+ * 每个场景都是固定并发的闭环模型：concurrency 个虚拟线程各自循环发请求，直到完成总数。
+ *
+ * <pre>
+ * --base-url=http://localhost:8080   被测服务地址
+ * --scenario=all                     login-storm | registration-rush | bulk-approve | all
+ * --concurrency=200                  并发数
+ * --students=10000                   数据集中的学生数
+ * --teachers=100                     数据集中的教师数
+ * --password=password123             数据集的统一密码
+ * --logins=5000                      登录风暴的请求数
+ * --rush-students=2000               参与报名高峰的学生数
+ * --hot-activities=5                 热门活动数，活动ID为 1..N
+ * --hot-activity-capacity=100        热门活动容量，用于检查是否超卖
+ * --approve-teachers=50              参与批量审批的教师数
+ * --batch-size=20                    每页拉取并批量审批的申请数
+ * --timeout-ms=30000                 单个请求超时
+ * </pre>
+ *
+ * 报名高峰会真实写入报名记录，重复执行前须重新生成数据。
+ */
+public final class LoadDriver {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final Duration timeout;
+    private final int concurrency;
+    private final Map<String, String> options;
+
+    private LoadDriver(Map<String, String> options) {
+        this.options = options;
+        this.baseUrl = option("base-url", "http://localhost:8080").replaceAll("/+$", "");
+        this.timeout = Duration.ofMillis(intOption("timeout-ms", 30000));
+        this.concurrency = intOption("concurrency", 200);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("参数格式应为 --name=value: " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        LoadDriver driver = new LoadDriver(options);
+        String scenario = driver.option("scenario", "all");
+        switch (scenario) {
+            case "login-storm" -> driver.loginStorm();
+            case "registration-rush" -> driver.registrationRush();
+            case "bulk-approve" -> driver.bulkApprove();
+            case "all" -> {
+                driver.loginStorm();
+                driver.registrationRush();
+                driver.bulkApprove();
+            }
+            default -> throw new IllegalArgumentException("未知场景: " + scenario);
+        }
+    }
+
+    /**
+     * 登录风暴：随机学生账号集中登录
+     */
+    private void loginStorm() throws InterruptedException {
+        int students = intOption("students", 10000);
+        Operation login = new Operation("POST /api/auth/login");
+        runConcurrently(intOption("logins", 5000), i ->
+                login(login, "student" + ThreadLocalRandom.current().nextInt(students)));
+        report("登录风暴", List.of(login));
+    }
+
+    /**
+     * 报名高峰：一批学生先登录取得令牌，再同时报名少数热门活动
+     */
+    private void registrationRush() throws InterruptedException {
+        int students = intOption("students", 10000);
+        int rushStudents = Math.min(students, intOption("rush-students", 2000));
+        int hotActivities = intOption("hot-activities", 5);
+        int stride = Math.max(1, students / rushStudents);
+
+        Operation login = new Operation("POST /api/auth/login");
+        String[] tokens = new String[rushStudents];
+        runConcurrently(rushStudents, i -> tokens[i] = login(login, "student" + (i * stride)));
+
+        Operation register = new Operation("POST /api/student/activities/{id}/register");
+        runConcurrently(rushStudents, i -> {
+            if (tokens[i] != null) {
+                long activityId = i % hotActivities + 1;
+                send(register, HttpRequest.newBuilder(uri("/api/student/activities/" + activityId + "/register"))
+                        .header("Authorization", "Bearer " + tokens[i])
+                        .POST(HttpRequest.BodyPublishers.noBody()));
+            }
+        });
+
+        report("报名高峰", List.of(login, register));
+        long accepted = register.statusCount(200);
+        long capacity = (long) hotActivities * intOption("hot-activity-capacity", 100);
+        System.out.printf(Locale.ROOT, "报名成功 %d 次，热门活动总容量 %d%s%n%n", accepted, capacity,
+                accepted > capacity ? "，出现超卖" : "");
+    }
+
+    /**
+     * 教师批量审批：每位教师登录，按游标逐页拉取待处理申请，每页作为一批通过
+     */
+    private void bulkApprove() throws InterruptedException {
+        int teachers = Math.min(intOption("teachers", 100), intOption("approve-teachers", 50));
+        int batchSize = intOption("batch-size", 20);
+
+        Operation login = new Operation("POST /api/auth/login");
+        Operation list = new Operation("GET /api/classes/applications/teacher");
+        Operation approve = new Operation("POST /api/classes/applications/process");
+        LongAdder approved = new LongAdder();
+        LongAdder failed = new LongAdder();
+        runConcurrently(teachers, i -> {
+            String token = login(login, "teacher" + i);
+            if (token == null) {
+                return;
+            }
+            // 游标按申请ID递增，已通过的申请不影响后续页
+            String cursor = null;
+            do {
+                Reply pending = fetch(list, HttpRequest.newBuilder(uri("/api/classes/applications/teacher?limit=" + batchSize
+                                + (cursor != null ? "&cursor=" + cursor : "")))
+                        .header("Authorization", "Bearer " + token)
+                        .GET());
+                if (pending == null) {
+                    return;
+                }
+                List<Long> ids = new ArrayList<>();
+                pending.body().forEach(application -> ids.add(application.path("id").asLong()));
+                if (!ids.isEmpty()) {
+                    Map<String, Object> body = Map.of("applicationIds", ids, "action", "approve");
+                    JsonNode result = send(approve, HttpRequest.newBuilder(uri("/api/classes/applications/process"))
+                            .header("Authorization", "Bearer " + token)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(json(body))));
+                    if (result != null) {
+                        result.path("results").forEach(item -> (item.path("success").asBoolean() ? approved : failed).increment());
+                    }
+                }
+                cursor = pending.nextCursor();
+            } while (cursor != null);
+        });
+
+        report("教师批量审批", List.of(login, list, approve));
+        System.out.printf(Locale.ROOT, "申请通过 %d 条，单条失败 %d 条%n%n", approved.sum(), failed.sum());
+    }
+
+    /**
+     * 登录并返回令牌，失败时返回 null
+     */
+    private String login(Operation operation, String username) {
+        Map<String, String> body = Map.of("username", username, "password", option("password", "password123"));
+        JsonNode response = send(operation, HttpRequest.newBuilder(uri("/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json(body))));
+        return response == null ? null : response.path("token").asText(null);
+    }
+
+    /**
+     * 发送请求并计入统计，2xx 时返回解析后的响应体，其余情况返回 null
+     */
+    private JsonNode send(Operation operation, HttpRequest.Builder builder) {
+        Reply reply = fetch(operation, builder);
+        return reply == null ? null : reply.body();
+    }
+
+    /**
+     * 解析后的响应体与下一页游标，不分页的接口游标为 null
+     */
+    private record Reply(JsonNode body, String nextCursor) {
+    }
+
+    /**
+     * 发送请求并计入统计，2xx 时返回响应体和 X-Next-Cursor 响应头，其余情况返回 null
+     */
+    private Reply fetch(Operation operation, HttpRequest.Builder builder) {
+        HttpRequest request = builder.timeout(timeout).build();
+        long start = System.nanoTime();
+        try {
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            operation.record(System.nanoTime() - start, Integer.toString(response.statusCode()));
+            if (response.statusCode() / 100 != 2) {
+                return null;
+            }
+            byte[] body = response.body();
+            return new Reply(body.length == 0 ? MAPPER.nullNode() : MAPPER.readTree(body),
+                    response.headers().firstValue("X-Next-Cursor").orElse(null));
+        } catch (IOException e) {
+            operation.record(System.nanoTime() - start, e.getClass().getSimpleName());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * 以固定并发执行 total 个任务，任务序号从 0 开始
+     */
+    private void runConcurrently(int total, Task task) throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int worker = 0; worker < Math.min(concurrency, total); worker++) {
+                executor.execute(() -> {
+                    for (int i = next.getAndIncrement(); i < total; i = next.getAndIncrement()) {
+                        task.run(i);
+                    }
+                });
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run(int index);
+    }
+
+    private void report(String scenario, List<Operation> operations) {
+        System.out.println("==== " + scenario + "（并发 " + concurrency + "）====");
+        for (Operation operation : operations) {
+            System.out.println(operation.report());
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private String json(Object value) {
+        try {
+            return MAPPER.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+
+    /**
+     * 一类请求的统计：延迟分布、按状态码（或异常类型）的计数和持续时间
+     */
+    private static final class Operation {
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        private final long startedAt = System.nanoTime();
+        private volatile long finishedAt;
+
+        Operation(String name) {
+            this.name = name;
+        }
+
+        void record(long nanos, String outcome) {
+            latency.record(nanos / 1000);
+            outcomes.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+            finishedAt = System.nanoTime();
+        }
+
+        long statusCount(int status) {
+            LongAdder count = outcomes.get(Integer.toString(status));
+            return count == null ? 0 : count.sum();
+        }
+
+        String report() {
+            long total = latency.count();
+            if (total == 0) {
+                return name + ": 无请求\n";
+            }
+            long errors = 0;
+            Map<String, Long> sorted = new TreeMap<>();
+            for (Map.Entry<String, LongAdder> entry : outcomes.entrySet()) {
+                long count = entry.getValue().sum();
+                sorted.put(entry.getKey(), count);
+                if (!entry.getKey().startsWith("2")) {
+                    errors += count;
+                }
+            }
+            double seconds = Math.max(1e-9, (finishedAt - startedAt) / 1e9);
+            return String.format(Locale.ROOT, "%s%n  请求 %d，耗时 %.1fs，吞吐 %.1f 次/秒，错误率 %.2f%%，结果 %s%n  %s%n%s",
+                    name, total, seconds, total / seconds, 100.0 * errors / total, sorted,
+                    latency.summary(), latency.chart());
+        }
+    }
+}
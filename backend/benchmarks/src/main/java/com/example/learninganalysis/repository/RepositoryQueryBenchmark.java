@@ -0,0 +1,100 @@
+package com.example.learninganalysis.repository;
+
+import com.example.learninganalysis.LearningAnalysisApplication;
+import com.example.learninganalysis.dto.ActivityListItem;
+import com.example.learninganalysis.dto.AdminClassItem;
+import com.example.learninganalysis.dto.CursorPage;
+import com.example.learninganalysis.dto.StudentRosterItem;
+import com.example.learninganalysis.service.AdminService;
+import com.example.learninganalysis.service.TeacherStatsService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 列表查询在嵌入式数据库上的开销
+ *
+ * 以 MySQL 兼容模式的 H2 内存库启动完整的应用上下文（不启动 Web 服务器），
+ * 由 Flyway 迁移脚本建表（含索引）后按 students 参数填充数据，测量的是查询、结果映射和服务层处理的总开销。
+ * 绝对数值与 MySQL 不同，用于比较同一查询在改动前后的变化。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryQueryBenchmark {
+
+    /** 列表接口默认每页条数，多取一行判断是否有下一页 */
+    private static final Pageable FIRST_PAGE = CursorPage.probe(CursorPage.DEFAULT_LIMIT);
+
+    @Param({"5000"})
+    private int students;
+
+    private ConfigurableApplicationContext context;
+    private ActivityRepository activityRepository;
+    private ClassRepository classRepository;
+    private AdminService adminService;
+    private DatasetSeeder.Dataset dataset;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(LearningAnalysisApplication.class)
+                .web(WebApplicationType.NONE)
+                // 以命令行参数传入，优先级高于 application.properties 中的 MySQL 配置
+                .run("--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                                + "NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--avatar.storage-dir=" + System.getProperty("java.io.tmpdir") + "/bench-avatars");
+
+        dataset = new DatasetSeeder(context.getBean(JdbcTemplate.class)).seed(students);
+        activityRepository = context.getBean(ActivityRepository.class);
+        classRepository = context.getBean(ClassRepository.class);
+        adminService = context.getBean(AdminService.class);
+        context.getBean(TeacherStatsService.class).recountAll();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private long nextStudentId() {
+        next = (next + 1) % dataset.students();
+        return dataset.firstStudentId() + next;
+    }
+
+    @Benchmark
+    public List<ActivityListItem> activityListingWithParticipation() {
+        return activityRepository.findListingWithParticipation(nextStudentId(), null, null, FIRST_PAGE);
+    }
+
+    @Benchmark
+    public List<ActivityListItem> participatedActivities() {
+        return activityRepository.findListingByParticipantId(nextStudentId(), null, FIRST_PAGE);
+    }
+
+    @Benchmark
+    public Page<StudentRosterItem> studentRosterByClassCount() {
+        return adminService.getStudentRoster(null, next++ % 10, 50, "classCount,desc");
+    }
+
+    @Benchmark
+    public List<AdminClassItem> adminClassList() {
+        return classRepository.findAdminClassItems(null, FIRST_PAGE);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.dto.ActivityListItem;
+import com.example.learninganalysis.dto.DateFormats;
+import com.example.learninganalysis.model.Activity;
+import com.example.learninganalysis.model.ParticipationStatus;
+import com.example.learninganalysis.model.User;
+import com.example.learninganalysis.model.UserRole;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 活动列表响应的构造与序列化
+ *
+ * mapEntities 对应由实体构造响应的路径（单个活动、回退查询），
+ * serializeListItems 对应列表查询直接返回投影记录后的 JSON 序列化。
+ * mapToMaps、serializeMaps、mapToMapsAndSerialize 是改用记录之前逐行构造 HashMap、时间预先格式化为字符串的做法，
+ * 作为对照：比较同名基准的 gc.alloc.rate.norm 即为两种响应格式每次列表请求的分配差异。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ActivityMappingBenchmark {
+
+    @Param({"100", "2000"})
+    private int rows;
+
+    private List<Activity> activities;
+    private List<ActivityListItem> items;
+    private List<Map<String, Object>> maps;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        // 与应用中 Spring Boot 自动配置的 ObjectMapper 使用同一构建器
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        User creator = new User();
+        creator.setId(1L);
+        creator.setUsername("teacher01");
+        creator.setRole(UserRole.TEACHER);
+
+        LocalDateTime start = LocalDateTime.of(2025, 9, 1, 9, 0);
+        Activity.ActivityType[] types = Activity.ActivityType.values();
+        activities = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Activity activity = new Activity();
+            activity.setId((long) i + 1);
+            activity.setTitle("学术讲座第" + i + "期：人工智能前沿");
+            activity.setType(types[i % types.length]);
+            activity.setDescription("面向全校学生的系列讲座，第" + i + "期邀请校外专家分享研究进展。");
+            activity.setLocation("图书馆报告厅");
+            activity.setStartTime(start.plusHours(i));
+            activity.setEndTime(start.plusHours(i + 2));
+            activity.setStatus(Activity.ActivityStatus.UPCOMING);
+            activity.setMaxParticipants(200);
+            activity.setCurrentParticipants(i % 200);
+            activity.setOrganizer("计算机科学学院");
+            activity.setCreator(creator);
+            activities.add(activity);
+        }
+        items = mapEntities();
+        maps = mapToMaps();
+    }
+
+    @Benchmark
+    public List<ActivityListItem> mapEntities() {
+        List<ActivityListItem> result = new ArrayList<>(activities.size());
+        for (int i = 0; i < activities.size(); i++) {
+            result.add(ActivityListItem.of(activities.get(i), i % 3 == 0 ? ParticipationStatus.REGISTERED : null));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public byte[] serializeListItems() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(items);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(mapEntities());
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> mapToMaps() {
+        List<Map<String, Object>> result = new ArrayList<>(activities.size());
+        for (int i = 0; i < activities.size(); i++) {
+            Activity activity = activities.get(i);
+            Map<String, Object> activityMap = new HashMap<>();
+            activityMap.put("id", activity.getId());
+            activityMap.put("title", activity.getTitle());
+            activityMap.put("type", activity.getType().name());
+            activityMap.put("description", activity.getDescription());
+            activityMap.put("location", activity.getLocation());
+            activityMap.put("startTime", activity.getStartTime().format(DateFormats.DATE_TIME));
+            activityMap.put("endTime", activity.getEndTime().format(DateFormats.DATE_TIME));
+            activityMap.put("status", activity.getStatus().name());
+            activityMap.put("maxParticipants", activity.getMaxParticipants());
+            activityMap.put("currentParticipants", activity.getCurrentParticipants());
+            activityMap.put("organizer", activity.getOrganizer());
+            if (activity.getCreator() != null) {
+                activityMap.put("creatorName", activity.getCreator().getUsername());
+            }
+            if (i % 3 == 0) {
+                activityMap.put("participationStatus", ParticipationStatus.REGISTERED.name());
+            }
+            result.add(activityMap);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public byte[] serializeMaps() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(maps);
+    }
+
+    @Benchmark
+    public byte[] mapToMapsAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(mapToMaps());
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.dto.StudentRosterItem;
+import com.example.learninganalysis.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 管理员学生名单的分页参数解析与头像缩略图映射
+ *
+ * 仓库层以桩对象直接返回一页名单，只测量服务层的开销；
+ * 一半学生使用已生成缩略图的上传头像，其余为外部链接或空头像。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdminRosterBenchmark {
+
+    @Param({"20", "200"})
+    private int pageSize;
+
+    private AdminService adminService;
+    private AvatarStorageService avatarStorageService;
+    private Path storageDir;
+
+    @Setup
+    public void setUp() throws IOException {
+        storageDir = Files.createTempDirectory("bench-avatars");
+        avatarStorageService = new AvatarStorageService();
+        ReflectionTestUtils.setField(avatarStorageService, "storageDir", storageDir.toString());
+        ReflectionTestUtils.setField(avatarStorageService, "maxBytes", 10_485_760L);
+        ReflectionTestUtils.setField(avatarStorageService, "thumbnailSizes", new int[] {64, 256});
+        ReflectionTestUtils.setField(avatarStorageService, "maxPixels", 40_000_000L);
+        ReflectionTestUtils.setField(avatarStorageService, "resizeThreads", 1);
+        avatarStorageService.start();
+
+        LocalDateTime createdAt = LocalDateTime.of(2025, 9, 1, 8, 0);
+        List<StudentRosterItem> items = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            String avatarUrl = null;
+            if (i % 2 == 0) {
+                String hash = String.format("%064x", i);
+                Files.createFile(storageDir.resolve(hash + "-64.png"));
+                avatarUrl = AvatarStorageService.URL_PREFIX + hash + ".png";
+            } else if (i % 4 == 1) {
+                avatarUrl = "https://example.com/avatars/" + i + ".png";
+            }
+            items.add(new StudentRosterItem((long) i + 1, "学生" + i, "student" + i,
+                    "student" + i + "@example.com", avatarUrl, createdAt.plusMinutes(i), i % 4));
+        }
+
+        UserRepository userRepository = (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(), new Class<?>[] {UserRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findStudentRoster")) {
+                        Pageable pageable = (Pageable) args[1];
+                        return new PageImpl<>(items, pageable, 10_000);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+
+        adminService = new AdminService();
+        ReflectionTestUtils.setField(adminService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(adminService, "avatarStorageService", avatarStorageService);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        avatarStorageService.stop();
+        try (Stream<Path> files = Files.walk(storageDir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public Page<StudentRosterItem> studentRosterByClassCount() {
+        return adminService.getStudentRoster(null, 0, pageSize, "classCount,desc");
+    }
+
+    @Benchmark
+    public Page<StudentRosterItem> studentRosterByName() {
+        return adminService.getStudentRoster("学生", 0, pageSize, "name,asc");
+    }
+}
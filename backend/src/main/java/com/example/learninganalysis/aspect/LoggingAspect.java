@@ -2,14 +2,17 @@ package com.example.learninganalysis.aspect;
 
 import com.example.learninganalysis.model.OperationType;
 import com.example.learninganalysis.model.User;
+import com.example.learninganalysis.model.UserRole;
+import com.example.learninganalysis.service.AuditLogWriter;
 import com.example.learninganalysis.service.LogService;
-import com.example.learninganalysis.service.UserService;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.AfterReturning;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
@@ -18,6 +21,7 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 import jakarta.servlet.http.HttpServletRequest;
 import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 
 @Aspect
@@ -29,7 +33,7 @@ public class LoggingAspect {
     private LogService logService;
     
     @Autowired
-    private UserService userService;
+    private AuditLogWriter auditLogWriter;
 
     // 定义切点 - 所有控制器方法
     @Pointcut("execution(* com.example.learninganalysis.controller.*.*(..)) && !execution(* com.example.learninganalysis.controller.AuthController.login(..))")
@@ -43,29 +47,58 @@ public class LoggingAspect {
     @AfterReturning(pointcut = "loginMethod()", returning = "result")
     public void logLoginOperation(JoinPoint joinPoint, Object result) {
         try {
-            HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
             Object[] args = joinPoint.getArgs();
             
-            if (args.length > 0 && args[0] instanceof Map) {
+            String username = null;
+            if (args.length > 0 && args[0] instanceof User loginRequest) {
+                username = loginRequest.getUsername();
+            } else if (args.length > 0 && args[0] instanceof Map) {
                 Map<String, String> loginData = (Map<String, String>) args[0];
-                String username = loginData.get("username");
-                
-                if (username != null && !username.isEmpty()) {
-                    User user = userService.findByUsername(username);
-                    String ipAddress = logService.getClientIpAddress(request);
-                    
-                    logService.createLog(
-                            OperationType.USER_LOGIN,
-                            "用户登录成功: " + username,
-                            user,
-                            ipAddress
-                    );
-                }
+                username = loginData.get("username");
+            }
+            
+            if (username == null || username.isEmpty()) {
+                return;
+            }
+            
+            // 客户端IP须在请求线程上读取，异步登录完成时请求上下文已不可用
+            HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+            String ipAddress = logService.getClientIpAddress(request);
+            String loginUsername = username;
+            
+            // 登录接口在哈希线程池完成密码比对后才得到响应，此时再判断是否成功
+            if (result instanceof CompletableFuture<?> future) {
+                future.whenComplete((response, error) -> {
+                    if (error == null) {
+                        logLoginResult(response, loginUsername, ipAddress);
+                    }
+                });
+            } else {
+                logLoginResult(result, loginUsername, ipAddress);
             }
         } catch (Exception e) {
             logger.warning("记录登录日志失败: " + e.getMessage());
         }
     }
+    
+    // 登录失败时控制器同样正常返回，只记录成功的登录
+    private void logLoginResult(Object result, String username, String ipAddress) {
+        if (!(result instanceof ResponseEntity<?> response) || !response.getStatusCode().is2xxSuccessful()) {
+            return;
+        }
+        try {
+            // 用户ID与角色由写入器在批量插入时按用户名补全
+            auditLogWriter.submit(
+                    OperationType.USER_LOGIN,
+                    "用户登录成功: " + username,
+                    username,
+                    null,
+                    ipAddress
+            );
+        } catch (Exception e) {
+            logger.warning("记录登录日志失败: " + e.getMessage());
+        }
+    }
 
     // 控制器方法执行后记录日志
     @AfterReturning(pointcut = "controllerMethods()", returning = "result")
@@ -84,9 +117,9 @@ public class LoggingAspect {
                     return;
                 }
                 
-                // 获取当前用户
+                // 获取当前用户，角色直接取自认证信息，避免在请求线程上查询用户
                 String username = authentication.getName();
-                User user = userService.findByUsername(username);
+                UserRole userRole = resolveRole(authentication);
                 
                 // 获取操作类型
                 OperationType operationType = determineOperationType(request.getMethod(), joinPoint.getSignature().toString());
@@ -97,24 +130,39 @@ public class LoggingAspect {
                 }
                 
                 // 构建操作详情
-                String methodName = joinPoint.getSignature().getName();
-                String className = joinPoint.getTarget().getClass().getSimpleName();
-                String argsStr = Arrays.toString(joinPoint.getArgs());
-                String detail = className + "." + methodName + ": " + argsStr;
+                String detail = buildDetail(joinPoint.getTarget().getClass().getSimpleName(),
+                        joinPoint.getSignature().getName(), joinPoint.getArgs());
                 
                 // 获取客户端IP
                 String ipAddress = logService.getClientIpAddress(request);
                 
-                // 记录日志
-                logService.createLog(operationType, detail, user, ipAddress);
+                // 放入异步写入队列，由后台线程批量落库
+                auditLogWriter.submit(operationType, detail, username, userRole, ipAddress);
             }
         } catch (Exception e) {
             logger.warning("记录操作日志失败: " + e.getMessage());
         }
     }
     
+    // 从认证信息的权限中解析用户角色，无法解析时返回null由写入器补全
+    private UserRole resolveRole(Authentication authentication) {
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            try {
+                return UserRole.valueOf(authority.getAuthority());
+            } catch (IllegalArgumentException e) {
+                // 忽略非角色类权限
+            }
+        }
+        return null;
+    }
+    
+    // 操作详情：类名.方法名: 参数列表
+    String buildDetail(String className, String methodName, Object[] args) {
+        return className + "." + methodName + ": " + Arrays.toString(args);
+    }
+    
     // 根据HTTP方法和方法签名确定操作类型
-    private OperationType determineOperationType(String httpMethod, String signature) {
+    OperationType determineOperationType(String httpMethod, String signature) {
         if (signature.contains("ClassController") || signature.contains("AdminController") && signature.contains("class")) {
             if ("POST".equals(httpMethod)) {
                 return OperationType.CLASS_CREATE;
@@ -0,0 +1,17 @@
+package com.example.learninganalysis.config;
+
+import com.example.learninganalysis.model.UserRole;
+
+import java.security.Principal;
+
+/**
+ * 令牌校验通过后放入 SecurityContext 的当前用户
+ * 实现 Principal，Authentication.getName() 仍返回用户名
+ */
+public record AuthenticatedUser(Long id, String username, UserRole role) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
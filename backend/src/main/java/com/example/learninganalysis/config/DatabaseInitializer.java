@@ -3,6 +3,8 @@ package com.example.learninganalysis.config;
 import com.example.learninganalysis.model.User;
 import com.example.learninganalysis.model.UserRole;
 import com.example.learninganalysis.repository.UserRepository;
+import com.example.learninganalysis.service.ActivityStatusScheduler;
+import com.example.learninganalysis.service.SearchIndexService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
@@ -18,7 +20,7 @@ public class DatabaseInitializer {
 
     @Bean
     @Profile("dev")
-    public CommandLineRunner initDatabase(UserRepository userRepository) {
+    public CommandLineRunner initDatabase(UserRepository userRepository, SearchIndexService searchIndexService) {
         return args -> {
             // 检查是否已有管理员
             if (userRepository.count() == 0) {
@@ -32,9 +34,26 @@ public class DatabaseInitializer {
                 admin.setEmail("admin@example.com");
                 admin.setRole(UserRole.ADMIN);
                 userRepository.save(admin);
+                searchIndexService.onUserSaved(admin);
 
                 System.out.println("已创建管理员账号: admin/admin123");
             }
         };
     }
-} 
\ No newline at end of file
+
+    /**
+     * 启动时在后台线程中构建检索索引，构建完成前检索结果为空
+     */
+    @Bean
+    public CommandLineRunner buildSearchIndex(SearchIndexService searchIndexService) {
+        return args -> searchIndexService.startRebuild();
+    }
+
+    /**
+     * 装载未结束活动的开始、结束时间并启动状态切换时间轮，已到期的活动在第一个刻度补做切换
+     */
+    @Bean
+    public CommandLineRunner startActivityStatusScheduler(ActivityStatusScheduler activityStatusScheduler) {
+        return args -> activityStatusScheduler.start();
+    }
+}
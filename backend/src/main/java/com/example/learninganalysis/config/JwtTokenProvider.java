@@ -0,0 +1,153 @@
+package com.example.learninganalysis.config;
+
+import com.example.learninganalysis.model.User;
+import com.example.learninganalysis.model.UserRole;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * HS256 签名令牌的签发与校验
+ *
+ * 令牌为标准的 header.payload.signature 三段 base64url 结构，负载中携带用户ID、用户名、角色与过期时间。
+ * 校验通过的令牌按签名段缓存：签名本身就是整个令牌的 HMAC 摘要，命中后只需比较令牌原文与过期时间，
+ * 同一令牌的后续请求不再重复解码和计算签名。缓存容量由 jwt.cache.max-size 限制。
+ */
+@Component
+public class JwtTokenProvider {
+    private static final Logger logger = Logger.getLogger(JwtTokenProvider.class.getName());
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String HEADER = ENCODER.encodeToString(
+            "{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+    private static final long PURGE_INTERVAL_MS = 60_000;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    @Value("${jwt.expiration:86400000}")
+    private long expirationMs;
+
+    @Value("${jwt.cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    private final Map<String, CachedToken> verifiedTokens = new ConcurrentHashMap<>();
+    private volatile long lastPurgeAt;
+
+    // Mac 实例不是线程安全的，每个线程各持有一个
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::createMac);
+
+    /**
+     * 令牌负载
+     */
+    private record Claims(String sub, Long uid, UserRole role, long iat, long exp) {
+    }
+
+    private record CachedToken(String token, AuthenticatedUser user, long expiresAt) {
+    }
+
+    /**
+     * 为用户签发令牌
+     */
+    public String generateToken(User user) {
+        long now = System.currentTimeMillis();
+        Claims claims = new Claims(user.getUsername(), user.getId(), user.getRole(),
+                now / 1000, (now + expirationMs) / 1000);
+        try {
+            String payload = ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+            String unsigned = HEADER + "." + payload;
+            return unsigned + "." + ENCODER.encodeToString(sign(unsigned));
+        } catch (Exception e) {
+            throw new RuntimeException("生成令牌失败");
+        }
+    }
+
+    /**
+     * 校验令牌并返回其中的用户，签名不符、格式错误或已过期时返回 null
+     */
+    public AuthenticatedUser resolve(String token) {
+        int first = token.indexOf('.');
+        int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+        if (second < 0 || token.indexOf('.', second + 1) >= 0) {
+            return null;
+        }
+        String signature = token.substring(second + 1);
+        long now = System.currentTimeMillis();
+
+        CachedToken cached = verifiedTokens.get(signature);
+        if (cached != null && cached.token().equals(token)) {
+            if (cached.expiresAt() > now) {
+                return cached.user();
+            }
+            // 已过期的令牌移出缓存
+            verifiedTokens.remove(signature, cached);
+            return null;
+        }
+
+        try {
+            byte[] expected = sign(token.substring(0, second));
+            if (!MessageDigest.isEqual(expected, DECODER.decode(signature))) {
+                return null;
+            }
+            Claims claims = objectMapper.readValue(DECODER.decode(token.substring(first + 1, second)), Claims.class);
+            long expiresAt = claims.exp() * 1000;
+            if (claims.uid() == null || claims.sub() == null || claims.role() == null || expiresAt <= now) {
+                return null;
+            }
+
+            AuthenticatedUser user = new AuthenticatedUser(claims.uid(), claims.sub(), claims.role());
+            cache(signature, new CachedToken(token, user, expiresAt), now);
+            return user;
+        } catch (Exception e) {
+            logger.fine("令牌解析失败: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void cache(String signature, CachedToken entry, long now) {
+        if (verifiedTokens.size() >= cacheMaxSize) {
+            if (now - lastPurgeAt > PURGE_INTERVAL_MS) {
+                lastPurgeAt = now;
+                verifiedTokens.values().removeIf(cached -> cached.expiresAt() <= now);
+            }
+            // 清理过期令牌后仍然已满时，任意淘汰一项
+            Iterator<String> iterator = verifiedTokens.keySet().iterator();
+            while (verifiedTokens.size() >= cacheMaxSize && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        verifiedTokens.put(signature, entry);
+    }
+
+    private byte[] sign(String content) {
+        return macs.get().doFinal(content.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac createMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化令牌签名算法失败", e);
+        }
+    }
+}
@@ -1,16 +1,29 @@
 package com.example.learninganalysis.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
+
+    @Value("${avatar.storage-dir:uploads/avatars}")
+    private String avatarStorageDir;
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        // 头像文件按内容哈希命名且从不改写，可以永久缓存；ETag 直接取文件名，无需读取文件内容
         registry.addResourceHandler("/uploads/avatars/**")
-                .addResourceLocations("file:uploads/avatars/");
+                .addResourceLocations(Paths.get(avatarStorageDir).toAbsolutePath().toUri().toString())
+                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .setEtagGenerator(resource -> StringUtils.stripFilenameExtension(resource.getFilename()));
         
         registry.addResourceHandler("/default-avatar.png")
                 .addResourceLocations("classpath:static/default-avatar.png");
@@ -25,4 +38,4 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowCredentials(true)
                 .maxAge(3600);
     }
-} 
\ No newline at end of file
+} 
@@ -1,20 +1,50 @@
 package com.example.learninganalysis.controller;
 
+import com.example.learninganalysis.dto.AdminClassItem;
+import com.example.learninganalysis.dto.ClassOption;
+import com.example.learninganalysis.dto.CursorPage;
+import com.example.learninganalysis.dto.StudentRosterItem;
+import com.example.learninganalysis.dto.SystemLogEntry;
+import com.example.learninganalysis.dto.TeacherRosterItem;
 import com.example.learninganalysis.model.ClassEntity;
 import com.example.learninganalysis.model.SystemLog;
 import com.example.learninganalysis.model.User;
 import com.example.learninganalysis.model.UserRole;
+import com.example.learninganalysis.service.ActivityStatusScheduler;
 import com.example.learninganalysis.service.AdminService;
+import com.example.learninganalysis.service.AuditLogWriter;
 import com.example.learninganalysis.service.LogService;
+import com.example.learninganalysis.service.LoginAttemptThrottle;
+import com.example.learninganalysis.service.PasswordHashingService;
+import com.example.learninganalysis.service.SearchIndexService;
+import com.example.learninganalysis.service.StudentImportJob;
+import com.example.learninganalysis.service.StudentStatsRebuildJob;
+import com.example.learninganalysis.service.TeacherStatsService;
+import com.example.learninganalysis.service.UserResolver;
 import com.example.learninganalysis.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,6 +54,7 @@ import java.util.logging.Logger;
 @RequestMapping("/api/admin")
 public class AdminController {
     private static final Logger logger = Logger.getLogger(AdminController.class.getName());
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
 
     @Autowired
     private AdminService adminService;
@@ -34,6 +65,36 @@ public class AdminController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private AuditLogWriter auditLogWriter;
+
+    @Autowired
+    private StudentStatsRebuildJob studentStatsRebuildJob;
+
+    @Autowired
+    private TeacherStatsService teacherStatsService;
+
+    @Autowired
+    private StudentImportJob studentImportJob;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private ActivityStatusScheduler activityStatusScheduler;
+
+    @Autowired
+    private UserResolver userResolver;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private LoginAttemptThrottle loginAttemptThrottle;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * 验证调用者是否具有管理员权限
      */
@@ -50,14 +111,17 @@ public class AdminController {
     }
 
     /**
-     * 获取所有班级列表
+     * 获取班级列表，按 cursor、limit 分页
      */
     @GetMapping("/classes")
-    public ResponseEntity<?> getAllClasses(Authentication authentication) {
+    public ResponseEntity<?> getAllClasses(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
         try {
             validateAdmin(authentication);
-            List<Map<String, Object>> classes = adminService.getAllClasses();
-            return ResponseEntity.ok(classes);
+            CursorPage<AdminClassItem> classes = adminService.getAllClasses(cursor, limit);
+            return ResponseEntity.ok().headers(classes.headers()).body(classes.items());
         } catch (Exception e) {
             logger.warning("获取班级列表失败: " + e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -157,11 +221,18 @@ public class AdminController {
      * 获取所有教师列表
      */
     @GetMapping("/teachers")
-    public ResponseEntity<?> getAllTeachers(Authentication authentication) {
+    public ResponseEntity<?> getAllTeachers(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort,
+            Authentication authentication) {
         try {
             validateAdmin(authentication);
-            List<Map<String, Object>> teachers = adminService.getAllTeachers();
-            return ResponseEntity.ok(teachers);
+            Page<TeacherRosterItem> teachers = adminService.getTeacherRoster(keyword, page, size, sort);
+            return ResponseEntity.ok()
+                    .header(TOTAL_COUNT_HEADER, String.valueOf(teachers.getTotalElements()))
+                    .body(teachers.getContent());
         } catch (Exception e) {
             logger.warning("获取教师列表失败: " + e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -172,11 +243,14 @@ public class AdminController {
      * 获取未分配班级的教师列表
      */
     @GetMapping("/teachers/unassigned")
-    public ResponseEntity<?> getUnassignedTeachers(Authentication authentication) {
+    public ResponseEntity<?> getUnassignedTeachers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
         try {
             validateAdmin(authentication);
-            List<Map<String, Object>> teachers = adminService.getUnassignedTeachers();
-            return ResponseEntity.ok(teachers);
+            CursorPage<TeacherRosterItem> teachers = adminService.getUnassignedTeachers(cursor, limit);
+            return ResponseEntity.ok().headers(teachers.headers()).body(teachers.items());
         } catch (Exception e) {
             logger.warning("获取未分配教师列表失败: " + e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -192,27 +266,141 @@ public class AdminController {
             @RequestParam(required = false) String userRole,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
             Authentication authentication) {
         try {
             validateAdmin(authentication);
-            
-            UserRole role = null;
-            if (userRole != null && !userRole.isEmpty()) {
-                try {
-                    role = UserRole.valueOf(userRole.toUpperCase());
-                } catch (IllegalArgumentException e) {
-                    return ResponseEntity.badRequest().body("无效的用户角色");
-                }
+            UserRole role = parseUserRole(userRole);
+
+            CursorPage<SystemLogEntry> page = logService.findLogs(operationType, role, startTime, endTime, cursor, limit);
+            List<Map<String, Object>> logs = new ArrayList<>(page.items().size());
+            for (SystemLogEntry entry : page.items()) {
+                logs.add(logService.convertLogToMap(entry));
             }
-            
-            List<SystemLog> logs = logService.findLogs(operationType, role, startTime, endTime);
-            return ResponseEntity.ok(logs);
+
+            // 响应体保持数组结构，下一页游标通过响应头返回
+            return ResponseEntity.ok().headers(page.headers()).body(logs);
         } catch (Exception e) {
             logger.warning("查询系统日志失败: " + e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
+    /**
+     * 按条件导出系统日志，支持 csv 与 ndjson 两种格式
+     * 逐页查询并直接写入响应流，不会把全部日志加载到内存
+     */
+    @GetMapping("/logs/export")
+    public ResponseEntity<StreamingResponseBody> exportLogs(
+            @RequestParam(required = false) String operationType,
+            @RequestParam(required = false) String userRole,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(defaultValue = "csv") String format,
+            Authentication authentication) {
+        try {
+            validateAdmin(authentication);
+            UserRole role = parseUserRole(userRole);
+
+            boolean ndjson = "ndjson".equalsIgnoreCase(format);
+            if (!ndjson && !"csv".equalsIgnoreCase(format)) {
+                return exportError("不支持的导出格式");
+            }
+
+            StreamingResponseBody body = outputStream -> {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                if (!ndjson) {
+                    // 写入 BOM，便于 Excel 正确识别中文
+                    writer.write('\uFEFF');
+                    writer.write("id,operationType,operationDetail,userId,username,name,userRole,ipAddress,createdAt\n");
+                }
+                try {
+                    logService.forEachLog(operationType, role, startTime, endTime, entry -> {
+                        try {
+                            if (ndjson) {
+                                writer.write(objectMapper.writeValueAsString(logService.convertLogToMap(entry)));
+                                writer.write('\n');
+                            } else {
+                                writeCsvRow(writer, entry);
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                writer.flush();
+            };
+
+            String filename = "system_logs." + (ndjson ? "ndjson" : "csv");
+            return ResponseEntity.ok()
+                    .contentType(ndjson
+                            ? MediaType.parseMediaType("application/x-ndjson")
+                            : MediaType.parseMediaType("text/csv;charset=UTF-8"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                    .body(body);
+        } catch (Exception e) {
+            logger.warning("导出系统日志失败: " + e.getMessage());
+            return exportError(e.getMessage());
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> exportError(String message) {
+        byte[] bytes = String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.parseMediaType("text/plain;charset=UTF-8"))
+                .body(outputStream -> outputStream.write(bytes));
+    }
+
+    private UserRole parseUserRole(String userRole) {
+        if (userRole == null || userRole.isEmpty()) {
+            return null;
+        }
+        try {
+            return UserRole.valueOf(userRole.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("无效的用户角色");
+        }
+    }
+
+    private void writeCsvRow(Writer writer, SystemLogEntry entry) throws IOException {
+        writer.write(String.valueOf(entry.id()));
+        writer.write(',');
+        writer.write(csvField(entry.operationType()));
+        writer.write(',');
+        writer.write(csvField(entry.operationDetail()));
+        writer.write(',');
+        writer.write(entry.userId() != null ? String.valueOf(entry.userId()) : "");
+        writer.write(',');
+        writer.write(csvField(entry.username()));
+        writer.write(',');
+        writer.write(csvField(entry.userName()));
+        writer.write(',');
+        writer.write(entry.userRole() != null ? entry.userRole().name() : "");
+        writer.write(',');
+        writer.write(csvField(entry.ipAddress()));
+        writer.write(',');
+        writer.write(entry.createdAt() != null ? entry.createdAt().toString() : "");
+        writer.write('\n');
+    }
+
+    /**
+     * CSV 字段转义；以 = + - @ 或制表符、回车开头的值在表格软件中会被当作公式执行，前面加单引号作为文本并加引号
+     */
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean formula = !value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0;
+        if (!formula && value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + (formula ? "'" : "") + value.replace("\"", "\"\"") + '"';
+    }
+
     /**
      * 获取单条日志详情
      */
@@ -232,11 +420,18 @@ public class AdminController {
      * 获取所有学生列表
      */
     @GetMapping("/students")
-    public ResponseEntity<?> getAllStudents(Authentication authentication) {
+    public ResponseEntity<?> getAllStudents(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort,
+            Authentication authentication) {
         try {
             validateAdmin(authentication);
-            List<Map<String, Object>> students = adminService.getAllStudents();
-            return ResponseEntity.ok(students);
+            Page<StudentRosterItem> students = adminService.getStudentRoster(keyword, page, size, sort);
+            return ResponseEntity.ok()
+                    .header(TOTAL_COUNT_HEADER, String.valueOf(students.getTotalElements()))
+                    .body(students.getContent());
         } catch (Exception e) {
             logger.warning("获取学生列表失败: " + e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -247,14 +442,210 @@ public class AdminController {
      * 获取简化的班级列表（用于下拉选择等场景）
      */
     @GetMapping("/classes/simple")
-    public ResponseEntity<?> getSimpleClasses(Authentication authentication) {
+    public ResponseEntity<?> getSimpleClasses(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
         try {
             validateAdmin(authentication);
-            List<Map<String, Object>> classes = adminService.getSimpleClasses();
-            return ResponseEntity.ok(classes);
+            CursorPage<ClassOption> classes = adminService.getSimpleClasses(cursor, limit);
+            return ResponseEntity.ok().headers(classes.headers()).body(classes.items());
         } catch (Exception e) {
             logger.warning("获取简化班级列表失败: " + e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * 获取审计日志写入器的运行指标（队列占用、写入与丢弃计数）
+     */
+    @GetMapping("/metrics/audit-log")
+    public ResponseEntity<?> getAuditLogMetrics(Authentication authentication) {
+        try {
+            validateAdmin(authentication);
+            return ResponseEntity.ok(auditLogWriter.getMetrics());
+        } catch (Exception e) {
+            logger.warning("获取审计日志指标失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * 获取用户解析缓存的运行指标（命中、未命中、淘汰与作废计数）
+     */
+    @GetMapping("/metrics/user-cache")
+    public ResponseEntity<?> getUserCacheMetrics(Authentication authentication) {
+        try {
+            validateAdmin(authentication);
+            return ResponseEntity.ok(userResolver.getMetrics());
+        } catch (Exception e) {
+            logger.warning("获取用户缓存指标失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * 获取密码哈希线程池与登录限流的运行指标
+     */
+    @GetMapping("/metrics/password-hashing")
+    public ResponseEntity<?> getPasswordHashingMetrics(Authentication authentication) {
+        try {
+            validateAdmin(authentication);
+            Map<String, Object> metrics = new HashMap<>(passwordHashingService.getMetrics());
+            metrics.put("loginThrottle", loginAttemptThrottle.getMetrics());
+            return ResponseEntity.ok(metrics);
+        } catch (Exception e) {
+            logger.warning("获取密码哈希指标失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * 启动学生统计全量重建任务，任务在后台执行
+     */
+    @PostMapping("/stats/students/rebuild")
+    public ResponseEntity<?> rebuildStudentStats(Authentication authentication) {
+        try {
+            validateAdmin(authentication);
+            return ResponseEntity.accepted().body(studentStatsRebuildJob.start());
+        } catch (Exception e) {
+            logger.warning("启动学生统计重建失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * 获取学生统计重建任务的进度
+     */
+    @GetMapping("/stats/students/rebuild")
+    public ResponseEntity<?> getStudentStatsRebuildStatus(Authentication authentication) {
+        try {
+            validateAdmin(authentication);
+            return ResponseEntity.ok(studentStatsRebuildJob.getStatus());
+        } catch (Exception e) {
+            logger.warning("获取学生统计重建进度失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * 按成员关系与学习目标重算全部班级的计数，并作废教师汇总
+     */
+    @PostMapping("/stats/classes/recount")
+    public ResponseEntity<?> recountClassCounters(Authentication authentication) {
+        try {
+            validateAdmin(authentication);
+            Map<String, Object> result = new HashMap<>();
+            result.put("updatedClasses", teacherStatsService.recountAll());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.warning("重算班级计数失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * 检索活动、班级与全部用户，type 为 activity、class 或 user 时只检索该类
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam String q,
+                                    @RequestParam(required = false) String type,
+                                    @RequestParam(required = false) Integer limit,
+                                    Authentication authentication) {
+        try {
+            validateAdmin(authentication);
+            return ResponseEntity.ok(searchIndexService.searchForAdmin(q, type, limit));
+        } catch (Exception e) {
+            logger.warning("检索失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * 在后台全量重建检索索引，重建期间检索仍使用旧索引
+     */
+    @PostMapping("/search/rebuild")
+    public ResponseEntity<?> rebuildSearchIndex(Authentication authentication) {
+        try {
+            validateAdmin(authentication);
+            return ResponseEntity.accepted().body(searchIndexService.startRebuild());
+        } catch (Exception e) {
+            logger.warning("启动检索索引重建失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * 获取检索索引的规模、构建耗时与平均检索耗时
+     */
+    @GetMapping("/metrics/search-index")
+    public ResponseEntity<?> getSearchIndexMetrics(Authentication authentication) {
+        try {
+            validateAdmin(authentication);
+            return ResponseEntity.ok(searchIndexService.getMetrics());
+        } catch (Exception e) {
+            logger.warning("获取检索索引指标失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * 获取活动状态调度的待执行切换数与已执行的开始、结束数
+     */
+    @GetMapping("/metrics/activity-status")
+    public ResponseEntity<?> getActivityStatusMetrics(Authentication authentication) {
+        try {
+            validateAdmin(authentication);
+            return ResponseEntity.ok(activityStatusScheduler.getMetrics());
+        } catch (Exception e) {
+            logger.warning("获取活动状态调度指标失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * 上传学生 CSV 并启动批量导入任务，任务在后台执行
+     */
+    @PostMapping("/students/import")
+    public ResponseEntity<?> importStudents(@RequestParam("file") MultipartFile file,
+                                            Authentication authentication) {
+        Path tempFile = null;
+        try {
+            validateAdmin(authentication);
+            if (file.isEmpty()) {
+                return ResponseEntity.badRequest().body("导入文件不能为空");
+            }
+            // 上传文件在请求结束后被清理，先转存到临时文件再交给后台任务
+            tempFile = Files.createTempFile("student-import-", ".csv");
+            file.transferTo(tempFile);
+            Map<String, Object> status = studentImportJob.start(tempFile, file.getOriginalFilename());
+            tempFile = null;
+            return ResponseEntity.accepted().body(status);
+        } catch (Exception e) {
+            logger.warning("启动学生导入失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    logger.warning("删除导入临时文件失败: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取学生导入任务的进度与错误行
+     */
+    @GetMapping("/students/import")
+    public ResponseEntity<?> getStudentImportStatus(Authentication authentication) {
+        try {
+            validateAdmin(authentication);
+            return ResponseEntity.ok(studentImportJob.getStatus());
+        } catch (Exception e) {
+            logger.warning("获取学生导入进度失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -1,25 +1,30 @@
 package com.example.learninganalysis.controller;
 
+import com.example.learninganalysis.config.JwtTokenProvider;
 import com.example.learninganalysis.model.ClassEntity;
 import com.example.learninganalysis.model.User;
 import com.example.learninganalysis.model.UserRole;
 import com.example.learninganalysis.repository.ClassRepository;
+import com.example.learninganalysis.service.AvatarStorageService;
+import com.example.learninganalysis.service.PasswordHashingService;
 import com.example.learninganalysis.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Logger;
 
 @RestController
@@ -32,6 +37,12 @@ public class AuthController {
     
     @Autowired
     private ClassRepository classRepository;
+    
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private AvatarStorageService avatarStorageService;
 
     @PostMapping(value = "/register", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> register(
@@ -118,23 +129,9 @@ public class AuthController {
             }
 
             if (avatar != null && !avatar.isEmpty()) {
-                String fileExtension = StringUtils.getFilenameExtension(avatar.getOriginalFilename());
-                String uniqueFilename = UUID.randomUUID().toString() + "." + fileExtension;
-                
-                // 使用File.separator确保跨平台兼容
-                String uploadDir = System.getProperty("user.dir") + File.separator + "uploads" + File.separator + "avatars";
-                File directory = new File(uploadDir);
-                if (!directory.exists()) {
-                    directory.mkdirs();
-                }
-                
-                String filePath = uploadDir + File.separator + uniqueFilename;
-                File dest = new File(filePath);
-                avatar.transferTo(dest);
-                
-                // 保存头像相对路径
-                user.setAvatarUrl("uploads/avatars/" + uniqueFilename);
-                logger.info("头像已上传: " + filePath);
+                // 按内容哈希保存，相同图片只存一份
+                user.setAvatarUrl(avatarStorageService.store(avatar));
+                logger.info("头像已上传: " + user.getAvatarUrl());
             } else {
                 // 设置默认头像
                 user.setAvatarUrl("/default-avatar.png");
@@ -170,17 +167,22 @@ public class AuthController {
         }
     }
 
+    /**
+     * 登录：密码比对在哈希线程池中完成，期间不占用请求线程
+     */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody User loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody User loginRequest) {
+        logger.info("收到登录请求: " + loginRequest.getUsername());
+        CompletableFuture<User> authentication;
         try {
-            logger.info("收到登录请求: " + loginRequest.getUsername());
-            User user = userService.validateUserCredentials(loginRequest.getUsername(), loginRequest.getPassword());
-            
-            // 生成token (username.role.uuid)
-            String token = String.format("%s.%s.%s", 
-                user.getUsername(), 
-                user.getRole(), 
-                UUID.randomUUID().toString());
+            authentication = userService.authenticate(loginRequest.getUsername(), loginRequest.getPassword());
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(loginFailure(e));
+        }
+        
+        return authentication.<ResponseEntity<?>>thenApply(user -> {
+            // 生成签名令牌，负载中携带用户ID与角色
+            String token = jwtTokenProvider.generateToken(user);
             
             logger.info("生成token成功，用户: " + user.getUsername() + ", 角色: " + user.getRole());
             
@@ -205,12 +207,21 @@ public class AuthController {
             
             logger.info("登录成功，返回用户信息: " + user.getUsername());
             return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
-            logger.warning("登录失败: " + e.getMessage());
-            Map<String, String> errorResponse = new HashMap<>();
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.badRequest().body(errorResponse);
+        }).exceptionally(e -> loginFailure(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e));
+    }
+    
+    private ResponseEntity<?> loginFailure(Throwable e) {
+        Map<String, String> errorResponse = new HashMap<>();
+        if (e instanceof PasswordHashingService.HashingRejectedException || e instanceof TimeoutException) {
+            // 哈希线程池繁忙，提示客户端稍后重试
+            logger.warning("登录请求被拒绝: " + e.getMessage());
+            errorResponse.put("message", e instanceof TimeoutException ? "登录处理超时，请稍后重试" : e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(errorResponse);
         }
+        logger.warning("登录失败: " + e.getMessage());
+        errorResponse.put("message", e.getMessage());
+        return ResponseEntity.badRequest().body(errorResponse);
     }
 
     @PostMapping("/logout")
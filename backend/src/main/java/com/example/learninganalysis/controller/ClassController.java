@@ -1,11 +1,17 @@
 package com.example.learninganalysis.controller;
 
+import com.example.learninganalysis.config.AuthenticatedUser;
+import com.example.learninganalysis.dto.CursorPage;
 import com.example.learninganalysis.model.*;
+import com.example.learninganalysis.service.CatalogVersionService;
+import com.example.learninganalysis.service.CatalogVersionService.Catalog;
 import com.example.learninganalysis.service.ClassService;
 import com.example.learninganalysis.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -25,13 +31,36 @@ public class ClassController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+    
     /**
-     * 获取所有班级
+     * 从认证信息中取出当前用户并校验角色
+     */
+    private AuthenticatedUser currentUser(Authentication authentication, UserRole role, String message) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
+            throw new RuntimeException("无效的认证信息");
+        }
+        if (user.role() != role) {
+            throw new RuntimeException(message);
+        }
+        return user;
+    }
+    
+    /**
+     * 获取班级列表，按 cursor、limit 分页
      */
     @GetMapping
-    public ResponseEntity<?> getAllClasses() {
-        List<ClassEntity> classes = classService.getClassesNotJoinedByStudent(null);
-        return ResponseEntity.ok(classes);
+    public ResponseEntity<?> getAllClasses(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            CursorPage<ClassEntity> classes = classService.getClassesNotJoinedByStudent(null, cursor, limit);
+            return ResponseEntity.ok().headers(classes.headers()).body(classes.items());
+        } catch (Exception e) {
+            logger.severe("获取班级列表失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
     
     /**
@@ -40,29 +69,10 @@ public class ClassController {
     @PostMapping
     public ResponseEntity<?> createClass(
             @RequestBody ClassEntity classEntity,
-            @RequestHeader("Authorization") String token) {
+            Authentication authentication) {
         try {
-            // 检查并移除Bearer前缀
-            if (token.startsWith("Bearer ")) {
-                token = token.substring(7);
-            }
-            
-            String[] parts = token.split("\\.");
-            if (parts.length < 3) {  // 修改为至少有3部分
-                logger.severe("无效的token格式: " + token);
-                return ResponseEntity.badRequest().body("无效的认证信息");
-            }
-            
-            String username = parts[0];
-            String role = parts[1];
-            // UUID 在 parts[2]，不需要使用
-            
-            if (!role.equals("TEACHER")) {
-                return ResponseEntity.badRequest().body("只有教师可以创建班级");
-            }
-            
-            User teacher = userService.findByUsername(username);
-            ClassEntity createdClass = classService.createClass(classEntity, teacher);
+            AuthenticatedUser teacher = currentUser(authentication, UserRole.TEACHER, "只有教师可以创建班级");
+            ClassEntity createdClass = classService.createClass(classEntity, userService.findById(teacher.id()));
             
             return ResponseEntity.ok(createdClass);
         } catch (Exception e) {
@@ -75,31 +85,20 @@ public class ClassController {
      * 获取教师创建的班级
      */
     @GetMapping("/teacher")
-    public ResponseEntity<?> getTeacherClasses(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> getTeacherClasses(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication, WebRequest request) {
         try {
-            // 检查并移除Bearer前缀
-            if (token.startsWith("Bearer ")) {
-                token = token.substring(7);
+            AuthenticatedUser teacher = currentUser(authentication, UserRole.TEACHER, "只有教师可以访问此接口");
+            String etag = catalogVersionService.etag(teacher.id(), cursor, CursorPage.limit(limit), Catalog.CLASSES);
+            if (request.checkNotModified(etag)) {
+                return null;
             }
+            CursorPage<ClassEntity> classes = classService.getTeacherClasses(teacher.id(), cursor, limit);
             
-            String[] parts = token.split("\\.");
-            if (parts.length < 3) {  // 修改为至少有3部分
-                logger.severe("无效的token格式: " + token);
-                return ResponseEntity.badRequest().body("无效的认证信息");
-            }
-            
-            String username = parts[0];
-            String role = parts[1];
-            // UUID 在 parts[2]，不需要使用
-            
-            if (!role.equals("TEACHER")) {
-                return ResponseEntity.badRequest().body("只有教师可以访问此接口");
-            }
-            
-            User teacher = userService.findByUsername(username);
-            List<ClassEntity> classes = classService.getTeacherClasses(teacher.getId());
-            
-            return ResponseEntity.ok(classes);
+            return ResponseEntity.ok().cacheControl(CatalogVersionService.CACHE_CONTROL).eTag(etag)
+                    .headers(classes.headers()).body(classes.items());
         } catch (Exception e) {
             logger.severe("获取教师班级失败: " + e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -110,31 +109,15 @@ public class ClassController {
      * 获取学生已加入的班级
      */
     @GetMapping("/student/joined")
-    public ResponseEntity<?> getStudentClasses(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> getStudentClasses(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
         try {
-            // 检查并移除Bearer前缀
-            if (token.startsWith("Bearer ")) {
-                token = token.substring(7);
-            }
-            
-            String[] parts = token.split("\\.");
-            if (parts.length < 3) {  // 修改为至少有3部分
-                logger.severe("无效的token格式: " + token);
-                return ResponseEntity.badRequest().body("无效的认证信息");
-            }
-            
-            String username = parts[0];
-            String role = parts[1];
-            // UUID 在 parts[2]，不需要使用
-            
-            if (!role.equals("STUDENT")) {
-                return ResponseEntity.badRequest().body("只有学生可以访问此接口");
-            }
+            AuthenticatedUser student = currentUser(authentication, UserRole.STUDENT, "只有学生可以访问此接口");
+            CursorPage<ClassEntity> classes = classService.getStudentClasses(student.id(), cursor, limit);
             
-            User student = userService.findByUsername(username);
-            List<ClassEntity> classes = classService.getStudentClasses(student);
-            
-            return ResponseEntity.ok(classes);
+            return ResponseEntity.ok().headers(classes.headers()).body(classes.items());
         } catch (Exception e) {
             logger.severe("获取学生班级失败: " + e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -145,33 +128,20 @@ public class ClassController {
      * 获取学生未加入的班级
      */
     @GetMapping("/student/available")
-    public ResponseEntity<?> getAvailableClasses(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> getAvailableClasses(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication, WebRequest request) {
         try {
-            logger.info("获取可用班级请求，token: " + token);
-            // 检查并移除Bearer前缀
-            if (token.startsWith("Bearer ")) {
-                token = token.substring(7);
-            }
-            
-            String[] parts = token.split("\\.");
-            if (parts.length < 3) {
-                logger.severe("无效的token格式: " + token);
-                return ResponseEntity.badRequest().body("无效的认证信息");
-            }
-            
-            String username = parts[0];
-            String role = parts[1];
-            
-            logger.info("解析的用户名: " + username + ", 角色: " + role);
-            
-            if (!role.equals("STUDENT")) {
-                return ResponseEntity.badRequest().body("只有学生可以访问此接口");
+            AuthenticatedUser student = currentUser(authentication, UserRole.STUDENT, "只有学生可以访问此接口");
+            String etag = catalogVersionService.etag(student.id(), cursor, CursorPage.limit(limit), Catalog.CLASSES);
+            if (request.checkNotModified(etag)) {
+                return null;
             }
+            CursorPage<ClassEntity> classes = classService.getClassesNotJoinedByStudent(student.id(), cursor, limit);
             
-            User student = userService.findByUsername(username);
-            List<ClassEntity> classes = classService.getClassesNotJoinedByStudent(student.getId());
-            
-            return ResponseEntity.ok(classes);
+            return ResponseEntity.ok().cacheControl(CatalogVersionService.CACHE_CONTROL).eTag(etag)
+                    .headers(classes.headers()).body(classes.items());
         } catch (Exception e) {
             logger.severe("获取可用班级失败: " + e.getMessage());
             e.printStackTrace();
@@ -186,33 +156,12 @@ public class ClassController {
     public ResponseEntity<?> applyToJoinClass(
             @PathVariable Long classId,
             @RequestBody Map<String, String> body,
-            @RequestHeader("Authorization") String token) {
+            Authentication authentication) {
         try {
-            logger.info("申请加入班级请求，token: " + token);
-            // 检查并移除Bearer前缀
-            if (token.startsWith("Bearer ")) {
-                token = token.substring(7);
-            }
-            
-            String[] parts = token.split("\\.");
-            if (parts.length < 3) {
-                logger.severe("无效的token格式: " + token);
-                return ResponseEntity.badRequest().body("无效的认证信息");
-            }
-            
-            String username = parts[0];
-            String role = parts[1];
-            
-            logger.info("解析的用户名: " + username + ", 角色: " + role);
-            
-            if (!role.equals("STUDENT")) {
-                return ResponseEntity.badRequest().body("只有学生可以申请加入班级");
-            }
-            
-            User student = userService.findByUsername(username);
+            AuthenticatedUser student = currentUser(authentication, UserRole.STUDENT, "只有学生可以申请加入班级");
             String message = body.getOrDefault("message", "");
             
-            ClassApplication application = classService.applyToJoinClass(student.getId(), classId, message);
+            ClassApplication application = classService.applyToJoinClass(student.id(), classId, message);
             
             return ResponseEntity.ok(application);
         } catch (Exception e) {
@@ -227,33 +176,20 @@ public class ClassController {
      */
     @GetMapping("/applications/student")
     public ResponseEntity<?> getStudentApplications(
-            @RequestHeader("Authorization") String token) {
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication, WebRequest request) {
         try {
-            logger.info("获取学生申请记录请求，token: " + token);
-            // 检查并移除Bearer前缀
-            if (token.startsWith("Bearer ")) {
-                token = token.substring(7);
-            }
-            
-            String[] parts = token.split("\\.");
-            if (parts.length < 3) {
-                logger.severe("无效的token格式: " + token);
-                return ResponseEntity.badRequest().body("无效的认证信息");
+            AuthenticatedUser student = currentUser(authentication, UserRole.STUDENT, "只有学生可以访问此接口");
+            String etag = catalogVersionService.etag(student.id(), cursor, CursorPage.limit(limit),
+                    Catalog.APPLICATIONS, Catalog.CLASSES);
+            if (request.checkNotModified(etag)) {
+                return null;
             }
-            
-            String username = parts[0];
-            String role = parts[1];
-            // UUID 在 parts[2]，不需要使用
-            
-            if (!role.equals("STUDENT")) {
-                return ResponseEntity.badRequest().body("只有学生可以访问此接口");
-            }
-            
-            User student = userService.findByUsername(username);
-            List<ClassApplication> applications = classService.getStudentApplications(student.getId());
+            CursorPage<ClassApplication> applications = classService.getStudentApplications(student.id(), cursor, limit);
             
             // 转换为包含班级名称的响应
-            List<Map<String, Object>> response = applications.stream().map(app -> {
+            List<Map<String, Object>> response = applications.items().stream().map(app -> {
                 Map<String, Object> appData = new HashMap<>();
                 appData.put("id", app.getId());
                 appData.put("status", app.getStatus());
@@ -271,7 +207,8 @@ public class ClassController {
                 return appData;
             }).collect(Collectors.toList());
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().cacheControl(CatalogVersionService.CACHE_CONTROL).eTag(etag)
+                    .headers(applications.headers()).body(response);
         } catch (Exception e) {
             logger.severe("获取学生申请记录失败: " + e.getMessage());
             e.printStackTrace();
@@ -283,32 +220,21 @@ public class ClassController {
      * 获取教师需要处理的申请
      */
     @GetMapping("/applications/teacher")
-    public ResponseEntity<?> getTeacherApplications(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> getTeacherApplications(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication, WebRequest request) {
         try {
-            // 检查并移除Bearer前缀
-            if (token.startsWith("Bearer ")) {
-                token = token.substring(7);
-            }
-            
-            String[] parts = token.split("\\.");
-            if (parts.length < 3) {  // 修改为至少有3部分
-                logger.severe("无效的token格式: " + token);
-                return ResponseEntity.badRequest().body("无效的认证信息");
+            AuthenticatedUser teacher = currentUser(authentication, UserRole.TEACHER, "只有教师可以访问此接口");
+            String etag = catalogVersionService.etag(teacher.id(), cursor, CursorPage.limit(limit),
+                    Catalog.APPLICATIONS, Catalog.CLASSES);
+            if (request.checkNotModified(etag)) {
+                return null;
             }
-            
-            String username = parts[0];
-            String role = parts[1];
-            // UUID 在 parts[2]，不需要使用
-            
-            if (!role.equals("TEACHER")) {
-                return ResponseEntity.badRequest().body("只有教师可以访问此接口");
-            }
-            
-            User teacher = userService.findByUsername(username);
-            List<ClassApplication> applications = classService.getPendingApplicationsForTeacher(teacher.getId());
+            CursorPage<ClassApplication> applications = classService.getPendingApplicationsForTeacher(teacher.id(), cursor, limit);
             
             // 转换为包含学生姓名的响应
-            List<Map<String, Object>> response = applications.stream().map(app -> {
+            List<Map<String, Object>> response = applications.items().stream().map(app -> {
                 Map<String, Object> appData = new HashMap<>();
                 appData.put("id", app.getId());
                 appData.put("status", app.getStatus());
@@ -330,7 +256,8 @@ public class ClassController {
                 return appData;
             }).collect(Collectors.toList());
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().cacheControl(CatalogVersionService.CACHE_CONTROL).eTag(etag)
+                    .headers(applications.headers()).body(response);
         } catch (Exception e) {
             logger.severe("获取教师申请列表失败: " + e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -344,28 +271,9 @@ public class ClassController {
     public ResponseEntity<?> processApplication(
             @PathVariable Long applicationId,
             @RequestBody Map<String, Object> body,
-            @RequestHeader("Authorization") String token) {
+            Authentication authentication) {
         try {
-            // 检查并移除Bearer前缀
-            if (token.startsWith("Bearer ")) {
-                token = token.substring(7);
-            }
-            
-            String[] parts = token.split("\\.");
-            if (parts.length < 3) {  // 修改为至少有3部分
-                logger.severe("无效的token格式: " + token);
-                return ResponseEntity.badRequest().body("无效的认证信息");
-            }
-            
-            String username = parts[0];
-            String role = parts[1];
-            // UUID 在 parts[2]，不需要使用
-            
-            if (!role.equals("TEACHER")) {
-                return ResponseEntity.badRequest().body("只有教师可以处理申请");
-            }
-            
-            User teacher = userService.findByUsername(username);
+            AuthenticatedUser teacher = currentUser(authentication, UserRole.TEACHER, "只有教师可以处理申请");
             String statusStr = (String) body.get("status");
             ApplicationStatus newStatus = ApplicationStatus.valueOf(statusStr);
             
@@ -374,7 +282,7 @@ public class ClassController {
                 rejectReason = (String) body.getOrDefault("rejectReason", "");
             }
             
-            ClassApplication application = classService.processApplication(applicationId, newStatus, rejectReason, teacher.getId());
+            ClassApplication application = classService.processApplication(applicationId, newStatus, rejectReason, teacher.id());
             
             return ResponseEntity.ok(application);
         } catch (Exception e) {
@@ -389,29 +297,10 @@ public class ClassController {
     @DeleteMapping("/applications/{applicationId}")
     public ResponseEntity<?> cancelApplication(
             @PathVariable Long applicationId,
-            @RequestHeader("Authorization") String token) {
+            Authentication authentication) {
         try {
-            // 检查并移除Bearer前缀
-            if (token.startsWith("Bearer ")) {
-                token = token.substring(7);
-            }
-            
-            String[] parts = token.split("\\.");
-            if (parts.length < 3) {  // 修改为至少有3部分
-                logger.severe("无效的token格式: " + token);
-                return ResponseEntity.badRequest().body("无效的认证信息");
-            }
-            
-            String username = parts[0];
-            String role = parts[1];
-            // UUID 在 parts[2]，不需要使用
-            
-            if (!role.equals("STUDENT")) {
-                return ResponseEntity.badRequest().body("只有学生可以取消申请");
-            }
-            
-            User student = userService.findByUsername(username);
-            classService.cancelApplication(applicationId, student.getId());
+            AuthenticatedUser student = currentUser(authentication, UserRole.STUDENT, "只有学生可以取消申请");
+            classService.cancelApplication(applicationId, student.id());
             
             return ResponseEntity.ok("申请已取消");
         } catch (Exception e) {
@@ -441,28 +330,10 @@ public class ClassController {
     public ResponseEntity<?> updateClass(
             @PathVariable Long classId,
             @RequestBody ClassEntity updatedClass,
-            @RequestHeader("Authorization") String token) {
+            Authentication authentication) {
         try {
-            // 检查并移除Bearer前缀
-            if (token.startsWith("Bearer ")) {
-                token = token.substring(7);
-            }
-            
-            String[] parts = token.split("\\.");
-            if (parts.length < 3) {  // 添加这部分检查
-                logger.severe("无效的token格式: " + token);
-                return ResponseEntity.badRequest().body("无效的认证信息");
-            }
-            
-            String username = parts[0];
-            String role = parts[1];
-            
-            if (!role.equals("TEACHER")) {
-                return ResponseEntity.badRequest().body("只有教师可以更新班级");
-            }
-            
-            User teacher = userService.findByUsername(username);
-            ClassEntity classEntity = classService.updateClass(classId, updatedClass, teacher.getId());
+            AuthenticatedUser teacher = currentUser(authentication, UserRole.TEACHER, "只有教师可以更新班级");
+            ClassEntity classEntity = classService.updateClass(classId, updatedClass, teacher.id());
             
             return ResponseEntity.ok(classEntity);
         } catch (Exception e) {
@@ -478,29 +349,10 @@ public class ClassController {
     public ResponseEntity<?> removeStudentFromClass(
             @PathVariable Long classId,
             @PathVariable Long studentId,
-            @RequestHeader("Authorization") String token) {
+            Authentication authentication) {
         try {
-            // 检查并移除Bearer前缀
-            if (token.startsWith("Bearer ")) {
-                token = token.substring(7);
-            }
-            
-            String[] parts = token.split("\\.");
-            if (parts.length < 3) {  // 添加这部分检查
-                logger.severe("无效的token格式: " + token);
-                return ResponseEntity.badRequest().body("无效的认证信息");
-            }
-            
-            String username = parts[0];
-            String role = parts[1];
-            // UUID 在 parts[2]，不需要使用
-            
-            if (!role.equals("TEACHER")) {
-                return ResponseEntity.badRequest().body("只有教师可以移除学生");
-            }
-            
-            User teacher = userService.findByUsername(username);
-            classService.removeStudentFromClass(classId, studentId, teacher.getId());
+            AuthenticatedUser teacher = currentUser(authentication, UserRole.TEACHER, "只有教师可以移除学生");
+            classService.removeStudentFromClass(classId, studentId, teacher.id());
             
             Map<String, String> response = new HashMap<>();
             response.put("message", "学生已从班级中移除");
@@ -517,35 +369,16 @@ public class ClassController {
     @PostMapping("/applications/process")
     public ResponseEntity<?> processBatchApplications(
             @RequestBody Map<String, Object> body,
-            @RequestHeader("Authorization") String token) {
+            Authentication authentication) {
         try {
-            // 检查并移除Bearer前缀
-            if (token.startsWith("Bearer ")) {
-                token = token.substring(7);
-            }
-            
-            String[] parts = token.split("\\.");
-            if (parts.length < 3) {
-                logger.severe("无效的token格式: " + token);
-                return ResponseEntity.badRequest().body("无效的认证信息");
-            }
-            
-            String username = parts[0];
-            String role = parts[1];
-            // UUID 在 parts[2]，不需要使用
-            
-            if (!role.equals("TEACHER")) {
-                return ResponseEntity.badRequest().body("只有教师可以处理申请");
-            }
-            
-            User teacher = userService.findByUsername(username);
+            AuthenticatedUser teacher = currentUser(authentication, UserRole.TEACHER, "只有教师可以处理申请");
             
             // 获取申请ID列表并确保转换为Long类型
-            List<Integer> rawIds = (List<Integer>) body.get("applicationIds");
+            List<Number> rawIds = (List<Number>) body.get("applicationIds");
             List<Long> applicationIds = new ArrayList<>();
             
             if (rawIds != null) {
-                for (Integer id : rawIds) {
+                for (Number id : rawIds) {
                     applicationIds.add(id.longValue()); // 明确转换为Long类型
                 }
                 logger.info("处理申请IDs: " + applicationIds);
@@ -571,27 +404,9 @@ public class ClassController {
                 rejectReason = (String) body.getOrDefault("rejectReason", "");
             }
             
-            // 处理每个申请
-            List<Map<String, Object>> results = new ArrayList<>();
-            for (Long applicationId : applicationIds) {
-                try {
-                    ClassApplication application = classService.processApplication(
-                        applicationId, newStatus, rejectReason, teacher.getId());
-                    
-                    Map<String, Object> result = new HashMap<>();
-                    result.put("id", application.getId());
-                    result.put("status", application.getStatus().toString());
-                    result.put("success", true);
-                    results.add(result);
-                } catch (Exception e) {
-                    Map<String, Object> result = new HashMap<>();
-                    result.put("id", applicationId);
-                    result.put("error", e.getMessage());
-                    result.put("success", false);
-                    results.add(result);
-                    logger.severe("处理申请ID " + applicationId + " 失败: " + e.getMessage());
-                }
-            }
+            // 一次性处理全部申请，每个申请ID对应一条结果
+            List<Map<String, Object>> results = classService.processApplications(
+                applicationIds, newStatus, rejectReason, teacher.id());
             
             Map<String, Object> response = new HashMap<>();
             response.put("results", results);
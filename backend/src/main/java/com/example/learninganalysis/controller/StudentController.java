@@ -4,6 +4,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.context.request.WebRequest;
+import com.example.learninganalysis.config.AuthenticatedUser;
+import com.example.learninganalysis.dto.ActivityListItem;
+import com.example.learninganalysis.dto.CursorPage;
+import com.example.learninganalysis.service.CatalogVersionService;
+import com.example.learninganalysis.service.SearchIndexService;
 import com.example.learninganalysis.service.StudentService;
 import java.util.Map;
 
@@ -13,6 +19,12 @@ public class StudentController {
     
     @Autowired
     private StudentService studentService;
+    
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
 
     @GetMapping("/goals")
     public ResponseEntity<?> getGoals(Authentication authentication) {
@@ -24,27 +36,51 @@ public class StudentController {
     }
 
     @GetMapping("/activities")
-    public ResponseEntity<?> getActivities(Authentication authentication) {
+    public ResponseEntity<?> getActivities(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication, WebRequest request) {
         try {
-            return ResponseEntity.ok(studentService.getActivities(authentication.getName()));
+            // 活动列表带有当前用户的参与状态，ETag 按用户和分页参数区分
+            if (authentication.getPrincipal() instanceof AuthenticatedUser user) {
+                String etag = catalogVersionService.etag(user.id(), cursor, CursorPage.limit(limit),
+                        CatalogVersionService.Catalog.ACTIVITIES);
+                if (request.checkNotModified(etag)) {
+                    return null;
+                }
+                CursorPage<ActivityListItem> page = studentService.getActivities(authentication.getName(), cursor, limit);
+                return ResponseEntity.ok().cacheControl(CatalogVersionService.CACHE_CONTROL).eTag(etag)
+                        .headers(page.headers()).body(page.items());
+            }
+            CursorPage<ActivityListItem> page = studentService.getActivities(authentication.getName(), cursor, limit);
+            return ResponseEntity.ok().headers(page.headers()).body(page.items());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
     
     @GetMapping("/activities/my")
-    public ResponseEntity<?> getMyActivities(Authentication authentication) {
+    public ResponseEntity<?> getMyActivities(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
         try {
-            return ResponseEntity.ok(studentService.getMyActivities(authentication.getName()));
+            CursorPage<ActivityListItem> page = studentService.getMyActivities(authentication.getName(), cursor, limit);
+            return ResponseEntity.ok().headers(page.headers()).body(page.items());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
     
     @GetMapping("/activities/type/{type}")
-    public ResponseEntity<?> getActivitiesByType(@PathVariable String type, Authentication authentication) {
+    public ResponseEntity<?> getActivitiesByType(
+            @PathVariable String type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
         try {
-            return ResponseEntity.ok(studentService.getActivitiesByType(type, authentication.getName()));
+            CursorPage<ActivityListItem> page = studentService.getActivitiesByType(type, authentication.getName(), cursor, limit);
+            return ResponseEntity.ok().headers(page.headers()).body(page.items());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -68,6 +104,15 @@ public class StudentController {
         }
     }
 
+    @GetMapping("/activities/{id}/waitlist")
+    public ResponseEntity<?> getWaitlistPosition(@PathVariable Long id, Authentication authentication) {
+        try {
+            return ResponseEntity.ok(studentService.getWaitlistPosition(id, authentication.getName()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PostMapping("/activities/{id}/complete")
     public ResponseEntity<?> completeActivity(@PathVariable Long id, Authentication authentication) {
         try {
@@ -86,6 +131,20 @@ public class StudentController {
         }
     }
 
+    /**
+     * 检索活动与班级，type 为 activity 或 class 时只检索该类
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam String q,
+                                    @RequestParam(required = false) String type,
+                                    @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(searchIndexService.searchForStudent(q, type, limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/learning-paths")
     public ResponseEntity<?> getLearningPaths(Authentication authentication) {
         try {
@@ -4,6 +4,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.beans.factory.annotation.Autowired;
+import com.example.learninganalysis.config.AuthenticatedUser;
+import com.example.learninganalysis.dto.ActivityListItem;
+import com.example.learninganalysis.dto.CursorPage;
+import com.example.learninganalysis.service.SearchIndexService;
 import com.example.learninganalysis.service.TeacherService;
 import com.example.learninganalysis.model.User;
 import com.example.learninganalysis.model.UserRole;
@@ -22,6 +26,28 @@ public class TeacherController {
     @Autowired
     private TeacherService teacherService;
 
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    /**
+     * 检索活动、自己的班级和班级中的学生，type 为 activity、class 或 user 时只检索该类
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam String q,
+                                    @RequestParam(required = false) String type,
+                                    @RequestParam(required = false) Integer limit,
+                                    Authentication authentication) {
+        try {
+            if (!(authentication.getPrincipal() instanceof AuthenticatedUser teacher)) {
+                throw new RuntimeException("无效的认证信息");
+            }
+            return ResponseEntity.ok(searchIndexService.searchForTeacher(teacher.id(), q, type, limit));
+        } catch (Exception e) {
+            logger.warning("检索失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/dashboard/stats")
     public ResponseEntity<?> getDashboardStats(Authentication authentication) {
         try {
@@ -123,27 +149,40 @@ public class TeacherController {
     }
 
     @GetMapping("/activities")
-    public ResponseEntity<?> getActivities(Authentication authentication) {
+    public ResponseEntity<?> getActivities(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
         try {
-            return ResponseEntity.ok(teacherService.getActivities(authentication.getName()));
+            CursorPage<ActivityListItem> page = teacherService.getActivities(authentication.getName(), cursor, limit);
+            return ResponseEntity.ok().headers(page.headers()).body(page.items());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
     
     @GetMapping("/activities/my")
-    public ResponseEntity<?> getMyActivities(Authentication authentication) {
+    public ResponseEntity<?> getMyActivities(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
         try {
-            return ResponseEntity.ok(teacherService.getMyActivities(authentication.getName()));
+            CursorPage<ActivityListItem> page = teacherService.getMyActivities(authentication.getName(), cursor, limit);
+            return ResponseEntity.ok().headers(page.headers()).body(page.items());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
     
     @GetMapping("/activities/type/{type}")
-    public ResponseEntity<?> getActivitiesByType(@PathVariable String type, Authentication authentication) {
+    public ResponseEntity<?> getActivitiesByType(
+            @PathVariable String type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
         try {
-            return ResponseEntity.ok(teacherService.getActivitiesByType(type, authentication.getName()));
+            CursorPage<ActivityListItem> page = teacherService.getActivitiesByType(type, authentication.getName(), cursor, limit);
+            return ResponseEntity.ok().headers(page.headers()).body(page.items());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -193,11 +232,14 @@ public class TeacherController {
     }
 
     @GetMapping("/classes")
-    public ResponseEntity<?> getClasses(Authentication authentication) {
+    public ResponseEntity<?> getClasses(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
         try {
             logger.info("获取教师班级列表: " + authentication.getName());
-            List<Map<String, Object>> classes = teacherService.getClasses(authentication.getName());
-            return ResponseEntity.ok(classes);
+            CursorPage<Map<String, Object>> classes = teacherService.getClasses(authentication.getName(), cursor, limit);
+            return ResponseEntity.ok().headers(classes.headers()).body(classes.items());
         } catch (Exception e) {
             logger.warning("获取班级列表失败: " + e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -205,11 +247,14 @@ public class TeacherController {
     }
     
     @GetMapping("/students")
-    public ResponseEntity<?> getStudents(Authentication authentication) {
+    public ResponseEntity<?> getStudents(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
         try {
             logger.info("获取学生列表: " + authentication.getName());
-            List<Map<String, Object>> students = teacherService.getStudents(authentication.getName());
-            return ResponseEntity.ok(students);
+            CursorPage<Map<String, Object>> students = teacherService.getStudents(authentication.getName(), cursor, limit);
+            return ResponseEntity.ok().headers(students.headers()).body(students.items());
         } catch (Exception e) {
             logger.warning("获取学生列表失败: " + e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -361,11 +406,14 @@ public class TeacherController {
     }
     
     @GetMapping("/goals")
-    public ResponseEntity<?> getGoals(Authentication authentication) {
+    public ResponseEntity<?> getGoals(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
         try {
             logger.info("获取学习目标列表: " + authentication.getName());
-            List<Map<String, Object>> goals = teacherService.getGoals(authentication.getName());
-            return ResponseEntity.ok(goals);
+            CursorPage<Map<String, Object>> goals = teacherService.getGoals(authentication.getName(), cursor, limit);
+            return ResponseEntity.ok().headers(goals.headers()).body(goals.items());
         } catch (Exception e) {
             logger.warning("获取学习目标列表失败: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
@@ -396,6 +444,43 @@ public class TeacherController {
         }
     }
     
+    @PostMapping("/class/{classId}/goals")
+    public ResponseEntity<?> createClassGoal(@PathVariable Long classId, @RequestBody Map<String, Object> goalData,
+                                             Authentication authentication) {
+        try {
+            logger.info("为班级布置学习目标: " + classId + ", 教师: " + authentication.getName());
+            Map<String, Object> result = teacherService.createClassGoal(classId, goalData, authentication.getName());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.warning("为班级布置学习目标失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/goal-templates")
+    public ResponseEntity<?> getGoalTemplates(Authentication authentication) {
+        try {
+            logger.info("获取班级目标模板列表: " + authentication.getName());
+            List<Map<String, Object>> templates = teacherService.getGoalTemplates(authentication.getName());
+            return ResponseEntity.ok(templates);
+        } catch (Exception e) {
+            logger.warning("获取班级目标模板列表失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/goal-templates/{id}/summary")
+    public ResponseEntity<?> getGoalTemplateSummary(@PathVariable Long id, Authentication authentication) {
+        try {
+            logger.info("获取班级目标完成情况: " + id + ", 教师: " + authentication.getName());
+            Map<String, Object> summary = teacherService.getGoalTemplateSummary(id, authentication.getName());
+            return ResponseEntity.ok(summary);
+        } catch (Exception e) {
+            logger.warning("获取班级目标完成情况失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+    
     @PutMapping("/goals/{id}")
     public ResponseEntity<?> updateGoal(@PathVariable Long id, @RequestBody Map<String, Object> goalData, Authentication authentication) {
         try {
@@ -1,19 +1,19 @@
 package com.example.learninganalysis.controller;
 
+import com.example.learninganalysis.config.AuthenticatedUser;
 import com.example.learninganalysis.model.User;
+import com.example.learninganalysis.service.AvatarStorageService;
 import com.example.learninganalysis.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.util.StringUtils;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 import java.util.logging.Logger;
 
 @RestController
@@ -23,6 +23,19 @@ public class UserController {
     
     @Autowired
     private UserService userService;
+
+    @Autowired
+    private AvatarStorageService avatarStorageService;
+    
+    /**
+     * 获取当前登录用户的ID
+     */
+    private Long currentUserId(Authentication authentication) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
+            throw new RuntimeException("无效的认证信息");
+        }
+        return user.id();
+    }
     
     /**
      * 更新用户资料
@@ -33,14 +46,10 @@ public class UserController {
             @RequestParam(value = "name", required = false) String name,
             @RequestParam(value = "email", required = false) String email,
             @RequestParam(value = "avatar", required = false) MultipartFile avatar,
-            @RequestHeader("Authorization") String token) {
+            Authentication authentication) {
         try {
-            String[] parts = token.split("\\.");
-            String username = parts[0];
-            
             // 验证用户身份
-            User user = userService.findByUsername(username);
-            if (!user.getId().equals(userId)) {
+            if (!currentUserId(authentication).equals(userId)) {
                 return ResponseEntity.badRequest().body("您无权修改此用户资料");
             }
             
@@ -50,22 +59,8 @@ public class UserController {
             
             // 处理头像上传
             if (avatar != null && !avatar.isEmpty()) {
-                String fileExtension = StringUtils.getFilenameExtension(avatar.getOriginalFilename());
-                String uniqueFilename = UUID.randomUUID().toString() + "." + fileExtension;
-                
-                // 使用File.separator确保跨平台兼容
-                String uploadDir = System.getProperty("user.dir") + File.separator + "uploads" + File.separator + "avatars";
-                File directory = new File(uploadDir);
-                if (!directory.exists()) {
-                    directory.mkdirs();
-                }
-                
-                String filePath = uploadDir + File.separator + uniqueFilename;
-                File dest = new File(filePath);
-                avatar.transferTo(dest);
-                
-                // 保存头像相对路径
-                updatedUser.setAvatarUrl("uploads/avatars/" + uniqueFilename);
+                // 按内容哈希保存，相同图片只存一份
+                updatedUser.setAvatarUrl(avatarStorageService.store(avatar));
             }
             
             User result = userService.updateUserProfile(userId, updatedUser);
@@ -94,14 +89,10 @@ public class UserController {
     public ResponseEntity<?> changePassword(
             @PathVariable Long userId,
             @RequestBody Map<String, String> passwordData,
-            @RequestHeader("Authorization") String token) {
+            Authentication authentication) {
         try {
-            String[] parts = token.split("\\.");
-            String username = parts[0];
-            
             // 验证用户身份
-            User user = userService.findByUsername(username);
-            if (!user.getId().equals(userId)) {
+            if (!currentUserId(authentication).equals(userId)) {
                 return ResponseEntity.badRequest().body("您无权修改此用户密码");
             }
             
@@ -134,13 +125,10 @@ public class UserController {
     @GetMapping("/{userId}")
     public ResponseEntity<?> getUserInfo(
             @PathVariable Long userId,
-            @RequestHeader("Authorization") String token) {
+            Authentication authentication) {
         try {
-            String[] parts = token.split("\\.");
-            String username = parts[0];
-            
             // 验证用户身份
-            User requestUser = userService.findByUsername(username);
+            currentUserId(authentication);
             User targetUser = userService.findById(userId);
             
             // 创建返回对象
@@ -0,0 +1,50 @@
+package com.example.learninganalysis.dto;
+
+import com.example.learninganalysis.model.Activity;
+import com.example.learninganalysis.model.ParticipationStatus;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 活动列表行
+ * 活动字段、创建者用户名与当前用户的参与状态由同一条查询返回，未参与时 participationStatus 为 null，
+ * 所有字段总是输出，为 null 的字段输出为 null
+ */
+public record ActivityListItem(
+        Long id,
+        String title,
+        Activity.ActivityType type,
+        String description,
+        String location,
+        @JsonFormat(pattern = DateFormats.DATE_TIME_PATTERN) LocalDateTime startTime,
+        @JsonFormat(pattern = DateFormats.DATE_TIME_PATTERN) LocalDateTime endTime,
+        Activity.ActivityStatus status,
+        int maxParticipants,
+        int currentParticipants,
+        String organizer,
+        String creatorName,
+        ParticipationStatus participationStatus) {
+
+    /**
+     * 不带参与状态的列表行，供教师查看自己创建的活动
+     */
+    public ActivityListItem(Long id, String title, Activity.ActivityType type, String description, String location,
+                            LocalDateTime startTime, LocalDateTime endTime, Activity.ActivityStatus status,
+                            int maxParticipants, int currentParticipants, String organizer, String creatorName) {
+        this(id, title, type, description, location, startTime, endTime, status,
+                maxParticipants, currentParticipants, organizer, creatorName, null);
+    }
+
+    /**
+     * 由已加载的活动实体构造，用于单个活动的响应
+     */
+    public static ActivityListItem of(Activity activity, ParticipationStatus participationStatus) {
+        return new ActivityListItem(activity.getId(), activity.getTitle(), activity.getType(),
+                activity.getDescription(), activity.getLocation(), activity.getStartTime(), activity.getEndTime(),
+                activity.getStatus(), activity.getMaxParticipants(), activity.getCurrentParticipants(),
+                activity.getOrganizer(),
+                activity.getCreator() != null ? activity.getCreator().getUsername() : null,
+                participationStatus);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.learninganalysis.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 管理员班级列表行
+ * 班级与教师字段由一条构造器投影查询返回，教师信息按原响应格式嵌套输出
+ */
+public record AdminClassItem(
+        Long id,
+        String name,
+        String description,
+        int studentCount,
+        @JsonFormat(pattern = DateFormats.DATE_TIME_PATTERN) LocalDateTime createdAt,
+        TeacherSummary teacher) {
+
+    /**
+     * 班级所属教师
+     */
+    public record TeacherSummary(Long id, String name, String username, String avatarUrl) {
+    }
+
+    /**
+     * 供 JPQL 构造器表达式使用的扁平构造器
+     */
+    public AdminClassItem(Long id, String name, String description, int studentCount, LocalDateTime createdAt,
+                          Long teacherId, String teacherName, String teacherUsername, String teacherAvatarUrl) {
+        this(id, name, description, studentCount, createdAt,
+                new TeacherSummary(teacherId, teacherName, teacherUsername, teacherAvatarUrl));
+    }
+
+    /**
+     * 替换教师头像路径，列表展示时换成缩略图
+     */
+    public AdminClassItem withTeacherAvatarUrl(String url) {
+        return new AdminClassItem(id, name, description, studentCount, createdAt,
+                new TeacherSummary(teacher.id(), teacher.name(), teacher.username(), url));
+    }
+}
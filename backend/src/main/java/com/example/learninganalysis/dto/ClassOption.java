@@ -0,0 +1,7 @@
+package com.example.learninganalysis.dto;
+
+/**
+ * 班级下拉选项
+ */
+public record ClassOption(Long id, String name, String teacherName) {
+}
@@ -0,0 +1,128 @@
+package com.example.learninganalysis.dto;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 键集分页的一页数据
+ *
+ * 列表接口统一使用 cursor、limit 两个参数：响应体仍是数组，下一页游标通过 X-Next-Cursor 响应头返回，
+ * 没有该响应头表示已到最后一页。游标是上一页最后一行排序键的 Base64 编码，对客户端不透明；
+ * 每个列表的排序键都以主键收尾，查询条件为“排序键在游标之后”，翻到任何一页的代价都与页码无关。
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    /**
+     * 由多取一行的查询结果构造一页，多出的一行说明还有下一页，游标取本页最后一行的排序键
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, List<?>> sortKey) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(items, encode(sortKey.apply(items.get(limit - 1))));
+    }
+
+    /**
+     * 对每一行做转换，游标不变
+     */
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(items.stream().map(mapper).toList(), nextCursor);
+    }
+
+    /**
+     * 分页响应头，最后一页时为空
+     */
+    public HttpHeaders headers() {
+        HttpHeaders headers = new HttpHeaders();
+        if (nextCursor != null) {
+            headers.set(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return headers;
+    }
+
+    /**
+     * 解析每页条数，未指定时取默认值，超出上限时取上限
+     */
+    public static int limit(Integer limit) {
+        return limit(limit, DEFAULT_LIMIT, MAX_LIMIT);
+    }
+
+    public static int limit(Integer limit, int defaultLimit, int maxLimit) {
+        return limit == null ? defaultLimit : Math.max(1, Math.min(limit, maxLimit));
+    }
+
+    /**
+     * 查询条数比每页条数多一行，用来判断是否还有下一页
+     */
+    public static Pageable probe(int limit) {
+        return PageRequest.of(0, limit + 1);
+    }
+
+    /**
+     * 把排序键编码为游标，各键用 | 分隔
+     */
+    public static String encode(List<?> keys) {
+        StringBuilder raw = new StringBuilder();
+        for (Object key : keys) {
+            if (!raw.isEmpty()) {
+                raw.append('|');
+            }
+            raw.append(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标，首页（游标为空）返回 null，键的个数不符时视为无效游标
+     */
+    public static Cursor decode(String cursor, int keyCount) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != keyCount) {
+                throw new IllegalArgumentException(raw);
+            }
+            return new Cursor(parts);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("无效的分页游标");
+        }
+    }
+
+    /**
+     * 解码后的游标，按排序键的顺序取值
+     */
+    public record Cursor(String[] keys) {
+
+        public Long id(int index) {
+            try {
+                return Long.parseLong(keys[index]);
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("无效的分页游标");
+            }
+        }
+
+        public LocalDateTime time(int index) {
+            try {
+                return LocalDateTime.parse(keys[index]);
+            } catch (DateTimeParseException e) {
+                throw new RuntimeException("无效的分页游标");
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.learninganalysis.dto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 响应中使用的日期格式
+ * DateTimeFormatter 线程安全，统一在这里创建一次，避免在循环中反复解析格式串
+ */
+public final class DateFormats {
+
+    public static final String DATE_PATTERN = "yyyy-MM-dd";
+    public static final String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    public static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern(DATE_PATTERN);
+    public static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern(DATE_TIME_PATTERN);
+
+    private DateFormats() {
+    }
+
+    /**
+     * 格式化为日期，时间为空时返回 null
+     */
+    public static String date(LocalDateTime time) {
+        return time != null ? time.format(DATE) : null;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.learninganalysis.dto;
+
+/**
+ * 检索结果的一条命中
+ *
+ * type 为 ACTIVITY、CLASS 或 USER；title 是活动标题、班级名或用户姓名，
+ * subtitle 是活动组织者与地点、班级教师或用户名与角色，score 越大越相关。
+ */
+public record SearchHit(String type, Long id, String title, String subtitle, double score) {
+}
@@ -0,0 +1,26 @@
+package com.example.learninganalysis.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 管理员学生列表行
+ * 加入的班级数由同一条分组查询统计
+ */
+public record StudentRosterItem(
+        Long id,
+        String name,
+        String username,
+        String email,
+        String avatarUrl,
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime createdAt,
+        long classCount) {
+
+    /**
+     * 替换头像路径，列表展示时换成缩略图
+     */
+    public StudentRosterItem withAvatarUrl(String url) {
+        return new StudentRosterItem(id, name, username, email, url, createdAt, classCount);
+    }
+}
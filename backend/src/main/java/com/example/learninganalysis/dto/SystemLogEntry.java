@@ -0,0 +1,21 @@
+package com.example.learninganalysis.dto;
+
+import com.example.learninganalysis.model.UserRole;
+
+import java.time.LocalDateTime;
+
+/**
+ * 系统日志行
+ * 只包含日志列表与导出需要的扁平字段，操作用户的信息由 LEFT JOIN 一并取出，用户已删除或匿名操作时为 null
+ */
+public record SystemLogEntry(
+        Long id,
+        String operationType,
+        String operationDetail,
+        Long userId,
+        String username,
+        String userName,
+        UserRole userRole,
+        String ipAddress,
+        LocalDateTime createdAt) {
+}
@@ -0,0 +1,26 @@
+package com.example.learninganalysis.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 管理员教师列表行
+ * 管理的班级数由同一条分组查询统计
+ */
+public record TeacherRosterItem(
+        Long id,
+        String name,
+        String username,
+        String email,
+        String avatarUrl,
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime createdAt,
+        long managedClassCount) {
+
+    /**
+     * 替换头像路径，列表展示时换成缩略图
+     */
+    public TeacherRosterItem withAvatarUrl(String url) {
+        return new TeacherRosterItem(id, name, username, email, url, createdAt, managedClassCount);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.learninganalysis.dto;
+
+import com.example.learninganalysis.model.ParticipationStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 当前用户在活动候补队列中的位置
+ *
+ * participationStatus 为当前参与状态，候补转正后变为 REGISTERED；
+ * position 从 1 开始，仅在候补中时输出
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record WaitlistPosition(Long activityId, ParticipationStatus participationStatus, Long position) {
+}
@@ -6,7 +6,10 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "activities")
+@Table(name = "activities", indexes = {
+    @Index(name = "idx_activities_start_time", columnList = "start_time"),
+    @Index(name = "idx_activities_type_start_time", columnList = "activity_type, start_time")
+})
 public class Activity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -27,7 +30,9 @@ public class Activity {
     @Column(name = "max_participants")
     private int maxParticipants;
 
-    @Column(name = "current_participants")
+    // 参与人数只由 ActivityRepository 的条件更新（占用、释放名额）修改，保存实体时不写回，
+    // 避免先读后存的编辑操作用旧值覆盖并发报名后的人数
+    @Column(name = "current_participants", updatable = false)
     private int currentParticipants;
 
     @Column(name = "status")
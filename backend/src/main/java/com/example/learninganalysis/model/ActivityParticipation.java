@@ -6,7 +6,10 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "activity_participations")
+@Table(name = "activity_participations",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "activity_id"}),
+       indexes = @Index(name = "idx_activity_participations_activity_status_waitlist",
+                         columnList = "activity_id, status, waitlist_time"))
 public class ActivityParticipation {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -22,7 +25,7 @@ public class ActivityParticipation {
     
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
-    private ParticipationStatus status; // REGISTERED, COMPLETED, CANCELLED
+    private ParticipationStatus status; // REGISTERED, COMPLETED, CANCELLED, WAITLISTED
     
     @Column(name = "register_time")
     private LocalDateTime registerTime;
@@ -33,6 +36,10 @@ public class ActivityParticipation {
     @Column(name = "cancel_time")
     private LocalDateTime cancelTime;
     
+    // 进入候补队列的时间，同一活动的候补按此时间与ID先后转正
+    @Column(name = "waitlist_time")
+    private LocalDateTime waitlistTime;
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
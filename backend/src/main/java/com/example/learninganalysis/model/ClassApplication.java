@@ -6,7 +6,9 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "class_applications")
+@Table(name = "class_applications", indexes = {
+    @Index(name = "idx_class_applications_class_status", columnList = "class_id, status")
+})
 public class ClassApplication {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -2,6 +2,7 @@ package com.example.learninganalysis.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
@@ -32,6 +33,20 @@ public class ClassEntity {
     )
     private Set<User> students = new HashSet<>();
 
+    // 以下计数列只通过 ClassRepository 的条件更新维护，实体保存时不会覆盖
+    @Column(name = "student_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private int studentCount;
+
+    // 班级学生中由本班教师布置的学习目标数及已完成数
+    @Column(name = "goal_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private int goalCount;
+
+    @Column(name = "completed_goal_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private int completedGoalCount;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -6,7 +6,9 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "evaluations")
+@Table(name = "evaluations", indexes = {
+    @Index(name = "idx_evaluations_student_teacher_created_at", columnList = "student_id, teacher_id, created_at")
+})
 public class Evaluation {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,58 @@
+package com.example.learninganalysis.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import java.time.LocalDateTime;
+
+/**
+ * 班级学习目标模板
+ * 布置给整个班级的目标只保存一份标题、描述与截止日期，每名学生的完成情况仍是一条 LearningGoal 记录
+ */
+@Data
+@Entity
+@Table(name = "goal_templates", indexes = {
+    @Index(name = "idx_goal_templates_teacher_created_at", columnList = "teacher_id, created_at")
+})
+public class GoalTemplate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    @Column(name = "due_date")
+    private LocalDateTime dueDate;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "teacher_id", nullable = false)
+    private User teacher;
+
+    // 班级删除后模板与已布置的目标保留
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "class_id")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    private ClassEntity classEntity;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -7,7 +7,12 @@ import java.util.List;
 
 @Data
 @Entity
-@Table(name = "learning_goals")
+@Table(name = "learning_goals", indexes = {
+    @Index(name = "idx_learning_goals_teacher_due_date", columnList = "teacher_id, due_date"),
+    @Index(name = "idx_learning_goals_teacher_student", columnList = "teacher_id, student_id"),
+    @Index(name = "idx_learning_goals_teacher_created_at", columnList = "teacher_id, created_at"),
+    @Index(name = "idx_learning_goals_template_status", columnList = "template_id, status")
+})
 public class LearningGoal {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -37,6 +42,11 @@ public class LearningGoal {
     @JoinColumn(name = "teacher_id", nullable = false)
     private User teacher;
 
+    // 按班级布置时所属的目标模板，单独布置给学生的目标为空
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "template_id")
+    private GoalTemplate template;
+
     @ManyToMany(mappedBy = "goals")
     private List<LearningActivity> activities;
 
@@ -3,5 +3,6 @@ package com.example.learninganalysis.model;
 public enum ParticipationStatus {
     REGISTERED,  // 已报名
     COMPLETED,   // 已完成
-    CANCELLED    // 已取消
+    CANCELLED,   // 已取消
+    WAITLISTED   // 候补中
 } 
\ No newline at end of file
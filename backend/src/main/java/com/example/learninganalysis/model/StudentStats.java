@@ -4,9 +4,14 @@ import jakarta.persistence.*;
 import lombok.Data;
 import java.time.LocalDateTime;
 
+/**
+ * 学生学习统计
+ * 计数列由报名、取消、完成活动及学习目标的写操作增量维护，比率列随计数一并刷新；
+ * totalActivities 为未取消的报名数，participatedActivities 为已完成的活动数
+ */
 @Data
 @Entity
-@Table(name = "student_stats")
+@Table(name = "student_stats", uniqueConstraints = @UniqueConstraint(columnNames = "student_id"))
 public class StudentStats {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -6,7 +6,12 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "system_logs")
+@Table(name = "system_logs", indexes = {
+    @Index(name = "idx_system_logs_created_at", columnList = "created_at"),
+    @Index(name = "idx_system_logs_type_created_at", columnList = "operation_type, created_at"),
+    @Index(name = "idx_system_logs_role_created_at", columnList = "user_role, created_at"),
+    @Index(name = "idx_system_logs_type_role_created_at", columnList = "operation_type, user_role, created_at")
+})
 public class SystemLog {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
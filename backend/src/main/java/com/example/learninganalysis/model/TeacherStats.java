@@ -0,0 +1,54 @@
+package com.example.learninganalysis.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 教师仪表盘汇总数据
+ * 由班级、学习目标、活动的写操作增量维护，记录缺失时按需全量重建
+ */
+@Data
+@Entity
+@Table(name = "teacher_stats")
+public class TeacherStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "teacher_id", nullable = false, unique = true)
+    private Long teacherId;
+
+    @Column(name = "class_count", nullable = false)
+    private Integer classCount = 0;
+
+    // 所带班级中的学生人数，同一学生在多个班级中只计一次
+    @Column(name = "student_count", nullable = false)
+    private Integer studentCount = 0;
+
+    @Column(name = "goal_count", nullable = false)
+    private Integer goalCount = 0;
+
+    @Column(name = "completed_goal_count", nullable = false)
+    private Integer completedGoalCount = 0;
+
+    @Column(name = "activity_count", nullable = false)
+    private Integer activityCount = 0;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -44,9 +44,6 @@ public class User {
     @OneToMany(mappedBy = "teacher")
     private List<LearningActivity> activities;
 
-    @OneToOne(mappedBy = "student")
-    private StudentStats stats;
-
     @OneToMany(mappedBy = "teacher")
     private List<LearningPath> learningPaths;
 
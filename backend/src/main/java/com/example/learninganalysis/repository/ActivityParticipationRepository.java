@@ -5,9 +5,11 @@ import com.example.learninganalysis.model.ActivityParticipation;
 import com.example.learninganalysis.model.ParticipationStatus;
 import com.example.learninganalysis.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,11 +29,72 @@ public interface ActivityParticipationRepository extends JpaRepository<ActivityP
     // 查询用户是否参与了某个活动
     Optional<ActivityParticipation> findByUserAndActivity(User user, Activity activity);
     
-    // 查询用户参与的所有活动（详细信息）
-    @Query("SELECT ap FROM ActivityParticipation ap JOIN FETCH ap.activity WHERE ap.user = :user")
+    // 查询用户参与的所有活动（详细信息），活动、活动创建者与参与用户在同一条查询中取回
+    @Query("SELECT ap FROM ActivityParticipation ap JOIN FETCH ap.activity a JOIN FETCH a.creator JOIN FETCH ap.user " +
+           "WHERE ap.user = :user ORDER BY ap.registerTime DESC, ap.id DESC")
     List<ActivityParticipation> findByUserWithActivityDetails(@Param("user") User user);
     
+    // 查询用户全部参与记录的活动ID与状态，不加载关联实体
+    @Query("SELECT ap.activity.id, ap.status FROM ActivityParticipation ap WHERE ap.user = :user")
+    List<Object[]> findActivityStatusesByUser(@Param("user") User user);
+    
     // 计算活动的参与人数
     @Query("SELECT COUNT(ap) FROM ActivityParticipation ap WHERE ap.activity = :activity AND ap.status = 'REGISTERED'")
     int countRegisteredParticipants(@Param("activity") Activity activity);
-} 
\ No newline at end of file
+    
+    // 将已取消的参与记录条件更新为已报名，返回受影响行数（0 表示状态已被并发修改）
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ActivityParticipation ap SET ap.status = com.example.learninganalysis.model.ParticipationStatus.REGISTERED, " +
+           "ap.registerTime = :now, ap.cancelTime = NULL, ap.updatedAt = :now " +
+           "WHERE ap.id = :id AND ap.status = com.example.learninganalysis.model.ParticipationStatus.CANCELLED")
+    int markRegistered(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    // 将已报名的参与记录条件更新为已取消，返回受影响行数（0 表示状态已被并发修改）
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ActivityParticipation ap SET ap.status = com.example.learninganalysis.model.ParticipationStatus.CANCELLED, " +
+           "ap.cancelTime = :now, ap.updatedAt = :now " +
+           "WHERE ap.id = :id AND ap.status = com.example.learninganalysis.model.ParticipationStatus.REGISTERED")
+    int markCancelled(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    // 将已报名的参与记录条件更新为已完成，返回受影响行数（0 表示状态已被并发修改）
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ActivityParticipation ap SET ap.status = com.example.learninganalysis.model.ParticipationStatus.COMPLETED, " +
+           "ap.completeTime = :now, ap.updatedAt = :now " +
+           "WHERE ap.id = :id AND ap.status = com.example.learninganalysis.model.ParticipationStatus.REGISTERED")
+    int markCompleted(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    // 名额已满时将刚写入的已报名记录转入候补队列，入队时间决定先后顺序
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ActivityParticipation ap SET ap.status = com.example.learninganalysis.model.ParticipationStatus.WAITLISTED, " +
+           "ap.waitlistTime = :now, ap.registerTime = NULL, ap.updatedAt = :now " +
+           "WHERE ap.id = :id AND ap.status = com.example.learninganalysis.model.ParticipationStatus.REGISTERED")
+    int markWaitlisted(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    // 候补记录转为已报名，返回受影响行数（0 表示已退出候补或已被并发转正）
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ActivityParticipation ap SET ap.status = com.example.learninganalysis.model.ParticipationStatus.REGISTERED, " +
+           "ap.registerTime = :now, ap.updatedAt = :now " +
+           "WHERE ap.id = :id AND ap.status = com.example.learninganalysis.model.ParticipationStatus.WAITLISTED")
+    int markPromoted(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    // 退出候补队列，返回受影响行数（0 表示已被并发转正或退出）
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ActivityParticipation ap SET ap.status = com.example.learninganalysis.model.ParticipationStatus.CANCELLED, " +
+           "ap.cancelTime = :now, ap.updatedAt = :now " +
+           "WHERE ap.id = :id AND ap.status = com.example.learninganalysis.model.ParticipationStatus.WAITLISTED")
+    int markWaitlistCancelled(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    // 锁定活动候补队列的队首，返回参与记录ID与用户ID；加锁读取可见其他事务刚提交的候补记录
+    @Query(value = "SELECT id, user_id FROM activity_participations " +
+                   "WHERE activity_id = :activityId AND status = 'WAITLISTED' " +
+                   "ORDER BY waitlist_time, id LIMIT 1 FOR UPDATE",
+           nativeQuery = true)
+    List<Object[]> lockWaitlistHead(@Param("activityId") Long activityId);
+    
+    // 排在指定候补记录之前的人数，只读 (activity_id, status, waitlist_time) 索引
+    @Query("SELECT COUNT(ap) FROM ActivityParticipation ap WHERE ap.activity.id = :activityId " +
+           "AND ap.status = com.example.learninganalysis.model.ParticipationStatus.WAITLISTED " +
+           "AND (ap.waitlistTime < :waitlistTime OR (ap.waitlistTime = :waitlistTime AND ap.id < :id))")
+    long countWaitlistAhead(@Param("activityId") Long activityId, @Param("waitlistTime") LocalDateTime waitlistTime,
+                            @Param("id") Long id);
+}
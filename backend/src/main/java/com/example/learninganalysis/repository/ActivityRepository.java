@@ -1,12 +1,16 @@
 package com.example.learninganalysis.repository;
 
+import com.example.learninganalysis.dto.ActivityListItem;
 import com.example.learninganalysis.model.Activity;
 import com.example.learninganalysis.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ActivityRepository extends JpaRepository<Activity, Long> {
@@ -50,4 +54,103 @@ public interface ActivityRepository extends JpaRepository<Activity, Long> {
     // 使用原生SQL查询所有活动，避免可能的枚举映射错误
     @Query(value = "SELECT * FROM activities", nativeQuery = true)
     List<Activity> findAllActivitiesNative();
-}
\ No newline at end of file
+    
+    // 状态调度器处理的活动状态：已结束、已取消的活动不再切换
+    String SCHEDULABLE_STATUSES = "com.example.learninganalysis.model.Activity$ActivityStatus.UPCOMING, " +
+            "com.example.learninganalysis.model.Activity$ActivityStatus.ONGOING";
+    
+    // 活动列表的键集分页条件：排在游标 (开始时间, ID) 之后的活动，开始时间为空的活动排在最后；afterId 为 null 时取首页
+    String AFTER_START_TIME_CURSOR = "(:afterId IS NULL OR a.startTime < :afterStartTime " +
+            "OR (a.startTime = :afterStartTime AND a.id < :afterId) " +
+            "OR (a.startTime IS NULL AND (:afterStartTime IS NOT NULL OR a.id < :afterId)))";
+    
+    // 活动列表的一页：一次查询同时返回活动、创建者和指定用户的参与状态，按 (开始时间, ID) 倒序
+    @Query("SELECT new com.example.learninganalysis.dto.ActivityListItem(" +
+           "a.id, a.title, a.type, a.description, a.location, a.startTime, a.endTime, a.status, " +
+           "a.maxParticipants, a.currentParticipants, a.organizer, c.username, ap.status) " +
+           "FROM Activity a LEFT JOIN a.creator c " +
+           "LEFT JOIN ActivityParticipation ap ON ap.activity = a AND ap.user.id = :userId " +
+           "WHERE " + AFTER_START_TIME_CURSOR + " ORDER BY a.startTime DESC, a.id DESC")
+    List<ActivityListItem> findListingWithParticipation(@Param("userId") Long userId,
+                                                        @Param("afterStartTime") LocalDateTime afterStartTime,
+                                                        @Param("afterId") Long afterId, Pageable pageable);
+    
+    // 按类型的活动列表的一页，同样在一次查询中带出指定用户的参与状态
+    @Query("SELECT new com.example.learninganalysis.dto.ActivityListItem(" +
+           "a.id, a.title, a.type, a.description, a.location, a.startTime, a.endTime, a.status, " +
+           "a.maxParticipants, a.currentParticipants, a.organizer, c.username, ap.status) " +
+           "FROM Activity a LEFT JOIN a.creator c " +
+           "LEFT JOIN ActivityParticipation ap ON ap.activity = a AND ap.user.id = :userId " +
+           "WHERE a.type = :type AND " + AFTER_START_TIME_CURSOR + " ORDER BY a.startTime DESC, a.id DESC")
+    List<ActivityListItem> findListingWithParticipationByType(@Param("type") Activity.ActivityType type,
+                                                              @Param("userId") Long userId,
+                                                              @Param("afterStartTime") LocalDateTime afterStartTime,
+                                                              @Param("afterId") Long afterId, Pageable pageable);
+    
+    // 指定用户参与过的活动及其参与状态，按活动ID分页
+    @Query("SELECT new com.example.learninganalysis.dto.ActivityListItem(" +
+           "a.id, a.title, a.type, a.description, a.location, a.startTime, a.endTime, a.status, " +
+           "a.maxParticipants, a.currentParticipants, a.organizer, c.username, ap.status) " +
+           "FROM ActivityParticipation ap JOIN ap.activity a LEFT JOIN a.creator c " +
+           "WHERE ap.user.id = :userId AND (:afterId IS NULL OR a.id > :afterId) ORDER BY a.id")
+    List<ActivityListItem> findListingByParticipantId(@Param("userId") Long userId,
+                                                      @Param("afterId") Long afterId, Pageable pageable);
+    
+    // 指定教师创建的活动，按活动ID分页
+    @Query("SELECT new com.example.learninganalysis.dto.ActivityListItem(" +
+           "a.id, a.title, a.type, a.description, a.location, a.startTime, a.endTime, a.status, " +
+           "a.maxParticipants, a.currentParticipants, a.organizer, c.username) " +
+           "FROM Activity a JOIN a.creator c WHERE c.id = :creatorId " +
+           "AND (:afterId IS NULL OR a.id > :afterId) ORDER BY a.id")
+    List<ActivityListItem> findListingByCreatorId(@Param("creatorId") Long creatorId,
+                                                  @Param("afterId") Long afterId, Pageable pageable);
+    
+    // 检索索引构建：活动的可检索字段与创建者ID，按活动ID分块读取
+    @Query("SELECT a.id, a.title, a.organizer, a.location, a.description, c.id " +
+           "FROM Activity a LEFT JOIN a.creator c WHERE a.id > :afterId ORDER BY a.id")
+    List<Object[]> findSearchRows(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // 状态调度器启动时装载：尚未结束且未取消的活动及其开始、结束时间，按活动ID分块读取
+    @Query("SELECT a.id, a.status, a.startTime, a.endTime FROM Activity a " +
+           "WHERE a.id > :afterId AND a.status IN (" + SCHEDULABLE_STATUSES + ") " +
+           "ORDER BY a.id")
+    List<Object[]> findSchedulingRows(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // 批量切换未全部生效时重新读取这些活动中尚未结束且未取消的部分
+    @Query("SELECT a.id, a.status, a.startTime, a.endTime FROM Activity a " +
+           "WHERE a.id IN :ids AND a.status IN (" + SCHEDULABLE_STATUSES + ")")
+    List<Object[]> findSchedulingRowsByIds(@Param("ids") Collection<Long> ids);
+    
+    // 批量开始：已到开始时间且未到结束时间的未开始活动改为进行中；条件不满足的行（已被修改或重复执行）不受影响
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Activity a SET a.status = com.example.learninganalysis.model.Activity$ActivityStatus.ONGOING, " +
+           "a.updatedAt = :now WHERE a.id IN :ids " +
+           "AND a.status = com.example.learninganalysis.model.Activity$ActivityStatus.UPCOMING " +
+           "AND a.startTime <= :now AND (a.endTime IS NULL OR a.endTime > :now)")
+    int startDue(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    // 批量结束：已到结束时间的未开始或进行中活动改为已结束，已取消的活动不受影响
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Activity a SET a.status = com.example.learninganalysis.model.Activity$ActivityStatus.COMPLETED, " +
+           "a.updatedAt = :now WHERE a.id IN :ids " +
+           "AND a.status IN (" + SCHEDULABLE_STATUSES + ") " +
+           "AND a.endTime <= :now")
+    int completeDue(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    // 锁定活动行直到事务结束，返回活动ID（不存在时为 null）；名额与参与记录变更前先调用，
+    // 参与记录的插入和状态变更会因外键检查对活动行加共享锁，先持有排他锁可避免随后升级锁时互相死锁
+    @Query(value = "SELECT id FROM activities WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Long lockById(@Param("id") Long id);
+    
+    // 条件占用一个名额：仅当仍有空余名额时才会更新成功，返回受影响行数（0 表示已满）
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Activity a SET a.currentParticipants = a.currentParticipants + 1, a.updatedAt = :now " +
+           "WHERE a.id = :id AND a.currentParticipants < a.maxParticipants")
+    int tryReserveSeat(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    // 条件释放一个名额：参与人数不会被减为负数
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Activity a SET a.currentParticipants = a.currentParticipants - 1, a.updatedAt = :now " +
+           "WHERE a.id = :id AND a.currentParticipants > 0")
+    int releaseSeat(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
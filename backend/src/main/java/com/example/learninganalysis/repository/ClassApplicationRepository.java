@@ -4,9 +4,17 @@ import com.example.learninganalysis.model.ApplicationStatus;
 import com.example.learninganalysis.model.ClassApplication;
 import com.example.learninganalysis.model.ClassEntity;
 import com.example.learninganalysis.model.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +26,12 @@ public interface ClassApplicationRepository extends JpaRepository<ClassApplicati
     // 查找学生的所有申请
     List<ClassApplication> findByStudentId(Long studentId);
     
+    // 学生的申请记录与所申请的班级，按申请ID分页，afterId 为 null 时取首页
+    @Query("SELECT a FROM ClassApplication a JOIN FETCH a.classEntity WHERE a.student.id = :studentId " +
+           "AND (:afterId IS NULL OR a.id > :afterId) ORDER BY a.id")
+    List<ClassApplication> findStudentPage(@Param("studentId") Long studentId,
+                                           @Param("afterId") Long afterId, Pageable pageable);
+    
     // 查找班级的所有申请
     List<ClassApplication> findByClassEntityId(Long classId);
     
@@ -30,6 +44,27 @@ public interface ClassApplicationRepository extends JpaRepository<ClassApplicati
     // 查询特定教师创建的班级的待处理申请
     List<ClassApplication> findByClassEntityTeacherIdAndStatus(Long teacherId, ApplicationStatus status);
     
+    // 教师名下班级的指定状态申请，连同申请学生与班级一并取出，按申请ID分页
+    @Query("SELECT a FROM ClassApplication a JOIN FETCH a.student JOIN FETCH a.classEntity c " +
+           "WHERE c.teacher.id = :teacherId AND a.status = :status " +
+           "AND (:afterId IS NULL OR a.id > :afterId) ORDER BY a.id")
+    List<ClassApplication> findTeacherPage(@Param("teacherId") Long teacherId, @Param("status") ApplicationStatus status,
+                                           @Param("afterId") Long afterId, Pageable pageable);
+    
     // 检查学生是否已经申请过某个班级
     boolean existsByStudentIdAndClassEntityId(Long studentId, Long classId);
-}
\ No newline at end of file
+    
+    // 批量处理前锁定申请行：申请ID、状态、学生ID、班级ID、班级教师ID
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a.id, a.status, a.student.id, c.id, c.teacher.id FROM ClassApplication a " +
+           "JOIN a.classEntity c WHERE a.id IN :ids")
+    List<Object[]> lockRowsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // 将待处理申请批量更新为指定状态，rejectReason 为 null 时保留原值
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ClassApplication a SET a.status = :status, a.handledAt = :now, a.updatedAt = :now, " +
+           "a.rejectReason = COALESCE(:rejectReason, a.rejectReason) " +
+           "WHERE a.id IN :ids AND a.status = com.example.learninganalysis.model.ApplicationStatus.PENDING")
+    int updatePendingStatus(@Param("ids") Collection<Long> ids, @Param("status") ApplicationStatus status,
+                            @Param("rejectReason") String rejectReason, @Param("now") LocalDateTime now);
+}
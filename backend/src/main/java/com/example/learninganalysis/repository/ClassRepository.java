@@ -1,10 +1,18 @@
 package com.example.learninganalysis.repository;
 
+import com.example.learninganalysis.dto.AdminClassItem;
+import com.example.learninganalysis.dto.ClassOption;
 import com.example.learninganalysis.model.ClassEntity;
 import com.example.learninganalysis.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,18 +20,128 @@ import java.util.Optional;
 public interface ClassRepository extends JpaRepository<ClassEntity, Long> {
     List<ClassEntity> findByTeacherId(Long teacherId);
     List<ClassEntity> findByTeacherIdOrderByCreatedAtDesc(Long teacherId);
+
+    // 教师的班级，按 (创建时间, ID) 倒序的键集分页，afterId 为 null 时取首页
+    @Query("SELECT c FROM ClassEntity c WHERE c.teacher.id = :teacherId AND (:afterId IS NULL " +
+           "OR c.createdAt < :afterCreatedAt OR (c.createdAt = :afterCreatedAt AND c.id < :afterId)) " +
+           "ORDER BY c.createdAt DESC, c.id DESC")
+    List<ClassEntity> findTeacherClassPage(@Param("teacherId") Long teacherId,
+                                           @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                           @Param("afterId") Long afterId, Pageable pageable);
     List<ClassEntity> findByStudentsContaining(User student);
 
-    @Query("SELECT c FROM ClassEntity c WHERE c.id NOT IN (SELECT c2.id FROM ClassEntity c2 JOIN c2.students s WHERE s.id = :studentId)")
-    List<ClassEntity> findClassesNotJoinedByStudent(Long studentId);
+    List<ClassEntity> findByStudentsId(Long studentId);
+
+    // 学生加入的班级，按班级ID分页
+    @Query("SELECT c FROM ClassEntity c JOIN c.students s WHERE s.id = :studentId " +
+           "AND (:afterId IS NULL OR c.id > :afterId) ORDER BY c.id")
+    List<ClassEntity> findJoinedClassPage(@Param("studentId") Long studentId,
+                                          @Param("afterId") Long afterId, Pageable pageable);
+
+    boolean existsByIdAndStudentsId(Long classId, Long studentId);
+
+    // 学生所在班级的ID与名称
+    @Query("SELECT c.id, c.name FROM ClassEntity c JOIN c.students s WHERE s.id = :studentId ORDER BY c.id")
+    List<Object[]> findIdAndNameByStudentId(@Param("studentId") Long studentId);
+
+    // 管理员班级列表：班级与教师字段一次投影，不加载实体，按班级ID分页
+    @Query("SELECT new com.example.learninganalysis.dto.AdminClassItem(" +
+           "c.id, c.name, c.description, c.studentCount, c.createdAt, t.id, t.name, t.username, t.avatarUrl) " +
+           "FROM ClassEntity c JOIN c.teacher t WHERE :afterId IS NULL OR c.id > :afterId ORDER BY c.id")
+    List<AdminClassItem> findAdminClassItems(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.example.learninganalysis.dto.ClassOption(c.id, c.name, t.name) " +
+           "FROM ClassEntity c JOIN c.teacher t WHERE :afterId IS NULL OR c.id > :afterId ORDER BY c.id")
+    List<ClassOption> findClassOptions(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 按学号顺序列出班级成员，返回 List 而不是初始化实体上的 Set
+    @Query("SELECT s FROM ClassEntity c JOIN c.students s WHERE c.id = :classId ORDER BY s.id")
+    List<User> findMembers(@Param("classId") Long classId);
+
+    // 学生未加入的班级，按班级ID分页；studentId 为 null 时返回全部班级
+    @Query("SELECT c FROM ClassEntity c WHERE (:afterId IS NULL OR c.id > :afterId) " +
+           "AND c.id NOT IN (SELECT c2.id FROM ClassEntity c2 JOIN c2.students s WHERE s.id = :studentId) ORDER BY c.id")
+    List<ClassEntity> findClassesNotJoinedByStudent(@Param("studentId") Long studentId,
+                                                    @Param("afterId") Long afterId, Pageable pageable);
 
     Optional<ClassEntity> findByNameAndTeacherId(String name, Long teacherId);
 
-    List<ClassEntity> findByNameContaining(String name);
-    
-    @Query("SELECT DISTINCT c.teacher FROM ClassEntity c")
-    List<User> findDistinctTeachers();
+    // 检索索引构建：班级的可检索字段与教师，按班级ID分块读取
+    @Query("SELECT c.id, c.name, c.description, t.id, t.name FROM ClassEntity c JOIN c.teacher t " +
+           "WHERE c.id > :afterId ORDER BY c.id")
+    List<Object[]> findSearchRows(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 检索索引构建：班级成员 (班级ID, 学生ID)，按此顺序分块读取
+    @Query("SELECT c.id, s.id FROM ClassEntity c JOIN c.students s " +
+           "WHERE c.id > :afterClassId OR (c.id = :afterClassId AND s.id > :afterStudentId) ORDER BY c.id, s.id")
+    List<Object[]> findMemberRows(@Param("afterClassId") Long afterClassId, @Param("afterStudentId") Long afterStudentId,
+                                  Pageable pageable);
     
-    @Query("SELECT COUNT(c) FROM ClassEntity c JOIN c.students s WHERE s.id = :studentId")
-    long countClassesJoinedByStudent(Long studentId);
-}
\ No newline at end of file
+    // 直接写关联表维护班级成员，返回 0 表示学生已在班级中，由 (class_id, student_id) 主键保证并发下不重复
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT IGNORE INTO class_students (class_id, student_id) VALUES (:classId, :studentId)",
+           nativeQuery = true)
+    int addStudent(@Param("classId") Long classId, @Param("studentId") Long studentId);
+
+    // 返回 0 表示学生不在班级中
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM class_students WHERE class_id = :classId AND student_id = :studentId",
+           nativeQuery = true)
+    int removeStudent(@Param("classId") Long classId, @Param("studentId") Long studentId);
+
+    // 仪表盘班级行：id、名称、人数、目标数、已完成目标数
+    @Query("SELECT c.id, c.name, c.studentCount, c.goalCount, c.completedGoalCount FROM ClassEntity c " +
+           "WHERE c.teacher.id = :teacherId ORDER BY c.createdAt DESC")
+    List<Object[]> findCounterRowsByTeacherId(@Param("teacherId") Long teacherId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ClassEntity c SET c.studentCount = c.studentCount + :studentDelta, " +
+           "c.goalCount = c.goalCount + :goalDelta, c.completedGoalCount = c.completedGoalCount + :completedDelta " +
+           "WHERE c.id = :classId")
+    int adjustCounters(@Param("classId") Long classId, @Param("studentDelta") int studentDelta,
+                       @Param("goalDelta") int goalDelta, @Param("completedDelta") int completedDelta);
+
+    // 学生的目标变化同步到该学生所在、且属于目标教师的全部班级
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE classes SET goal_count = goal_count + :goalDelta, " +
+                   "completed_goal_count = completed_goal_count + :completedDelta " +
+                   "WHERE teacher_id = :teacherId AND id IN " +
+                   "(SELECT cs.class_id FROM class_students cs WHERE cs.student_id = :studentId)",
+           nativeQuery = true)
+    int adjustGoalCountersForStudent(@Param("teacherId") Long teacherId, @Param("studentId") Long studentId,
+                                     @Param("goalDelta") int goalDelta, @Param("completedDelta") int completedDelta);
+
+    // 按关联表与学习目标表重算教师名下全部班级的计数
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE classes c SET " +
+                   "student_count = (SELECT COUNT(*) FROM class_students cs WHERE cs.class_id = c.id), " +
+                   "goal_count = (SELECT COUNT(*) FROM learning_goals g JOIN class_students cs " +
+                   "ON cs.student_id = g.student_id WHERE cs.class_id = c.id AND g.teacher_id = c.teacher_id), " +
+                   "completed_goal_count = (SELECT COUNT(*) FROM learning_goals g JOIN class_students cs " +
+                   "ON cs.student_id = g.student_id WHERE cs.class_id = c.id AND g.teacher_id = c.teacher_id " +
+                   "AND g.status = 'COMPLETED') " +
+                   "WHERE c.teacher_id = :teacherId",
+           nativeQuery = true)
+    int recountByTeacherId(@Param("teacherId") Long teacherId);
+
+    // 按关联表与学习目标表重算全部班级的计数，口径与 recountByTeacherId 一致
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE classes c SET " +
+                   "student_count = (SELECT COUNT(*) FROM class_students cs WHERE cs.class_id = c.id), " +
+                   "goal_count = (SELECT COUNT(*) FROM learning_goals g JOIN class_students cs " +
+                   "ON cs.student_id = g.student_id WHERE cs.class_id = c.id AND g.teacher_id = c.teacher_id), " +
+                   "completed_goal_count = (SELECT COUNT(*) FROM learning_goals g JOIN class_students cs " +
+                   "ON cs.student_id = g.student_id WHERE cs.class_id = c.id AND g.teacher_id = c.teacher_id " +
+                   "AND g.status = 'COMPLETED')",
+           nativeQuery = true)
+    int recountAll();
+
+    long countByTeacherId(Long teacherId);
+
+    // 班级ID与所属教师ID
+    @Query("SELECT c.id, c.teacher.id FROM ClassEntity c WHERE c.id IN :ids")
+    List<Object[]> findTeacherIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT COUNT(DISTINCT s.id) FROM ClassEntity c JOIN c.students s WHERE c.teacher.id = :teacherId")
+    long countDistinctStudentsByTeacherId(@Param("teacherId") Long teacherId);
+}
@@ -3,6 +3,8 @@ package com.example.learninganalysis.repository;
 import com.example.learninganalysis.model.Evaluation;
 import com.example.learninganalysis.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -11,4 +13,9 @@ public interface EvaluationRepository extends JpaRepository<Evaluation, Long> {
     List<Evaluation> findByStudentIdOrderByCreatedAtDesc(Long studentId);
     List<Evaluation> findByTeacherIdOrderByCreatedAtDesc(Long teacherId);
     List<Evaluation> findByStudentAndTeacherOrderByCreatedAtDesc(User student, User teacher);
+    
+    // 教师对学生的评估：ID、内容、等级、创建时间，不加载关联的用户
+    @Query("SELECT e.id, e.content, e.grade, e.createdAt FROM Evaluation e " +
+           "WHERE e.student.id = :studentId AND e.teacher.id = :teacherId ORDER BY e.createdAt DESC")
+    List<Object[]> findRowsByStudentIdAndTeacherId(@Param("studentId") Long studentId, @Param("teacherId") Long teacherId);
 } 
\ No newline at end of file
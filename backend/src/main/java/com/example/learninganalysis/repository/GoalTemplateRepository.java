@@ -0,0 +1,23 @@
+package com.example.learninganalysis.repository;
+
+import com.example.learninganalysis.model.GoalTemplate;
+import com.example.learninganalysis.model.LearningGoal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface GoalTemplateRepository extends JpaRepository<GoalTemplate, Long> {
+
+    // 教师的目标模板与完成情况汇总：模板ID、标题、截止日期、班级ID、班级名称、布置人数、已完成人数、平均进度
+    @Query("SELECT t.id, t.title, t.dueDate, c.id, c.name, COUNT(g.id), " +
+           "COALESCE(SUM(CASE WHEN g.status = :completed THEN 1 ELSE 0 END), 0), AVG(g.progress) " +
+           "FROM GoalTemplate t LEFT JOIN t.classEntity c LEFT JOIN LearningGoal g ON g.template = t " +
+           "WHERE t.teacher.id = :teacherId " +
+           "GROUP BY t.id, t.title, t.dueDate, c.id, c.name, t.createdAt ORDER BY t.createdAt DESC, t.id DESC")
+    List<Object[]> summarizeByTeacherId(@Param("teacherId") Long teacherId,
+                                        @Param("completed") LearningGoal.GoalStatus completed);
+}
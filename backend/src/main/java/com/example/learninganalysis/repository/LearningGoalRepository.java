@@ -1,9 +1,15 @@
 package com.example.learninganalysis.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.example.learninganalysis.model.LearningGoal;
 import com.example.learninganalysis.model.User;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,6 +18,14 @@ public interface LearningGoalRepository extends JpaRepository<LearningGoal, Long
     // 根据教师查询学习目标
     List<LearningGoal> findByTeacherOrderByCreatedAtDesc(User teacher);
     
+    // 教师布置的学习目标，按 (创建时间, ID) 倒序的键集分页，afterId 为 null 时取首页
+    @Query("SELECT g FROM LearningGoal g WHERE g.teacher = :teacher AND (:afterId IS NULL " +
+           "OR g.createdAt < :afterCreatedAt OR (g.createdAt = :afterCreatedAt AND g.id < :afterId)) " +
+           "ORDER BY g.createdAt DESC, g.id DESC")
+    List<LearningGoal> findTeacherPage(@Param("teacher") User teacher,
+                                       @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                       @Param("afterId") Long afterId, Pageable pageable);
+    
     // 根据学生查询学习目标
     List<LearningGoal> findByStudentOrderByCreatedAtDesc(User student);
     
@@ -26,4 +40,59 @@ public interface LearningGoalRepository extends JpaRepository<LearningGoal, Long
     
     // 查询特定教师创建的学习目标总数
     long countByTeacher(User teacher);
-} 
\ No newline at end of file
+    
+    // 查询特定教师已完成的学习目标总数
+    long countByTeacherAndStatus(User teacher, LearningGoal.GoalStatus status);
+    
+    // 某教师布置给某学生的目标数与已完成数
+    @Query("SELECT COUNT(g), COALESCE(SUM(CASE WHEN g.status = :completed THEN 1 ELSE 0 END), 0) " +
+           "FROM LearningGoal g WHERE g.teacher.id = :teacherId AND g.student.id = :studentId")
+    List<Object[]> countByTeacherAndStudent(@Param("teacherId") Long teacherId, @Param("studentId") Long studentId,
+                                            @Param("completed") LearningGoal.GoalStatus completed);
+    
+    // 教师布置给某学生的目标：ID、标题、描述、截止日期、状态、进度
+    @Query("SELECT g.id, g.title, g.description, g.dueDate, g.status, g.progress FROM LearningGoal g " +
+           "WHERE g.student.id = :studentId AND g.teacher.id = :teacherId ORDER BY g.createdAt DESC")
+    List<Object[]> findRowsByStudentIdAndTeacherId(@Param("studentId") Long studentId, @Param("teacherId") Long teacherId);
+    
+    // 教师最近到期的未完成目标，同一模板生成的目标合为一行：代表目标id、标题、截止日期、平均进度、布置人数；
+    // 单独布置的目标以自身为一组，模板下只要还有学生未完成就列出
+    @Query("SELECT MIN(g.id), MIN(g.title), MIN(g.dueDate), AVG(COALESCE(g.progress, 0)), COUNT(g) " +
+           "FROM LearningGoal g WHERE g.teacher.id = :teacherId AND g.dueDate >= :from " +
+           "GROUP BY COALESCE(g.template.id, -g.id) " +
+           "HAVING SUM(CASE WHEN g.status <> :excluded THEN 1 ELSE 0 END) > 0 " +
+           "ORDER BY MIN(g.dueDate) ASC")
+    List<Object[]> findUpcomingDeadlines(@Param("teacherId") Long teacherId, @Param("from") LocalDateTime from,
+                                         @Param("excluded") LearningGoal.GoalStatus excluded, Pageable pageable);
+    
+    // 按班级当前成员为模板批量生成每名学生的目标记录，返回生成的条数
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO learning_goals (title, description, due_date, progress, status, student_id, teacher_id, " +
+                   "template_id, created_at, updated_at) " +
+                   "SELECT t.title, t.description, t.due_date, 0, 'IN_PROGRESS', cs.student_id, t.teacher_id, t.id, :now, :now " +
+                   "FROM goal_templates t JOIN class_students cs ON cs.class_id = :classId WHERE t.id = :templateId",
+           nativeQuery = true)
+    int insertForClassMembers(@Param("templateId") Long templateId, @Param("classId") Long classId,
+                              @Param("now") LocalDateTime now);
+    
+    // 各模板的布置人数：模板ID、人数
+    @Query("SELECT g.template.id, COUNT(g) FROM LearningGoal g WHERE g.template.id IN :templateIds GROUP BY g.template.id")
+    List<Object[]> countByTemplateIds(@Param("templateIds") Collection<Long> templateIds);
+    
+    // 单个模板的完成情况：布置人数、已完成、进行中、待审核、平均进度，以及进度 0-24、25-49、50-74、75-99、100 各区间人数
+    @Query("SELECT COUNT(g), " +
+           "COALESCE(SUM(CASE WHEN g.status = :completed THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN g.status = :inProgress THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN g.status = :pendingReview THEN 1 ELSE 0 END), 0), " +
+           "AVG(g.progress), " +
+           "COALESCE(SUM(CASE WHEN COALESCE(g.progress, 0) < 25 THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN g.progress >= 25 AND g.progress < 50 THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN g.progress >= 50 AND g.progress < 75 THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN g.progress >= 75 AND g.progress < 100 THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN g.progress >= 100 THEN 1 ELSE 0 END), 0) " +
+           "FROM LearningGoal g WHERE g.template.id = :templateId")
+    List<Object[]> summarizeTemplate(@Param("templateId") Long templateId,
+                                     @Param("completed") LearningGoal.GoalStatus completed,
+                                     @Param("inProgress") LearningGoal.GoalStatus inProgress,
+                                     @Param("pendingReview") LearningGoal.GoalStatus pendingReview);
+}
@@ -0,0 +1,90 @@
+package com.example.learninganalysis.repository;
+
+import com.example.learninganalysis.model.StudentStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StudentStatsRepository extends JpaRepository<StudentStats, Long> {
+
+    Optional<StudentStats> findByStudentId(Long studentId);
+
+    // 以下增量更新在统计记录不存在时影响 0 行，由调用方改为按源数据生成该行
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE StudentStats s SET s.totalGoals = s.totalGoals + :goalDelta, " +
+           "s.completedGoals = s.completedGoals + :completedDelta, s.updatedAt = :now " +
+           "WHERE s.student.id = :studentId")
+    int adjustGoalCounts(@Param("studentId") Long studentId, @Param("goalDelta") int goalDelta,
+                         @Param("completedDelta") int completedDelta, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE StudentStats s SET s.totalActivities = s.totalActivities + :totalDelta, " +
+           "s.participatedActivities = s.participatedActivities + :participatedDelta, s.updatedAt = :now " +
+           "WHERE s.student.id = :studentId")
+    int adjustActivityCounts(@Param("studentId") Long studentId, @Param("totalDelta") int totalDelta,
+                             @Param("participatedDelta") int participatedDelta, @Param("now") LocalDateTime now);
+
+    // 计数更新后单独刷新比率，避免依赖数据库对同一条 UPDATE 中赋值顺序的处理
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE StudentStats s SET " +
+           "s.goalCompletionRate = CASE WHEN s.totalGoals > 0 THEN s.completedGoals * 100.0 / s.totalGoals ELSE 0.0 END, " +
+           "s.activityParticipationRate = CASE WHEN s.totalActivities > 0 " +
+           "THEN s.participatedActivities * 100.0 / s.totalActivities ELSE 0.0 END " +
+           "WHERE s.student.id = :studentId")
+    int refreshRates(@Param("studentId") Long studentId);
+
+    // 按学习目标表与活动参与表重算 [fromId, toId] 范围内全部学生的统计，已有记录则覆盖
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO student_stats (student_id, total_goals, completed_goals, goal_completion_rate, " +
+                   "total_activities, participated_activities, activity_participation_rate, created_at, updated_at) " +
+                   "SELECT t.id, t.total_goals, t.completed_goals, " +
+                   "CASE WHEN t.total_goals > 0 THEN t.completed_goals * 100.0 / t.total_goals ELSE 0 END, " +
+                   "t.total_activities, t.participated_activities, " +
+                   "CASE WHEN t.total_activities > 0 THEN t.participated_activities * 100.0 / t.total_activities ELSE 0 END, " +
+                   ":now, :now FROM (SELECT u.id, " +
+                   "(SELECT COUNT(*) FROM learning_goals g WHERE g.student_id = u.id) AS total_goals, " +
+                   "(SELECT COUNT(*) FROM learning_goals g WHERE g.student_id = u.id AND g.status = 'COMPLETED') AS completed_goals, " +
+                   "(SELECT COUNT(*) FROM activity_participations p WHERE p.user_id = u.id AND p.status IN ('REGISTERED', 'COMPLETED')) AS total_activities, " +
+                   "(SELECT COUNT(*) FROM activity_participations p WHERE p.user_id = u.id AND p.status = 'COMPLETED') AS participated_activities " +
+                   "FROM users u WHERE u.role = 'STUDENT' AND u.id BETWEEN :fromId AND :toId) t " +
+                   "ON DUPLICATE KEY UPDATE total_goals = VALUES(total_goals), completed_goals = VALUES(completed_goals), " +
+                   "goal_completion_rate = VALUES(goal_completion_rate), total_activities = VALUES(total_activities), " +
+                   "participated_activities = VALUES(participated_activities), " +
+                   "activity_participation_rate = VALUES(activity_participation_rate), updated_at = VALUES(updated_at)",
+           nativeQuery = true)
+    int rebuildRange(@Param("fromId") Long fromId, @Param("toId") Long toId, @Param("now") LocalDateTime now);
+
+    // 按主键顺序分页读取学生ID，用于切分重建任务
+    @Query("SELECT u.id FROM User u WHERE u.role = com.example.learninganalysis.model.UserRole.STUDENT " +
+           "AND u.id > :afterId ORDER BY u.id")
+    List<Long> findStudentIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 模板批量布置后，为布置到的学生各加一个目标并刷新目标完成率
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE student_stats SET total_goals = total_goals + 1, updated_at = :now " +
+                   "WHERE student_id IN (SELECT g.student_id FROM learning_goals g WHERE g.template_id = :templateId)",
+           nativeQuery = true)
+    int incrementGoalsForTemplate(@Param("templateId") Long templateId, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE student_stats SET goal_completion_rate = " +
+                   "CASE WHEN total_goals > 0 THEN completed_goals * 100.0 / total_goals ELSE 0 END " +
+                   "WHERE student_id IN (SELECT g.student_id FROM learning_goals g WHERE g.template_id = :templateId)",
+           nativeQuery = true)
+    int refreshGoalRatesForTemplate(@Param("templateId") Long templateId);
+
+    // 模板布置到的学生中还没有统计记录的学生ID
+    @Query(value = "SELECT g.student_id FROM learning_goals g WHERE g.template_id = :templateId " +
+                   "AND NOT EXISTS (SELECT 1 FROM student_stats s WHERE s.student_id = g.student_id)",
+           nativeQuery = true)
+    List<Long> findStudentIdsWithoutStatsForTemplate(@Param("templateId") Long templateId);
+}
@@ -9,7 +9,7 @@ import org.springframework.data.repository.query.Param;
 import java.time.LocalDateTime;
 import java.util.List;
 
-public interface SystemLogRepository extends JpaRepository<SystemLog, Long> {
+public interface SystemLogRepository extends JpaRepository<SystemLog, Long>, SystemLogRepositoryCustom {
     
     // 根据操作类型查询日志
     List<SystemLog> findByOperationType(String operationType);
@@ -0,0 +1,18 @@
+package com.example.learninganalysis.repository;
+
+import com.example.learninganalysis.dto.SystemLogEntry;
+import com.example.learninganalysis.model.UserRole;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface SystemLogRepositoryCustom {
+
+    /**
+     * 按条件分页查询日志，按 (created_at, id) 倒序的键集分页
+     * 各条件为 null 时不参与过滤；afterCreatedAt/afterId 为上一页最后一行，首页传 null
+     */
+    List<SystemLogEntry> searchPage(String operationType, UserRole userRole,
+                                    LocalDateTime startTime, LocalDateTime endTime,
+                                    LocalDateTime afterCreatedAt, Long afterId, int limit);
+}
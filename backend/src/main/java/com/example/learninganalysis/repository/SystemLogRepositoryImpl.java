@@ -0,0 +1,59 @@
+package com.example.learninganalysis.repository;
+
+import com.example.learninganalysis.dto.SystemLogEntry;
+import com.example.learninganalysis.model.UserRole;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SystemLogRepositoryImpl implements SystemLogRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<SystemLogEntry> searchPage(String operationType, UserRole userRole,
+                                           LocalDateTime startTime, LocalDateTime endTime,
+                                           LocalDateTime afterCreatedAt, Long afterId, int limit) {
+        StringBuilder jpql = new StringBuilder(
+                "SELECT new com.example.learninganalysis.dto.SystemLogEntry(" +
+                "l.id, l.operationType, l.operationDetail, u.id, u.username, u.name, " +
+                "l.userRole, l.ipAddress, l.createdAt) " +
+                "FROM SystemLog l LEFT JOIN l.user u WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+
+        // 条件顺序与 system_logs 上的复合索引 (operation_type, user_role, created_at) 保持一致
+        if (operationType != null) {
+            jpql.append(" AND l.operationType = :operationType");
+            params.put("operationType", operationType);
+        }
+        if (userRole != null) {
+            jpql.append(" AND l.userRole = :userRole");
+            params.put("userRole", userRole);
+        }
+        if (startTime != null) {
+            jpql.append(" AND l.createdAt >= :startTime");
+            params.put("startTime", startTime);
+        }
+        if (endTime != null) {
+            jpql.append(" AND l.createdAt <= :endTime");
+            params.put("endTime", endTime);
+        }
+        if (afterCreatedAt != null && afterId != null) {
+            jpql.append(" AND (l.createdAt < :afterCreatedAt OR (l.createdAt = :afterCreatedAt AND l.id < :afterId))");
+            params.put("afterCreatedAt", afterCreatedAt);
+            params.put("afterId", afterId);
+        }
+        jpql.append(" ORDER BY l.createdAt DESC, l.id DESC");
+
+        TypedQuery<SystemLogEntry> query = entityManager.createQuery(jpql.toString(), SystemLogEntry.class);
+        params.forEach(query::setParameter);
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.learninganalysis.repository;
+
+import com.example.learninganalysis.model.TeacherStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface TeacherStatsRepository extends JpaRepository<TeacherStats, Long> {
+
+    Optional<TeacherStats> findByTeacherId(Long teacherId);
+
+    // 以下增量更新在汇总记录不存在时影响 0 行，由下次读取时的全量重建补齐
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE TeacherStats t SET t.classCount = t.classCount + :delta, t.updatedAt = :now " +
+           "WHERE t.teacherId = :teacherId")
+    int adjustClassCount(@Param("teacherId") Long teacherId, @Param("delta") int delta,
+                         @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE TeacherStats t SET t.goalCount = t.goalCount + :goalDelta, " +
+           "t.completedGoalCount = t.completedGoalCount + :completedDelta, t.updatedAt = :now " +
+           "WHERE t.teacherId = :teacherId")
+    int adjustGoalCounts(@Param("teacherId") Long teacherId, @Param("goalDelta") int goalDelta,
+                         @Param("completedDelta") int completedDelta, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE TeacherStats t SET t.activityCount = t.activityCount + :delta, t.updatedAt = :now " +
+           "WHERE t.teacherId = :teacherId")
+    int adjustActivityCount(@Param("teacherId") Long teacherId, @Param("delta") int delta,
+                            @Param("now") LocalDateTime now);
+
+    // 锁定教师汇总记录直到事务结束，返回记录ID（不存在时为 null）；重算学生数前先调用，使同一教师的重算依次执行
+    @Query(value = "SELECT id FROM teacher_stats WHERE teacher_id = :teacherId FOR UPDATE", nativeQuery = true)
+    Long lockByTeacherId(@Param("teacherId") Long teacherId);
+
+    // 按班级成员关系重算教师名下的学生数，同一学生在多个班级中只计一次
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE teacher_stats t SET student_count = " +
+                   "(SELECT COUNT(DISTINCT cs.student_id) FROM class_students cs JOIN classes c ON c.id = cs.class_id " +
+                   "WHERE c.teacher_id = t.teacher_id), updated_at = :now WHERE t.teacher_id = :teacherId",
+           nativeQuery = true)
+    int recountStudentCount(@Param("teacherId") Long teacherId, @Param("now") LocalDateTime now);
+
+    // 删除汇总记录，使其在下次读取时重建
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM TeacherStats t WHERE t.teacherId = :teacherId")
+    int deleteByTeacherId(@Param("teacherId") Long teacherId);
+}
@@ -1,10 +1,20 @@
 package com.example.learninganalysis.repository;
 
+import com.example.learninganalysis.dto.StudentRosterItem;
+import com.example.learninganalysis.dto.TeacherRosterItem;
 import com.example.learninganalysis.model.User;
 import com.example.learninganalysis.model.UserRole;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +25,62 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
     boolean existsByEmailAndIdNot(String email, Long id);
     List<User> findByRole(UserRole role);
+
+    // 指定角色的用户，按用户ID分页，afterId 为 null 时取首页
+    @Query("SELECT u FROM User u WHERE u.role = :role AND (:afterId IS NULL OR u.id > :afterId) ORDER BY u.id")
+    List<User> findPageByRole(@Param("role") UserRole role, @Param("afterId") Long afterId, Pageable pageable);
     List<User> findTop10ByRoleOrderByCreatedAtDesc(UserRole role);
+
+    // 检索索引构建：用户的可检索字段与角色，按用户ID分块读取
+    @Query("SELECT u.id, u.username, u.name, u.role FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Object[]> findSearchRows(@Param("afterId") Long afterId, Pageable pageable);
     long countByRole(UserRole role);
-}
\ No newline at end of file
+
+    // 密码哈希升级：只有密码仍是旧哈希时才写入新哈希
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash, u.updatedAt = :now WHERE u.id = :id AND u.password = :oldHash")
+    int updatePasswordIfUnchanged(@Param("id") Long id, @Param("oldHash") String oldHash,
+                                  @Param("newHash") String newHash, @Param("now") LocalDateTime now);
+
+    // 批量查重：返回给定集合中已被占用的用户名、邮箱
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // 批量写入后按用户名回查：用户ID、用户名、密码哈希
+    @Query("SELECT u.id, u.username, u.password FROM User u WHERE u.username IN :usernames")
+    List<Object[]> findCredentialRowsByUsernameIn(@Param("usernames") Collection<String> usernames);
+
+    // 教师列表与各自管理的班级数，keyword 为 null 时不过滤
+    @Query(value = "SELECT new com.example.learninganalysis.dto.TeacherRosterItem(" +
+                   "u.id, u.name, u.username, u.email, u.avatarUrl, u.createdAt, COUNT(c.id)) " +
+                   "FROM User u LEFT JOIN ClassEntity c ON c.teacher = u " +
+                   "WHERE u.role = com.example.learninganalysis.model.UserRole.TEACHER " +
+                   "AND (:keyword IS NULL OR u.name LIKE :keyword OR u.username LIKE :keyword OR u.email LIKE :keyword) " +
+                   "GROUP BY u.id, u.name, u.username, u.email, u.avatarUrl, u.createdAt",
+           countQuery = "SELECT COUNT(u) FROM User u WHERE u.role = com.example.learninganalysis.model.UserRole.TEACHER " +
+                        "AND (:keyword IS NULL OR u.name LIKE :keyword OR u.username LIKE :keyword OR u.email LIKE :keyword)")
+    Page<TeacherRosterItem> findTeacherRoster(@Param("keyword") String keyword, Pageable pageable);
+
+    // 没有管理任何班级的教师，按用户ID分页
+    @Query("SELECT new com.example.learninganalysis.dto.TeacherRosterItem(" +
+           "u.id, u.name, u.username, u.email, u.avatarUrl, u.createdAt, 0L) " +
+           "FROM User u WHERE u.role = com.example.learninganalysis.model.UserRole.TEACHER " +
+           "AND (:afterId IS NULL OR u.id > :afterId) " +
+           "AND NOT EXISTS (SELECT c.id FROM ClassEntity c WHERE c.teacher = u) ORDER BY u.id")
+    List<TeacherRosterItem> findUnassignedTeachers(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 学生列表与各自加入的班级数，keyword 为 null 时不过滤
+    @Query(value = "SELECT new com.example.learninganalysis.dto.StudentRosterItem(" +
+                   "u.id, u.name, u.username, u.email, u.avatarUrl, u.createdAt, COUNT(c.id)) " +
+                   "FROM User u LEFT JOIN u.joinedClasses c " +
+                   "WHERE u.role = com.example.learninganalysis.model.UserRole.STUDENT " +
+                   "AND (:keyword IS NULL OR u.name LIKE :keyword OR u.username LIKE :keyword OR u.email LIKE :keyword) " +
+                   "GROUP BY u.id, u.name, u.username, u.email, u.avatarUrl, u.createdAt",
+           countQuery = "SELECT COUNT(u) FROM User u WHERE u.role = com.example.learninganalysis.model.UserRole.STUDENT " +
+                        "AND (:keyword IS NULL OR u.name LIKE :keyword OR u.username LIKE :keyword OR u.email LIKE :keyword)")
+    Page<StudentRosterItem> findStudentRoster(@Param("keyword") String keyword, Pageable pageable);
+}
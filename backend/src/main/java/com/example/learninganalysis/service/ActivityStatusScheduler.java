@@ -0,0 +1,381 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.model.Activity;
+import com.example.learninganalysis.model.Activity.ActivityStatus;
+import com.example.learninganalysis.repository.ActivityRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * 活动状态定时切换
+ *
+ * 每个未结束且未取消的活动在时间轮中只有一条待执行的切换：开始时间到达时 UPCOMING -> ONGOING，结束时间到达时改为 COMPLETED。
+ * 时间轮按 activity.status.tick-ms 划分刻度，共 activity.status.wheel-size 个槽，切换按到期刻度取模放入槽中，
+ * 超出一圈的切换留在槽里，转到时比较到期刻度即可；每个刻度只检查一个槽，与活动总数无关，不轮询活动表。
+ * 同一刻度到期的切换按目标状态分组，用带条件的批量 UPDATE 按主键执行，活动已被修改或重复执行时条件不成立，不会误改。
+ * 到期刻度向上取整，切换不会早于开始、结束时间执行；批量更新未全部生效时按数据库中的状态与时间重新安排这些活动，
+ * 数据库时间精度与内存中不一致导致的提前执行不会丢失切换。
+ * 启动时按主键分块装载全部未结束的活动，已过期的切换在第一个刻度补做；之后活动的新建、修改、删除在事务提交后更新时间轮。
+ * 时间轮只在本进程内，多实例部署时各实例各自执行相同的条件更新，结果一致。
+ */
+@Component
+public class ActivityStatusScheduler {
+    private static final Logger logger = Logger.getLogger(ActivityStatusScheduler.class.getName());
+
+    // 批量更新失败后的重试间隔
+    private static final long RETRY_DELAY_MS = 30000;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${activity.status.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${activity.status.wheel-size:3600}")
+    private int wheelSize;
+
+    @Value("${activity.status.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 一条待执行的状态切换；endTime 用于开始之后继续安排结束切换
+     */
+    private record Transition(Long activityId, ActivityStatus target, long dueTick, LocalDateTime endTime) {
+    }
+
+    // 以下字段由 this 同步保护
+    private List<Map<Long, Transition>> wheel;
+    private final Map<Long, Transition> pending = new HashMap<>();
+    private long currentTick;
+
+    private ScheduledExecutorService ticker;
+
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong rescheduled = new AtomicLong();
+    private volatile long lastTickMillis;
+    private volatile LocalDateTime loadedAt;
+
+    /**
+     * 装载未结束的活动并启动时间轮
+     */
+    public void start() {
+        synchronized (this) {
+            if (ticker != null) {
+                return;
+            }
+            wheel = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                wheel.add(new HashMap<>());
+            }
+            currentTick = tickOf(System.currentTimeMillis());
+        }
+
+        long loadStarted = System.currentTimeMillis();
+        long afterId = 0L;
+        int loaded = 0;
+        while (true) {
+            List<Object[]> rows = activityRepository.findSchedulingRows(afterId, PageRequest.of(0, batchSize));
+            synchronized (this) {
+                for (Object[] row : rows) {
+                    Long id = (Long) row[0];
+                    // 装载期间已由写操作安排过的活动以写操作为准
+                    if (!pending.containsKey(id)) {
+                        schedule(id, (ActivityStatus) row[1], (LocalDateTime) row[2], (LocalDateTime) row[3]);
+                    }
+                    afterId = id;
+                }
+            }
+            loaded += rows.size();
+            if (rows.size() < batchSize) {
+                break;
+            }
+        }
+        loadedAt = LocalDateTime.now();
+        logger.info("活动状态调度已装载 " + loaded + " 个未结束的活动，耗时 " + (System.currentTimeMillis() - loadStarted) + "ms");
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "activity-status-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        synchronized (this) {
+            ticker = executor;
+        }
+        executor.scheduleWithFixedDelay(this::tick, 0, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            executor = ticker;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 活动新建或修改后按新的开始、结束时间重新安排，在事务中调用时推迟到提交之后
+     */
+    public void onActivitySaved(Activity activity) {
+        Long id = activity.getId();
+        ActivityStatus status = activity.getStatus();
+        LocalDateTime startTime = activity.getStartTime();
+        LocalDateTime endTime = activity.getEndTime();
+        afterCommit(() -> {
+            synchronized (this) {
+                cancel(id);
+                schedule(id, status, startTime, endTime);
+            }
+        });
+    }
+
+    public void onActivityDeleted(Long activityId) {
+        afterCommit(() -> {
+            synchronized (this) {
+                cancel(activityId);
+            }
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 按当前状态和时间安排下一次切换：未到开始时间的安排开始，已开始或进行中的安排结束，已过结束时间的立即结束；
+     * 已结束、已取消的活动不再安排
+     */
+    private void schedule(Long id, ActivityStatus status, LocalDateTime startTime, LocalDateTime endTime) {
+        if (status == ActivityStatus.COMPLETED || status == ActivityStatus.CANCELLED) {
+            return;
+        }
+        long nowMillis = System.currentTimeMillis();
+        if (endTime != null && millisOf(endTime) <= nowMillis) {
+            insert(new Transition(id, ActivityStatus.COMPLETED, dueTickOf(millisOf(endTime)), null));
+        } else if (status == ActivityStatus.UPCOMING && startTime != null) {
+            insert(new Transition(id, ActivityStatus.ONGOING, dueTickOf(millisOf(startTime)), endTime));
+        } else if (endTime != null) {
+            insert(new Transition(id, ActivityStatus.COMPLETED, dueTickOf(millisOf(endTime)), null));
+        }
+    }
+
+    private void insert(Transition transition) {
+        if (wheel == null) {
+            // 尚未启动，启动装载时会按数据库中的时间安排
+            return;
+        }
+        // 已过期的切换在下一个刻度执行
+        long dueTick = Math.max(transition.dueTick(), currentTick + 1);
+        Transition scheduled = new Transition(transition.activityId(), transition.target(), dueTick, transition.endTime());
+        wheel.get(slotOf(dueTick)).put(scheduled.activityId(), scheduled);
+        pending.put(scheduled.activityId(), scheduled);
+    }
+
+    private void cancel(Long id) {
+        Transition old = pending.remove(id);
+        if (old != null && wheel != null) {
+            wheel.get(slotOf(old.dueTick())).remove(id);
+        }
+    }
+
+    /**
+     * 推进时间轮到当前刻度，取出到期的切换并批量执行；落后超过一圈时每个槽只检查一次
+     */
+    private void tick() {
+        try {
+            long tickStarted = System.currentTimeMillis();
+            long nowTick = tickOf(tickStarted);
+            List<Transition> due = new ArrayList<>();
+            synchronized (this) {
+                long steps = Math.min(nowTick - currentTick, wheelSize);
+                for (long step = 1; step <= steps; step++) {
+                    Iterator<Transition> iterator = wheel.get(slotOf(currentTick + step)).values().iterator();
+                    while (iterator.hasNext()) {
+                        Transition transition = iterator.next();
+                        if (transition.dueTick() <= nowTick) {
+                            iterator.remove();
+                            pending.remove(transition.activityId());
+                            due.add(transition);
+                        }
+                    }
+                }
+                currentTick = Math.max(currentTick, nowTick);
+            }
+            if (!due.isEmpty()) {
+                apply(due);
+            }
+            lastTickMillis = System.currentTimeMillis() - tickStarted;
+        } catch (RuntimeException e) {
+            // 异常会让定时任务停止，这里只记录
+            logger.warning("活动状态调度执行失败: " + e.getMessage());
+        }
+    }
+
+    private void apply(List<Transition> due) {
+        List<Transition> starting = new ArrayList<>();
+        List<Transition> ending = new ArrayList<>();
+        for (Transition transition : due) {
+            (transition.target() == ActivityStatus.ONGOING ? starting : ending).add(transition);
+        }
+
+        int changed = 0;
+        for (int from = 0; from < starting.size(); from += batchSize) {
+            List<Transition> batch = starting.subList(from, Math.min(from + batchSize, starting.size()));
+            int updated = update(batch, true);
+            started.addAndGet(Math.max(updated, 0));
+            changed += Math.max(updated, 0);
+            if (updated >= 0) {
+                // 开始之后接着安排结束；期间被写操作重新安排的活动以写操作为准
+                synchronized (this) {
+                    for (Transition transition : batch) {
+                        if (transition.endTime() != null && !pending.containsKey(transition.activityId())) {
+                            insert(new Transition(transition.activityId(), ActivityStatus.COMPLETED,
+                                    dueTickOf(millisOf(transition.endTime())), null));
+                        }
+                    }
+                }
+            }
+        }
+        for (int from = 0; from < ending.size(); from += batchSize) {
+            int updated = update(ending.subList(from, Math.min(from + batchSize, ending.size())), false);
+            completed.addAndGet(Math.max(updated, 0));
+            changed += Math.max(updated, 0);
+        }
+        if (changed > 0) {
+            catalogVersionService.bump(CatalogVersionService.Catalog.ACTIVITIES);
+        }
+    }
+
+    /**
+     * 执行一批切换，返回更新的行数；失败时返回 -1，并把这批切换推迟后重试
+     */
+    private int update(List<Transition> batch, boolean starting) {
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (Transition transition : batch) {
+            ids.add(transition.activityId());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int count;
+        try {
+            Integer updated = new TransactionTemplate(transactionManager).execute(status -> starting
+                    ? activityRepository.startDue(ids, now)
+                    : activityRepository.completeDue(ids, now));
+            count = updated != null ? updated : 0;
+        } catch (RuntimeException e) {
+            failedBatches.incrementAndGet();
+            logger.warning("活动状态批量更新失败，" + RETRY_DELAY_MS / 1000 + " 秒后重试: " + e.getMessage());
+            long retryTick = tickOf(System.currentTimeMillis() + RETRY_DELAY_MS);
+            synchronized (this) {
+                for (Transition transition : batch) {
+                    if (!pending.containsKey(transition.activityId())) {
+                        insert(new Transition(transition.activityId(), transition.target(), retryTick, transition.endTime()));
+                    }
+                }
+            }
+            return -1;
+        }
+        if (count < ids.size()) {
+            try {
+                reschedule(ids);
+            } catch (RuntimeException e) {
+                logger.warning("活动状态重新安排失败: " + e.getMessage());
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 条件不成立的切换可能是活动已被修改、删除或已执行，也可能是尚未到期：按数据库中的值重新安排仍未结束的活动，
+     * 期间被写操作重新安排的活动以写操作为准
+     */
+    private void reschedule(List<Long> ids) {
+        List<Object[]> rows = activityRepository.findSchedulingRowsByIds(ids);
+        synchronized (this) {
+            for (Object[] row : rows) {
+                Long id = (Long) row[0];
+                if (!pending.containsKey(id)) {
+                    schedule(id, (ActivityStatus) row[1], (LocalDateTime) row[2], (LocalDateTime) row[3]);
+                    rescheduled.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private long tickOf(long epochMillis) {
+        return Math.floorDiv(epochMillis, tickMs);
+    }
+
+    /**
+     * 切换的到期刻度：向上取整，刻度开始时已不早于切换时间
+     */
+    private long dueTickOf(long epochMillis) {
+        return Math.floorDiv(epochMillis + tickMs - 1, tickMs);
+    }
+
+    private int slotOf(long tick) {
+        return (int) Math.floorMod(tick, (long) wheelSize);
+    }
+
+    private static long millisOf(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 待执行切换数、已执行的开始与结束数、最近一次刻度耗时
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        synchronized (this) {
+            metrics.put("pending", pending.size());
+            metrics.put("running", ticker != null);
+        }
+        metrics.put("tickMs", tickMs);
+        metrics.put("wheelSize", wheelSize);
+        metrics.put("started", started.get());
+        metrics.put("completed", completed.get());
+        metrics.put("failedBatches", failedBatches.get());
+        metrics.put("rescheduled", rescheduled.get());
+        metrics.put("lastTickMillis", lastTickMillis);
+        metrics.put("loadedAt", loadedAt);
+        return metrics;
+    }
+}
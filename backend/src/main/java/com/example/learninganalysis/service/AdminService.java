@@ -1,5 +1,11 @@
 package com.example.learninganalysis.service;
 
+import com.example.learninganalysis.dto.AdminClassItem;
+import com.example.learninganalysis.dto.ClassOption;
+import com.example.learninganalysis.dto.CursorPage;
+import com.example.learninganalysis.dto.DateFormats;
+import com.example.learninganalysis.dto.StudentRosterItem;
+import com.example.learninganalysis.dto.TeacherRosterItem;
 import com.example.learninganalysis.model.ClassEntity;
 import com.example.learninganalysis.model.OperationType;
 import com.example.learninganalysis.model.User;
@@ -7,11 +13,15 @@ import com.example.learninganalysis.model.UserRole;
 import com.example.learninganalysis.repository.ClassRepository;
 import com.example.learninganalysis.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.JpaSort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -29,7 +39,21 @@ public class AdminService {
     @Autowired
     private LogService logService;
 
-    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    @Autowired
+    private TeacherStatsService teacherStatsService;
+
+    @Autowired
+    private AvatarStorageService avatarStorageService;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    private static final int MAX_ROSTER_PAGE_SIZE = 200;
+    private static final Set<String> ROSTER_SORT_FIELDS = Set.of("name", "username", "email", "createdAt");
+
 
     /**
      * 创建班级
@@ -50,6 +74,8 @@ public class AdminService {
 
         // 保存班级
         ClassEntity savedClass = classRepository.save(classEntity);
+        teacherStatsService.onClassCreated(teacherId);
+        searchIndexService.onClassSaved(savedClass);
 
         // 记录操作日志
         String logDetail = "管理员创建了班级: " + classEntity.getName() + ", 班级ID: " + savedClass.getId() 
@@ -60,30 +86,14 @@ public class AdminService {
     }
 
     /**
-     * 获取所有班级列表（包含教师信息）
+     * 获取班级列表（包含教师信息），按班级ID分页
      */
-    public List<Map<String, Object>> getAllClasses() {
-        List<ClassEntity> classes = classRepository.findAll();
-        
-        return classes.stream().map(cls -> {
-            Map<String, Object> classMap = new HashMap<>();
-            classMap.put("id", cls.getId());
-            classMap.put("name", cls.getName());
-            classMap.put("description", cls.getDescription());
-            classMap.put("studentCount", cls.getStudents().size());
-            classMap.put("createdAt", cls.getCreatedAt().format(formatter));
-            
-            // 教师信息
-            Map<String, Object> teacherInfo = new HashMap<>();
-            teacherInfo.put("id", cls.getTeacher().getId());
-            teacherInfo.put("name", cls.getTeacher().getName());
-            teacherInfo.put("username", cls.getTeacher().getUsername());
-            teacherInfo.put("avatarUrl", cls.getTeacher().getAvatarUrl());
-            
-            classMap.put("teacher", teacherInfo);
-            
-            return classMap;
-        }).collect(Collectors.toList());
+    public CursorPage<AdminClassItem> getAllClasses(String cursor, Integer limit) {
+        int pageSize = CursorPage.limit(limit);
+        CursorPage.Cursor after = CursorPage.decode(cursor, 1);
+        return CursorPage.of(classRepository.findAdminClassItems(after != null ? after.id(0) : null,
+                        CursorPage.probe(pageSize)), pageSize, item -> List.of(item.id()))
+                .map(item -> item.withTeacherAvatarUrl(avatarStorageService.thumbnailUrl(item.teacher().avatarUrl())));
     }
 
     /**
@@ -97,25 +107,25 @@ public class AdminService {
         classDetail.put("id", classEntity.getId());
         classDetail.put("name", classEntity.getName());
         classDetail.put("description", classEntity.getDescription());
-        classDetail.put("createdAt", classEntity.getCreatedAt().format(formatter));
+        classDetail.put("createdAt", classEntity.getCreatedAt().format(DateFormats.DATE_TIME));
         
         // 教师信息
         Map<String, Object> teacherInfo = new HashMap<>();
         teacherInfo.put("id", classEntity.getTeacher().getId());
         teacherInfo.put("name", classEntity.getTeacher().getName());
         teacherInfo.put("username", classEntity.getTeacher().getUsername());
-        teacherInfo.put("avatarUrl", classEntity.getTeacher().getAvatarUrl());
+        teacherInfo.put("avatarUrl", avatarStorageService.thumbnailUrl(classEntity.getTeacher().getAvatarUrl()));
         
         classDetail.put("teacher", teacherInfo);
         
         // 学生列表
-        List<Map<String, Object>> studentList = classEntity.getStudents().stream().map(student -> {
+        List<Map<String, Object>> studentList = classRepository.findMembers(classId).stream().map(student -> {
             Map<String, Object> studentMap = new HashMap<>();
             studentMap.put("id", student.getId());
             studentMap.put("name", student.getName());
             studentMap.put("username", student.getUsername());
             studentMap.put("email", student.getEmail());
-            studentMap.put("avatarUrl", student.getAvatarUrl());
+            studentMap.put("avatarUrl", avatarStorageService.thumbnailUrl(student.getAvatarUrl()));
             return studentMap;
         }).collect(Collectors.toList());
         
@@ -138,6 +148,7 @@ public class AdminService {
         existingClass.setDescription(updatedClass.getDescription());
         
         // 如果指定了新教师，则更新教师
+        Long previousTeacherId = existingClass.getTeacher().getId();
         if (teacherId != null) {
             User teacher = userRepository.findById(teacherId)
                     .orElseThrow(() -> new RuntimeException("教师不存在"));
@@ -152,6 +163,14 @@ public class AdminService {
         
         // 保存更新后的班级
         ClassEntity savedClass = classRepository.save(existingClass);
+        catalogVersionService.bump(CatalogVersionService.Catalog.CLASSES);
+        searchIndexService.onClassSaved(savedClass);
+        
+        // 更换教师后班级的目标计数口径随之变化，两位教师的汇总都在下次读取时重建
+        if (teacherId != null && !teacherId.equals(previousTeacherId)) {
+            teacherStatsService.invalidate(previousTeacherId);
+            teacherStatsService.invalidate(teacherId);
+        }
         
         // 记录操作日志
         String logDetail = "管理员更新了班级: " + existingClass.getName() + ", 班级ID: " + savedClass.getId();
@@ -164,85 +183,80 @@ public class AdminService {
     }
 
     /**
-     * 获取所有教师列表
+     * 分页获取教师列表，管理的班级数由一条分组查询得到
+     * size 为空时返回全部教师，供下拉选择使用
      */
-    public List<Map<String, Object>> getAllTeachers() {
-        List<User> teachers = userRepository.findByRole(UserRole.TEACHER);
-        
-        return teachers.stream().map(teacher -> {
-            Map<String, Object> teacherMap = new HashMap<>();
-            teacherMap.put("id", teacher.getId());
-            teacherMap.put("name", teacher.getName());
-            teacherMap.put("username", teacher.getUsername());
-            teacherMap.put("email", teacher.getEmail());
-            teacherMap.put("avatarUrl", teacher.getAvatarUrl());
-            teacherMap.put("createdAt", teacher.getCreatedAt().format(formatter));
-            
-            // 获取教师管理的班级数量
-            List<ClassEntity> managedClasses = classRepository.findByTeacherId(teacher.getId());
-            teacherMap.put("managedClassCount", managedClasses.size());
-            
-            return teacherMap;
-        }).collect(Collectors.toList());
+    public Page<TeacherRosterItem> getTeacherRoster(String keyword, Integer page, Integer size, String sort) {
+        Pageable pageable = toRosterPageable(page, size, sort, "managedClassCount");
+        return userRepository.findTeacherRoster(toLikePattern(keyword), pageable)
+                .map(item -> item.withAvatarUrl(avatarStorageService.thumbnailUrl(item.avatarUrl())));
     }
 
     /**
-     * 获取未分配班级的教师列表
+     * 获取未分配班级的教师列表，按教师ID分页
      */
-    public List<Map<String, Object>> getUnassignedTeachers() {
-        List<User> allTeachers = userRepository.findByRole(UserRole.TEACHER);
-        List<User> assignedTeachers = classRepository.findDistinctTeachers();
-        
-        List<User> unassignedTeachers = new ArrayList<>(allTeachers);
-        unassignedTeachers.removeAll(assignedTeachers);
-        
-        return unassignedTeachers.stream().map(teacher -> {
-            Map<String, Object> teacherMap = new HashMap<>();
-            teacherMap.put("id", teacher.getId());
-            teacherMap.put("name", teacher.getName());
-            teacherMap.put("username", teacher.getUsername());
-            teacherMap.put("email", teacher.getEmail());
-            teacherMap.put("avatarUrl", teacher.getAvatarUrl());
-            return teacherMap;
-        }).collect(Collectors.toList());
+    public CursorPage<TeacherRosterItem> getUnassignedTeachers(String cursor, Integer limit) {
+        int pageSize = CursorPage.limit(limit);
+        CursorPage.Cursor after = CursorPage.decode(cursor, 1);
+        return CursorPage.of(userRepository.findUnassignedTeachers(after != null ? after.id(0) : null,
+                        CursorPage.probe(pageSize)), pageSize, item -> List.of(item.id()))
+                .map(item -> item.withAvatarUrl(avatarStorageService.thumbnailUrl(item.avatarUrl())));
     }
     
     /**
-     * 获取所有学生列表
+     * 分页获取学生列表，加入的班级数由一条分组查询得到
      */
-    public List<Map<String, Object>> getAllStudents() {
-        List<User> students = userRepository.findByRole(UserRole.STUDENT);
-        
-        return students.stream().map(student -> {
-            Map<String, Object> studentMap = new HashMap<>();
-            studentMap.put("id", student.getId());
-            studentMap.put("name", student.getName());
-            studentMap.put("username", student.getUsername());
-            studentMap.put("email", student.getEmail());
-            studentMap.put("avatarUrl", student.getAvatarUrl());
-            studentMap.put("createdAt", student.getCreatedAt().format(formatter));
-            
-            // 获取学生加入的班级数量
-            long classCount = classRepository.countClassesJoinedByStudent(student.getId());
-            studentMap.put("classCount", classCount);
-            
-            return studentMap;
-        }).collect(Collectors.toList());
+    public Page<StudentRosterItem> getStudentRoster(String keyword, Integer page, Integer size, String sort) {
+        Pageable pageable = toRosterPageable(page, size, sort, "classCount");
+        return userRepository.findStudentRoster(toLikePattern(keyword), pageable)
+                .map(item -> item.withAvatarUrl(avatarStorageService.thumbnailUrl(item.avatarUrl())));
+    }
+
+    /**
+     * 解析名单分页参数，sort 格式为 "字段,asc|desc"，按班级数排序时使用分组后的计数
+     */
+    private Pageable toRosterPageable(Integer page, Integer size, String sort, String countField) {
+        Sort order = Sort.by("id");
+        if (sort != null && !sort.isBlank()) {
+            String[] parts = sort.split(",");
+            String field = parts[0].trim();
+            Sort.Direction direction = parts.length > 1 && "desc".equalsIgnoreCase(parts[1].trim())
+                    ? Sort.Direction.DESC : Sort.Direction.ASC;
+
+            Sort primary;
+            if (field.equals(countField)) {
+                primary = JpaSort.unsafe(direction, "COUNT(c.id)");
+            } else if (ROSTER_SORT_FIELDS.contains(field)) {
+                primary = Sort.by(direction, field);
+            } else {
+                throw new RuntimeException("不支持的排序字段: " + field);
+            }
+            // 追加主键排序，保证分页结果稳定
+            order = primary.and(Sort.by("id"));
+        }
+
+        if (size == null) {
+            return Pageable.unpaged(order);
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_ROSTER_PAGE_SIZE));
+        int pageNumber = page == null ? 0 : Math.max(0, page);
+        return PageRequest.of(pageNumber, pageSize, order);
+    }
+
+    private String toLikePattern(String keyword) {
+        if (keyword == null || keyword.isBlank()) {
+            return null;
+        }
+        return "%" + keyword.trim() + "%";
     }
     
     /**
-     * 获取简化的班级列表（用于下拉选择）
+     * 获取简化的班级列表（用于下拉选择），按班级ID分页
      */
-    public List<Map<String, Object>> getSimpleClasses() {
-        List<ClassEntity> classes = classRepository.findAll();
-        
-        return classes.stream().map(cls -> {
-            Map<String, Object> classMap = new HashMap<>();
-            classMap.put("id", cls.getId());
-            classMap.put("name", cls.getName());
-            classMap.put("teacherName", cls.getTeacher().getName());
-            
-            return classMap;
-        }).collect(Collectors.toList());
+    public CursorPage<ClassOption> getSimpleClasses(String cursor, Integer limit) {
+        int pageSize = CursorPage.limit(limit);
+        CursorPage.Cursor after = CursorPage.decode(cursor, 1);
+        return CursorPage.of(classRepository.findClassOptions(after != null ? after.id(0) : null,
+                CursorPage.probe(pageSize)), pageSize, item -> List.of(item.id()));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,210 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.model.OperationType;
+import com.example.learninganalysis.model.UserRole;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * 异步批量审计日志写入器
+ *
+ * 请求线程只把日志条目放入有界队列，由后台线程批量 INSERT 到 system_logs，
+ * 用户ID在插入语句中按用户名子查询得到，因此请求线程上不再有任何数据库访问。
+ * 队列已满时最多等待 audit.log.offer-timeout-ms 毫秒（默认不等待），仍无空位则丢弃并计数。
+ * 关闭开始后提交的日志不再入队，直接在调用线程上写入，避免在后台线程最后一次取队列之后入队而丢失。
+ */
+@Component
+public class AuditLogWriter {
+    private static final Logger logger = Logger.getLogger(AuditLogWriter.class.getName());
+
+    private static final String INSERT_SQL =
+            "INSERT INTO system_logs (operation_type, operation_detail, user_id, user_role, ip_address, created_at) " +
+            "VALUES (?, ?, (SELECT u.id FROM users u WHERE u.username = ?), " +
+            "COALESCE(?, (SELECT u.role FROM users u WHERE u.username = ?)), ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${audit.log.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${audit.log.batch-size:200}")
+    private int batchSize;
+
+    @Value("${audit.log.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    @Value("${audit.log.offer-timeout-ms:0}")
+    private long offerTimeoutMs;
+
+    @Value("${audit.log.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    private BlockingQueue<AuditLogEntry> queue;
+    private Thread worker;
+    private volatile boolean running;
+    // 提交时持有读锁完成“检查状态、入队”，关闭时持有写锁切换状态，切换后不会再有条目进入队列
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * 审计日志条目，userRole 为空时由写入语句按用户名补全
+     */
+    public record AuditLogEntry(OperationType operationType, String detail, String username,
+                                UserRole userRole, String ipAddress, LocalDateTime createdAt) {
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        worker = new Thread(this::drainLoop, "audit-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+        logger.info("审计日志写入器已启动，队列容量: " + queueCapacity + ", 批大小: " + batchSize);
+    }
+
+    /**
+     * 提交一条审计日志，返回 false 表示因队列已满而被丢弃；写入器关闭后在调用线程上同步写入
+     */
+    public boolean submit(OperationType operationType, String detail, String username,
+                          UserRole userRole, String ipAddress) {
+        AuditLogEntry entry = new AuditLogEntry(operationType, detail, username, userRole, ipAddress,
+                LocalDateTime.now());
+        boolean accepted = false;
+        stateLock.readLock().lock();
+        try {
+            if (!running) {
+                List<AuditLogEntry> single = new ArrayList<>(1);
+                single.add(entry);
+                return writeBatch(single);
+            }
+            accepted = offerTimeoutMs > 0
+                    ? queue.offer(entry, offerTimeoutMs, TimeUnit.MILLISECONDS)
+                    : queue.offer(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stateLock.readLock().unlock();
+        }
+
+        if (accepted) {
+            enqueued.incrementAndGet();
+        } else {
+            long count = dropped.incrementAndGet();
+            // 按 2 的幂次输出，避免队列持续满载时刷屏
+            if (Long.bitCount(count) == 1) {
+                logger.warning("审计日志队列已满，已累计丢弃 " + count + " 条日志");
+            }
+        }
+        return accepted;
+    }
+
+    private void drainLoop() {
+        List<AuditLogEntry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditLogEntry first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                // 关闭时被中断，继续循环把队列中剩余的日志写完
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private boolean writeBatch(List<AuditLogEntry> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, entry) -> {
+                ps.setString(1, entry.operationType().name());
+                ps.setString(2, entry.detail());
+                ps.setString(3, entry.username());
+                ps.setString(4, entry.userRole() != null ? entry.userRole().name() : null);
+                ps.setString(5, entry.username());
+                ps.setString(6, entry.ipAddress());
+                ps.setTimestamp(7, Timestamp.valueOf(entry.createdAt()));
+            });
+            written.addAndGet(batch.size());
+            return true;
+        } catch (DataAccessException e) {
+            failed.addAndGet(batch.size());
+            logger.warning("批量写入审计日志失败，丢弃 " + batch.size() + " 条: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 停止入队，并在超时时间内把队列中剩余的日志写完；后台线程结束后再取一次队列，写入其遗留的条目
+     */
+    @PreDestroy
+    public void stop() {
+        stateLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        try {
+            worker.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            logger.warning("审计日志写入器未能在超时时间内完成刷写，剩余 " + queue.size() + " 条");
+            return;
+        }
+        List<AuditLogEntry> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            writeBatch(remaining);
+        }
+        logger.info("审计日志写入器已关闭，累计写入 " + written.get() + " 条");
+    }
+
+    /**
+     * 获取写入器运行指标
+     */
+    public Map<String, Object> getMetrics() {
+        int size = queue.size();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("queueSize", size);
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("fillRatio", queueCapacity == 0 ? 0.0 : (double) size / queueCapacity);
+        metrics.put("enqueued", enqueued.get());
+        metrics.put("written", written.get());
+        metrics.put("dropped", dropped.get());
+        metrics.put("failed", failed.get());
+        metrics.put("running", running);
+        return metrics;
+    }
+}
@@ -0,0 +1,336 @@
+package com.example.learninganalysis.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 头像存储
+ *
+ * 上传内容在写入临时文件的同时计算 SHA-256，以哈希值命名保存为 uploads/avatars/&lt;hash&gt;.&lt;ext&gt;，
+ * 相同内容只保存一份。文件内容与文件名一一对应、永不改写，因此可以按 immutable 长期缓存。
+ * 缩略图 &lt;name&gt;-&lt;size&gt;.&lt;ext&gt; 由后台线程生成，列表页通过 {@link #thumbnailUrl(String)} 取得，
+ * 缩略图尚未生成时返回原图并补排生成任务，历史上传的 UUID 命名头像也因此逐步补齐缩略图；
+ * ImageIO 无法解码的格式（如 WEBP）和生成失败的文件直接使用原图，不再排队。
+ */
+@Service
+public class AvatarStorageService {
+    private static final Logger logger = Logger.getLogger(AvatarStorageService.class.getName());
+
+    /** 头像访问路径前缀，与 WebConfig 中的资源映射一致 */
+    public static final String URL_PREFIX = "uploads/avatars/";
+
+    @Value("${avatar.storage-dir:uploads/avatars}")
+    private String storageDir;
+
+    @Value("${avatar.max-bytes:10485760}")
+    private long maxBytes;
+
+    @Value("${avatar.thumbnail-sizes:64,256}")
+    private int[] thumbnailSizes;
+
+    @Value("${avatar.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${avatar.resize-threads:2}")
+    private int resizeThreads;
+
+    private Path directory;
+    private ExecutorService resizeExecutor;
+
+    /** 正在生成缩略图的文件名，避免同一头像被重复排队 */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    /** 无法生成缩略图的文件名（格式无法解码、像素过大、内容损坏），文件内容不变，不再重复排队，重启后清空 */
+    private final Set<String> unavailable = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void start() throws IOException {
+        directory = Paths.get(storageDir).toAbsolutePath().normalize();
+        Files.createDirectories(directory);
+        thumbnailSizes = Arrays.stream(thumbnailSizes).filter(size -> size > 0).sorted().distinct().toArray();
+        AtomicInteger threadIndex = new AtomicInteger();
+        resizeExecutor = Executors.newFixedThreadPool(resizeThreads, runnable -> {
+            Thread thread = new Thread(runnable, "avatar-resize-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        logger.info("头像存储目录: " + directory + ", 缩略图尺寸: " + Arrays.toString(thumbnailSizes));
+    }
+
+    @PreDestroy
+    public void stop() {
+        resizeExecutor.shutdownNow();
+    }
+
+    /**
+     * 保存上传的头像并返回相对访问路径
+     */
+    public String store(MultipartFile file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        Path temp = Files.createTempFile(directory, "upload-", ".tmp");
+        try {
+            byte[] header = new byte[12];
+            int headerLength = 0;
+            long total = 0;
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    total += read;
+                    if (total > maxBytes) {
+                        throw new RuntimeException("头像文件不能超过 " + (maxBytes / 1024 / 1024) + "MB");
+                    }
+                    if (headerLength < header.length) {
+                        int copy = Math.min(read, header.length - headerLength);
+                        System.arraycopy(buffer, 0, header, headerLength, copy);
+                        headerLength += copy;
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+
+            String extension = detectExtension(header, headerLength);
+            if (extension == null) {
+                throw new RuntimeException("头像仅支持 PNG、JPEG、GIF、WEBP 格式的图片");
+            }
+
+            String filename = HexFormat.of().formatHex(digest.digest()) + "." + extension;
+            Path target = directory.resolve(filename);
+            if (Files.exists(target)) {
+                logger.fine("头像内容已存在，复用文件: " + filename);
+            } else {
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    // 并发上传相同内容时另一方已经落盘，直接复用
+                    if (!Files.exists(target)) {
+                        throw e;
+                    }
+                }
+            }
+            scheduleThumbnails(filename);
+            return URL_PREFIX + filename;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 返回列表展示用的最小尺寸缩略图路径
+     */
+    public String thumbnailUrl(String avatarUrl) {
+        return thumbnailSizes.length == 0 ? avatarUrl : thumbnailUrl(avatarUrl, thumbnailSizes[0]);
+    }
+
+    /**
+     * 返回指定尺寸的缩略图路径，非上传头像原样返回，缩略图尚未生成时返回原图并补排生成任务
+     */
+    public String thumbnailUrl(String avatarUrl, int size) {
+        if (avatarUrl == null || !avatarUrl.startsWith(URL_PREFIX)) {
+            return avatarUrl;
+        }
+        String filename = avatarUrl.substring(URL_PREFIX.length());
+        if (filename.isEmpty() || filename.contains("/") || filename.contains("\\")) {
+            return avatarUrl;
+        }
+        String thumbnail = thumbnailName(filename, size);
+        if (Files.exists(directory.resolve(thumbnail))) {
+            return URL_PREFIX + thumbnail;
+        }
+        scheduleThumbnails(filename);
+        return avatarUrl;
+    }
+
+    private void scheduleThumbnails(String filename) {
+        if (thumbnailSizes.length == 0 || unavailable.contains(filename)) {
+            return;
+        }
+        if (!decodable(filename)) {
+            unavailable.add(filename);
+            return;
+        }
+        if (!pending.add(filename)) {
+            return;
+        }
+        try {
+            resizeExecutor.execute(() -> {
+                try {
+                    if (!generateThumbnails(filename)) {
+                        unavailable.add(filename);
+                    }
+                } catch (Exception e) {
+                    unavailable.add(filename);
+                    logger.log(Level.WARNING, "生成头像缩略图失败: " + filename, e);
+                } finally {
+                    pending.remove(filename);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(filename);
+        }
+    }
+
+    /**
+     * 按扩展名判断 ImageIO 能否解码，JDK 自带的读取器不支持 WEBP
+     */
+    private boolean decodable(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot > 0 && ImageIO.getImageReadersBySuffix(filename.substring(dot + 1).toLowerCase()).hasNext();
+    }
+
+    /**
+     * 生成缺少的缩略图，图片无法生成缩略图时返回 false
+     */
+    private boolean generateThumbnails(String filename) throws IOException {
+        Path source = directory.resolve(filename);
+        if (!Files.exists(source)) {
+            return true;
+        }
+        boolean allPresent = true;
+        for (int size : thumbnailSizes) {
+            allPresent &= Files.exists(directory.resolve(thumbnailName(filename, size)));
+        }
+        if (allPresent) {
+            return true;
+        }
+
+        BufferedImage image = readImage(source);
+        if (image == null) {
+            return false;
+        }
+        // 居中裁剪为正方形后缩放，较大尺寸的结果作为下一级缩放的输入
+        int side = Math.min(image.getWidth(), image.getHeight());
+        BufferedImage current = image.getSubimage((image.getWidth() - side) / 2, (image.getHeight() - side) / 2, side, side);
+        String format = thumbnailFormat(filename);
+        for (int i = thumbnailSizes.length - 1; i >= 0; i--) {
+            int size = Math.min(thumbnailSizes[i], current.getWidth());
+            current = scale(current, size, "jpg".equals(format));
+            Path target = directory.resolve(thumbnailName(filename, thumbnailSizes[i]));
+            if (Files.exists(target)) {
+                continue;
+            }
+            Path temp = Files.createTempFile(directory, "thumb-", ".tmp");
+            try {
+                if (!ImageIO.write(current, format, temp.toFile())) {
+                    return false;
+                }
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 读取图片，先检查像素尺寸，过大的图片不解码，无法识别的格式（如 WEBP）返回 null
+     */
+    private BufferedImage readImage(Path source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    logger.warning("头像像素过大，跳过缩略图生成: " + source.getFileName());
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage source, int size, boolean opaque) {
+        BufferedImage target = new BufferedImage(size, size,
+                opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.drawImage(source, 0, 0, size, size, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private String thumbnailName(String filename, int size) {
+        int dot = filename.lastIndexOf('.');
+        String baseName = dot > 0 ? filename.substring(0, dot) : filename;
+        return baseName + "-" + size + "." + thumbnailFormat(filename);
+    }
+
+    /** JPEG 原图输出 JPEG 缩略图，其余格式输出 PNG 以保留透明通道 */
+    private String thumbnailFormat(String filename) {
+        String lower = filename.toLowerCase();
+        return lower.endsWith(".jpg") || lower.endsWith(".jpeg") ? "jpg" : "png";
+    }
+
+    /**
+     * 按文件头识别图片格式，不信任客户端提供的文件名和 Content-Type
+     */
+    private String detectExtension(byte[] header, int length) {
+        if (length >= 8 && (header[0] & 0xFF) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G') {
+            return "png";
+        }
+        if (length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (length >= 6 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8') {
+            return "gif";
+        }
+        if (length >= 12 && header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return "webp";
+        }
+        return null;
+    }
+}
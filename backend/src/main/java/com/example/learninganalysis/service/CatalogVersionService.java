@@ -0,0 +1,97 @@
+package com.example.learninganalysis.service;
+
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 列表数据版本号
+ *
+ * 每类列表数据维护一个进程内版本号，相关写操作提交后递增。读接口以版本号和用户ID生成强 ETag，
+ * 请求携带的 If-None-Match 与当前版本一致时直接返回 304，不查询数据库。
+ * 版本号在事务提交之后才递增，读请求在查询前取版本号，因此旧版本号最多对应更新的数据，不会把旧数据当成最新的返回。
+ * ETag 带有进程启动时间，应用重启后客户端缓存全部失效。
+ * 版本号只在本进程内递增，仅适用于单实例部署：多实例时其他实例上的写操作不会递增本实例的版本号，
+ * 本实例会继续对旧 ETag 返回 304，客户端拿到的是过期数据。多实例部署前须改为共享的版本号（如存入数据库）。
+ */
+@Service
+public class CatalogVersionService {
+
+    /**
+     * 带版本号的列表数据
+     */
+    public enum Catalog {
+        /** 活动列表：活动增删改、报名、取消、完成 */
+        ACTIVITIES,
+        /** 班级列表：班级增删改、成员变化、班级目标计数变化 */
+        CLASSES,
+        /** 入班申请：申请、审批、取消 */
+        APPLICATIONS
+    }
+
+    /** 带 ETag 的列表响应使用的缓存策略：只允许浏览器私有缓存，每次使用前必须重新验证 */
+    public static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private static final Pattern CURSOR_PATTERN = Pattern.compile("[A-Za-z0-9_-]*");
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Catalog, AtomicLong> versions = new EnumMap<>(Catalog.class);
+
+    public CatalogVersionService() {
+        for (Catalog catalog : Catalog.values()) {
+            versions.put(catalog, new AtomicLong());
+        }
+    }
+
+    /**
+     * 递增版本号，在事务中调用时推迟到提交之后，回滚时不递增
+     */
+    public void bump(Catalog... catalogs) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(catalogs);
+                }
+            });
+        } else {
+            increment(catalogs);
+        }
+    }
+
+    private void increment(Catalog... catalogs) {
+        for (Catalog catalog : catalogs) {
+            versions.get(catalog).incrementAndGet();
+        }
+    }
+
+    /**
+     * 生成某个用户看到的列表数据的 ETag，须在查询数据之前调用
+     */
+    public String etag(Long userId, Catalog... catalogs) {
+        StringBuilder etag = new StringBuilder("\"").append(epoch);
+        for (Catalog catalog : catalogs) {
+            etag.append('-').append(versions.get(catalog).get());
+        }
+        return etag.append('-').append(userId).append('"').toString();
+    }
+
+    /**
+     * 分页列表的 ETag：同一版本下不同游标、不同条数的页是不同的表示，须各自带上分页参数
+     * 游标为 Base64url 编码，可以直接放进 ETag，含其他字符的游标在这里就按无效游标拒绝
+     */
+    public String etag(Long userId, String cursor, int limit, Catalog... catalogs) {
+        if (cursor != null && !CURSOR_PATTERN.matcher(cursor).matches()) {
+            throw new RuntimeException("无效的分页游标");
+        }
+        String etag = etag(userId, catalogs);
+        return etag.substring(0, etag.length() - 1) + "-" + limit
+                + (cursor == null || cursor.isEmpty() ? "" : "-" + cursor) + '"';
+    }
+}
@@ -1,16 +1,23 @@
 package com.example.learninganalysis.service;
 
+import com.example.learninganalysis.dto.CursorPage;
 import com.example.learninganalysis.model.*;
 import com.example.learninganalysis.repository.ClassApplicationRepository;
 import com.example.learninganalysis.repository.ClassRepository;
 import com.example.learninganalysis.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class ClassService {
@@ -24,33 +31,59 @@ public class ClassService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TeacherStatsService teacherStatsService;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     /**
      * 创建新班级
      */
+    @Transactional
     public ClassEntity createClass(ClassEntity classEntity, User teacher) {
         classEntity.setTeacher(teacher);
-        return classRepository.save(classEntity);
+        ClassEntity savedClass = classRepository.save(classEntity);
+        teacherStatsService.onClassCreated(teacher.getId());
+        searchIndexService.onClassSaved(savedClass);
+        return savedClass;
     }
 
     /**
-     * 获取教师创建的所有班级
+     * 获取教师创建的班级，按 (创建时间, ID) 倒序分页
      */
-    public List<ClassEntity> getTeacherClasses(Long teacherId) {
-        return classRepository.findByTeacherIdOrderByCreatedAtDesc(teacherId);
+    public CursorPage<ClassEntity> getTeacherClasses(Long teacherId, String cursor, Integer limit) {
+        int pageSize = CursorPage.limit(limit);
+        CursorPage.Cursor after = CursorPage.decode(cursor, 2);
+        return CursorPage.of(classRepository.findTeacherClassPage(teacherId,
+                after != null ? after.time(0) : null, after != null ? after.id(1) : null,
+                CursorPage.probe(pageSize)), pageSize, cls -> List.of(cls.getCreatedAt(), cls.getId()));
     }
 
     /**
-     * 获取学生加入的所有班级
+     * 获取学生加入的班级，按班级ID分页
      */
-    public List<ClassEntity> getStudentClasses(User student) {
-        return classRepository.findByStudentsContaining(student);
+    public CursorPage<ClassEntity> getStudentClasses(Long studentId, String cursor, Integer limit) {
+        int pageSize = CursorPage.limit(limit);
+        CursorPage.Cursor after = CursorPage.decode(cursor, 1);
+        return CursorPage.of(classRepository.findJoinedClassPage(studentId, after != null ? after.id(0) : null,
+                CursorPage.probe(pageSize)), pageSize, cls -> List.of(cls.getId()));
     }
 
     /**
-     * 获取学生未加入的班级列表
+     * 获取学生未加入的班级，按班级ID分页；studentId 为 null 时返回全部班级
      */
-    public List<ClassEntity> getClassesNotJoinedByStudent(Long studentId) {
-        return classRepository.findClassesNotJoinedByStudent(studentId);
+    public CursorPage<ClassEntity> getClassesNotJoinedByStudent(Long studentId, String cursor, Integer limit) {
+        int pageSize = CursorPage.limit(limit);
+        CursorPage.Cursor after = CursorPage.decode(cursor, 1);
+        return CursorPage.of(classRepository.findClassesNotJoinedByStudent(studentId,
+                after != null ? after.id(0) : null, CursorPage.probe(pageSize)), pageSize, cls -> List.of(cls.getId()));
     }
 
     /**
@@ -65,7 +98,7 @@ public class ClassService {
                 .orElseThrow(() -> new RuntimeException("班级不存在"));
         
         // 检查学生是否已经在班级中
-        if (classEntity.getStudents().contains(student)) {
+        if (classRepository.existsByIdAndStudentsId(classId, studentId)) {
             throw new RuntimeException("您已经是该班级的成员");
         }
         
@@ -81,6 +114,7 @@ public class ClassService {
         application.setMessage(message);
         application.setStatus(ApplicationStatus.PENDING);
         
+        catalogVersionService.bump(CatalogVersionService.Catalog.APPLICATIONS);
         return classApplicationRepository.save(application);
     }
 
@@ -114,25 +148,98 @@ public class ClassService {
         if (newStatus == ApplicationStatus.APPROVED) {
             ClassEntity classEntity = application.getClassEntity();
             User student = application.getStudent();
-            classEntity.getStudents().add(student);
-            classRepository.save(classEntity);
+            if (classRepository.addStudent(classEntity.getId(), student.getId()) > 0) {
+                teacherStatsService.onStudentJoined(classEntity.getId(), teacherId, student.getId());
+                searchIndexService.onStudentJoined(classEntity.getId(), student.getId());
+            }
         }
         
+        catalogVersionService.bump(CatalogVersionService.Catalog.APPLICATIONS);
         return classApplicationRepository.save(application);
     }
 
     /**
-     * 获取教师需要处理的班级申请
+     * 批量处理班级申请，为每个申请ID返回一条处理结果
+     *
+     * 一条 IN 查询锁定全部申请，在内存中校验教师归属与申请状态，合格的申请用一条 UPDATE 改状态；
+     * 批准时成员关系用一次 JDBC 批量插入写入 class_students，已在班级中的学生由 INSERT IGNORE 跳过。
+     * 批量中的申请都属于同一教师，插入后按关联表重算该教师班级的计数，而不是逐条调整。
+     */
+    @Transactional
+    public List<Map<String, Object>> processApplications(List<Long> applicationIds, ApplicationStatus newStatus,
+                                                         String rejectReason, Long teacherId) {
+        Set<Long> ids = new LinkedHashSet<>(applicationIds);
+        Map<Long, Object[]> rows = new HashMap<>();
+        for (Object[] row : classApplicationRepository.lockRowsByIdIn(ids)) {
+            rows.put((Long) row[0], row);
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        List<Long> acceptedIds = new ArrayList<>();
+        List<Object[]> memberships = new ArrayList<>();
+        for (Long id : ids) {
+            Object[] row = rows.get(id);
+            String error = null;
+            if (row == null) {
+                error = "申请不存在";
+            } else if (!teacherId.equals(row[4])) {
+                error = "您无权处理此申请";
+            } else if (row[1] != ApplicationStatus.PENDING) {
+                error = "该申请已处理";
+            }
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("id", id);
+            if (error != null) {
+                result.put("error", error);
+                result.put("success", false);
+            } else {
+                acceptedIds.add(id);
+                if (newStatus == ApplicationStatus.APPROVED) {
+                    memberships.add(new Object[] {row[3], row[2]});
+                }
+                result.put("status", newStatus.toString());
+                result.put("success", true);
+            }
+            results.add(result);
+        }
+
+        if (acceptedIds.isEmpty()) {
+            return results;
+        }
+
+        classApplicationRepository.updatePendingStatus(acceptedIds, newStatus,
+                newStatus == ApplicationStatus.REJECTED ? rejectReason : null, LocalDateTime.now());
+        catalogVersionService.bump(CatalogVersionService.Catalog.APPLICATIONS);
+
+        if (!memberships.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT IGNORE INTO class_students (class_id, student_id) VALUES (?, ?)", memberships);
+            teacherStatsService.onStudentsBulkJoined(teacherId);
+            for (Object[] membership : memberships) {
+                searchIndexService.onStudentJoined((Long) membership[0], (Long) membership[1]);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 获取教师需要处理的班级申请，按申请ID分页
      */
-    public List<ClassApplication> getPendingApplicationsForTeacher(Long teacherId) {
-        return classApplicationRepository.findByClassEntityTeacherIdAndStatus(teacherId, ApplicationStatus.PENDING);
+    public CursorPage<ClassApplication> getPendingApplicationsForTeacher(Long teacherId, String cursor, Integer limit) {
+        int pageSize = CursorPage.limit(limit);
+        CursorPage.Cursor after = CursorPage.decode(cursor, 1);
+        return CursorPage.of(classApplicationRepository.findTeacherPage(teacherId, ApplicationStatus.PENDING,
+                after != null ? after.id(0) : null, CursorPage.probe(pageSize)), pageSize, app -> List.of(app.getId()));
     }
 
     /**
-     * 获取学生的申请历史
+     * 获取学生的申请历史，按申请ID分页
      */
-    public List<ClassApplication> getStudentApplications(Long studentId) {
-        return classApplicationRepository.findByStudentId(studentId);
+    public CursorPage<ClassApplication> getStudentApplications(Long studentId, String cursor, Integer limit) {
+        int pageSize = CursorPage.limit(limit);
+        CursorPage.Cursor after = CursorPage.decode(cursor, 1);
+        return CursorPage.of(classApplicationRepository.findStudentPage(studentId, after != null ? after.id(0) : null,
+                CursorPage.probe(pageSize)), pageSize, app -> List.of(app.getId()));
     }
 
     /**
@@ -154,6 +261,7 @@ public class ClassService {
         }
         
         classApplicationRepository.delete(application);
+        catalogVersionService.bump(CatalogVersionService.Catalog.APPLICATIONS);
     }
 
     /**
@@ -180,7 +288,10 @@ public class ClassService {
         existingClass.setName(updatedClass.getName());
         existingClass.setDescription(updatedClass.getDescription());
         
-        return classRepository.save(existingClass);
+        catalogVersionService.bump(CatalogVersionService.Catalog.CLASSES);
+        ClassEntity savedClass = classRepository.save(existingClass);
+        searchIndexService.onClassSaved(savedClass);
+        return savedClass;
     }
 
     /**
@@ -199,11 +310,11 @@ public class ClassService {
         User student = userRepository.findById(studentId)
                 .orElseThrow(() -> new RuntimeException("学生不存在"));
         
-        if (!classEntity.getStudents().contains(student)) {
+        if (classRepository.removeStudent(classId, studentId) == 0) {
             throw new RuntimeException("该学生不在班级中");
         }
         
-        classEntity.getStudents().remove(student);
-        classRepository.save(classEntity);
+        teacherStatsService.onStudentLeft(classId, teacherId, studentId);
+        searchIndexService.onStudentLeft(classId, studentId);
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.example.learninganalysis.service;
 
+import com.example.learninganalysis.dto.CursorPage;
+import com.example.learninganalysis.dto.SystemLogEntry;
 import com.example.learninganalysis.model.OperationType;
 import com.example.learninganalysis.model.SystemLog;
 import com.example.learninganalysis.model.User;
@@ -10,13 +12,21 @@ import org.springframework.stereotype.Service;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 @Service
 public class LogService {
     private static final Logger logger = Logger.getLogger(LogService.class.getName());
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int EXPORT_PAGE_SIZE = 1000;
+
     @Autowired
     private SystemLogRepository systemLogRepository;
 
@@ -58,30 +68,70 @@ public class LogService {
     }
 
     /**
-     * 根据条件查询系统日志
+     * 根据条件分页查询系统日志
+     * 游标为上一页最后一行的 (createdAt, id) 编码，首页传 null
      */
-    public List<SystemLog> findLogs(String operationType, UserRole userRole, 
-                                   LocalDateTime startTime, LocalDateTime endTime) {
-        if (operationType != null && userRole != null && startTime != null && endTime != null) {
-            return systemLogRepository.findByOperationTypeAndUserRoleAndCreatedAtBetween(
-                    operationType, userRole, startTime, endTime);
-        } else if (operationType != null && userRole != null) {
-            return systemLogRepository.findByOperationTypeAndUserRole(operationType, userRole);
-        } else if (operationType != null && startTime != null && endTime != null) {
-            return systemLogRepository.findByOperationTypeAndCreatedAtBetween(
-                    operationType, startTime, endTime);
-        } else if (userRole != null && startTime != null && endTime != null) {
-            return systemLogRepository.findByUserRoleAndCreatedAtBetween(
-                    userRole, startTime, endTime);
-        } else if (operationType != null) {
-            return systemLogRepository.findByOperationType(operationType);
-        } else if (userRole != null) {
-            return systemLogRepository.findByUserRole(userRole);
-        } else if (startTime != null && endTime != null) {
-            return systemLogRepository.findByCreatedAtBetween(startTime, endTime);
+    public CursorPage<SystemLogEntry> findLogs(String operationType, UserRole userRole,
+                                               LocalDateTime startTime, LocalDateTime endTime,
+                                               String cursor, Integer limit) {
+        int pageSize = CursorPage.limit(limit, DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+        CursorPage.Cursor after = CursorPage.decode(cursor, 2);
+
+        // 多取一行用来判断是否还有下一页
+        List<SystemLogEntry> rows = systemLogRepository.searchPage(
+                emptyToNull(operationType), userRole, startTime, endTime,
+                after != null ? after.time(0) : null, after != null ? after.id(1) : null, pageSize + 1);
+        return CursorPage.of(rows, pageSize, entry -> List.of(entry.createdAt(), entry.id()));
+    }
+
+    /**
+     * 按条件逐页遍历全部日志，每页处理完即丢弃，内存占用与日志总量无关
+     */
+    public void forEachLog(String operationType, UserRole userRole,
+                           LocalDateTime startTime, LocalDateTime endTime,
+                           Consumer<SystemLogEntry> consumer) {
+        String type = emptyToNull(operationType);
+        LocalDateTime afterCreatedAt = null;
+        Long afterId = null;
+        while (true) {
+            List<SystemLogEntry> rows = systemLogRepository.searchPage(
+                    type, userRole, startTime, endTime, afterCreatedAt, afterId, EXPORT_PAGE_SIZE);
+            rows.forEach(consumer);
+            if (rows.size() < EXPORT_PAGE_SIZE) {
+                return;
+            }
+            SystemLogEntry last = rows.get(rows.size() - 1);
+            afterCreatedAt = last.createdAt();
+            afterId = last.id();
+        }
+    }
+
+    /**
+     * 转换为日志列表的返回结构，user 字段保持与原实体序列化结果一致
+     */
+    public Map<String, Object> convertLogToMap(SystemLogEntry entry) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", entry.id());
+        map.put("operationType", entry.operationType());
+        map.put("operationDetail", entry.operationDetail());
+        if (entry.userId() != null) {
+            Map<String, Object> user = new HashMap<>();
+            user.put("id", entry.userId());
+            user.put("username", entry.username());
+            user.put("name", entry.userName());
+            user.put("role", entry.userRole());
+            map.put("user", user);
         } else {
-            return systemLogRepository.findAll();
+            map.put("user", null);
         }
+        map.put("userRole", entry.userRole());
+        map.put("ipAddress", entry.ipAddress());
+        map.put("createdAt", entry.createdAt());
+        return map;
+    }
+
+    private String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
     }
 
     /**
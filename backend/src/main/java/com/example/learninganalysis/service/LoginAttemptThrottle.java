@@ -0,0 +1,118 @@
+package com.example.learninganalysis.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按用户名的登录失败限流
+ *
+ * 在 login.throttle.window-ms 内连续失败 login.throttle.max-failures 次后锁定该用户名，
+ * 锁定时长从 login.throttle.base-lock-ms 起每多失败一次翻倍，最长 login.throttle.max-lock-ms。
+ * 锁定期间的登录请求在查库和计算哈希之前就被拒绝，暴力重试不再消耗 CPU；登录成功后清除记录。
+ * 记录数超过 login.throttle.max-entries 时先清理已过期的记录，仍然超出则不再记录新用户名。
+ */
+@Component
+public class LoginAttemptThrottle {
+
+    @Value("${login.throttle.max-failures:5}")
+    private int maxFailures;
+
+    @Value("${login.throttle.window-ms:900000}")
+    private long windowMs;
+
+    @Value("${login.throttle.base-lock-ms:30000}")
+    private long baseLockMs;
+
+    @Value("${login.throttle.max-lock-ms:900000}")
+    private long maxLockMs;
+
+    @Value("${login.throttle.max-entries:10000}")
+    private int maxEntries;
+
+    private final Map<String, Attempts> attempts = new ConcurrentHashMap<>();
+    private final AtomicLong blocked = new AtomicLong();
+
+    private record Attempts(int failures, long windowStart, long lockedUntil) {
+    }
+
+    /**
+     * 返回该用户名剩余的锁定毫秒数，未锁定时返回 0
+     */
+    public long remainingLockMs(String username) {
+        if (username == null) {
+            return 0;
+        }
+        Attempts current = attempts.get(key(username));
+        long remaining = current != null ? current.lockedUntil() - System.currentTimeMillis() : 0;
+        if (remaining > 0) {
+            blocked.incrementAndGet();
+            return remaining;
+        }
+        return 0;
+    }
+
+    /**
+     * 记录一次登录失败
+     */
+    public void recordFailure(String username) {
+        if (username == null) {
+            return;
+        }
+        String key = key(username);
+        if (!attempts.containsKey(key) && attempts.size() >= maxEntries) {
+            purgeExpired();
+            if (attempts.size() >= maxEntries) {
+                return;
+            }
+        }
+        long now = System.currentTimeMillis();
+        attempts.compute(key, (k, current) -> {
+            if (current == null || now - current.windowStart() > windowMs) {
+                current = new Attempts(0, now, 0);
+            }
+            int failures = current.failures() + 1;
+            long lockedUntil = current.lockedUntil();
+            if (failures >= maxFailures) {
+                int shift = Math.min(failures - maxFailures, 20);
+                lockedUntil = now + Math.min(baseLockMs << shift, maxLockMs);
+            }
+            return new Attempts(failures, current.windowStart(), lockedUntil);
+        });
+    }
+
+    /**
+     * 登录成功后清除失败记录
+     */
+    public void recordSuccess(String username) {
+        if (username != null) {
+            attempts.remove(key(username));
+        }
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        attempts.values().removeIf(a -> a.lockedUntil() <= now && now - a.windowStart() > windowMs);
+    }
+
+    private String key(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 获取限流运行指标
+     */
+    public Map<String, Object> getMetrics() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("trackedUsernames", attempts.size());
+        metrics.put("lockedUsernames", attempts.values().stream().filter(a -> a.lockedUntil() > now).count());
+        metrics.put("blockedAttempts", blocked.get());
+        return metrics;
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.learninganalysis.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * 密码哈希执行器
+ *
+ * BCrypt 计算放在固定大小的专用线程池中执行，不占用 Tomcat 请求线程；
+ * 等待队列长度受 password.hash.queue-capacity 限制，队列已满时立即拒绝，
+ * 登录高峰时多出的请求快速失败，而不是让所有请求一起排队超时。
+ */
+@Service
+public class PasswordHashingService {
+    private static final Logger logger = Logger.getLogger(PasswordHashingService.class.getName());
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Value("${password.hash.threads:4}")
+    private int threads;
+
+    @Value("${password.hash.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${password.hash.timeout-ms:10000}")
+    private long timeoutMs;
+
+    private ThreadPoolExecutor executor;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong totalHashNanos = new AtomicLong();
+    private final AtomicLong rehashed = new AtomicLong();
+
+    /**
+     * 哈希线程池已满时抛出，调用方应返回稍后重试
+     */
+    public static class HashingRejectedException extends RuntimeException {
+        public HashingRejectedException(String message) {
+            super(message);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        logger.info("密码哈希线程池已启动，线程数: " + threads + ", 队列容量: " + queueCapacity);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 异步校验密码
+     */
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(() -> rawPassword != null && passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 异步计算密码哈希
+     */
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * 在哈希线程池中计算密码哈希并等待结果，供注册、修改密码等低频写操作使用
+     */
+    public String encodeAndWait(String rawPassword) {
+        return await(encode(rawPassword));
+    }
+
+    /**
+     * 在哈希线程池中校验密码并等待结果
+     */
+    public boolean matchesAndWait(String rawPassword, String encodedPassword) {
+        return await(matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 已保存的哈希强度低于当前配置时返回 true，登录成功后据此重新计算哈希
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    void recordRehash() {
+        rehashed.incrementAndGet();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                try {
+                    return task.get();
+                } finally {
+                    totalHashNanos.addAndGet(System.nanoTime() - start);
+                    completed.incrementAndGet();
+                }
+            }, executor);
+            submitted.incrementAndGet();
+            return future.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            long count = rejected.incrementAndGet();
+            // 按 2 的幂次输出，避免高峰期刷屏
+            if (Long.bitCount(count) == 1) {
+                logger.warning("密码哈希队列已满，已累计拒绝 " + count + " 次请求");
+            }
+            throw new HashingRejectedException("当前登录人数过多，请稍后重试");
+        }
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new HashingRejectedException("密码处理超时，请稍后重试");
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 获取线程池运行指标
+     */
+    public Map<String, Object> getMetrics() {
+        long completedCount = completed.get();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("threads", threads);
+        metrics.put("activeThreads", executor.getActiveCount());
+        metrics.put("queueSize", executor.getQueue().size());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("submitted", submitted.get());
+        metrics.put("completed", completedCount);
+        metrics.put("rejected", rejected.get());
+        metrics.put("rehashed", rehashed.get());
+        metrics.put("averageHashMillis", completedCount == 0 ? 0.0
+                : totalHashNanos.get() / 1_000_000.0 / completedCount);
+        return metrics;
+    }
+}
@@ -0,0 +1,703 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.dto.SearchHit;
+import com.example.learninganalysis.model.Activity;
+import com.example.learninganalysis.model.ClassEntity;
+import com.example.learninganalysis.model.User;
+import com.example.learninganalysis.model.UserRole;
+import com.example.learninganalysis.repository.ActivityRepository;
+import com.example.learninganalysis.repository.ClassRepository;
+import com.example.learninganalysis.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * 活动、班级、用户的进程内全文检索索引
+ *
+ * 文本做 NFKC 归一化并转小写后按字母数字连续段切分，索引时每段取全部单字与相邻二字（n-gram），
+ * 中文无需分词即可按任意子串检索。每类文档一张倒排表：n-gram -> (文档ID -> 字段权重之和)，
+ * 标题类字段权重 3，组织者、教师、用户名权重 2，其余字段权重 1。
+ * 查询时长度不小于 2 的段取二字、单字段取单字，要求全部 n-gram 命中，从最短的倒排链开始求交集，
+ * 按 权重 × IDF 计分，标题包含完整查询串时按其占标题的比例再加权，堆中只保留前 N 条。
+ *
+ * 启动时按主键分块全量构建；之后由各写操作在事务提交后增量更新，回滚的写入不会进入索引。
+ * 班级成员关系也保存在索引中，教师检索学生时按内存中的成员关系过滤，不再逐次查询数据库。
+ * 全量重建期间发生的增量更新在切换前覆盖到新索引上，重建不会用旧数据覆盖新写入。
+ * 索引只在本进程内，多实例部署时各实例独立构建和更新，其他实例的写入要到下次重建才可见。
+ */
+@Service
+public class SearchIndexService {
+    private static final Logger logger = Logger.getLogger(SearchIndexService.class.getName());
+
+    /**
+     * 可检索的文档类型
+     */
+    public enum DocType {
+        ACTIVITY, CLASS, USER
+    }
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+    // 单个字段参与索引的最大长度，超长的描述只索引开头部分
+    private static final int MAX_FIELD_LENGTH = 2000;
+
+    // 各类文档的字段权重，与 Document.values 的字段顺序一致
+    private static final int[] ACTIVITY_WEIGHTS = {3, 2, 1, 1};  // 标题、组织者、地点、描述
+    private static final int[] CLASS_WEIGHTS = {3, 1, 2};        // 班级名、描述、教师姓名
+    private static final int[] USER_WEIGHTS = {3, 2};            // 姓名、用户名
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${search.index.build-chunk-size:1000}")
+    private int buildChunkSize;
+
+    /**
+     * 一个文档；values 保存参与索引的原始字段，删除或局部字段变化（如教师改名）时据此重新切分
+     */
+    private record Document(DocType type, Long id, Long ownerId, UserRole role, String[] values,
+                            String title, String subtitle, String normalizedTitle) {
+    }
+
+    /**
+     * 一类文档的倒排表，写操作由外层同步串行执行，读操作无锁
+     */
+    private static final class Shard {
+        final Map<Long, Document> documents = new ConcurrentHashMap<>();
+        final Map<String, Map<Long, Integer>> postings = new ConcurrentHashMap<>();
+
+        void put(Document document) {
+            remove(document.id());
+            documents.put(document.id(), document);
+            gramsOf(document).forEach((gram, weight) ->
+                    postings.computeIfAbsent(gram, k -> new ConcurrentHashMap<>()).put(document.id(), weight));
+        }
+
+        void remove(Long id) {
+            Document old = documents.remove(id);
+            if (old == null) {
+                return;
+            }
+            for (String gram : gramsOf(old).keySet()) {
+                postings.computeIfPresent(gram, (k, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+    }
+
+    /**
+     * 一次成员变化，全量重建期间记录下来，切换前按顺序重放到新索引上
+     */
+    private record MembershipChange(Long classId, Long studentId, boolean joined) {
+    }
+
+    /**
+     * 班级成员关系：班级 -> 学生集合，教师 -> (学生 -> 教师名下包含该学生的班级数)。
+     * 学生在同一教师的多个班级中时，离开其中一个班级后仍属于该教师。写操作由外层同步串行执行，读操作无锁
+     */
+    private static final class Memberships {
+        final Map<Long, Long> classTeachers = new HashMap<>();
+        final Map<Long, Set<Long>> classStudents = new HashMap<>();
+        final Map<Long, Map<Long, Integer>> teacherStudents = new ConcurrentHashMap<>();
+
+        boolean teaches(Long teacherId, Long studentId) {
+            Map<Long, Integer> students = teacherStudents.get(teacherId);
+            return students != null && students.containsKey(studentId);
+        }
+
+        /**
+         * 设置班级的教师，更换教师时班级学生从原教师移到新教师名下
+         */
+        void setTeacher(Long classId, Long teacherId) {
+            Long previous = teacherId != null ? classTeachers.put(classId, teacherId) : classTeachers.remove(classId);
+            if (Objects.equals(previous, teacherId)) {
+                return;
+            }
+            for (Long studentId : classStudents.getOrDefault(classId, Set.of())) {
+                release(previous, studentId);
+                retain(teacherId, studentId);
+            }
+        }
+
+        void apply(MembershipChange change) {
+            if (change.joined()) {
+                if (classStudents.computeIfAbsent(change.classId(), k -> new HashSet<>()).add(change.studentId())) {
+                    retain(classTeachers.get(change.classId()), change.studentId());
+                }
+                return;
+            }
+            Set<Long> students = classStudents.get(change.classId());
+            if (students != null && students.remove(change.studentId())) {
+                release(classTeachers.get(change.classId()), change.studentId());
+                if (students.isEmpty()) {
+                    classStudents.remove(change.classId());
+                }
+            }
+        }
+
+        void removeClass(Long classId) {
+            setTeacher(classId, null);
+            classStudents.remove(classId);
+        }
+
+        private void retain(Long teacherId, Long studentId) {
+            if (teacherId != null) {
+                teacherStudents.computeIfAbsent(teacherId, k -> new ConcurrentHashMap<>()).merge(studentId, 1, Integer::sum);
+            }
+        }
+
+        private void release(Long teacherId, Long studentId) {
+            if (teacherId == null) {
+                return;
+            }
+            teacherStudents.computeIfPresent(teacherId, (k, students) -> {
+                students.computeIfPresent(studentId, (id, count) -> count > 1 ? count - 1 : null);
+                return students.isEmpty() ? null : students;
+            });
+        }
+    }
+
+    private volatile Map<DocType, Shard> shards = newShards();
+    private volatile Memberships memberships = new Memberships();
+    // 全量重建期间被增量更新过的文档与成员变化，切换索引前覆盖到新索引上；不在重建时为 null
+    private Map<DocType, Set<Long>> touched;
+    private List<MembershipChange> membershipChanges;
+
+    private final AtomicBoolean building = new AtomicBoolean(false);
+    private volatile LocalDateTime builtAt;
+    private volatile long lastBuildMillis;
+    private volatile String lastError;
+
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong queryNanos = new AtomicLong();
+
+    private static Map<DocType, Shard> newShards() {
+        Map<DocType, Shard> shards = new EnumMap<>(DocType.class);
+        for (DocType type : DocType.values()) {
+            shards.put(type, new Shard());
+        }
+        return shards;
+    }
+
+    // ---------------------------------------------------------------- 检索
+
+    /**
+     * 学生检索：全部活动与班级
+     */
+    public List<SearchHit> searchForStudent(String query, String type, Integer limit) {
+        Map<DocType, Predicate<Document>> scopes = new EnumMap<>(DocType.class);
+        scopes.put(DocType.ACTIVITY, document -> true);
+        scopes.put(DocType.CLASS, document -> true);
+        return search(query, restrict(scopes, type), limit);
+    }
+
+    /**
+     * 教师检索：全部活动、自己的班级、自己班级中的学生
+     */
+    public List<SearchHit> searchForTeacher(Long teacherId, String query, String type, Integer limit) {
+        Map<DocType, Predicate<Document>> scopes = new EnumMap<>(DocType.class);
+        scopes.put(DocType.ACTIVITY, document -> true);
+        scopes.put(DocType.CLASS, document -> teacherId.equals(document.ownerId()));
+        scopes.put(DocType.USER, document -> false);
+        scopes = restrict(scopes, type);
+        if (scopes.containsKey(DocType.USER)) {
+            // 命中的学生按索引中的成员关系过滤
+            Memberships current = memberships;
+            scopes.put(DocType.USER, document -> document.role() == UserRole.STUDENT
+                    && current.teaches(teacherId, document.id()));
+        }
+        return search(query, scopes, limit);
+    }
+
+    /**
+     * 管理员检索：全部活动、班级与用户
+     */
+    public List<SearchHit> searchForAdmin(String query, String type, Integer limit) {
+        Map<DocType, Predicate<Document>> scopes = new EnumMap<>(DocType.class);
+        for (DocType docType : DocType.values()) {
+            scopes.put(docType, document -> true);
+        }
+        return search(query, restrict(scopes, type), limit);
+    }
+
+    /**
+     * 按 type 参数只保留一类文档，未指定时保留角色可见的全部类型
+     */
+    private Map<DocType, Predicate<Document>> restrict(Map<DocType, Predicate<Document>> scopes, String type) {
+        if (type == null || type.isBlank()) {
+            return scopes;
+        }
+        DocType docType;
+        try {
+            docType = DocType.valueOf(type.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("不支持的检索类型: " + type);
+        }
+        if (!scopes.containsKey(docType)) {
+            throw new RuntimeException("无权检索该类型: " + type);
+        }
+        Map<DocType, Predicate<Document>> restricted = new EnumMap<>(DocType.class);
+        restricted.put(docType, scopes.get(docType));
+        return restricted;
+    }
+
+    private List<SearchHit> search(String query, Map<DocType, Predicate<Document>> scopes, Integer limit) {
+        int size = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<String> queryGrams = new ArrayList<>(grams(query, false));
+        if (queryGrams.isEmpty()) {
+            return new ArrayList<>();
+        }
+        long started = System.nanoTime();
+        String normalizedQuery = normalize(query).trim();
+
+        // 小顶堆保存当前前 N 条，同分时 ID 小的优先
+        Comparator<SearchHit> order = Comparator.comparingDouble(SearchHit::score)
+                .thenComparing(SearchHit::id, Comparator.reverseOrder());
+        PriorityQueue<SearchHit> top = new PriorityQueue<>(size + 1, order);
+
+        Map<DocType, Shard> current = shards;
+        for (Map.Entry<DocType, Predicate<Document>> scope : scopes.entrySet()) {
+            collect(current.get(scope.getKey()), scope.getValue(), queryGrams, normalizedQuery, size, top);
+        }
+
+        List<SearchHit> hits = new ArrayList<>(top);
+        hits.sort(order.reversed());
+        queries.incrementAndGet();
+        queryNanos.addAndGet(System.nanoTime() - started);
+        return hits;
+    }
+
+    /**
+     * 在一类文档中求全部 n-gram 的交集并计分，比堆顶分数高的命中放入堆中
+     */
+    private void collect(Shard shard, Predicate<Document> filter, List<String> queryGrams, String normalizedQuery,
+                         int size, PriorityQueue<SearchHit> top) {
+        List<Map<Long, Integer>> lists = new ArrayList<>(queryGrams.size());
+        for (String gram : queryGrams) {
+            Map<Long, Integer> posting = shard.postings.get(gram);
+            if (posting == null) {
+                return;
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(Map::size));
+        double documentCount = Math.max(1, shard.documents.size());
+        double[] idf = new double[lists.size()];
+        for (int i = 0; i < lists.size(); i++) {
+            idf[i] = Math.log(1 + documentCount / lists.get(i).size());
+        }
+
+        // 遍历最短的倒排链，逐个到其余倒排链中查找
+        candidates:
+        for (Map.Entry<Long, Integer> entry : lists.get(0).entrySet()) {
+            double score = entry.getValue() * idf[0];
+            for (int i = 1; i < lists.size(); i++) {
+                Integer weight = lists.get(i).get(entry.getKey());
+                if (weight == null) {
+                    continue candidates;
+                }
+                score += weight * idf[i];
+            }
+            Document document = shard.documents.get(entry.getKey());
+            if (document == null || !filter.test(document)) {
+                continue;
+            }
+            score = Math.round(score * titleBonus(document.normalizedTitle(), normalizedQuery) * 1000) / 1000.0;
+            if (top.size() < size || score > top.peek().score()) {
+                top.offer(new SearchHit(document.type().name(), document.id(), document.title(),
+                        document.subtitle(), score));
+                if (top.size() > size) {
+                    top.poll();
+                }
+            }
+        }
+    }
+
+    /**
+     * 标题包含完整查询串时加权，查询串占标题的比例越大权重越高，以查询串开头时再加一倍
+     */
+    private static double titleBonus(String title, String query) {
+        int index = query.isEmpty() ? -1 : title.indexOf(query);
+        if (index < 0) {
+            return 1;
+        }
+        return 1 + 2.0 * query.length() / title.length() + (index == 0 ? 1 : 0);
+    }
+
+    // ---------------------------------------------------------------- 切分
+
+    private static String normalize(String text) {
+        return text == null ? "" : Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 切出文本的 n-gram：按字母数字连续段切分，索引时每段取全部单字与相邻二字，
+     * 查询时长度不小于 2 的段只取二字，单字段取单字
+     */
+    private static Set<String> grams(String text, boolean indexing) {
+        String normalized = normalize(text);
+        if (indexing && normalized.length() > MAX_FIELD_LENGTH) {
+            normalized = normalized.substring(0, MAX_FIELD_LENGTH);
+        }
+        int[] codePoints = normalized.codePoints().toArray();
+        Set<String> grams = new LinkedHashSet<>();
+        int start = 0;
+        for (int i = 0; i <= codePoints.length; i++) {
+            if (i < codePoints.length && Character.isLetterOrDigit(codePoints[i])) {
+                continue;
+            }
+            if (indexing || i - start == 1) {
+                for (int j = start; j < i; j++) {
+                    grams.add(new String(codePoints, j, 1));
+                }
+            }
+            for (int j = start; j + 1 < i; j++) {
+                grams.add(new String(codePoints, j, 2));
+            }
+            start = i + 1;
+        }
+        return grams;
+    }
+
+    private static Map<String, Integer> gramsOf(Document document) {
+        int[] weights = switch (document.type()) {
+            case ACTIVITY -> ACTIVITY_WEIGHTS;
+            case CLASS -> CLASS_WEIGHTS;
+            case USER -> USER_WEIGHTS;
+        };
+        Map<String, Integer> grams = new HashMap<>();
+        for (int i = 0; i < weights.length; i++) {
+            for (String gram : grams(document.values()[i], true)) {
+                grams.merge(gram, weights[i], Integer::sum);
+            }
+        }
+        return grams;
+    }
+
+    private static Document activityDocument(Long id, String title, String organizer, String location,
+                                             String description, Long creatorId) {
+        return new Document(DocType.ACTIVITY, id, creatorId, null,
+                new String[] {title, organizer, location, description},
+                title, join(organizer, location), normalize(title));
+    }
+
+    private static Document classDocument(Long id, String name, String description, Long teacherId, String teacherName) {
+        return new Document(DocType.CLASS, id, teacherId, null, new String[] {name, description, teacherName},
+                name, teacherName, normalize(name));
+    }
+
+    private static Document userDocument(Long id, String username, String name, UserRole role) {
+        String title = name != null && !name.isBlank() ? name : username;
+        return new Document(DocType.USER, id, null, role, new String[] {name, username},
+                title, join(username, role != null ? role.name() : null), normalize(title));
+    }
+
+    private static String join(String first, String second) {
+        if (first == null || first.isBlank()) {
+            return second;
+        }
+        return second == null || second.isBlank() ? first : first + " · " + second;
+    }
+
+    // ---------------------------------------------------------------- 增量更新
+
+    /**
+     * 活动新建或修改后更新索引，在事务中调用时推迟到提交之后
+     */
+    public void onActivitySaved(Activity activity) {
+        Document document = activityDocument(activity.getId(), activity.getTitle(), activity.getOrganizer(),
+                activity.getLocation(), activity.getDescription(),
+                activity.getCreator() != null ? activity.getCreator().getId() : null);
+        afterCommit(() -> put(document));
+    }
+
+    public void onActivityDeleted(Long activityId) {
+        afterCommit(() -> remove(DocType.ACTIVITY, activityId));
+    }
+
+    /**
+     * 班级新建、修改或更换教师后更新索引
+     */
+    public void onClassSaved(ClassEntity classEntity) {
+        User teacher = classEntity.getTeacher();
+        Document document = classDocument(classEntity.getId(), classEntity.getName(), classEntity.getDescription(),
+                teacher != null ? teacher.getId() : null, teacher != null ? teacher.getName() : null);
+        afterCommit(() -> put(document));
+    }
+
+    public void onClassDeleted(Long classId) {
+        afterCommit(() -> remove(DocType.CLASS, classId));
+    }
+
+    /**
+     * 用户注册或资料修改后更新索引；教师改名时同时更新其班级文档中的教师姓名
+     */
+    public void onUserSaved(User user) {
+        onUserSaved(user.getId(), user.getUsername(), user.getName(), user.getRole());
+    }
+
+    public void onUserSaved(Long id, String username, String name, UserRole role) {
+        Document document = userDocument(id, username, name, role);
+        afterCommit(() -> {
+            synchronized (this) {
+                put(document);
+                if (role != UserRole.TEACHER) {
+                    return;
+                }
+                for (Document classDocument : shards.get(DocType.CLASS).documents.values()) {
+                    if (id.equals(classDocument.ownerId()) && !Objects.equals(name, classDocument.values()[2])) {
+                        put(classDocument(classDocument.id(), classDocument.values()[0], classDocument.values()[1], id, name));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * 学生加入班级后更新教师可检索的学生范围；批量写入时逐个调用，已在班级中的学生调用也无妨
+     */
+    public void onStudentJoined(Long classId, Long studentId) {
+        MembershipChange change = new MembershipChange(classId, studentId, true);
+        afterCommit(() -> changeMembership(change));
+    }
+
+    public void onStudentLeft(Long classId, Long studentId) {
+        MembershipChange change = new MembershipChange(classId, studentId, false);
+        afterCommit(() -> changeMembership(change));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private synchronized void put(Document document) {
+        shards.get(document.type()).put(document);
+        if (document.type() == DocType.CLASS) {
+            memberships.setTeacher(document.id(), document.ownerId());
+        }
+        markTouched(document.type(), document.id());
+    }
+
+    private synchronized void remove(DocType type, Long id) {
+        shards.get(type).remove(id);
+        if (type == DocType.CLASS) {
+            memberships.removeClass(id);
+        }
+        markTouched(type, id);
+    }
+
+    private synchronized void changeMembership(MembershipChange change) {
+        memberships.apply(change);
+        if (membershipChanges != null) {
+            membershipChanges.add(change);
+        }
+    }
+
+    private void markTouched(DocType type, Long id) {
+        if (touched != null) {
+            touched.get(type).add(id);
+        }
+    }
+
+    // ---------------------------------------------------------------- 全量重建
+
+    /**
+     * 在后台线程中全量重建索引，已有重建在运行时抛出异常
+     */
+    public Map<String, Object> startRebuild() {
+        if (building.get()) {
+            throw new RuntimeException("检索索引正在重建");
+        }
+        Thread builder = new Thread(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                logger.warning("检索索引重建失败: " + e.getMessage());
+            }
+        }, "search-index-rebuild");
+        builder.setDaemon(true);
+        builder.start();
+        return getMetrics();
+    }
+
+    /**
+     * 按主键分块读取活动、班级、用户，构建新索引后整体切换；构建期间检索仍使用旧索引
+     */
+    public void rebuild() {
+        if (!building.compareAndSet(false, true)) {
+            throw new RuntimeException("检索索引正在重建");
+        }
+        long started = System.currentTimeMillis();
+        try {
+            synchronized (this) {
+                touched = new EnumMap<>(DocType.class);
+                for (DocType type : DocType.values()) {
+                    touched.put(type, new HashSet<>());
+                }
+                membershipChanges = new ArrayList<>();
+            }
+
+            Map<DocType, Shard> fresh = newShards();
+            load(fresh.get(DocType.ACTIVITY), afterId -> activityRepository.findSearchRows(afterId, chunk()),
+                    row -> activityDocument((Long) row[0], (String) row[1], (String) row[2], (String) row[3],
+                            (String) row[4], (Long) row[5]));
+            load(fresh.get(DocType.CLASS), afterId -> classRepository.findSearchRows(afterId, chunk()),
+                    row -> classDocument((Long) row[0], (String) row[1], (String) row[2], (Long) row[3], (String) row[4]));
+            load(fresh.get(DocType.USER), afterId -> userRepository.findSearchRows(afterId, chunk()),
+                    row -> userDocument((Long) row[0], (String) row[1], (String) row[2], (UserRole) row[3]));
+            Memberships freshMemberships = new Memberships();
+            for (Document document : fresh.get(DocType.CLASS).documents.values()) {
+                freshMemberships.setTeacher(document.id(), document.ownerId());
+            }
+            loadMemberships(freshMemberships);
+
+            synchronized (this) {
+                // 构建期间的成员变化按提交顺序重放，读到的旧成员关系也会被覆盖
+                membershipChanges.forEach(freshMemberships::apply);
+                // 构建期间提交的增量更新以当前索引为准
+                for (Map.Entry<DocType, Set<Long>> entry : touched.entrySet()) {
+                    Shard source = shards.get(entry.getKey());
+                    Shard target = fresh.get(entry.getKey());
+                    for (Long id : entry.getValue()) {
+                        Document document = source.documents.get(id);
+                        if (document != null) {
+                            target.put(document);
+                        } else {
+                            target.remove(id);
+                        }
+                        if (entry.getKey() != DocType.CLASS) {
+                            continue;
+                        }
+                        if (document != null) {
+                            freshMemberships.setTeacher(id, document.ownerId());
+                        } else {
+                            freshMemberships.removeClass(id);
+                        }
+                    }
+                }
+                shards = fresh;
+                memberships = freshMemberships;
+                touched = null;
+                membershipChanges = null;
+            }
+            lastBuildMillis = System.currentTimeMillis() - started;
+            builtAt = LocalDateTime.now();
+            lastError = null;
+            logger.info("检索索引构建完成: " + fresh.get(DocType.ACTIVITY).documents.size() + " 个活动, "
+                    + fresh.get(DocType.CLASS).documents.size() + " 个班级, "
+                    + fresh.get(DocType.USER).documents.size() + " 个用户, 耗时 " + lastBuildMillis + "ms");
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                touched = null;
+                membershipChanges = null;
+            }
+            lastError = e.getMessage();
+            throw e;
+        } finally {
+            building.set(false);
+        }
+    }
+
+    private PageRequest chunk() {
+        return PageRequest.of(0, buildChunkSize);
+    }
+
+    private void load(Shard shard, Function<Long, List<Object[]>> readChunk, Function<Object[], Document> toDocument) {
+        long afterId = 0L;
+        while (true) {
+            List<Object[]> rows = readChunk.apply(afterId);
+            for (Object[] row : rows) {
+                Document document = toDocument.apply(row);
+                shard.put(document);
+                afterId = document.id();
+            }
+            if (rows.size() < buildChunkSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 按 (班级ID, 学生ID) 分块读取全部班级成员
+     */
+    private void loadMemberships(Memberships target) {
+        long afterClassId = 0L;
+        long afterStudentId = 0L;
+        while (true) {
+            List<Object[]> rows = classRepository.findMemberRows(afterClassId, afterStudentId, chunk());
+            for (Object[] row : rows) {
+                afterClassId = (Long) row[0];
+                afterStudentId = (Long) row[1];
+                target.apply(new MembershipChange(afterClassId, afterStudentId, true));
+            }
+            if (rows.size() < buildChunkSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 索引规模、最近一次构建与检索耗时
+     */
+    public Map<String, Object> getMetrics() {
+        Map<DocType, Shard> current = shards;
+        Map<String, Object> metrics = new HashMap<>();
+        long grams = 0;
+        for (DocType type : DocType.values()) {
+            Shard shard = current.get(type);
+            metrics.put(type.name().toLowerCase(Locale.ROOT) + "Documents", shard.documents.size());
+            grams += shard.postings.size();
+        }
+        long queryCount = queries.get();
+        metrics.put("grams", grams);
+        metrics.put("building", building.get());
+        metrics.put("builtAt", builtAt);
+        metrics.put("lastBuildMillis", lastBuildMillis);
+        metrics.put("lastError", lastError);
+        metrics.put("queries", queryCount);
+        metrics.put("averageQueryMicros", queryCount == 0 ? 0.0 : queryNanos.get() / 1000.0 / queryCount);
+        return metrics;
+    }
+}
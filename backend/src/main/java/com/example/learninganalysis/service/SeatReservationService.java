@@ -0,0 +1,171 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.model.Activity;
+import com.example.learninganalysis.model.ActivityParticipation;
+import com.example.learninganalysis.model.ParticipationStatus;
+import com.example.learninganalysis.model.User;
+import com.example.learninganalysis.repository.ActivityParticipationRepository;
+import com.example.learninganalysis.repository.ActivityRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 活动名额预订服务
+ *
+ * 报名与取消都在单个事务内完成：先锁定活动行，再用条件更新切换参与记录状态，
+ * 最后以 "current_participants < max_participants" 为条件占用名额。
+ * 名额不足时参与记录转为候补（WAITLISTED），按入队时间先进先出排队，不再让学生反复重试；
+ * 取消报名释放名额后，在同一事务内加锁取出队首并把名额转给它，因此高并发下也不会超卖或空出名额。
+ * 参与记录的插入和状态变更会因外键检查对活动行加共享锁，各事务统一先取活动行排他锁、再改参与记录，
+ * 同一活动的报名与取消依次执行，不会在锁升级时互相死锁。
+ */
+@Service
+public class SeatReservationService {
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private ActivityParticipationRepository participationRepository;
+
+    @Autowired
+    private StudentStatsService studentStatsService;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    /**
+     * 为用户预订活动名额，名额已满时加入候补队列；返回报名后的参与状态
+     */
+    @Transactional
+    public ParticipationStatus reserve(Activity activity, User user) {
+        LocalDateTime now = LocalDateTime.now();
+        activityRepository.lockById(activity.getId());
+
+        Optional<ActivityParticipation> existingParticipation =
+            participationRepository.findByUserAndActivity(user, activity);
+
+        Long participationId;
+        if (existingParticipation.isPresent()) {
+            ActivityParticipation participation = existingParticipation.get();
+            participationId = participation.getId();
+
+            // 如果状态是已报名，则不能重复报名
+            if (participation.getStatus() == ParticipationStatus.REGISTERED) {
+                throw new RuntimeException("您已报名此活动");
+            }
+            if (participation.getStatus() == ParticipationStatus.WAITLISTED) {
+                throw new RuntimeException("您已在此活动的候补队列中");
+            }
+            // 其他状态（如COMPLETED）不应允许重新报名
+            if (participation.getStatus() != ParticipationStatus.CANCELLED) {
+                throw new RuntimeException("当前状态无法报名");
+            }
+            // 已取消的记录重新报名，条件更新防止同一用户的并发请求重复报名
+            if (participationRepository.markRegistered(participation.getId(), now) == 0) {
+                throw new RuntimeException("您已报名此活动");
+            }
+        } else {
+            ActivityParticipation participation = new ActivityParticipation();
+            participation.setUser(user);
+            participation.setActivity(activity);
+            participation.setStatus(ParticipationStatus.REGISTERED);
+            participation.setRegisterTime(now);
+            try {
+                // 立即写入，由 (user_id, activity_id) 唯一约束拦截并发的重复报名
+                participationId = participationRepository.saveAndFlush(participation).getId();
+            } catch (DataIntegrityViolationException e) {
+                throw new RuntimeException("您已报名此活动");
+            }
+        }
+
+        // 最后占用名额，名额已满时转入候补队列
+        if (activityRepository.tryReserveSeat(activity.getId(), now) == 0) {
+            participationRepository.markWaitlisted(participationId, now);
+            return ParticipationStatus.WAITLISTED;
+        }
+
+        studentStatsService.onActivityRegistered(user.getId());
+        catalogVersionService.bump(CatalogVersionService.Catalog.ACTIVITIES);
+        return ParticipationStatus.REGISTERED;
+    }
+
+    /**
+     * 取消用户的活动报名并把名额转给候补队首；候补中的用户取消时只退出队列
+     */
+    @Transactional
+    public void release(Activity activity, User user) {
+        LocalDateTime now = LocalDateTime.now();
+        activityRepository.lockById(activity.getId());
+
+        // 查找用户的参与记录
+        ActivityParticipation participation = participationRepository.findByUserAndActivity(user, activity)
+                .orElseThrow(() -> new RuntimeException("您未报名此活动"));
+
+        // 候补记录不占名额，条件更新防止与转正并发时重复处理
+        if (participation.getStatus() == ParticipationStatus.WAITLISTED) {
+            if (participationRepository.markWaitlistCancelled(participation.getId(), now) == 0) {
+                throw new RuntimeException("候补状态已变化，请刷新后重试");
+            }
+            return;
+        }
+
+        // 检查状态是否为已报名，条件更新保证并发取消只会释放一次名额
+        if (participation.getStatus() != ParticipationStatus.REGISTERED
+                || participationRepository.markCancelled(participation.getId(), now) == 0) {
+            throw new RuntimeException("只能取消处于已报名状态的活动");
+        }
+
+        activityRepository.releaseSeat(activity.getId(), now);
+        studentStatsService.onActivityCancelled(user.getId());
+        // 释放的名额转给候补队首
+        promoteHead(activity.getId(), false, now);
+        catalogVersionService.bump(CatalogVersionService.Catalog.ACTIVITIES);
+    }
+
+    /**
+     * 活动名额增加后按候补顺序依次转正，直到名额用完或队列为空；返回转正人数
+     */
+    @Transactional
+    public int promoteWaitlist(Long activityId) {
+        LocalDateTime now = LocalDateTime.now();
+        int promoted = 0;
+        // 先占名额（同时锁定活动行）再取队首，与取消报名的加锁顺序一致；队列为空时退回占用的名额
+        while (activityRepository.tryReserveSeat(activityId, now) > 0) {
+            if (!promoteHead(activityId, true, now)) {
+                activityRepository.releaseSeat(activityId, now);
+                break;
+            }
+            promoted++;
+        }
+        if (promoted > 0) {
+            catalogVersionService.bump(CatalogVersionService.Catalog.ACTIVITIES);
+        }
+        return promoted;
+    }
+
+    /**
+     * 把候补队首转为已报名，调用方已在本事务中持有活动行锁；
+     * seatHeld 为 false 时在这里为队首占用名额，名额被教师调低而不足时队首继续等待
+     */
+    private boolean promoteHead(Long activityId, boolean seatHeld, LocalDateTime now) {
+        List<Object[]> head = participationRepository.lockWaitlistHead(activityId);
+        if (head.isEmpty()) {
+            return false;
+        }
+        if (!seatHeld && activityRepository.tryReserveSeat(activityId, now) == 0) {
+            return false;
+        }
+        Long participationId = ((Number) head.get(0)[0]).longValue();
+        Long userId = ((Number) head.get(0)[1]).longValue();
+        participationRepository.markPromoted(participationId, now);
+        studentStatsService.onActivityRegistered(userId);
+        return true;
+    }
+}
@@ -0,0 +1,459 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.model.ApplicationStatus;
+import com.example.learninganalysis.model.UserRole;
+import com.example.learninganalysis.repository.ClassRepository;
+import com.example.learninganalysis.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * 学生账号批量导入任务
+ *
+ * 协调线程逐行读取 CSV（表头须包含 username、name、password，可选 email、classId），按固定大小分块：
+ * 每块先用 IN 查询批量查重，再把密码哈希提交到固定大小的哈希线程池，
+ * 上一块的写入与本块的哈希并行进行。写入在单个事务中用 JDBC 批量插入用户、自动批准的班级申请与成员关系，
+ * 最后按关联表重算受影响教师的班级计数。
+ * 任何时刻最多只有两块数据在内存中，除文件内查重用的用户名、邮箱集合外，内存占用与文件大小无关。
+ */
+@Component
+public class StudentImportJob {
+    private static final Logger logger = Logger.getLogger(StudentImportJob.class.getName());
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final String INSERT_USER_SQL =
+            "INSERT IGNORE INTO users (username, password, role, name, email, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_APPLICATION_SQL =
+            "INSERT INTO class_applications (student_id, class_id, message, status, created_at, updated_at, handled_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_MEMBER_SQL =
+            "INSERT IGNORE INTO class_students (class_id, student_id) VALUES (?, ?)";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private TeacherStatsService teacherStatsService;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${student.import.hash-threads:4}")
+    private int hashThreads;
+
+    @Value("${student.import.chunk-size:500}")
+    private int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicInteger processedRows = new AtomicInteger();
+    private final AtomicInteger importedRows = new AtomicInteger();
+    private final AtomicInteger failedRows = new AtomicInteger();
+    private final List<String> errors = new ArrayList<>();
+    private volatile String fileName;
+    private volatile long totalBytes;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String lastError;
+
+    /**
+     * CSV 中的一行学生数据，line 为文件中的行号
+     */
+    private record ImportRow(int line, String username, String name, String email, String password, Long classId) {
+    }
+
+    /**
+     * 已完成查重、正在哈希密码的一块数据
+     */
+    private record PendingChunk(List<ImportRow> rows, List<Future<String>> hashes) {
+    }
+
+    /**
+     * 启动导入任务，文件在任务结束后删除；已有任务在运行时抛出异常
+     */
+    public Map<String, Object> start(Path file, String originalName) {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("学生导入任务正在运行");
+        }
+        bytesRead.set(0);
+        processedRows.set(0);
+        importedRows.set(0);
+        failedRows.set(0);
+        synchronized (errors) {
+            errors.clear();
+        }
+        lastError = null;
+        finishedAt = null;
+        startedAt = LocalDateTime.now();
+        fileName = originalName;
+        try {
+            totalBytes = Files.size(file);
+        } catch (IOException e) {
+            totalBytes = 0;
+        }
+
+        Thread coordinator = new Thread(() -> run(file), "student-import");
+        coordinator.setDaemon(true);
+        coordinator.start();
+        return getStatus();
+    }
+
+    private void run(Path file) {
+        logger.info("开始导入学生: " + fileName + ", 文件大小: " + totalBytes + ", 哈希线程数: " + hashThreads);
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService hashPool = Executors.newFixedThreadPool(hashThreads, runnable -> {
+            Thread thread = new Thread(runnable, "student-import-hash-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<Long, Long> classTeachers = new HashMap<>();
+        Set<String> seenUsernames = new HashSet<>();
+        Set<String> seenEmails = new HashSet<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new RuntimeException("导入文件为空");
+            }
+            bytesRead.addAndGet(header.getBytes(StandardCharsets.UTF_8).length + 1);
+            Map<String, Integer> columns = parseHeader(header);
+
+            PendingChunk pending = null;
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            int lineNumber = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                bytesRead.addAndGet(line.getBytes(StandardCharsets.UTF_8).length + 1);
+                if (line.isBlank()) {
+                    continue;
+                }
+                ImportRow row = parseRow(lineNumber, line, columns, seenUsernames, seenEmails);
+                if (row != null) {
+                    chunk.add(row);
+                }
+                if (chunk.size() >= chunkSize) {
+                    PendingChunk prepared = prepare(chunk, classTeachers, hashPool);
+                    if (pending != null) {
+                        write(pending, classTeachers);
+                    }
+                    pending = prepared;
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            PendingChunk prepared = chunk.isEmpty() ? null : prepare(chunk, classTeachers, hashPool);
+            if (pending != null) {
+                write(pending, classTeachers);
+            }
+            if (prepared != null) {
+                write(prepared, classTeachers);
+            }
+        } catch (IOException e) {
+            lastError = "读取导入文件失败: " + e.getMessage();
+            logger.warning(lastError);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lastError = "任务被中断";
+        } catch (RuntimeException e) {
+            lastError = e.getMessage();
+            logger.warning("导入学生失败: " + e.getMessage());
+        } finally {
+            hashPool.shutdownNow();
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warning("删除导入临时文件失败: " + e.getMessage());
+            }
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+            logger.info("学生导入结束，成功 " + importedRows.get() + " 行，失败 " + failedRows.get()
+                    + " 行，耗时 " + Duration.between(startedAt, finishedAt).toMillis() + "ms");
+        }
+    }
+
+    private Map<String, Integer> parseHeader(String header) {
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        List<String> names = splitCsvLine(header);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("username", "name", "password")) {
+            if (!columns.containsKey(required)) {
+                throw new RuntimeException("导入文件缺少列: " + required);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * 解析并校验一行数据，校验失败时记录错误并返回 null
+     */
+    private ImportRow parseRow(int lineNumber, String line, Map<String, Integer> columns,
+                               Set<String> seenUsernames, Set<String> seenEmails) {
+        List<String> fields = splitCsvLine(line);
+        String username = field(fields, columns, "username");
+        String name = field(fields, columns, "name");
+        String password = field(fields, columns, "password");
+        String email = field(fields, columns, "email");
+        String classId = field(fields, columns, "classid");
+
+        if (username == null || name == null || password == null) {
+            reject(lineNumber, "用户名、姓名和密码不能为空");
+            return null;
+        }
+        Long parsedClassId = null;
+        if (classId != null) {
+            try {
+                parsedClassId = Long.valueOf(classId);
+            } catch (NumberFormatException e) {
+                reject(lineNumber, "班级ID格式错误");
+                return null;
+            }
+        }
+        if (!seenUsernames.add(username)) {
+            reject(lineNumber, "用户名在文件中重复");
+            return null;
+        }
+        if (email != null && !seenEmails.add(email)) {
+            reject(lineNumber, "邮箱在文件中重复");
+            return null;
+        }
+        return new ImportRow(lineNumber, username, name, email, password, parsedClassId);
+    }
+
+    private String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * 按 RFC 4180 拆分一行，支持双引号包裹与 "" 转义，不支持字段内换行
+     */
+    private List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (ch == '"') {
+                    quoted = false;
+                } else {
+                    current.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(ch);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    /**
+     * 批量查重、校验班级并提交密码哈希，返回待写入的数据块
+     */
+    private PendingChunk prepare(List<ImportRow> chunk, Map<Long, Long> classTeachers, ExecutorService hashPool) {
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        Set<Long> unknownClassIds = new HashSet<>();
+        for (ImportRow row : chunk) {
+            usernames.add(row.username());
+            if (row.email() != null) {
+                emails.add(row.email());
+            }
+            if (row.classId() != null && !classTeachers.containsKey(row.classId())) {
+                unknownClassIds.add(row.classId());
+            }
+        }
+        Set<String> existingUsernames = new HashSet<>(userRepository.findExistingUsernames(usernames));
+        Set<String> existingEmails = emails.isEmpty()
+                ? Set.of() : new HashSet<>(userRepository.findExistingEmails(emails));
+        if (!unknownClassIds.isEmpty()) {
+            for (Object[] row : classRepository.findTeacherIdsByIdIn(unknownClassIds)) {
+                classTeachers.put((Long) row[0], (Long) row[1]);
+            }
+        }
+
+        List<ImportRow> rows = new ArrayList<>(chunk.size());
+        List<Future<String>> hashes = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (existingUsernames.contains(row.username())) {
+                reject(row.line(), "用户名已存在");
+            } else if (row.email() != null && existingEmails.contains(row.email())) {
+                reject(row.line(), "邮箱已被注册");
+            } else if (row.classId() != null && !classTeachers.containsKey(row.classId())) {
+                reject(row.line(), "班级不存在");
+            } else {
+                rows.add(row);
+                String password = row.password();
+                hashes.add(hashPool.submit(() -> passwordEncoder.encode(password)));
+            }
+        }
+        return new PendingChunk(rows, hashes);
+    }
+
+    /**
+     * 等待本块密码哈希完成，在单个事务中批量写入用户、班级申请与成员关系
+     */
+    private void write(PendingChunk pending, Map<Long, Long> classTeachers) throws InterruptedException {
+        List<ImportRow> rows = pending.rows();
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> hashes = new ArrayList<>(rows.size());
+        for (Future<String> future : pending.hashes()) {
+            try {
+                hashes.add(future.get());
+            } catch (ExecutionException e) {
+                throw new RuntimeException("密码加密失败: " + e.getCause().getMessage());
+            }
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> userArgs = new ArrayList<>(rows.size());
+        Map<String, String> hashByUsername = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            ImportRow row = rows.get(i);
+            userArgs.add(new Object[] {row.username(), hashes.get(i), UserRole.STUDENT.name(),
+                    row.name(), row.email(), now, now});
+            hashByUsername.put(row.username(), hashes.get(i));
+        }
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_USER_SQL, userArgs);
+
+            // 按用户名回查新用户ID；密码哈希不一致说明该用户名在查重后被并发注册，INSERT IGNORE 跳过了该行
+            Map<String, Long> insertedIds = new HashMap<>();
+            for (Object[] row : userRepository.findCredentialRowsByUsernameIn(hashByUsername.keySet())) {
+                if (row[2].equals(hashByUsername.get((String) row[1]))) {
+                    insertedIds.put((String) row[1], (Long) row[0]);
+                }
+            }
+
+            List<Object[]> applicationArgs = new ArrayList<>();
+            List<Object[]> memberArgs = new ArrayList<>();
+            Set<Long> teacherIds = new HashSet<>();
+            for (ImportRow row : rows) {
+                Long studentId = insertedIds.get(row.username());
+                if (studentId == null) {
+                    reject(row.line(), "用户名或邮箱已存在");
+                    continue;
+                }
+                searchIndexService.onUserSaved(studentId, row.username(), row.name(), UserRole.STUDENT);
+                if (row.classId() != null) {
+                    applicationArgs.add(new Object[] {studentId, row.classId(), "批量导入时加入班级",
+                            ApplicationStatus.APPROVED.name(), now, now, now});
+                    memberArgs.add(new Object[] {row.classId(), studentId});
+                    teacherIds.add(classTeachers.get(row.classId()));
+                }
+            }
+            if (!applicationArgs.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_APPLICATION_SQL, applicationArgs);
+                jdbcTemplate.batchUpdate(INSERT_MEMBER_SQL, memberArgs);
+                for (Long teacherId : teacherIds) {
+                    teacherStatsService.onStudentsBulkJoined(teacherId);
+                }
+                for (Object[] member : memberArgs) {
+                    searchIndexService.onStudentJoined((Long) member[0], (Long) member[1]);
+                }
+                catalogVersionService.bump(CatalogVersionService.Catalog.APPLICATIONS);
+            }
+            importedRows.addAndGet(insertedIds.size());
+            processedRows.addAndGet(insertedIds.size());
+        });
+    }
+
+    private void reject(int lineNumber, String message) {
+        processedRows.incrementAndGet();
+        failedRows.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("第" + lineNumber + "行: " + message);
+            }
+        }
+    }
+
+    /**
+     * 获取任务进度，进度按已读取的字节数估算
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("running", running.get());
+        status.put("fileName", fileName);
+        status.put("processedRows", processedRows.get());
+        status.put("importedRows", importedRows.get());
+        status.put("failedRows", failedRows.get());
+        status.put("progress", finishedAt != null ? 100
+                : totalBytes == 0 ? 0 : Math.min(99, bytesRead.get() * 100 / totalBytes));
+        synchronized (errors) {
+            status.put("errors", new ArrayList<>(errors));
+        }
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("lastError", lastError);
+        return status;
+    }
+}
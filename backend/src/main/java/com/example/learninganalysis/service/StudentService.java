@@ -2,11 +2,14 @@ package com.example.learninganalysis.service;
 
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
 import com.example.learninganalysis.repository.*;
 import com.example.learninganalysis.model.*;
+import com.example.learninganalysis.dto.ActivityListItem;
+import com.example.learninganalysis.dto.CursorPage;
+import com.example.learninganalysis.dto.WaitlistPosition;
 import java.util.*;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import com.example.learninganalysis.model.Activity.ActivityStatus;
 
 @Service
@@ -14,6 +17,9 @@ public class StudentService {
     
     @Autowired
     private UserRepository userRepository;
+
+    @Autowired
+    private UserResolver userResolver;
     
     @Autowired
     private ActivityRepository activityRepository;
@@ -21,7 +27,15 @@ public class StudentService {
     @Autowired
     private ActivityParticipationRepository participationRepository;
     
-    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    @Autowired
+    private SeatReservationService seatReservationService;
+
+    @Autowired
+    private StudentStatsService studentStatsService;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+    
 
     public List<Map<String, Object>> getGoals(String username) {
         // 临时返回模拟数据
@@ -47,34 +61,19 @@ public class StudentService {
         return goals;
     }
 
-    public List<Map<String, Object>> getActivities(String username) {
+    /**
+     * 活动列表的一页，按 (开始时间, ID) 倒序，游标为上一页最后一个活动的开始时间与ID
+     */
+    public CursorPage<ActivityListItem> getActivities(String username, String cursor, Integer limit) {
+        int pageSize = CursorPage.limit(limit);
+        CursorPage.Cursor after = CursorPage.decode(cursor, 2);
         try {
             System.out.println("获取用户[" + username + "]的活动列表");
             
-            // 获取所有活动，即使有些活动状态在数据库中可能异常
-            List<Activity> activities = new ArrayList<>();
-            
-            try {
-                activities = activityRepository.findAllByOrderByStartTimeDesc();
-                System.out.println("找到 " + activities.size() + " 个活动");
-            } catch (Exception e) {
-                System.err.println("查询活动列表出错: " + e.getMessage());
-                // 使用原生SQL查询方法，避免枚举映射错误
-                try {
-                    activities = activityRepository.findAllActivitiesNative();
-                    System.out.println("使用原生SQL查询找到 " + activities.size() + " 个活动");
-                } catch (Exception e2) {
-                    System.err.println("原生SQL查询也失败: " + e2.getMessage());
-                    // 最后尝试使用标准方法
-                    activities = activityRepository.findAll();
-                    System.out.println("使用标准方法找到 " + activities.size() + " 个活动");
-                }
-            }
-            
             // 获取用户信息
             User user = null;
             try {
-                user = userRepository.findByUsername(username).orElse(null);
+                user = userResolver.find(username).orElse(null);
                 if (user == null) {
                     System.out.println("警告：未找到用户 " + username + "，将返回不含参与信息的活动列表");
                 }
@@ -83,64 +82,97 @@ public class StudentService {
                 // 继续处理，但不包含用户特定信息
             }
             
-            List<Map<String, Object>> result = new ArrayList<>();
-            
-            for (Activity activity : activities) {
-                try {
-                    Map<String, Object> activityMap = convertActivityToMap(activity);
-                    
-                    // 如果用户存在，查询用户参与情况
-                    if (user != null) {
-                        try {
-                            Optional<ActivityParticipation> participation = 
-                                participationRepository.findByUserAndActivity(user, activity);
-                            
-                            if (participation.isPresent()) {
-                                activityMap.put("participationStatus", participation.get().getStatus().name());
-                            }
-                        } catch (Exception e) {
-                            System.err.println("获取用户参与情况失败: " + e.getMessage());
-                            // 不中断处理，继续添加活动
-                        }
-                    }
-                    
-                    result.add(activityMap);
-                } catch (Exception e) {
-                    System.err.println("处理活动信息失败，ID: " + activity.getId() + ", 错误: " + e.getMessage());
-                    // 跳过这个有问题的活动，继续处理其他活动
-                }
+            CursorPage<ActivityListItem> result;
+            try {
+                // 活动与参与状态在同一条查询中返回，语句数与活动数量无关，查询结果直接作为响应
+                result = toActivityPage(activityRepository.findListingWithParticipation(
+                        user != null ? user.getId() : null, startTimeOf(after), idOf(after),
+                        CursorPage.probe(pageSize)), pageSize);
+            } catch (Exception e) {
+                System.err.println("查询活动列表出错: " + e.getMessage());
+                // 使用原生SQL查询方法，避免枚举映射错误；回退路径只在首页返回全部活动，不再翻页
+                result = new CursorPage<>(after == null ? getActivitiesFallback(user) : new ArrayList<>(), null);
             }
             
-            System.out.println("成功处理 " + result.size() + " 个活动");
+            System.out.println("成功处理 " + result.items().size() + " 个活动");
             return result;
         } catch (Exception e) {
             System.err.println("获取活动列表失败: " + e.getMessage());
             e.printStackTrace();
             // 发生异常时，返回空列表而不是抛出异常
-            return new ArrayList<>();
+            return new CursorPage<>(new ArrayList<>(), null);
         }
     }
     
-    public List<Map<String, Object>> getMyActivities(String username) {
-        // 获取用户
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
-        
-        // 获取用户参与的活动
-        List<ActivityParticipation> participations = participationRepository.findByUser(user);
-        
-        List<Map<String, Object>> result = new ArrayList<>();
+    /**
+     * 按开始时间倒序的活动页，游标为 (开始时间, ID)，开始时间为空时游标中对应位置为空串
+     */
+    private CursorPage<ActivityListItem> toActivityPage(List<ActivityListItem> rows, int pageSize) {
+        return CursorPage.of(rows, pageSize, item -> Arrays.asList(
+                item.startTime() != null ? item.startTime() : "", item.id()));
+    }
+    
+    private LocalDateTime startTimeOf(CursorPage.Cursor after) {
+        return after == null || after.keys()[0].isEmpty() ? null : after.time(0);
+    }
+    
+    private Long idOf(CursorPage.Cursor after) {
+        return after == null ? null : after.id(after.keys().length - 1);
+    }
+    
+    // 列表查询因数据异常失败时的回退路径：逐条转换活动，参与状态一次性批量读取
+    private List<ActivityListItem> getActivitiesFallback(User user) {
+        List<Activity> activities;
+        try {
+            activities = activityRepository.findAllActivitiesNative();
+            System.out.println("使用原生SQL查询找到 " + activities.size() + " 个活动");
+        } catch (Exception e) {
+            System.err.println("原生SQL查询也失败: " + e.getMessage());
+            // 最后尝试使用标准方法
+            activities = activityRepository.findAll();
+            System.out.println("使用标准方法找到 " + activities.size() + " 个活动");
+        }
         
-        for (ActivityParticipation participation : participations) {
-            Map<String, Object> activityMap = convertActivityToMap(participation.getActivity());
-            activityMap.put("participationStatus", participation.getStatus().name());
-            result.add(activityMap);
+        Map<Long, ParticipationStatus> statuses = new HashMap<>();
+        if (user != null) {
+            try {
+                for (Object[] row : participationRepository.findActivityStatusesByUser(user)) {
+                    statuses.put((Long) row[0], (ParticipationStatus) row[1]);
+                }
+            } catch (Exception e) {
+                System.err.println("获取用户参与情况失败: " + e.getMessage());
+                // 不中断处理，继续添加活动
+            }
         }
         
+        List<ActivityListItem> result = new ArrayList<>();
+        for (Activity activity : activities) {
+            try {
+                result.add(ActivityListItem.of(activity, statuses.get(activity.getId())));
+            } catch (Exception e) {
+                System.err.println("处理活动信息失败，ID: " + activity.getId() + ", 错误: " + e.getMessage());
+                // 跳过这个有问题的活动，继续处理其他活动
+            }
+        }
         return result;
     }
     
-    public List<Map<String, Object>> getActivitiesByType(String typeStr, String username) {
+    public CursorPage<ActivityListItem> getMyActivities(String username, String cursor, Integer limit) {
+        int pageSize = CursorPage.limit(limit);
+        CursorPage.Cursor after = CursorPage.decode(cursor, 1);
+        
+        // 获取用户
+        User user = userResolver.resolve(username);
+        
+        // 用户参与的活动及参与状态由一条投影查询返回，按活动ID分页
+        return CursorPage.of(activityRepository.findListingByParticipantId(user.getId(), idOf(after),
+                CursorPage.probe(pageSize)), pageSize, item -> List.of(item.id()));
+    }
+    
+    public CursorPage<ActivityListItem> getActivitiesByType(String typeStr, String username, String cursor, Integer limit) {
+        int pageSize = CursorPage.limit(limit);
+        CursorPage.Cursor after = CursorPage.decode(cursor, 2);
+        
         Activity.ActivityType type;
         try {
             type = Activity.ActivityType.valueOf(typeStr.toUpperCase());
@@ -148,140 +180,74 @@ public class StudentService {
             throw new RuntimeException("不支持的活动类型: " + typeStr);
         }
         
-        // 获取指定类型的活动
-        List<Activity> activities = activityRepository.findByTypeOrderByStartTimeDesc(type);
-        
         // 获取用户信息
-        User user = userRepository.findByUsername(username).orElse(null);
-        
-        List<Map<String, Object>> result = new ArrayList<>();
-        
-        for (Activity activity : activities) {
-            Map<String, Object> activityMap = convertActivityToMap(activity);
-            
-            // 如果用户存在，查询用户参与情况
-            if (user != null) {
-                Optional<ActivityParticipation> participation = 
-                    participationRepository.findByUserAndActivity(user, activity);
-                
-                if (participation.isPresent()) {
-                    activityMap.put("participationStatus", participation.get().getStatus().name());
-                }
-            }
-            
-            result.add(activityMap);
-        }
+        User user = userResolver.find(username).orElse(null);
         
-        return result;
+        // 获取指定类型的活动及用户参与情况
+        return toActivityPage(activityRepository.findListingWithParticipationByType(type,
+                user != null ? user.getId() : null, startTimeOf(after), idOf(after),
+                CursorPage.probe(pageSize)), pageSize);
     }
     
-    public Map<String, Object> registerActivity(Long id, String username) {
+    public ActivityListItem registerActivity(Long id, String username) {
         Activity activity = activityRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("活动不存在: " + id));
         
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
+        User user = userResolver.resolve(username);
         
         // 检查活动是否已结束
         if (activity.getStatus() == ActivityStatus.COMPLETED) {
             throw new RuntimeException("活动已结束，无法报名");
         }
         
-        // 检查活动是否已满
-        if (activity.getCurrentParticipants() >= activity.getMaxParticipants()) {
-            throw new RuntimeException("活动报名已满");
-        }
-        
-        // 检查用户是否已报名
-        Optional<ActivityParticipation> existingParticipation = 
-            participationRepository.findByUserAndActivity(user, activity);
-        
-        ActivityParticipation participation;
-        
-        if (existingParticipation.isPresent()) {
-            // 已存在参与记录
-            participation = existingParticipation.get();
-            
-            // 如果状态是已报名，则不能重复报名
-            if (participation.getStatus() == ParticipationStatus.REGISTERED) {
-                throw new RuntimeException("您已报名此活动");
-            } 
-            // 如果状态是已取消，允许重新报名
-            else if (participation.getStatus() == ParticipationStatus.CANCELLED) {
-                System.out.println("用户[" + username + "]重新报名活动: " + id);
-                // 更新状态为已报名
-                participation.setStatus(ParticipationStatus.REGISTERED);
-                participation.setRegisterTime(LocalDateTime.now());
-                // 清除取消时间
-                participation.setCancelTime(null);
-            }
-            // 其他状态（如COMPLETED）不应允许重新报名
-            else {
-                throw new RuntimeException("当前状态无法报名");
-            }
-        } else {
-            // 不存在参与记录，创建新记录
-            participation = new ActivityParticipation();
-            participation.setUser(user);
-            participation.setActivity(activity);
-            participation.setStatus(ParticipationStatus.REGISTERED);
-            participation.setRegisterTime(LocalDateTime.now());
-        }
-        
-        // 保存参与记录
-        participationRepository.save(participation);
-        
-        // 更新活动参与人数
-        activity.setCurrentParticipants(activity.getCurrentParticipants() + 1);
-        activityRepository.save(activity);
+        // 原子地写入参与记录并占用名额，名额已满时加入候补队列
+        ParticipationStatus status = seatReservationService.reserve(activity, user);
         
         // 返回更新后的活动信息
-        Map<String, Object> result = convertActivityToMap(activity);
-        result.put("participationStatus", ParticipationStatus.REGISTERED.name());
-        
-        return result;
+        return ActivityListItem.of(reloadActivity(id), status);
     }
     
-    public Map<String, Object> cancelActivity(Long id, String username) {
+    public ActivityListItem cancelActivity(Long id, String username) {
         Activity activity = activityRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("活动不存在: " + id));
         
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
+        User user = userResolver.resolve(username);
         
-        // 查找用户的参与记录
-        ActivityParticipation participation = participationRepository.findByUserAndActivity(user, activity)
-                .orElseThrow(() -> new RuntimeException("您未报名此活动"));
+        // 原子地更新参与状态并释放名额，名额转给候补队首
+        seatReservationService.release(activity, user);
         
-        // 检查状态是否为已报名
-        if (participation.getStatus() != ParticipationStatus.REGISTERED) {
-            throw new RuntimeException("只能取消处于已报名状态的活动");
-        }
+        // 返回更新后的活动信息
+        return ActivityListItem.of(reloadActivity(id), ParticipationStatus.CANCELLED);
+    }
+    
+    /**
+     * 查询当前用户在活动候补队列中的位置，只读取自己的参与记录并按索引计数排在前面的人数
+     */
+    public WaitlistPosition getWaitlistPosition(Long id, String username) {
+        User user = userResolver.resolve(username);
         
-        // 更新参与状态
-        participation.setStatus(ParticipationStatus.CANCELLED);
-        participation.setCancelTime(LocalDateTime.now());
-        participationRepository.save(participation);
+        ActivityParticipation participation = participationRepository.findByUserAndActivity(user, activityRepository.getReferenceById(id))
+                .orElseThrow(() -> new RuntimeException("您未报名此活动"));
         
-        // 更新活动参与人数
-        if (activity.getCurrentParticipants() > 0) {
-            activity.setCurrentParticipants(activity.getCurrentParticipants() - 1);
-            activityRepository.save(activity);
+        if (participation.getStatus() != ParticipationStatus.WAITLISTED) {
+            return new WaitlistPosition(id, participation.getStatus(), null);
         }
-        
-        // 返回更新后的活动信息
-        Map<String, Object> result = convertActivityToMap(activity);
-        result.put("participationStatus", ParticipationStatus.CANCELLED.name());
-        
-        return result;
+        long ahead = participationRepository.countWaitlistAhead(id, participation.getWaitlistTime(), participation.getId());
+        return new WaitlistPosition(id, ParticipationStatus.WAITLISTED, ahead + 1);
+    }
+    
+    // 预订事务通过条件更新修改参与人数，需重新读取活动以返回最新名额
+    private Activity reloadActivity(Long id) {
+        return activityRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("活动不存在: " + id));
     }
     
-    public Map<String, Object> completeActivity(Long id, String username) {
+    @Transactional
+    public ActivityListItem completeActivity(Long id, String username) {
         Activity activity = activityRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("活动不存在: " + id));
         
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
+        User user = userResolver.resolve(username);
         
         // 查找用户的参与记录
         ActivityParticipation participation = participationRepository.findByUserAndActivity(user, activity)
@@ -297,24 +263,21 @@ public class StudentService {
             throw new RuntimeException("只能完成已结束的活动");
         }
         
-        // 更新参与状态
-        participation.setStatus(ParticipationStatus.COMPLETED);
-        participation.setCompleteTime(LocalDateTime.now());
-        participationRepository.save(participation);
+        // 条件更新参与状态，并发的重复提交只会计入一次
+        if (participationRepository.markCompleted(participation.getId(), LocalDateTime.now()) == 0) {
+            throw new RuntimeException("只能完成处于已报名状态的活动");
+        }
+        studentStatsService.onActivityCompleted(user.getId());
+        catalogVersionService.bump(CatalogVersionService.Catalog.ACTIVITIES);
         
         // 返回更新后的活动信息
-        Map<String, Object> result = convertActivityToMap(activity);
-        result.put("participationStatus", ParticipationStatus.COMPLETED.name());
-        
-        return result;
+        return ActivityListItem.of(activity, ParticipationStatus.COMPLETED);
     }
 
     public Map<String, Object> getStats(String username) {
-        // 临时返回模拟数据
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("goalCompletionRate", 45);
-        stats.put("activityParticipationRate", 80);
-        return stats;
+        User user = userResolver.resolve(username);
+
+        return studentStatsService.getStats(user.getId());
     }
 
     public List<Map<String, Object>> getLearningPaths(String username) {
@@ -326,30 +289,24 @@ public class StudentService {
         path1.put("description", "从Java基础到企业级应用开发的完整学习路径");
         path1.put("progress", 40);
         path1.put("goals", getGoals(username));
-        path1.put("activities", getActivities(username));
+        path1.put("activities", getActivities(username, null, null).items());
         paths.add(path1);
 
         return paths;
     }
 
-    public Map<String, Object> getActivityDetail(Long id, String username) {
+    public ActivityListItem getActivityDetail(Long id, String username) {
         Activity activity = activityRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("活动不存在: " + id));
         
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
-        
-        Map<String, Object> activityMap = convertActivityToMap(activity);
+        User user = userResolver.resolve(username);
         
         // 查询用户是否已参与此活动
-        Optional<ActivityParticipation> participation = 
-            participationRepository.findByUserAndActivity(user, activity);
-        
-        if (participation.isPresent()) {
-            activityMap.put("participationStatus", participation.get().getStatus().name());
-        }
+        ParticipationStatus status = participationRepository.findByUserAndActivity(user, activity)
+                .map(ActivityParticipation::getStatus)
+                .orElse(null);
         
-        return activityMap;
+        return ActivityListItem.of(activity, status);
     }
 
     public Map<String, Object> submitActivity(Long id, String username) {
@@ -369,26 +326,4 @@ public class StudentService {
         result.put("submissionDate", new Date());
         return result;
     }
-
-    // 将Activity实体转为Map，便于前端使用
-    private Map<String, Object> convertActivityToMap(Activity activity) {
-        Map<String, Object> activityMap = new HashMap<>();
-        activityMap.put("id", activity.getId());
-        activityMap.put("title", activity.getTitle());
-        activityMap.put("type", activity.getType().name());
-        activityMap.put("description", activity.getDescription());
-        activityMap.put("location", activity.getLocation());
-        activityMap.put("startTime", activity.getStartTime().format(formatter));
-        activityMap.put("endTime", activity.getEndTime().format(formatter));
-        activityMap.put("status", activity.getStatus().name());
-        activityMap.put("maxParticipants", activity.getMaxParticipants());
-        activityMap.put("currentParticipants", activity.getCurrentParticipants());
-        activityMap.put("organizer", activity.getOrganizer());
-        
-        if (activity.getCreator() != null) {
-            activityMap.put("creatorName", activity.getCreator().getUsername());
-        }
-        
-        return activityMap;
-    }
-} 
\ No newline at end of file
+}
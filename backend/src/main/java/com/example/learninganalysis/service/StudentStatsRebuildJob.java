@@ -0,0 +1,161 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.model.UserRole;
+import com.example.learninganalysis.repository.StudentStatsRepository;
+import com.example.learninganalysis.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * 学生统计全量重建任务
+ *
+ * 协调线程按学生ID顺序切分为固定大小的分块，由工作线程池并行执行，
+ * 每个分块是一条 INSERT ... SELECT ... ON DUPLICATE KEY UPDATE，在独立事务中提交。
+ * 在途分块数受信号量限制，内存占用与学生总数无关；单个分块失败只记录错误，不影响其他分块。
+ */
+@Component
+public class StudentStatsRebuildJob {
+    private static final Logger logger = Logger.getLogger(StudentStatsRebuildJob.class.getName());
+
+    @Autowired
+    private StudentStatsRepository studentStatsRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${student.stats.rebuild.threads:4}")
+    private int threads;
+
+    @Value("${student.stats.rebuild.chunk-size:500}")
+    private int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong processedStudents = new AtomicLong();
+    private final AtomicInteger completedChunks = new AtomicInteger();
+    private final AtomicInteger failedChunks = new AtomicInteger();
+    private volatile long totalStudents;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String lastError;
+
+    /**
+     * 启动重建任务，已有任务在运行时抛出异常
+     */
+    public Map<String, Object> start() {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("学生统计重建任务正在运行");
+        }
+        processedStudents.set(0);
+        completedChunks.set(0);
+        failedChunks.set(0);
+        lastError = null;
+        finishedAt = null;
+        startedAt = LocalDateTime.now();
+        totalStudents = userRepository.countByRole(UserRole.STUDENT);
+
+        Thread coordinator = new Thread(this::run, "student-stats-rebuild");
+        coordinator.setDaemon(true);
+        coordinator.start();
+        return getStatus();
+    }
+
+    private void run() {
+        logger.info("开始重建学生统计，学生数: " + totalStudents + ", 线程数: " + threads + ", 分块大小: " + chunkSize);
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "student-stats-rebuild-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Semaphore inFlight = new Semaphore(threads * 2);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        try {
+            long afterId = 0L;
+            while (true) {
+                List<Long> ids = studentStatsRepository.findStudentIdsAfter(afterId, PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                Long fromId = ids.get(0);
+                Long toId = ids.get(ids.size() - 1);
+                int size = ids.size();
+
+                inFlight.acquire();
+                pool.execute(() -> {
+                    try {
+                        transactionTemplate.executeWithoutResult(status ->
+                                studentStatsRepository.rebuildRange(fromId, toId, LocalDateTime.now()));
+                        processedStudents.addAndGet(size);
+                        completedChunks.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failedChunks.incrementAndGet();
+                        lastError = "学生ID " + fromId + "-" + toId + ": " + e.getMessage();
+                        logger.warning("重建学生统计分块失败，" + lastError);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+
+                afterId = toId;
+                if (size < chunkSize) {
+                    break;
+                }
+            }
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+            lastError = "任务被中断";
+        } catch (RuntimeException e) {
+            pool.shutdownNow();
+            lastError = e.getMessage();
+            logger.warning("重建学生统计失败: " + e.getMessage());
+        } finally {
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+            logger.info("学生统计重建结束，已处理 " + processedStudents.get() + " 名学生，失败分块 "
+                    + failedChunks.get() + "，耗时 " + Duration.between(startedAt, finishedAt).toMillis() + "ms");
+        }
+    }
+
+    /**
+     * 获取任务进度
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("running", running.get());
+        status.put("totalStudents", totalStudents);
+        status.put("processedStudents", processedStudents.get());
+        status.put("completedChunks", completedChunks.get());
+        status.put("failedChunks", failedChunks.get());
+        status.put("progress", totalStudents == 0 ? (startedAt != null && !running.get() ? 100 : 0)
+                : Math.min(100, processedStudents.get() * 100 / totalStudents));
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("lastError", lastError);
+        return status;
+    }
+}
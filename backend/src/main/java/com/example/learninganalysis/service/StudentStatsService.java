@@ -0,0 +1,122 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.model.LearningGoal;
+import com.example.learninganalysis.model.StudentStats;
+import com.example.learninganalysis.repository.StudentStatsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 学生统计维护服务
+ *
+ * 各写操作在自身事务内调用对应的 on* 方法，按增量调整 student_stats 上的计数并刷新比率。
+ * 学生还没有统计记录时（新注册或升级前的历史数据），改为按源数据为该学生生成完整的一行。
+ */
+@Service
+public class StudentStatsService {
+
+    @Autowired
+    private StudentStatsRepository studentStatsRepository;
+
+    /**
+     * 读取学生统计，只访问 student_stats 表，没有记录时返回全零
+     */
+    public Map<String, Object> getStats(Long studentId) {
+        StudentStats stats = studentStatsRepository.findByStudentId(studentId).orElse(null);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("goalCompletionRate", stats != null ? roundRate(stats.getGoalCompletionRate()) : 0);
+        result.put("activityParticipationRate", stats != null ? roundRate(stats.getActivityParticipationRate()) : 0);
+        result.put("totalGoals", stats != null ? valueOf(stats.getTotalGoals()) : 0);
+        result.put("completedGoals", stats != null ? valueOf(stats.getCompletedGoals()) : 0);
+        result.put("totalActivities", stats != null ? valueOf(stats.getTotalActivities()) : 0);
+        result.put("participatedActivities", stats != null ? valueOf(stats.getParticipatedActivities()) : 0);
+        return result;
+    }
+
+    @Transactional
+    public void onActivityRegistered(Long studentId) {
+        adjustActivities(studentId, 1, 0);
+    }
+
+    @Transactional
+    public void onActivityCancelled(Long studentId) {
+        adjustActivities(studentId, -1, 0);
+    }
+
+    @Transactional
+    public void onActivityCompleted(Long studentId) {
+        adjustActivities(studentId, 0, 1);
+    }
+
+    @Transactional
+    public void onGoalCreated(Long studentId, LearningGoal.GoalStatus status) {
+        adjustGoals(studentId, 1, completed(status));
+    }
+
+    @Transactional
+    public void onGoalDeleted(Long studentId, LearningGoal.GoalStatus status) {
+        adjustGoals(studentId, -1, -completed(status));
+    }
+
+    @Transactional
+    public void onGoalStatusChanged(Long studentId, LearningGoal.GoalStatus oldStatus,
+                                    LearningGoal.GoalStatus newStatus) {
+        int completedDelta = completed(newStatus) - completed(oldStatus);
+        if (completedDelta != 0) {
+            adjustGoals(studentId, 0, completedDelta);
+        }
+    }
+
+    /**
+     * 按模板为整个班级布置目标后调用，新目标均为进行中状态
+     */
+    @Transactional
+    public void onTemplateGoalsCreated(Long templateId) {
+        LocalDateTime now = LocalDateTime.now();
+        // 先找出没有统计记录的学生：其统计行按源数据生成，已包含本次布置的目标
+        List<Long> missing = studentStatsRepository.findStudentIdsWithoutStatsForTemplate(templateId);
+        studentStatsRepository.incrementGoalsForTemplate(templateId, now);
+        studentStatsRepository.refreshGoalRatesForTemplate(templateId);
+        for (Long studentId : missing) {
+            studentStatsRepository.rebuildRange(studentId, studentId, now);
+        }
+    }
+
+    private void adjustActivities(Long studentId, int totalDelta, int participatedDelta) {
+        LocalDateTime now = LocalDateTime.now();
+        if (studentStatsRepository.adjustActivityCounts(studentId, totalDelta, participatedDelta, now) == 0) {
+            // 源数据已包含本次写入，直接生成完整的统计行
+            studentStatsRepository.rebuildRange(studentId, studentId, now);
+        } else {
+            studentStatsRepository.refreshRates(studentId);
+        }
+    }
+
+    private void adjustGoals(Long studentId, int goalDelta, int completedDelta) {
+        LocalDateTime now = LocalDateTime.now();
+        if (studentStatsRepository.adjustGoalCounts(studentId, goalDelta, completedDelta, now) == 0) {
+            studentStatsRepository.rebuildRange(studentId, studentId, now);
+        } else {
+            studentStatsRepository.refreshRates(studentId);
+        }
+    }
+
+    private int completed(LearningGoal.GoalStatus status) {
+        return status == LearningGoal.GoalStatus.COMPLETED ? 1 : 0;
+    }
+
+    private long roundRate(Double rate) {
+        return rate != null ? Math.round(rate) : 0;
+    }
+
+    private int valueOf(Integer count) {
+        return count != null ? count : 0;
+    }
+}
@@ -1,12 +1,21 @@
 package com.example.learninganalysis.service;
 
+import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
 import com.example.learninganalysis.repository.*;
 import com.example.learninganalysis.model.*;
+import com.example.learninganalysis.dto.ActivityListItem;
+import com.example.learninganalysis.dto.CursorPage;
+import com.example.learninganalysis.dto.DateFormats;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -16,6 +25,9 @@ public class TeacherService {
     
     @Autowired
     private UserRepository userRepository;
+
+    @Autowired
+    private UserResolver userResolver;
     
     @Autowired
     private ActivityRepository activityRepository;
@@ -32,28 +44,64 @@ public class TeacherService {
     @Autowired
     private LearningGoalRepository learningGoalRepository;
     
-    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    @Autowired
+    private GoalTemplateRepository goalTemplateRepository;
+    
+    @Autowired
+    private TeacherStatsService teacherStatsService;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private ActivityStatusScheduler activityStatusScheduler;
+
+    @Autowired
+    private SeatReservationService seatReservationService;
+    
+    @Autowired
+    private StudentStatsService studentStatsService;
+    
+    @Autowired
+    private ActivityParticipationRepository activityParticipationRepository;
+    
+    private static final int DASHBOARD_TARGET_LIMIT = 5;
+    
+    // 学生档案各部分的并行查询使用虚拟线程，并发度实际受数据库连接池限制
+    private final ExecutorService profileExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    
+    @PreDestroy
+    public void stop() {
+        profileExecutor.shutdownNow();
+    }
+    
 
     // 添加Dashboard相关的方法
     public Map<String, Object> getDashboardStats(String username) {
         logger.info("获取教师仪表盘统计数据: " + username);
         
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+        User teacher = userResolver.resolve(username, "教师用户不存在");
+        
+        // 汇总数据由班级、目标、活动的写操作增量维护
+        TeacherStats teacherStats = teacherStatsService.getOrRebuild(teacher.getId());
         
         Map<String, Object> stats = new HashMap<>();
         
-        // 获取该教师管理的学生数量
-        long studentCount = userRepository.countByRole(UserRole.STUDENT);
-        stats.put("studentCount", studentCount);
+        // 该教师所带班级中的学生数量
+        stats.put("studentCount", teacherStats.getStudentCount());
         
-        // 获取该教师创建的活动数量
-        long activityCount = activityRepository.countByCreator(teacher);
-        stats.put("activityCount", activityCount);
+        // 该教师创建的活动数量
+        stats.put("activityCount", teacherStats.getActivityCount());
         
         // 学习目标数量
-        long targetCount = learningGoalRepository.countByTeacher(teacher);
-        stats.put("targetCount", targetCount);
+        stats.put("targetCount", teacherStats.getGoalCount());
+        
+        stats.put("classCount", teacherStats.getClassCount());
+        stats.put("completedTargetCount", teacherStats.getCompletedGoalCount());
+        stats.put("targetCompletionRate", percent(teacherStats.getCompletedGoalCount(), teacherStats.getGoalCount()));
         
         return stats;
     }
@@ -61,29 +109,20 @@ public class TeacherService {
     public List<Map<String, Object>> getDashboardClasses(String username) {
         logger.info("获取教师仪表盘班级数据: " + username);
         
-        // 这里应该使用真实数据库查询，暂时模拟数据
-        List<Map<String, Object>> classes = new ArrayList<>();
+        User teacher = userResolver.resolve(username, "教师用户不存在");
+        
+        // 汇总缺失时会同时重算班级计数
+        teacherStatsService.getOrRebuild(teacher.getId());
         
-        Map<String, Object> class1 = new HashMap<>();
-        class1.put("id", 1);
-        class1.put("name", "计算机科学1班");
-        class1.put("studentCount", 35);
-        class1.put("completionRate", 85);
-        classes.add(class1);
-        
-        Map<String, Object> class2 = new HashMap<>();
-        class2.put("id", 2);
-        class2.put("name", "软件工程2班");
-        class2.put("studentCount", 40);
-        class2.put("completionRate", 76);
-        classes.add(class2);
-        
-        Map<String, Object> class3 = new HashMap<>();
-        class3.put("id", 3);
-        class3.put("name", "人工智能实验班");
-        class3.put("studentCount", 28);
-        class3.put("completionRate", 92);
-        classes.add(class3);
+        List<Map<String, Object>> classes = new ArrayList<>();
+        for (Object[] row : classRepository.findCounterRowsByTeacherId(teacher.getId())) {
+            Map<String, Object> classMap = new HashMap<>();
+            classMap.put("id", row[0]);
+            classMap.put("name", row[1]);
+            classMap.put("studentCount", row[2]);
+            classMap.put("completionRate", percent((Integer) row[4], (Integer) row[3]));
+            classes.add(classMap);
+        }
         
         return classes;
     }
@@ -91,32 +130,23 @@ public class TeacherService {
     public List<Map<String, Object>> getDashboardTargets(String username) {
         logger.info("获取教师仪表盘目标数据: " + username);
         
-        // 模拟学习目标数据
-        List<Map<String, Object>> targets = new ArrayList<>();
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
-        Map<String, Object> target1 = new HashMap<>();
-        target1.put("id", 1);
-        target1.put("title", "完成科技创新项目");
-        target1.put("deadline", "2023-11-30");
-        target1.put("affectedStudents", 35);
-        target1.put("completionRate", 60);
-        targets.add(target1);
-        
-        Map<String, Object> target2 = new HashMap<>();
-        target2.put("id", 2);
-        target2.put("title", "参加志愿服务活动");
-        target2.put("deadline", "2023-10-31");
-        target2.put("affectedStudents", 75);
-        target2.put("completionRate", 85);
-        targets.add(target2);
-        
-        Map<String, Object> target3 = new HashMap<>();
-        target3.put("id", 3);
-        target3.put("title", "撰写学术报告");
-        target3.put("deadline", "2023-11-15");
-        target3.put("affectedStudents", 28);
-        target3.put("completionRate", 40);
-        targets.add(target3);
+        // 最近到期的未完成目标，按模板合并，走 (teacher_id, due_date) 索引
+        List<Object[]> rows = learningGoalRepository.findUpcomingDeadlines(
+                teacher.getId(), LocalDateTime.now(), LearningGoal.GoalStatus.COMPLETED,
+                PageRequest.of(0, DASHBOARD_TARGET_LIMIT));
+        
+        List<Map<String, Object>> targets = new ArrayList<>();
+        for (Object[] row : rows) {
+            Map<String, Object> target = new HashMap<>();
+            target.put("id", row[0]);
+            target.put("title", row[1]);
+            target.put("deadline", ((LocalDateTime) row[2]).format(DateFormats.DATE));
+            target.put("affectedStudents", ((Number) row[4]).intValue());
+            target.put("completionRate", (int) Math.round(((Number) row[3]).doubleValue()));
+            targets.add(target);
+        }
         
         return targets;
     }
@@ -124,43 +154,11 @@ public class TeacherService {
     public List<Map<String, Object>> getDashboardActivities(String username) {
         logger.info("获取教师仪表盘活动数据: " + username);
         
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
         // 获取该教师创建的最近活动
         List<Activity> activities = activityRepository.findTop3ByCreatorOrderByStartTimeDesc(teacher);
         
-        if (activities.isEmpty()) {
-            // 如果没有数据，返回模拟数据
-            List<Map<String, Object>> mockData = new ArrayList<>();
-            
-            Map<String, Object> activity1 = new HashMap<>();
-            activity1.put("id", 1);
-            activity1.put("title", "科技创新大赛");
-            activity1.put("type", "竞赛");
-            activity1.put("date", "2023-10-15");
-            activity1.put("participantsCount", 45);
-            mockData.add(activity1);
-            
-            Map<String, Object> activity2 = new HashMap<>();
-            activity2.put("id", 2);
-            activity2.put("title", "志愿服务活动");
-            activity2.put("type", "志愿服务");
-            activity2.put("date", "2023-10-06");
-            activity2.put("participantsCount", 30);
-            mockData.add(activity2);
-            
-            Map<String, Object> activity3 = new HashMap<>();
-            activity3.put("id", 3);
-            activity3.put("title", "学术讲座：人工智能前沿");
-            activity3.put("type", "讲座");
-            activity3.put("date", "2023-10-10");
-            activity3.put("participantsCount", 120);
-            mockData.add(activity3);
-            
-            return mockData;
-        }
-        
         // 转换为前端需要的格式
         List<Map<String, Object>> activityMaps = new ArrayList<>();
         
@@ -169,93 +167,43 @@ public class TeacherService {
             activityMap.put("id", activity.getId());
             activityMap.put("title", activity.getTitle());
             activityMap.put("type", activity.getType().name());
-            activityMap.put("date", activity.getStartTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+            activityMap.put("date", activity.getStartTime().format(DateFormats.DATE));
             activityMap.put("participantsCount", activity.getCurrentParticipants());
+            activityMap.put("maxParticipants", activity.getMaxParticipants());
+            activityMap.put("fillRate", percent(activity.getCurrentParticipants(), activity.getMaxParticipants()));
             activityMaps.add(activityMap);
         }
         
         return activityMaps;
     }
 
-    public List<Map<String, Object>> getActivities(String username) {
-        try {
-            logger.info("获取所有活动列表: " + username);
-            // 尝试使用StudentService的方法，因为老师可以看到所有活动
-            return studentService.getActivities(username);
-        } catch (Exception e) {
-            logger.warning("获取活动列表失败，回退到模拟数据: " + e.getMessage());
-            // 返回模拟数据供前端使用
-            List<Map<String, Object>> mockData = new ArrayList<>();
-            
-            Map<String, Object> activity1 = new HashMap<>();
-            activity1.put("id", 1);
-            activity1.put("title", "科技创新大赛");
-            activity1.put("type", "COMPETITION");
-            activity1.put("location", "大学体育馆");
-            activity1.put("startTime", "2023-10-01 08:00:00");
-            activity1.put("endTime", "2023-10-15 18:00:00");
-            activity1.put("status", "UPCOMING");
-            activity1.put("maxParticipants", 100);
-            activity1.put("currentParticipants", 45);
-            activity1.put("organizer", "计算机科学学院");
-            mockData.add(activity1);
-            
-            Map<String, Object> activity2 = new HashMap<>();
-            activity2.put("id", 2);
-            activity2.put("title", "志愿服务活动");
-            activity2.put("type", "VOLUNTEER");
-            activity2.put("location", "社区中心");
-            activity2.put("startTime", "2023-10-05 09:00:00");
-            activity2.put("endTime", "2023-10-06 17:00:00");
-            activity2.put("status", "ONGOING");
-            activity2.put("maxParticipants", 50);
-            activity2.put("currentParticipants", 30);
-            activity2.put("organizer", "学生会");
-            mockData.add(activity2);
-            
-            Map<String, Object> activity3 = new HashMap<>();
-            activity3.put("id", 3);
-            activity3.put("title", "学术讲座：人工智能前沿");
-            activity3.put("type", "LECTURE");
-            activity3.put("location", "图书馆报告厅");
-            activity3.put("startTime", "2023-10-10 14:00:00");
-            activity3.put("endTime", "2023-10-10 16:00:00");
-            activity3.put("status", "COMPLETED");
-            activity3.put("maxParticipants", 200);
-            activity3.put("currentParticipants", 120);
-            activity3.put("organizer", "人工智能研究所");
-            mockData.add(activity3);
-            
-            return mockData;
-        }
+    public CursorPage<ActivityListItem> getActivities(String username, String cursor, Integer limit) {
+        logger.info("获取所有活动列表: " + username);
+        // 教师可以看到所有活动，与学生端使用同一条列表查询
+        return studentService.getActivities(username, cursor, limit);
     }
     
-    public List<Map<String, Object>> getMyActivities(String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
-        
-        // 查询此教师创建的所有活动
-        List<Activity> activities = activityRepository.findByCreator(teacher);
-        List<Map<String, Object>> activityMaps = new ArrayList<>();
-        
-        for (Activity activity : activities) {
-            activityMaps.add(convertActivityToMap(activity));
-        }
-        
-        return activityMaps;
+    public CursorPage<ActivityListItem> getMyActivities(String username, String cursor, Integer limit) {
+        int pageSize = CursorPage.limit(limit);
+        CursorPage.Cursor after = CursorPage.decode(cursor, 1);
+        User teacher = userResolver.resolve(username, "教师用户不存在");
+        
+        // 查询此教师创建的活动，按活动ID分页
+        return CursorPage.of(activityRepository.findListingByCreatorId(teacher.getId(),
+                after != null ? after.id(0) : null, CursorPage.probe(pageSize)), pageSize, item -> List.of(item.id()));
     }
     
-    public List<Map<String, Object>> getActivitiesByType(String typeStr, String username) {
-        return studentService.getActivitiesByType(typeStr, username);
+    public CursorPage<ActivityListItem> getActivitiesByType(String typeStr, String username, String cursor, Integer limit) {
+        return studentService.getActivitiesByType(typeStr, username, cursor, limit);
     }
     
-    public Map<String, Object> getActivityDetail(Long id, String username) {
+    public ActivityListItem getActivityDetail(Long id, String username) {
         return studentService.getActivityDetail(id, username);
     }
     
-    public Map<String, Object> createActivity(Map<String, Object> activityData, String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+    @Transactional
+    public ActivityListItem createActivity(Map<String, Object> activityData, String username) {
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
         Activity activity = new Activity();
         
@@ -276,8 +224,8 @@ public class TeacherService {
         }
         
         // 设置时间
-        LocalDateTime startTime = LocalDateTime.parse((String) activityData.get("startTime"), formatter);
-        LocalDateTime endTime = LocalDateTime.parse((String) activityData.get("endTime"), formatter);
+        LocalDateTime startTime = LocalDateTime.parse((String) activityData.get("startTime"), DateFormats.DATE_TIME);
+        LocalDateTime endTime = LocalDateTime.parse((String) activityData.get("endTime"), DateFormats.DATE_TIME);
         activity.setStartTime(startTime);
         activity.setEndTime(endTime);
         
@@ -286,19 +234,24 @@ public class TeacherService {
         
         // 保存活动
         Activity savedActivity = activityRepository.save(activity);
+        teacherStatsService.onActivityCreated(teacher.getId());
+        catalogVersionService.bump(CatalogVersionService.Catalog.ACTIVITIES);
+        searchIndexService.onActivitySaved(savedActivity);
+        activityStatusScheduler.onActivitySaved(savedActivity);
         
-        return convertActivityToMap(savedActivity);
+        return ActivityListItem.of(savedActivity, null);
     }
     
-    public Map<String, Object> updateActivity(Long id, Map<String, Object> activityData, String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+    // 活动修改与名额增加后的候补转正在同一事务中提交
+    @Transactional
+    public ActivityListItem updateActivity(Long id, Map<String, Object> activityData, String username) {
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
         Activity activity = activityRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("活动不存在"));
         
         // 检查是否是该活动的创建者
-        if (activity.getCreator() != null && !activity.getCreator().equals(teacher)) {
+        if (activity.getCreator() != null && !activity.getCreator().getId().equals(teacher.getId())) {
             throw new RuntimeException("您无权修改此活动");
         }
         
@@ -335,27 +288,36 @@ public class TeacherService {
         
         // 更新时间
         if (activityData.containsKey("startTime") && activityData.containsKey("endTime")) {
-            LocalDateTime startTime = LocalDateTime.parse((String) activityData.get("startTime"), formatter);
-            LocalDateTime endTime = LocalDateTime.parse((String) activityData.get("endTime"), formatter);
+            LocalDateTime startTime = LocalDateTime.parse((String) activityData.get("startTime"), DateFormats.DATE_TIME);
+            LocalDateTime endTime = LocalDateTime.parse((String) activityData.get("endTime"), DateFormats.DATE_TIME);
             activity.setStartTime(startTime);
             activity.setEndTime(endTime);
         }
         
         // 保存更新
         Activity updatedActivity = activityRepository.save(activity);
+        catalogVersionService.bump(CatalogVersionService.Catalog.ACTIVITIES);
+        searchIndexService.onActivitySaved(updatedActivity);
+        activityStatusScheduler.onActivitySaved(updatedActivity);
+        
+        // 名额增加后候补学生按顺序转正，转正会修改参与人数，需重新读取
+        if (activityData.containsKey("maxParticipants") && seatReservationService.promoteWaitlist(id) > 0) {
+            updatedActivity = activityRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("活动不存在"));
+        }
         
-        return convertActivityToMap(updatedActivity);
+        return ActivityListItem.of(updatedActivity, null);
     }
     
+    @Transactional
     public Map<String, Object> deleteActivity(Long id, String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
         Activity activity = activityRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("活动不存在"));
         
         // 检查是否是该活动的创建者
-        if (activity.getCreator() != null && !activity.getCreator().equals(teacher)) {
+        if (activity.getCreator() != null && !activity.getCreator().getId().equals(teacher.getId())) {
             throw new RuntimeException("您无权删除此活动");
         }
         
@@ -367,42 +329,30 @@ public class TeacherService {
         
         // 删除活动
         activityRepository.delete(activity);
-        
-        return result;
-    }
-    
-    private Map<String, Object> convertActivityToMap(Activity activity) {
-        Map<String, Object> activityMap = new HashMap<>();
-        activityMap.put("id", activity.getId());
-        activityMap.put("title", activity.getTitle());
-        activityMap.put("type", activity.getType().name());
-        activityMap.put("description", activity.getDescription());
-        activityMap.put("location", activity.getLocation());
-        activityMap.put("startTime", activity.getStartTime().format(formatter));
-        activityMap.put("endTime", activity.getEndTime().format(formatter));
-        activityMap.put("status", activity.getStatus().name());
-        activityMap.put("maxParticipants", activity.getMaxParticipants());
-        activityMap.put("currentParticipants", activity.getCurrentParticipants());
-        activityMap.put("organizer", activity.getOrganizer());
-        
+        catalogVersionService.bump(CatalogVersionService.Catalog.ACTIVITIES);
+        searchIndexService.onActivityDeleted(activity.getId());
+        activityStatusScheduler.onActivityDeleted(activity.getId());
         if (activity.getCreator() != null) {
-            activityMap.put("creatorName", activity.getCreator().getUsername());
+            teacherStatsService.onActivityDeleted(activity.getCreator().getId());
         }
         
-        return activityMap;
+        return result;
     }
-
-    // 获取班级列表
-    public List<Map<String, Object>> getClasses(String username) {
+    
+    // 获取班级列表，按 (创建时间, ID) 倒序分页
+    public CursorPage<Map<String, Object>> getClasses(String username, String cursor, Integer limit) {
         logger.info("获取教师班级列表: " + username);
+        int pageSize = CursorPage.limit(limit);
+        CursorPage.Cursor after = CursorPage.decode(cursor, 2);
         
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
-        // 查询该教师创建的所有班级
-        List<ClassEntity> classes = classRepository.findByTeacherIdOrderByCreatedAtDesc(teacher.getId());
+        // 查询该教师创建的班级
+        CursorPage<ClassEntity> classes = CursorPage.of(classRepository.findTeacherClassPage(teacher.getId(),
+                after != null ? after.time(0) : null, after != null ? after.id(1) : null,
+                CursorPage.probe(pageSize)), pageSize, cls -> List.of(cls.getCreatedAt(), cls.getId()));
         
-        if (classes.isEmpty()) {
+        if (classes.items().isEmpty() && after == null) {
             // 如果没有数据，返回模拟数据
             List<Map<String, Object>> mockData = new ArrayList<>();
             
@@ -430,30 +380,33 @@ public class TeacherService {
             class3.put("description", "2023级人工智能实验班");
             mockData.add(class3);
             
-            return mockData;
+            return new CursorPage<>(mockData, null);
         }
         
         // 转换为前端需要的格式
-        return classes.stream().map(cls -> {
+        return classes.map(cls -> {
             Map<String, Object> classMap = new HashMap<>();
             classMap.put("id", cls.getId());
             classMap.put("name", cls.getName());
-            classMap.put("studentCount", cls.getStudents().size());
-            classMap.put("createdAt", cls.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+            classMap.put("studentCount", cls.getStudentCount());
+            classMap.put("createdAt", cls.getCreatedAt().format(DateFormats.DATE));
             classMap.put("description", cls.getDescription());
             return classMap;
-        }).collect(Collectors.toList());
+        });
     }
     
-    // 获取学生列表
-    public List<Map<String, Object>> getStudents(String username) {
+    // 获取学生列表，按学生ID分页
+    public CursorPage<Map<String, Object>> getStudents(String username, String cursor, Integer limit) {
         logger.info("服务层：获取学生列表: " + username);
+        int pageSize = CursorPage.limit(limit);
+        CursorPage.Cursor after = CursorPage.decode(cursor, 1);
         
-        // 查询所有STUDENT角色的用户
-        List<User> students = userRepository.findByRole(UserRole.STUDENT);
+        // 查询STUDENT角色的用户
+        CursorPage<User> students = CursorPage.of(userRepository.findPageByRole(UserRole.STUDENT,
+                after != null ? after.id(0) : null, CursorPage.probe(pageSize)), pageSize, student -> List.of(student.getId()));
         List<Map<String, Object>> studentList = new ArrayList<>();
         
-        if (students.isEmpty()) {
+        if (students.items().isEmpty() && after == null) {
             // 如果没有数据，返回模拟数据
             Map<String, Object> student1 = new HashMap<>();
             student1.put("id", 1);
@@ -483,7 +436,7 @@ public class TeacherService {
             studentList.add(student3);
         } else {
             // 将用户对象转换为Map
-            for (User student : students) {
+            for (User student : students.items()) {
                 Map<String, Object> studentMap = new HashMap<>();
                 studentMap.put("id", student.getId());
                 studentMap.put("name", student.getName());
@@ -496,15 +449,14 @@ public class TeacherService {
             }
         }
         
-        return studentList;
+        return new CursorPage<>(studentList, students.nextCursor());
     }
     
     // 获取班级详情
     public Map<String, Object> getClassDetail(Long classId, String username) {
         logger.info("获取班级详情: " + classId + ", 教师: " + username);
         
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
         ClassEntity classObj = classRepository.findById(classId)
                 .orElseThrow(() -> new RuntimeException("班级不存在"));
@@ -518,29 +470,29 @@ public class TeacherService {
         classDetail.put("id", classObj.getId());
         classDetail.put("name", classObj.getName());
         classDetail.put("description", classObj.getDescription());
-        classDetail.put("studentCount", classObj.getStudents().size());
-        classDetail.put("createdAt", classObj.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+        classDetail.put("createdAt", classObj.getCreatedAt().format(DateFormats.DATE));
         
         // 获取班级学生列表
-        List<Map<String, Object>> students = classObj.getStudents().stream().map(student -> {
+        List<Map<String, Object>> students = classRepository.findMembers(classId).stream().map(student -> {
             Map<String, Object> studentMap = new HashMap<>();
             studentMap.put("id", student.getId());
             studentMap.put("name", student.getFullName());
             studentMap.put("username", student.getUsername());
             studentMap.put("email", student.getEmail());
-            studentMap.put("joinDate", student.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+            studentMap.put("joinDate", student.getCreatedAt().format(DateFormats.DATE));
             studentMap.put("status", "active");
             return studentMap;
         }).collect(Collectors.toList());
         
         classDetail.put("students", students);
+        classDetail.put("studentCount", students.size());
         
         return classDetail;
     }
     
+    @Transactional
     public Map<String, Object> createClass(Map<String, Object> classData, String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
         ClassEntity newClass = new ClassEntity();
         newClass.setName((String) classData.get("name"));
@@ -548,20 +500,21 @@ public class TeacherService {
         newClass.setTeacher(teacher);
         
         ClassEntity savedClass = classRepository.save(newClass);
+        teacherStatsService.onClassCreated(teacher.getId());
+        searchIndexService.onClassSaved(savedClass);
         
         Map<String, Object> result = new HashMap<>();
         result.put("id", savedClass.getId());
         result.put("name", savedClass.getName());
         result.put("description", savedClass.getDescription());
         result.put("studentCount", 0);
-        result.put("createdAt", savedClass.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+        result.put("createdAt", savedClass.getCreatedAt().format(DateFormats.DATE));
         
         return result;
     }
     
     public Map<String, Object> updateClass(Long id, Map<String, Object> classData, String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
         ClassEntity classObj = classRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("班级不存在"));
@@ -576,20 +529,22 @@ public class TeacherService {
         classObj.setDescription((String) classData.get("description"));
         
         ClassEntity savedClass = classRepository.save(classObj);
+        catalogVersionService.bump(CatalogVersionService.Catalog.CLASSES);
+        searchIndexService.onClassSaved(savedClass);
         
         Map<String, Object> result = new HashMap<>();
         result.put("id", savedClass.getId());
         result.put("name", savedClass.getName());
         result.put("description", savedClass.getDescription());
-        result.put("studentCount", savedClass.getStudents().size());
-        result.put("createdAt", savedClass.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+        result.put("studentCount", savedClass.getStudentCount());
+        result.put("createdAt", savedClass.getCreatedAt().format(DateFormats.DATE));
         
         return result;
     }
     
+    @Transactional
     public Map<String, Object> deleteClass(Long id, String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
         ClassEntity classObj = classRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("班级不存在"));
@@ -599,8 +554,10 @@ public class TeacherService {
             throw new RuntimeException("没有权限删除此班级");
         }
         
-        // 执行删除
+        // 执行删除，教师学生数需要按剩余班级重算
         classRepository.delete(classObj);
+        teacherStatsService.invalidate(teacher.getId());
+        searchIndexService.onClassDeleted(classObj.getId());
         
         Map<String, Object> result = new HashMap<>();
         result.put("id", id);
@@ -609,9 +566,9 @@ public class TeacherService {
         return result;
     }
     
+    @Transactional
     public Map<String, Object> addStudentToClass(Long classId, Long studentId, String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
         ClassEntity classObj = classRepository.findById(classId)
                 .orElseThrow(() -> new RuntimeException("班级不存在"));
@@ -629,9 +586,11 @@ public class TeacherService {
             throw new RuntimeException("只能将学生角色的用户添加到班级");
         }
         
-        // 添加学生到班级
-        classObj.getStudents().add(student);
-        classRepository.save(classObj);
+        // 添加学生到班级，已在班级中时不重复计数
+        if (classRepository.addStudent(classId, studentId) > 0) {
+            teacherStatsService.onStudentJoined(classId, teacher.getId(), studentId);
+            searchIndexService.onStudentJoined(classId, studentId);
+        }
         
         Map<String, Object> result = new HashMap<>();
         result.put("classId", classId);
@@ -641,9 +600,9 @@ public class TeacherService {
         return result;
     }
     
+    @Transactional
     public Map<String, Object> removeStudentFromClass(Long classId, Long studentId, String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
         ClassEntity classObj = classRepository.findById(classId)
                 .orElseThrow(() -> new RuntimeException("班级不存在"));
@@ -657,8 +616,10 @@ public class TeacherService {
                 .orElseThrow(() -> new RuntimeException("学生不存在"));
         
         // 从班级中移除学生
-        classObj.getStudents().remove(student);
-        classRepository.save(classObj);
+        if (classRepository.removeStudent(classId, studentId) > 0) {
+            teacherStatsService.onStudentLeft(classId, teacher.getId(), studentId);
+            searchIndexService.onStudentLeft(classId, studentId);
+        }
         
         Map<String, Object> result = new HashMap<>();
         result.put("classId", classId);
@@ -670,35 +631,32 @@ public class TeacherService {
     
     // 学生评估相关方法
     public List<Map<String, Object>> getStudentEvaluations(Long studentId, String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
-        
-        User student = userRepository.findById(studentId)
-                .orElseThrow(() -> new RuntimeException("学生不存在"));
-        
-        // 获取该教师对该学生的所有评估
-        List<Evaluation> evaluations = evaluationRepository.findByStudentAndTeacherOrderByCreatedAtDesc(student, teacher);
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
-        // 如果没有评估记录，返回空列表
-        if (evaluations.isEmpty()) {
-            return new ArrayList<>();
+        if (!userRepository.existsById(studentId)) {
+            throw new RuntimeException("学生不存在");
         }
         
-        // 转换为前端需要的格式
-        return evaluations.stream().map(eval -> {
+        return buildEvaluations(teacher, studentId);
+    }
+    
+    // 该教师对该学生的全部评估，转换为前端需要的格式
+    private List<Map<String, Object>> buildEvaluations(User teacher, Long studentId) {
+        List<Map<String, Object>> evaluations = new ArrayList<>();
+        for (Object[] row : evaluationRepository.findRowsByStudentIdAndTeacherId(studentId, teacher.getId())) {
             Map<String, Object> evalMap = new HashMap<>();
-            evalMap.put("id", eval.getId());
-            evalMap.put("content", eval.getContent());
-            evalMap.put("grade", eval.getGrade());
-            evalMap.put("createdAt", eval.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-            evalMap.put("teacherName", eval.getTeacher().getFullName());
-            return evalMap;
-        }).collect(Collectors.toList());
+            evalMap.put("id", row[0]);
+            evalMap.put("content", row[1]);
+            evalMap.put("grade", row[2]);
+            evalMap.put("createdAt", ((LocalDateTime) row[3]).format(DateFormats.DATE));
+            evalMap.put("teacherName", teacher.getFullName());
+            evaluations.add(evalMap);
+        }
+        return evaluations;
     }
     
     public Map<String, Object> createEvaluation(Map<String, Object> evaluationData, String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
         // 获取学生ID
         Long studentId = Long.valueOf(evaluationData.get("studentId").toString());
@@ -719,15 +677,14 @@ public class TeacherService {
         result.put("id", savedEvaluation.getId());
         result.put("content", savedEvaluation.getContent());
         result.put("grade", savedEvaluation.getGrade());
-        result.put("createdAt", savedEvaluation.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+        result.put("createdAt", savedEvaluation.getCreatedAt().format(DateFormats.DATE));
         result.put("teacherName", teacher.getFullName());
         
         return result;
     }
     
     public Map<String, Object> updateEvaluation(Long id, Map<String, Object> evaluationData, String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
         Evaluation evaluation = evaluationRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("评估不存在"));
@@ -748,15 +705,14 @@ public class TeacherService {
         result.put("id", savedEvaluation.getId());
         result.put("content", savedEvaluation.getContent());
         result.put("grade", savedEvaluation.getGrade());
-        result.put("createdAt", savedEvaluation.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+        result.put("createdAt", savedEvaluation.getCreatedAt().format(DateFormats.DATE));
         result.put("teacherName", teacher.getFullName());
         
         return result;
     }
     
     public Map<String, Object> deleteEvaluation(Long id, String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
         Evaluation evaluation = evaluationRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("评估不存在"));
@@ -776,9 +732,14 @@ public class TeacherService {
         return result;
     }
     
+    /**
+     * 教师查看的学生档案
+     *
+     * 教师与学生各解析一次，班级、活动参与、评估、学习目标四部分互不依赖，
+     * 各用一条查询在虚拟线程上并行读取，总查询数固定，与记录条数无关。
+     */
     public Map<String, Object> getStudentDetail(Long id, String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
         User student = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("学生不存在"));
@@ -788,100 +749,109 @@ public class TeacherService {
             throw new RuntimeException("请求的用户不是学生");
         }
         
+        CompletableFuture<List<Object[]>> classesFuture = CompletableFuture.supplyAsync(
+                () -> classRepository.findIdAndNameByStudentId(id), profileExecutor);
+        CompletableFuture<List<Map<String, Object>>> activitiesFuture = CompletableFuture.supplyAsync(
+                () -> buildActivities(student), profileExecutor);
+        CompletableFuture<List<Map<String, Object>>> evaluationsFuture = CompletableFuture.supplyAsync(
+                () -> buildEvaluations(teacher, id), profileExecutor);
+        CompletableFuture<List<Map<String, Object>>> goalsFuture = CompletableFuture.supplyAsync(
+                () -> buildStudentGoals(teacher.getId(), id), profileExecutor);
+        
         Map<String, Object> studentDetail = new HashMap<>();
         studentDetail.put("id", student.getId());
         studentDetail.put("name", student.getFullName());
         studentDetail.put("username", student.getUsername());
         studentDetail.put("email", student.getEmail());
         
-        // 获取学生班级
-        String className = "未分配班级";
-        // 查询该学生所属的班级
-        List<ClassEntity> classes = classRepository.findByStudentsContaining(student);
-        if (!classes.isEmpty()) {
-            // 取第一个班级名称
-            className = classes.get(0).getName();
-        }
-        studentDetail.put("className", className);
-        
         if (student.getCreatedAt() != null) {
-            studentDetail.put("joinDate", student.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+            studentDetail.put("joinDate", student.getCreatedAt().format(DateFormats.DATE));
         } else {
             studentDetail.put("joinDate", "未知");
         }
         
-        // 获取学生的评估记录
-        List<Map<String, Object>> evaluations = getStudentEvaluations(id, username);
-        studentDetail.put("evaluations", evaluations);
-        
-        // 获取学生的活动记录
-        List<Map<String, Object>> activities = getStudentActivities(id, username);
-        studentDetail.put("activities", activities);
+        // 学生所属的班级，className 取第一个班级名称
+        List<Map<String, Object>> classes = new ArrayList<>();
+        for (Object[] row : joinProfilePart(classesFuture)) {
+            Map<String, Object> classMap = new HashMap<>();
+            classMap.put("id", row[0]);
+            classMap.put("name", row[1]);
+            classes.add(classMap);
+        }
+        studentDetail.put("classes", classes);
+        studentDetail.put("className", classes.isEmpty() ? "未分配班级" : classes.get(0).get("name"));
         
-        // 获取学生的学习目标
-        List<Map<String, Object>> goals = getStudentGoals(id, username);
-        studentDetail.put("goals", goals);
+        studentDetail.put("evaluations", joinProfilePart(evaluationsFuture));
+        studentDetail.put("activities", joinProfilePart(activitiesFuture));
+        studentDetail.put("goals", joinProfilePart(goalsFuture));
         
         return studentDetail;
     }
+    
+    private <T> T joinProfilePart(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
 
     // 获取学生活动记录
     public List<Map<String, Object>> getStudentActivities(Long studentId, String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+        userResolver.resolve(username, "教师用户不存在");
         
         User student = userRepository.findById(studentId)
                 .orElseThrow(() -> new RuntimeException("学生不存在"));
         
-        // 这里应该检查teacher是否有权限查看这个学生的信息
-        // 例如检查该学生是否在teacher的班级中
-        
-        // 获取学生的活动记录
+        return buildActivities(student);
+    }
+    
+    // 学生的活动参与记录，活动信息随参与记录一起取回
+    private List<Map<String, Object>> buildActivities(User student) {
         List<Map<String, Object>> activitiesList = new ArrayList<>();
-        
-        // 这里应该从数据库中获取学生的活动记录
-        // 为了简化，返回一些模拟数据
-        
-        Map<String, Object> activity1 = new HashMap<>();
-        activity1.put("id", 1);
-        activity1.put("title", "科技创新大赛");
-        activity1.put("type", "COMPETITION");
-        activity1.put("startTime", "2023-10-01");
-        activity1.put("endTime", "2023-10-15");
-        activity1.put("status", "COMPLETED");
-        activity1.put("participationStatus", "COMPLETED");
-        activitiesList.add(activity1);
-        
-        Map<String, Object> activity2 = new HashMap<>();
-        activity2.put("id", 2);
-        activity2.put("title", "志愿服务活动");
-        activity2.put("type", "VOLUNTEER");
-        activity2.put("startTime", "2023-10-05");
-        activity2.put("endTime", "2023-10-06");
-        activity2.put("status", "COMPLETED");
-        activity2.put("participationStatus", "COMPLETED");
-        activitiesList.add(activity2);
-        
-        Map<String, Object> activity3 = new HashMap<>();
-        activity3.put("id", 3);
-        activity3.put("title", "学术讲座：人工智能前沿");
-        activity3.put("type", "LECTURE");
-        activity3.put("startTime", "2023-10-10");
-        activity3.put("endTime", "2023-10-10");
-        activity3.put("status", "COMPLETED");
-        activity3.put("participationStatus", "REGISTERED");
-        activitiesList.add(activity3);
-        
+        for (ActivityParticipation participation : activityParticipationRepository.findByUserWithActivityDetails(student)) {
+            Activity activity = participation.getActivity();
+            Map<String, Object> activityMap = new HashMap<>();
+            activityMap.put("id", activity.getId());
+            activityMap.put("title", activity.getTitle());
+            activityMap.put("type", activity.getType());
+            activityMap.put("startTime", activity.getStartTime() != null
+                    ? activity.getStartTime().format(DateFormats.DATE) : null);
+            activityMap.put("endTime", activity.getEndTime() != null
+                    ? activity.getEndTime().format(DateFormats.DATE) : null);
+            activityMap.put("status", activity.getStatus());
+            activityMap.put("participationStatus", participation.getStatus());
+            activitiesList.add(activityMap);
+        }
         return activitiesList;
     }
     
-    // 获取教师创建的所有学习目标
-    public List<Map<String, Object>> getGoals(String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+    // 获取教师创建的学习目标，按 (创建时间, ID) 倒序分页
+    public CursorPage<Map<String, Object>> getGoals(String username, String cursor, Integer limit) {
+        int pageSize = CursorPage.limit(limit);
+        CursorPage.Cursor after = CursorPage.decode(cursor, 2);
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
         // 从数据库中获取与教师相关的学习目标
-        List<LearningGoal> goals = learningGoalRepository.findByTeacherOrderByCreatedAtDesc(teacher);
+        CursorPage<LearningGoal> page = CursorPage.of(learningGoalRepository.findTeacherPage(teacher,
+                after != null ? after.time(0) : null, after != null ? after.id(1) : null,
+                CursorPage.probe(pageSize)), pageSize, goal -> List.of(goal.getCreatedAt(), goal.getId()));
+        List<LearningGoal> goals = page.items();
+        
+        // 一次分组查询取得各模板的布置人数
+        Set<Long> templateIds = goals.stream()
+                .filter(goal -> goal.getTemplate() != null)
+                .map(goal -> goal.getTemplate().getId())
+                .collect(Collectors.toSet());
+        Map<Long, Long> templateCounts = new HashMap<>();
+        if (!templateIds.isEmpty()) {
+            for (Object[] row : learningGoalRepository.countByTemplateIds(templateIds)) {
+                templateCounts.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+        }
         
         // 转换为前端需要的格式
         List<Map<String, Object>> goalsList = new ArrayList<>();
@@ -894,7 +864,7 @@ public class TeacherService {
             
             // 格式化日期
             if (goal.getDueDate() != null) {
-                goalMap.put("deadline", goal.getDueDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+                goalMap.put("deadline", goal.getDueDate().format(DateFormats.DATE));
             } else {
                 goalMap.put("deadline", null);
             }
@@ -902,20 +872,20 @@ public class TeacherService {
             goalMap.put("status", goal.getStatus().name());
             goalMap.put("progress", goal.getProgress());
             
-            // 分配的学生数量，这里假设一个学习目标只分配给一个学生
-            // 如果实际系统中一个学习目标可以分配给多个学生，则需要调整这部分逻辑
-            goalMap.put("assignedStudents", 1);
+            // 单独布置的目标只分配给一个学生，按班级布置的目标取所属模板的布置人数
+            Long templateId = goal.getTemplate() != null ? goal.getTemplate().getId() : null;
+            goalMap.put("templateId", templateId);
+            goalMap.put("assignedStudents", templateId != null ? templateCounts.getOrDefault(templateId, 1L) : 1L);
             
             goalsList.add(goalMap);
         }
         
-        return goalsList;
+        return new CursorPage<>(goalsList, page.nextCursor());
     }
     
     // 获取指定学习目标的详情
     public Map<String, Object> getGoalDetail(Long id, String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
         // 从数据库中获取学习目标详情
         LearningGoal goal = learningGoalRepository.findById(id)
@@ -934,7 +904,7 @@ public class TeacherService {
         
         // 格式化日期
         if (goal.getDueDate() != null) {
-            goalDetail.put("deadline", goal.getDueDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+            goalDetail.put("deadline", goal.getDueDate().format(DateFormats.DATE));
         } else {
             goalDetail.put("deadline", null);
         }
@@ -943,11 +913,11 @@ public class TeacherService {
         goalDetail.put("progress", goal.getProgress());
         
         if (goal.getCreatedAt() != null) {
-            goalDetail.put("createdAt", goal.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+            goalDetail.put("createdAt", goal.getCreatedAt().format(DateFormats.DATE));
         }
         
         if (goal.getUpdatedAt() != null) {
-            goalDetail.put("updatedAt", goal.getUpdatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+            goalDetail.put("updatedAt", goal.getUpdatedAt().format(DateFormats.DATE));
         }
         
         goalDetail.put("teacherId", goal.getTeacher().getId());
@@ -969,9 +939,9 @@ public class TeacherService {
     }
     
     // 创建学习目标
+    @Transactional
     public Map<String, Object> createGoal(Map<String, Object> goalData, String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
         // 获取学生ID，因为每个目标都需要分配给一个学生
         Long studentId = Long.valueOf(goalData.get("studentId").toString());
@@ -1000,6 +970,8 @@ public class TeacherService {
         
         // 保存到数据库
         LearningGoal savedGoal = learningGoalRepository.save(goal);
+        teacherStatsService.onGoalCreated(teacher.getId(), student.getId(), savedGoal.getStatus());
+        studentStatsService.onGoalCreated(student.getId(), savedGoal.getStatus());
         
         // 返回创建成功的结果
         Map<String, Object> result = new HashMap<>();
@@ -1008,7 +980,7 @@ public class TeacherService {
         result.put("description", savedGoal.getDescription());
         
         if (savedGoal.getDueDate() != null) {
-            result.put("deadline", savedGoal.getDueDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+            result.put("deadline", savedGoal.getDueDate().format(DateFormats.DATE));
         } else {
             result.put("deadline", null);
         }
@@ -1021,7 +993,7 @@ public class TeacherService {
         result.put("studentName", student.getFullName());
         
         if (savedGoal.getCreatedAt() != null) {
-            result.put("createdAt", savedGoal.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+            result.put("createdAt", savedGoal.getCreatedAt().format(DateFormats.DATE));
         }
         
         result.put("message", "学习目标创建成功");
@@ -1029,10 +1001,132 @@ public class TeacherService {
         return result;
     }
     
+    // 为整个班级布置学习目标：保存一份目标模板，再用一条 INSERT ... SELECT 为班级每名学生生成目标记录
+    @Transactional
+    public Map<String, Object> createClassGoal(Long classId, Map<String, Object> goalData, String username) {
+        User teacher = userResolver.resolve(username, "教师用户不存在");
+        
+        ClassEntity classObj = classRepository.findById(classId)
+                .orElseThrow(() -> new RuntimeException("班级不存在"));
+        
+        // 检查权限
+        if (!classObj.getTeacher().getId().equals(teacher.getId())) {
+            throw new RuntimeException("没有权限为此班级布置学习目标");
+        }
+        
+        String title = (String) goalData.get("title");
+        if (title == null || title.isBlank()) {
+            throw new RuntimeException("目标标题不能为空");
+        }
+        
+        GoalTemplate template = new GoalTemplate();
+        template.setTitle(title);
+        template.setDescription((String) goalData.get("description"));
+        String deadlineStr = (String) goalData.get("deadline");
+        if (deadlineStr != null && !deadlineStr.isEmpty()) {
+            template.setDueDate(LocalDateTime.parse(deadlineStr + "T23:59:59"));
+        }
+        template.setTeacher(userRepository.getReferenceById(teacher.getId()));
+        template.setClassEntity(classObj);
+        GoalTemplate savedTemplate = goalTemplateRepository.saveAndFlush(template);
+        
+        int assigned = learningGoalRepository.insertForClassMembers(savedTemplate.getId(), classId, LocalDateTime.now());
+        if (assigned > 0) {
+            teacherStatsService.onTemplateGoalsCreated(teacher.getId(), assigned);
+            studentStatsService.onTemplateGoalsCreated(savedTemplate.getId());
+        }
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("templateId", savedTemplate.getId());
+        result.put("title", savedTemplate.getTitle());
+        result.put("description", savedTemplate.getDescription());
+        result.put("deadline", savedTemplate.getDueDate() != null
+                ? savedTemplate.getDueDate().format(DateFormats.DATE) : null);
+        result.put("classId", classId);
+        result.put("className", classObj.getName());
+        result.put("assignedStudents", assigned);
+        result.put("message", "已为班级 " + assigned + " 名学生布置学习目标");
+        
+        return result;
+    }
+    
+    // 获取教师的班级目标模板及各自的完成情况，汇总由一条分组查询完成
+    public List<Map<String, Object>> getGoalTemplates(String username) {
+        User teacher = userResolver.resolve(username, "教师用户不存在");
+        
+        List<Map<String, Object>> templates = new ArrayList<>();
+        for (Object[] row : goalTemplateRepository.summarizeByTeacherId(teacher.getId(),
+                LearningGoal.GoalStatus.COMPLETED)) {
+            int assigned = ((Number) row[5]).intValue();
+            int completed = ((Number) row[6]).intValue();
+            
+            Map<String, Object> templateMap = new HashMap<>();
+            templateMap.put("id", row[0]);
+            templateMap.put("title", row[1]);
+            templateMap.put("deadline", row[2] != null
+                    ? ((LocalDateTime) row[2]).format(DateFormats.DATE) : null);
+            templateMap.put("classId", row[3]);
+            templateMap.put("className", row[4]);
+            templateMap.put("assignedStudents", assigned);
+            templateMap.put("completedStudents", completed);
+            templateMap.put("completionRate", percent(completed, assigned));
+            templateMap.put("averageProgress", row[7] != null ? Math.round(((Number) row[7]).doubleValue()) : 0);
+            templates.add(templateMap);
+        }
+        
+        return templates;
+    }
+    
+    // 获取单个目标模板的完成率、状态分布与进度分布
+    public Map<String, Object> getGoalTemplateSummary(Long templateId, String username) {
+        User teacher = userResolver.resolve(username, "教师用户不存在");
+        
+        GoalTemplate template = goalTemplateRepository.findById(templateId)
+                .orElseThrow(() -> new RuntimeException("目标模板不存在"));
+        
+        // 检查权限，只有模板的创建者才能查看
+        if (!template.getTeacher().getId().equals(teacher.getId())) {
+            throw new RuntimeException("没有权限查看此目标模板");
+        }
+        
+        Object[] row = learningGoalRepository.summarizeTemplate(templateId, LearningGoal.GoalStatus.COMPLETED,
+                LearningGoal.GoalStatus.IN_PROGRESS, LearningGoal.GoalStatus.PENDING_REVIEW).get(0);
+        int assigned = ((Number) row[0]).intValue();
+        int completed = ((Number) row[1]).intValue();
+        
+        Map<String, Object> statusCounts = new LinkedHashMap<>();
+        statusCounts.put("COMPLETED", completed);
+        statusCounts.put("IN_PROGRESS", ((Number) row[2]).intValue());
+        statusCounts.put("PENDING_REVIEW", ((Number) row[3]).intValue());
+        
+        Map<String, Object> progressDistribution = new LinkedHashMap<>();
+        progressDistribution.put("0-24", ((Number) row[5]).intValue());
+        progressDistribution.put("25-49", ((Number) row[6]).intValue());
+        progressDistribution.put("50-74", ((Number) row[7]).intValue());
+        progressDistribution.put("75-99", ((Number) row[8]).intValue());
+        progressDistribution.put("100", ((Number) row[9]).intValue());
+        
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("id", template.getId());
+        summary.put("title", template.getTitle());
+        summary.put("description", template.getDescription());
+        summary.put("deadline", template.getDueDate() != null
+                ? template.getDueDate().format(DateFormats.DATE) : null);
+        summary.put("classId", template.getClassEntity() != null ? template.getClassEntity().getId() : null);
+        summary.put("assignedStudents", assigned);
+        summary.put("completedStudents", completed);
+        summary.put("completionRate", percent(completed, assigned));
+        summary.put("averageProgress", row[4] != null ? Math.round(((Number) row[4]).doubleValue()) : 0);
+        summary.put("statusCounts", statusCounts);
+        summary.put("progressDistribution", progressDistribution);
+        
+        return summary;
+    }
+    
     // 更新学习目标
+    @Transactional
     public Map<String, Object> updateGoal(Long id, Map<String, Object> goalData, String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
         // 从数据库中获取学习目标
         LearningGoal goal = learningGoalRepository.findById(id)
@@ -1043,6 +1137,8 @@ public class TeacherService {
             throw new RuntimeException("没有权限更新此学习目标");
         }
         
+        LearningGoal.GoalStatus oldStatus = goal.getStatus();
+        
         // 更新基本信息
         if (goalData.containsKey("title")) {
             goal.setTitle((String) goalData.get("title"));
@@ -1080,6 +1176,9 @@ public class TeacherService {
         
         // 保存更新
         LearningGoal updatedGoal = learningGoalRepository.save(goal);
+        teacherStatsService.onGoalStatusChanged(teacher.getId(), goal.getStudent().getId(),
+                oldStatus, updatedGoal.getStatus());
+        studentStatsService.onGoalStatusChanged(goal.getStudent().getId(), oldStatus, updatedGoal.getStatus());
         
         // 返回更新成功的结果
         Map<String, Object> result = new HashMap<>();
@@ -1088,7 +1187,7 @@ public class TeacherService {
         result.put("description", updatedGoal.getDescription());
         
         if (updatedGoal.getDueDate() != null) {
-            result.put("deadline", updatedGoal.getDueDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+            result.put("deadline", updatedGoal.getDueDate().format(DateFormats.DATE));
         } else {
             result.put("deadline", null);
         }
@@ -1099,7 +1198,7 @@ public class TeacherService {
         result.put("teacherName", teacher.getFullName());
         
         if (updatedGoal.getUpdatedAt() != null) {
-            result.put("updatedAt", updatedGoal.getUpdatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+            result.put("updatedAt", updatedGoal.getUpdatedAt().format(DateFormats.DATE));
         }
         
         result.put("message", "学习目标更新成功");
@@ -1108,9 +1207,9 @@ public class TeacherService {
     }
     
     // 删除学习目标
+    @Transactional
     public Map<String, Object> deleteGoal(Long id, String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
         // 从数据库中获取学习目标
         LearningGoal goal = learningGoalRepository.findById(id)
@@ -1129,46 +1228,42 @@ public class TeacherService {
         
         // 执行删除
         learningGoalRepository.delete(goal);
+        teacherStatsService.onGoalDeleted(teacher.getId(), goal.getStudent().getId(), goal.getStatus());
+        studentStatsService.onGoalDeleted(goal.getStudent().getId(), goal.getStatus());
         
         return result;
     }
     
     // 获取特定学生的学习目标
     public List<Map<String, Object>> getStudentGoals(Long studentId, String username) {
-        User teacher = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("教师用户不存在"));
+        User teacher = userResolver.resolve(username, "教师用户不存在");
         
-        User student = userRepository.findById(studentId)
-                .orElseThrow(() -> new RuntimeException("学生不存在"));
-        
-        // 查询该学生的所有学习目标
-        List<LearningGoal> goals = learningGoalRepository.findByStudentOrderByCreatedAtDesc(student);
+        if (!userRepository.existsById(studentId)) {
+            throw new RuntimeException("学生不存在");
+        }
         
-        // 转换为前端需要的格式
+        return buildStudentGoals(teacher.getId(), studentId);
+    }
+    
+    // 该教师布置给该学生的学习目标，转换为前端需要的格式
+    private List<Map<String, Object>> buildStudentGoals(Long teacherId, Long studentId) {
         List<Map<String, Object>> goalsList = new ArrayList<>();
-        
-        for (LearningGoal goal : goals) {
-            // 检查教师权限，只展示该教师创建的目标
-            if (goal.getTeacher().getId().equals(teacher.getId())) {
-                Map<String, Object> goalMap = new HashMap<>();
-                goalMap.put("id", goal.getId());
-                goalMap.put("title", goal.getTitle());
-                goalMap.put("description", goal.getDescription());
-                
-                // 格式化日期
-                if (goal.getDueDate() != null) {
-                    goalMap.put("deadline", goal.getDueDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-                } else {
-                    goalMap.put("deadline", null);
-                }
-                
-                goalMap.put("status", goal.getStatus().name());
-                goalMap.put("progress", goal.getProgress());
-                
-                goalsList.add(goalMap);
-            }
+        for (Object[] row : learningGoalRepository.findRowsByStudentIdAndTeacherId(studentId, teacherId)) {
+            Map<String, Object> goalMap = new HashMap<>();
+            goalMap.put("id", row[0]);
+            goalMap.put("title", row[1]);
+            goalMap.put("description", row[2]);
+            goalMap.put("deadline", row[3] != null
+                    ? ((LocalDateTime) row[3]).format(DateFormats.DATE) : null);
+            goalMap.put("status", ((LearningGoal.GoalStatus) row[4]).name());
+            goalMap.put("progress", row[5]);
+            goalsList.add(goalMap);
         }
-        
         return goalsList;
     }
-} 
\ No newline at end of file
+    
+    // 计算百分比（取整），分母为0时返回0
+    private int percent(int part, int total) {
+        return total <= 0 ? 0 : (int) Math.round(part * 100.0 / total);
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.model.LearningGoal;
+import com.example.learninganalysis.model.TeacherStats;
+import com.example.learninganalysis.model.User;
+import com.example.learninganalysis.repository.ActivityRepository;
+import com.example.learninganalysis.repository.ClassRepository;
+import com.example.learninganalysis.repository.LearningGoalRepository;
+import com.example.learninganalysis.repository.TeacherStatsRepository;
+import com.example.learninganalysis.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * 教师仪表盘汇总维护服务
+ *
+ * 班级人数、目标数、已完成目标数分别记在 classes 表与 teacher_stats 表上，
+ * 由班级成员变化、目标增删改、活动增删时的条件更新增量维护，仪表盘读取时只需按主键或教师ID取行。
+ * 删除班级、更换班级教师等低频操作直接作废教师汇总，由下次读取时全量重建。
+ * 教师学生数按学生去重，无法用增量表达，在成员变更提交后按关联表重算。
+ * 活动报名是高频写操作，不在这里维护；活动报满率直接取活动行上已有的名额计数。
+ */
+@Service
+public class TeacherStatsService {
+    private static final Logger logger = Logger.getLogger(TeacherStatsService.class.getName());
+
+    @Autowired
+    private TeacherStatsRepository teacherStatsRepository;
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private LearningGoalRepository learningGoalRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 获取教师汇总，记录不存在时全量重建
+     */
+    public TeacherStats getOrRebuild(Long teacherId) {
+        return teacherStatsRepository.findByTeacherId(teacherId).orElseGet(() -> {
+            try {
+                return new TransactionTemplate(transactionManager).execute(status -> rebuild(teacherId));
+            } catch (DataIntegrityViolationException e) {
+                // 并发请求已完成重建
+                return teacherStatsRepository.findByTeacherId(teacherId)
+                        .orElseThrow(() -> new RuntimeException("教师汇总数据重建失败"));
+            }
+        });
+    }
+
+    private TeacherStats rebuild(Long teacherId) {
+        logger.info("重建教师汇总数据: " + teacherId);
+        User teacher = userRepository.getReferenceById(teacherId);
+
+        classRepository.recountByTeacherId(teacherId);
+
+        TeacherStats stats = new TeacherStats();
+        stats.setTeacherId(teacherId);
+        stats.setClassCount((int) classRepository.countByTeacherId(teacherId));
+        stats.setStudentCount((int) classRepository.countDistinctStudentsByTeacherId(teacherId));
+        stats.setGoalCount((int) learningGoalRepository.countByTeacher(teacher));
+        stats.setCompletedGoalCount((int) learningGoalRepository.countByTeacherAndStatus(
+                teacher, LearningGoal.GoalStatus.COMPLETED));
+        stats.setActivityCount((int) activityRepository.countByCreator(teacher));
+        return teacherStatsRepository.saveAndFlush(stats);
+    }
+
+    /**
+     * 作废教师汇总，下次读取时重建
+     */
+    @Transactional
+    public void invalidate(Long teacherId) {
+        teacherStatsRepository.deleteByTeacherId(teacherId);
+        catalogVersionService.bump(CatalogVersionService.Catalog.CLASSES);
+    }
+
+    /**
+     * 按源数据重算全部班级的计数，教师汇总全部作废后由下次读取重建；用于人工校正计数漂移
+     */
+    @Transactional
+    public int recountAll() {
+        int updated = classRepository.recountAll();
+        teacherStatsRepository.deleteAllInBatch();
+        catalogVersionService.bump(CatalogVersionService.Catalog.CLASSES);
+        return updated;
+    }
+
+    @Transactional
+    public void onClassCreated(Long teacherId) {
+        teacherStatsRepository.adjustClassCount(teacherId, 1, LocalDateTime.now());
+        catalogVersionService.bump(CatalogVersionService.Catalog.CLASSES);
+    }
+
+    /**
+     * 学生加入班级后调用，调用前成员关系须已写入当前事务
+     */
+    @Transactional
+    public void onStudentJoined(Long classId, Long teacherId, Long studentId) {
+        int[] goals = countGoals(teacherId, studentId);
+        classRepository.adjustCounters(classId, 1, goals[0], goals[1]);
+        recountStudentsAfterCommit(teacherId);
+        catalogVersionService.bump(CatalogVersionService.Catalog.CLASSES);
+    }
+
+    /**
+     * 学生离开班级后调用，调用前成员关系须已从当前事务中移除
+     */
+    @Transactional
+    public void onStudentLeft(Long classId, Long teacherId, Long studentId) {
+        int[] goals = countGoals(teacherId, studentId);
+        classRepository.adjustCounters(classId, -1, -goals[0], -goals[1]);
+        recountStudentsAfterCommit(teacherId);
+        catalogVersionService.bump(CatalogVersionService.Catalog.CLASSES);
+    }
+
+    /**
+     * 教师学生数按学生去重，是否变化取决于该学生在教师其他班级中的成员关系；在加入、离开的事务内判断时，
+     * 并发事务彼此看不到未提交的成员变更，会重复计入或漏减。因此提交后在新事务中先锁定汇总记录再按关联表重算，
+     * 同一教师的重算依次执行，最后一次重算能看到此前全部已提交的成员变更。
+     */
+    private void recountStudentsAfterCommit(Long teacherId) {
+        Runnable recount = () -> {
+            TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            try {
+                template.executeWithoutResult(status -> {
+                    if (teacherStatsRepository.lockByTeacherId(teacherId) != null) {
+                        teacherStatsRepository.recountStudentCount(teacherId, LocalDateTime.now());
+                    }
+                });
+            } catch (RuntimeException e) {
+                logger.warning("重算教师学生数失败，作废教师汇总: " + teacherId + ", " + e.getMessage());
+                template.executeWithoutResult(status -> teacherStatsRepository.deleteByTeacherId(teacherId));
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recount.run();
+                }
+            });
+        } else {
+            recount.run();
+        }
+    }
+
+    /**
+     * 批量加入学生后调用：按关联表重算该教师全部班级的计数，教师汇总作废后由下次读取重建
+     */
+    @Transactional
+    public void onStudentsBulkJoined(Long teacherId) {
+        classRepository.recountByTeacherId(teacherId);
+        teacherStatsRepository.deleteByTeacherId(teacherId);
+        catalogVersionService.bump(CatalogVersionService.Catalog.CLASSES);
+    }
+
+    @Transactional
+    public void onGoalCreated(Long teacherId, Long studentId, LearningGoal.GoalStatus status) {
+        adjustGoals(teacherId, studentId, 1, completed(status));
+    }
+
+    /**
+     * 按模板为整个班级布置目标后调用：教师目标数增量更新，班级目标计数按关联表重算
+     */
+    @Transactional
+    public void onTemplateGoalsCreated(Long teacherId, int goalCount) {
+        teacherStatsRepository.adjustGoalCounts(teacherId, goalCount, 0, LocalDateTime.now());
+        classRepository.recountByTeacherId(teacherId);
+        catalogVersionService.bump(CatalogVersionService.Catalog.CLASSES);
+    }
+
+    @Transactional
+    public void onGoalDeleted(Long teacherId, Long studentId, LearningGoal.GoalStatus status) {
+        adjustGoals(teacherId, studentId, -1, -completed(status));
+    }
+
+    @Transactional
+    public void onGoalStatusChanged(Long teacherId, Long studentId,
+                                    LearningGoal.GoalStatus oldStatus, LearningGoal.GoalStatus newStatus) {
+        int completedDelta = completed(newStatus) - completed(oldStatus);
+        if (completedDelta != 0) {
+            adjustGoals(teacherId, studentId, 0, completedDelta);
+        }
+    }
+
+    @Transactional
+    public void onActivityCreated(Long teacherId) {
+        teacherStatsRepository.adjustActivityCount(teacherId, 1, LocalDateTime.now());
+    }
+
+    @Transactional
+    public void onActivityDeleted(Long teacherId) {
+        teacherStatsRepository.adjustActivityCount(teacherId, -1, LocalDateTime.now());
+    }
+
+    private void adjustGoals(Long teacherId, Long studentId, int goalDelta, int completedDelta) {
+        teacherStatsRepository.adjustGoalCounts(teacherId, goalDelta, completedDelta, LocalDateTime.now());
+        classRepository.adjustGoalCountersForStudent(teacherId, studentId, goalDelta, completedDelta);
+        catalogVersionService.bump(CatalogVersionService.Catalog.CLASSES);
+    }
+
+    private int[] countGoals(Long teacherId, Long studentId) {
+        List<Object[]> rows = learningGoalRepository.countByTeacherAndStudent(
+                teacherId, studentId, LearningGoal.GoalStatus.COMPLETED);
+        if (rows.isEmpty()) {
+            return new int[] {0, 0};
+        }
+        Object[] row = rows.get(0);
+        return new int[] {((Number) row[0]).intValue(), ((Number) row[1]).intValue()};
+    }
+
+    private int completed(LearningGoal.GoalStatus status) {
+        return status == LearningGoal.GoalStatus.COMPLETED ? 1 : 0;
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.model.User;
+import com.example.learninganalysis.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户名到用户的解析缓存
+ *
+ * 分两级：同一请求内重复解析直接取请求属性中的结果；跨请求由进程内有界缓存按用户名保存，
+ * 条目在 user.cache.ttl-ms 后过期，总数不超过 user.cache.max-size。
+ * 返回的是只含基本字段的脱管副本，可用于读取属性和作为关联对象写入，但不能访问其集合属性；
+ * 调用方修改副本不会影响缓存中的数据。用户资料、密码变更及注册时由 UserService 调用 invalidate。
+ */
+@Component
+public class UserResolver {
+    private static final String REQUEST_ATTRIBUTE = UserResolver.class.getName() + ".users";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${user.cache.max-size:5000}")
+    private int maxSize;
+
+    @Value("${user.cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    private final Map<String, CachedUser> cache = new ConcurrentHashMap<>();
+    // 每次作废递增，加载期间发生过作废的结果不写入缓存
+    private final AtomicLong version = new AtomicLong();
+
+    private final AtomicLong requestHits = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private record CachedUser(User user, long expiresAt) {
+    }
+
+    /**
+     * 按用户名解析用户，不存在时抛出 "用户不存在"
+     */
+    public User resolve(String username) {
+        return resolve(username, "用户不存在");
+    }
+
+    /**
+     * 按用户名解析用户，不存在时以指定消息抛出异常
+     */
+    public User resolve(String username, String notFoundMessage) {
+        return find(username).orElseThrow(() -> new RuntimeException(notFoundMessage));
+    }
+
+    /**
+     * 按用户名查找用户，不存在的用户名不做缓存
+     */
+    public Optional<User> find(String username) {
+        Map<String, User> requestUsers = requestUsers();
+        if (requestUsers != null) {
+            User user = requestUsers.get(username);
+            if (user != null) {
+                requestHits.incrementAndGet();
+                return Optional.of(user);
+            }
+        }
+
+        Optional<User> user = load(username);
+        if (requestUsers != null && user.isPresent()) {
+            requestUsers.put(username, user.get());
+        }
+        return user;
+    }
+
+    private Optional<User> load(String username) {
+        long now = System.currentTimeMillis();
+        CachedUser cached = cache.get(username);
+        if (cached != null && cached.expiresAt() > now) {
+            hits.incrementAndGet();
+            return Optional.of(copyOf(cached.user()));
+        }
+
+        misses.incrementAndGet();
+        long loadVersion = version.get();
+        Optional<User> loaded = userRepository.findByUsername(username);
+        if (loaded.isEmpty()) {
+            return Optional.empty();
+        }
+        User snapshot = copyOf(loaded.get());
+
+        if (version.get() == loadVersion) {
+            if (cache.size() >= maxSize) {
+                evict(now);
+            }
+            cache.put(username, new CachedUser(snapshot, now + ttlMs));
+        }
+        return Optional.of(copyOf(snapshot));
+    }
+
+    private void evict(long now) {
+        int before = cache.size();
+        cache.values().removeIf(cached -> cached.expiresAt() <= now);
+        // 清理过期条目后仍然已满时，任意淘汰一项
+        Iterator<String> iterator = cache.keySet().iterator();
+        while (cache.size() >= maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        evictions.addAndGet(Math.max(0, before - cache.size()));
+    }
+
+    /**
+     * 作废用户缓存；在事务中调用时，事务提交后会再作废一次，避免并发请求在提交前重新缓存旧数据
+     */
+    public void invalidate(String username) {
+        doInvalidate(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doInvalidate(username);
+                }
+            });
+        }
+    }
+
+    private void doInvalidate(String username) {
+        version.incrementAndGet();
+        invalidations.incrementAndGet();
+        cache.remove(username);
+        Map<String, User> requestUsers = requestUsers();
+        if (requestUsers != null) {
+            requestUsers.remove(username);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, User> requestUsers() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<String, User> users = (Map<String, User>) attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (users == null) {
+            users = new HashMap<>();
+            attributes.setAttribute(REQUEST_ATTRIBUTE, users, RequestAttributes.SCOPE_REQUEST);
+        }
+        return users;
+    }
+
+    private User copyOf(User source) {
+        User user = new User();
+        user.setId(source.getId());
+        user.setUsername(source.getUsername());
+        user.setPassword(source.getPassword());
+        user.setRole(source.getRole());
+        user.setName(source.getName());
+        user.setEmail(source.getEmail());
+        user.setAvatarUrl(source.getAvatarUrl());
+        user.setCreatedAt(source.getCreatedAt());
+        user.setUpdatedAt(source.getUpdatedAt());
+        return user;
+    }
+
+    /**
+     * 获取缓存运行指标
+     */
+    public Map<String, Object> getMetrics() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("size", cache.size());
+        metrics.put("maxSize", maxSize);
+        metrics.put("requestHits", requestHits.get());
+        metrics.put("hits", hitCount);
+        metrics.put("misses", missCount);
+        metrics.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        metrics.put("evictions", evictions.get());
+        metrics.put("invalidations", invalidations.get());
+        return metrics;
+    }
+}
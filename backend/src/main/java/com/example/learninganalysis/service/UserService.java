@@ -5,25 +5,44 @@ import com.example.learninganalysis.repository.ClassApplicationRepository;
 import com.example.learninganalysis.repository.ClassRepository;
 import com.example.learninganalysis.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
 
 @Service
 public class UserService {
+    private static final Logger logger = Logger.getLogger(UserService.class.getName());
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private UserResolver userResolver;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private LoginAttemptThrottle loginAttemptThrottle;
     
     @Autowired
     private ClassRepository classRepository;
     
     @Autowired
     private ClassApplicationRepository classApplicationRepository;
+    
+    @Autowired
+    private TeacherStatsService teacherStatsService;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
 
     public boolean isUsernameExists(String username) {
         return userRepository.existsByUsername(username);
@@ -40,13 +59,15 @@ public class UserService {
         if (userRepository.existsByEmail(user.getEmail())) {
             throw new RuntimeException("邮箱已被注册");
         }
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        user.setPassword(passwordHashingService.encodeAndWait(user.getPassword()));
+        User savedUser = userRepository.save(user);
+        userResolver.invalidate(savedUser.getUsername());
+        searchIndexService.onUserSaved(savedUser);
+        return savedUser;
     }
 
     public User findByUsername(String username) {
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
+        return userResolver.resolve(username);
     }
     
     public User findById(Long id) {
@@ -54,12 +75,55 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
     }
 
-    public User validateUserCredentials(String username, String password) {
-        User user = findByUsername(username);
-        if (!passwordEncoder.matches(password, user.getPassword())) {
-            throw new RuntimeException("密码错误");
+    /**
+     * 校验登录凭据，密码比对在哈希线程池中异步执行
+     *
+     * 被限流的用户名在查库前即被拒绝；登录成功且已保存的哈希强度低于当前配置时，
+     * 在后台按新强度重新计算哈希并写回，不延迟本次登录。
+     */
+    public CompletableFuture<User> authenticate(String username, String password) {
+        long lockMs = loginAttemptThrottle.remainingLockMs(username);
+        if (lockMs > 0) {
+            throw new RuntimeException("登录失败次数过多，请 " + ((lockMs + 999) / 1000) + " 秒后再试");
+        }
+
+        // 登录校验密码时直接读库，不使用缓存的用户
+        Optional<User> found = username != null ? userRepository.findByUsername(username) : Optional.empty();
+        if (found.isEmpty()) {
+            loginAttemptThrottle.recordFailure(username);
+            throw new RuntimeException("用户不存在");
+        }
+        User user = found.get();
+        String encodedPassword = user.getPassword();
+
+        return passwordHashingService.matches(password, encodedPassword).thenApply(matched -> {
+            if (!matched) {
+                loginAttemptThrottle.recordFailure(username);
+                throw new RuntimeException("密码错误");
+            }
+            loginAttemptThrottle.recordSuccess(username);
+            if (passwordHashingService.needsRehash(encodedPassword)) {
+                rehashPassword(user.getId(), user.getUsername(), password, encodedPassword);
+            }
+            return user;
+        });
+    }
+
+    private void rehashPassword(Long userId, String username, String rawPassword, String oldHash) {
+        try {
+            passwordHashingService.encode(rawPassword).thenAccept(newHash -> {
+                // 条件更新：期间密码已被修改则放弃
+                if (userRepository.updatePasswordIfUnchanged(userId, oldHash, newHash, LocalDateTime.now()) > 0) {
+                    passwordHashingService.recordRehash();
+                    userResolver.invalidate(username);
+                }
+            }).exceptionally(e -> {
+                logger.warning("重新计算密码哈希失败: " + username + ", " + e.getMessage());
+                return null;
+            });
+        } catch (PasswordHashingService.HashingRejectedException e) {
+            // 线程池繁忙时跳过，下次登录再升级
         }
-        return user;
     }
     
     /**
@@ -87,10 +151,13 @@ public class UserService {
         application.setStatus(ApplicationStatus.APPROVED);
         application.setHandledAt(LocalDateTime.now());
         classApplicationRepository.save(application);
+        catalogVersionService.bump(CatalogVersionService.Catalog.APPLICATIONS);
         
         // 将学生添加到班级
-        classEntity.getStudents().add(student);
-        classRepository.save(classEntity);
+        if (classRepository.addStudent(classId, studentId) > 0) {
+            teacherStatsService.onStudentJoined(classId, classEntity.getTeacher().getId(), studentId);
+            searchIndexService.onStudentJoined(classId, studentId);
+        }
     }
     
     /**
@@ -117,7 +184,12 @@ public class UserService {
             existingUser.setAvatarUrl(updatedUser.getAvatarUrl());
         }
         
-        return userRepository.save(existingUser);
+        User savedUser = userRepository.save(existingUser);
+        userResolver.invalidate(savedUser.getUsername());
+        // 姓名和头像出现在活动、班级、申请列表中
+        catalogVersionService.bump(CatalogVersionService.Catalog.values());
+        searchIndexService.onUserSaved(savedUser);
+        return savedUser;
     }
     
     /**
@@ -128,12 +200,14 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
         
         // 验证旧密码
-        if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
+        if (!passwordHashingService.matchesAndWait(oldPassword, user.getPassword())) {
             throw new RuntimeException("原密码错误");
         }
         
         // 设置新密码
-        user.setPassword(passwordEncoder.encode(newPassword));
-        return userRepository.save(user);
+        user.setPassword(passwordHashingService.encodeAndWait(newPassword));
+        User savedUser = userRepository.save(user);
+        userResolver.invalidate(savedUser.getUsername());
+        return savedUser;
     }
 }
\ No newline at end of file
@@ -1,3 +1,4 @@
+-- 开发环境示例数据，启动时不会自动执行，需要时在已完成迁移的库上手动导入
 -- 检查并创建数据库
 CREATE DATABASE IF NOT EXISTS learning_analysis;
 USE learning_analysis;
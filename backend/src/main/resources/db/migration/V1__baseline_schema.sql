@@ -0,0 +1,220 @@
+-- 基线表结构，与引入迁移前由 ddl-auto=update 按原有实体建出的表一致，此后的表结构变更只在 V2 及以后的脚本中进行
+-- 已有数据的库由 baseline-on-migrate 标记为 V1，不执行本脚本
+
+-- 用户表
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role ENUM('ADMIN', 'TEACHER', 'STUDENT') NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    email VARCHAR(255),
+    avatar_url VARCHAR(255),
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+) ENGINE = InnoDB;
+
+-- 活动表
+CREATE TABLE activities (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    title VARCHAR(255) NOT NULL,
+    description TEXT,
+    location VARCHAR(255) NOT NULL,
+    organizer VARCHAR(255) NOT NULL,
+    max_participants INT,
+    current_participants INT,
+    status ENUM('UPCOMING', 'ONGOING', 'COMPLETED', 'CANCELLED'),
+    activity_type ENUM('LECTURE', 'WORKSHOP', 'SEMINAR', 'COMPETITION', 'CLUB', 'VOLUNTEER', 'SPORTS', 'CULTURAL', 'OTHER'),
+    start_time DATETIME(6),
+    end_time DATETIME(6),
+    creator_id BIGINT NOT NULL,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_activities_creator FOREIGN KEY (creator_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+-- 活动参与记录表
+CREATE TABLE activity_participations (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    activity_id BIGINT NOT NULL,
+    status ENUM('REGISTERED', 'COMPLETED', 'CANCELLED') NOT NULL,
+    register_time DATETIME(6),
+    complete_time DATETIME(6),
+    cancel_time DATETIME(6),
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_activity_participations_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_activity_participations_activity FOREIGN KEY (activity_id) REFERENCES activities (id)
+) ENGINE = InnoDB;
+
+-- 班级表
+CREATE TABLE classes (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    description TEXT,
+    teacher_id BIGINT NOT NULL,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_classes_teacher FOREIGN KEY (teacher_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+-- 班级学生关联表
+CREATE TABLE class_students (
+    class_id BIGINT NOT NULL,
+    student_id BIGINT NOT NULL,
+    PRIMARY KEY (class_id, student_id),
+    CONSTRAINT fk_class_students_class FOREIGN KEY (class_id) REFERENCES classes (id),
+    CONSTRAINT fk_class_students_student FOREIGN KEY (student_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+-- 班级申请表
+CREATE TABLE class_applications (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    student_id BIGINT NOT NULL,
+    class_id BIGINT NOT NULL,
+    status ENUM('PENDING', 'APPROVED', 'REJECTED') NOT NULL,
+    message TEXT,
+    reject_reason VARCHAR(255),
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    handled_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_class_applications_student FOREIGN KEY (student_id) REFERENCES users (id),
+    CONSTRAINT fk_class_applications_class FOREIGN KEY (class_id) REFERENCES classes (id)
+) ENGINE = InnoDB;
+
+-- 学习目标表
+CREATE TABLE learning_goals (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    title VARCHAR(255) NOT NULL,
+    description TEXT,
+    due_date DATETIME(6),
+    progress INT,
+    status ENUM('IN_PROGRESS', 'COMPLETED', 'PENDING_REVIEW'),
+    student_id BIGINT NOT NULL,
+    teacher_id BIGINT NOT NULL,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_learning_goals_student FOREIGN KEY (student_id) REFERENCES users (id),
+    CONSTRAINT fk_learning_goals_teacher FOREIGN KEY (teacher_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+-- 教学活动表
+CREATE TABLE learning_activities (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    title VARCHAR(255) NOT NULL,
+    description TEXT,
+    type VARCHAR(255) NOT NULL,
+    due_date DATETIME(6),
+    material_url VARCHAR(255),
+    submission_url VARCHAR(255),
+    teacher_id BIGINT NOT NULL,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_learning_activities_teacher FOREIGN KEY (teacher_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+-- 教学活动与学习目标关联表
+CREATE TABLE activity_goals (
+    activity_id BIGINT NOT NULL,
+    goal_id BIGINT NOT NULL,
+    CONSTRAINT fk_activity_goals_activity FOREIGN KEY (activity_id) REFERENCES learning_activities (id),
+    CONSTRAINT fk_activity_goals_goal FOREIGN KEY (goal_id) REFERENCES learning_goals (id)
+) ENGINE = InnoDB;
+
+-- 学习路径表
+CREATE TABLE learning_paths (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    title VARCHAR(255) NOT NULL,
+    description TEXT,
+    teacher_id BIGINT NOT NULL,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_learning_paths_teacher FOREIGN KEY (teacher_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+-- 学习路径与教学活动关联表
+CREATE TABLE path_activities (
+    path_id BIGINT NOT NULL,
+    activity_id BIGINT NOT NULL,
+    CONSTRAINT fk_path_activities_path FOREIGN KEY (path_id) REFERENCES learning_paths (id),
+    CONSTRAINT fk_path_activities_activity FOREIGN KEY (activity_id) REFERENCES learning_activities (id)
+) ENGINE = InnoDB;
+
+-- 学习路径与学习目标关联表
+CREATE TABLE path_goals (
+    path_id BIGINT NOT NULL,
+    goal_id BIGINT NOT NULL,
+    CONSTRAINT fk_path_goals_path FOREIGN KEY (path_id) REFERENCES learning_paths (id),
+    CONSTRAINT fk_path_goals_goal FOREIGN KEY (goal_id) REFERENCES learning_goals (id)
+) ENGINE = InnoDB;
+
+-- 评价表
+CREATE TABLE evaluations (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    student_id BIGINT NOT NULL,
+    teacher_id BIGINT NOT NULL,
+    content TEXT NOT NULL,
+    grade VARCHAR(255) NOT NULL,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_evaluations_student FOREIGN KEY (student_id) REFERENCES users (id),
+    CONSTRAINT fk_evaluations_teacher FOREIGN KEY (teacher_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+-- 学生反馈表
+CREATE TABLE feedbacks (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    student_id BIGINT NOT NULL,
+    teacher_id BIGINT NOT NULL,
+    content TEXT NOT NULL,
+    response TEXT,
+    feedback_type ENUM('SUGGESTION', 'QUESTION', 'COMPLAINT', 'OTHER'),
+    status ENUM('PENDING', 'RESPONDED', 'RESOLVED'),
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_feedbacks_student FOREIGN KEY (student_id) REFERENCES users (id),
+    CONSTRAINT fk_feedbacks_teacher FOREIGN KEY (teacher_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+-- 系统日志表
+CREATE TABLE system_logs (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    operation_type VARCHAR(255) NOT NULL,
+    operation_detail TEXT,
+    user_id BIGINT,
+    user_role ENUM('ADMIN', 'TEACHER', 'STUDENT'),
+    ip_address VARCHAR(255),
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_system_logs_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+-- 学生统计表
+CREATE TABLE student_stats (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    student_id BIGINT NOT NULL,
+    goal_completion_rate DOUBLE,
+    activity_participation_rate DOUBLE,
+    total_goals INT,
+    completed_goals INT,
+    total_activities INT,
+    participated_activities INT,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_student_stats_student UNIQUE (student_id),
+    CONSTRAINT fk_student_stats_student FOREIGN KEY (student_id) REFERENCES users (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,62 @@
+-- 引入迁移前已加入实体、但基线库中没有的表结构：计数汇总、目标模板、日志检索索引与报名唯一约束
+
+-- 班级计数列，由 ClassRepository 的条件更新增量维护
+ALTER TABLE classes
+    ADD COLUMN student_count INT DEFAULT 0 NOT NULL AFTER teacher_id,
+    ADD COLUMN goal_count INT DEFAULT 0 NOT NULL AFTER student_count,
+    ADD COLUMN completed_goal_count INT DEFAULT 0 NOT NULL AFTER goal_count;
+
+-- 目标模板表
+CREATE TABLE goal_templates (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    title VARCHAR(255) NOT NULL,
+    description TEXT,
+    due_date DATETIME(6),
+    teacher_id BIGINT NOT NULL,
+    class_id BIGINT,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_goal_templates_teacher FOREIGN KEY (teacher_id) REFERENCES users (id),
+    CONSTRAINT fk_goal_templates_class FOREIGN KEY (class_id) REFERENCES classes (id) ON DELETE SET NULL
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_goal_templates_teacher_created_at ON goal_templates (teacher_id, created_at);
+
+-- 学习目标所属的目标模板，单独布置给学生的目标为空
+ALTER TABLE learning_goals
+    ADD COLUMN template_id BIGINT NULL AFTER teacher_id,
+    ADD CONSTRAINT fk_learning_goals_template FOREIGN KEY (template_id) REFERENCES goal_templates (id);
+
+CREATE INDEX idx_learning_goals_teacher_due_date ON learning_goals (teacher_id, due_date);
+CREATE INDEX idx_learning_goals_teacher_student ON learning_goals (teacher_id, student_id);
+CREATE INDEX idx_learning_goals_template_status ON learning_goals (template_id, status);
+
+-- 系统日志按时间、操作类型、角色检索与键集分页
+CREATE INDEX idx_system_logs_created_at ON system_logs (created_at);
+CREATE INDEX idx_system_logs_type_created_at ON system_logs (operation_type, created_at);
+CREATE INDEX idx_system_logs_role_created_at ON system_logs (user_role, created_at);
+CREATE INDEX idx_system_logs_type_role_created_at ON system_logs (operation_type, user_role, created_at);
+
+-- 教师仪表盘汇总表，缺行时由 TeacherStatsService 按需重算
+CREATE TABLE teacher_stats (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    teacher_id BIGINT NOT NULL,
+    class_count INT NOT NULL,
+    student_count INT NOT NULL,
+    goal_count INT NOT NULL,
+    completed_goal_count INT NOT NULL,
+    activity_count INT NOT NULL,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_teacher_stats_teacher UNIQUE (teacher_id)
+) ENGINE = InnoDB;
+
+-- 报名唯一约束：旧版本并发报名可能留下同一学生对同一活动的重复记录，只保留最新的一条
+DELETE p FROM activity_participations p
+    JOIN activity_participations newer
+      ON newer.user_id = p.user_id AND newer.activity_id = p.activity_id AND newer.id > p.id;
+
+ALTER TABLE activity_participations
+    ADD CONSTRAINT uk_activity_participations_user_activity UNIQUE (user_id, activity_id);
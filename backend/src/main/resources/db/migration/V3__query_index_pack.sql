@@ -0,0 +1,23 @@
+-- 按仓库查询补充的二级索引，每个索引注明对应的查询方法
+
+-- ActivityRepository.findByStartTimeBetween、findTop5ByOrderByStartTimeDesc、findAllByOrderByStartTimeDesc、
+-- findListingWithParticipation：按开始时间范围过滤或倒序列出
+CREATE INDEX idx_activities_start_time ON activities (start_time);
+
+-- ActivityRepository.findByTypeAndStartTimeBetween、findByTypeOrderByStartTimeDesc、
+-- findListingWithParticipationByType：按类型过滤后按开始时间过滤或排序
+CREATE INDEX idx_activities_type_start_time ON activities (activity_type, start_time);
+
+-- ActivityParticipationRepository.findByActivityAndStatus、countRegisteredParticipants：
+-- 按活动和状态过滤，计数查询只需读索引；同时替代 activity_id 外键上的单列索引
+CREATE INDEX idx_activity_participations_activity_status ON activity_participations (activity_id, status);
+
+-- ClassApplicationRepository.findByClassEntityIdAndStatus：班级的待处理申请
+CREATE INDEX idx_class_applications_class_status ON class_applications (class_id, status);
+
+-- EvaluationRepository.findRowsByStudentIdAndTeacherId、findByStudentAndTeacherOrderByCreatedAtDesc：
+-- 按学生和教师过滤后按创建时间倒序，不再额外排序
+CREATE INDEX idx_evaluations_student_teacher_created_at ON evaluations (student_id, teacher_id, created_at);
+
+-- LearningGoalRepository.findByTeacherOrderByCreatedAtDesc：教师的学习目标按创建时间倒序
+CREATE INDEX idx_learning_goals_teacher_created_at ON learning_goals (teacher_id, created_at);
@@ -0,0 +1,12 @@
+-- 活动候补队列：名额已满时报名记录以 WAITLISTED 状态排队，waitlist_time 为入队时间，按 (waitlist_time, id) 先进先出
+
+ALTER TABLE activity_participations
+    MODIFY status ENUM('REGISTERED', 'COMPLETED', 'CANCELLED', 'WAITLISTED') NOT NULL;
+ALTER TABLE activity_participations
+    ADD COLUMN waitlist_time DATETIME(6) NULL AFTER cancel_time;
+
+-- ActivityParticipationRepository.findWaitlistHead、countWaitlistAhead：取队首与计算排队位置只读索引；
+-- 以 (activity_id, status) 为前缀，替代原索引供 findByActivityAndStatus、countRegisteredParticipants 使用
+CREATE INDEX idx_activity_participations_activity_status_waitlist
+    ON activity_participations (activity_id, status, waitlist_time);
+DROP INDEX idx_activity_participations_activity_status ON activity_participations;
@@ -0,0 +1,12 @@
+-- 一次性回填班级计数：V2 新增的计数列以 0 初始化，升级前已有的班级按关联表与学习目标表补齐，
+-- 口径与 ClassRepository.recountByTeacherId 一致；此后计数由各写操作维护，漂移时由管理员接口重算
+UPDATE classes c SET
+    student_count = (SELECT COUNT(*) FROM class_students cs WHERE cs.class_id = c.id),
+    goal_count = (SELECT COUNT(*) FROM learning_goals g JOIN class_students cs
+                  ON cs.student_id = g.student_id WHERE cs.class_id = c.id AND g.teacher_id = c.teacher_id),
+    completed_goal_count = (SELECT COUNT(*) FROM learning_goals g JOIN class_students cs
+                            ON cs.student_id = g.student_id WHERE cs.class_id = c.id AND g.teacher_id = c.teacher_id
+                            AND g.status = 'COMPLETED');
+
+-- 教师汇总在下次读取时按回填后的数据重建
+DELETE FROM teacher_stats;
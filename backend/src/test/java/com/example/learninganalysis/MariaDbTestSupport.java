@@ -0,0 +1,88 @@
+package com.example.learninganalysis;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+/**
+ * 集成测试共用的嵌入式 MariaDB
+ *
+ * 同一 JVM 内只启动一个实例，端口随机，JVM 退出时停止；每个测试类用独立的库名注册数据源，
+ * 库在首次使用时创建，表结构由应用启动时的 Flyway 迁移生成，与生产环境一致。
+ *
+ * <pre>
+ * &#64;DynamicPropertySource
+ * static void database(DynamicPropertyRegistry registry) {
+ *     MariaDbTestSupport.register(registry, "la_seats");
+ * }
+ * </pre>
+ */
+public final class MariaDbTestSupport {
+
+    private static DB db;
+    private static int port;
+
+    private MariaDbTestSupport() {
+    }
+
+    /**
+     * 创建指定的库（已存在则复用）并把数据源指向它
+     */
+    public static void register(DynamicPropertyRegistry registry, String database) {
+        String url = jdbcUrl(database);
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> "root");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    /**
+     * 创建指定的库（已存在则复用）并返回其连接地址，用户名 root、密码为空
+     */
+    public static String jdbcUrl(String database) {
+        String url = "jdbc:mysql://localhost:" + start() + "/" + database
+                + "?useSSL=false&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true";
+        createDatabase(database);
+        return url;
+    }
+
+    private static synchronized int start() {
+        if (db == null) {
+            try {
+                Path baseDir = Files.createTempDirectory("mariadb4j-base");
+                Path dataDir = Files.createTempDirectory("mariadb4j-data");
+                DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+                config.setPort(0);
+                config.setBaseDir(baseDir.toString());
+                config.setDataDir(dataDir.toString());
+                config.setDeletingTemporaryBaseAndDataDirsOnShutdown(true);
+                // 以 root 运行构建（如容器内）时 mariadbd 要求显式指定用户
+                if ("root".equals(System.getProperty("user.name"))) {
+                    config.addArg("--user=root");
+                }
+                db = DB.newEmbeddedDB(config.build());
+                db.start();
+                port = db.getConfiguration().getPort();
+            } catch (Exception e) {
+                throw new IllegalStateException("嵌入式 MariaDB 启动失败", e);
+            }
+        }
+        return port;
+    }
+
+    private static void createDatabase(String database) {
+        String url = "jdbc:mysql://localhost:" + port + "/?useSSL=false&allowPublicKeyRetrieval=true";
+        try (Connection connection = DriverManager.getConnection(url, "root", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE IF NOT EXISTS " + database
+                    + " CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci");
+        } catch (Exception e) {
+            throw new IllegalStateException("创建测试库失败: " + database, e);
+        }
+    }
+}
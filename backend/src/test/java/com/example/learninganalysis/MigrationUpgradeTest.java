@@ -0,0 +1,84 @@
+package com.example.learninganalysis;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 已有库升级测试
+ *
+ * 引入迁移前由 ddl-auto=update 建表的库没有迁移记录，按应用配置被标记为 V1 后只执行 V2 起的脚本，
+ * 因此 V1 只能是原有表结构，之后新增的表、列、索引和约束都必须由 V2 及以后的脚本补上，
+ * 新增的班级计数列由 V5 按已有的成员关系与学习目标回填。
+ */
+class MigrationUpgradeTest {
+
+    @Test
+    void baselinedDatabaseReceivesLaterSchema() throws Exception {
+        DataSource dataSource = new DriverManagerDataSource(MariaDbTestSupport.jdbcUrl("la_upgrade"), "root", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // 模拟升级前的库：只有原有表结构和数据，没有 flyway_schema_history
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/migration/V1__baseline_schema.sql"));
+        }
+        jdbcTemplate.update("INSERT INTO users (id, username, password, role, name) VALUES " +
+                "(1, 'upgrade_teacher', 'x', 'TEACHER', '教师'), (2, 'upgrade_student', 'x', 'STUDENT', '学生')");
+        jdbcTemplate.update("INSERT INTO activities (id, title, location, organizer, max_participants, " +
+                "current_participants, status, creator_id) VALUES (1, '升级活动', '礼堂', '教务处', 10, 1, 'UPCOMING', 1)");
+        jdbcTemplate.update("INSERT INTO users (id, username, password, role, name) VALUES " +
+                "(3, 'upgrade_student2', 'x', 'STUDENT', '学生二'), (4, 'upgrade_teacher2', 'x', 'TEACHER', '教师二')");
+        jdbcTemplate.update("INSERT INTO classes (id, name, teacher_id) VALUES (1, '升级班', 1), (2, '空班', 4)");
+        jdbcTemplate.update("INSERT INTO class_students (class_id, student_id) VALUES (1, 2), (1, 3)");
+        // 其他教师布置给班级学生的目标不计入该班级
+        jdbcTemplate.update("INSERT INTO learning_goals (id, title, status, student_id, teacher_id) VALUES " +
+                "(1, '目标一', 'COMPLETED', 2, 1), (2, '目标二', 'IN_PROGRESS', 3, 1), (3, '其他教师的目标', 'COMPLETED', 2, 4)");
+        // 旧版本并发报名留下的重复记录
+        jdbcTemplate.update("INSERT INTO activity_participations (id, user_id, activity_id, status) VALUES " +
+                "(1, 2, 1, 'CANCELLED'), (2, 2, 1, 'REGISTERED')");
+
+        MigrateResult result = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+        assertEquals(List.of("2", "3", "4", "5"), result.migrations.stream().map(m -> m.version).toList(), "执行的迁移");
+        assertEquals(List.of(2L), jdbcTemplate.queryForList(
+                "SELECT id FROM activity_participations WHERE user_id = 2 AND activity_id = 1", Long.class), "保留最新的报名记录");
+        assertEquals(List.of(List.of(1L, 2, 2, 1), List.of(2L, 0, 0, 0)), jdbcTemplate.query(
+                "SELECT id, student_count, goal_count, completed_goal_count FROM classes ORDER BY id",
+                (rs, rowNum) -> List.of(rs.getLong(1), rs.getInt(2), rs.getInt(3), rs.getInt(4))), "回填的班级计数");
+        for (String column : List.of("classes.student_count", "classes.goal_count", "classes.completed_goal_count",
+                "learning_goals.template_id", "activity_participations.waitlist_time")) {
+            String[] parts = column.split("\\.");
+            assertEquals(1, count("SELECT COUNT(*) FROM information_schema.columns WHERE table_schema = DATABASE() " +
+                    "AND table_name = ? AND column_name = ?", jdbcTemplate, parts[0], parts[1]), "缺少列 " + column);
+        }
+        for (String table : List.of("goal_templates", "teacher_stats")) {
+            assertEquals(1, count("SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = DATABASE() " +
+                    "AND table_name = ?", jdbcTemplate, table), "缺少表 " + table);
+        }
+        for (String index : List.of("uk_activity_participations_user_activity", "idx_system_logs_type_role_created_at",
+                "idx_learning_goals_teacher_due_date", "idx_learning_goals_template_status")) {
+            assertEquals(1, count("SELECT COUNT(DISTINCT index_name) FROM information_schema.statistics " +
+                    "WHERE table_schema = DATABASE() AND index_name = ?", jdbcTemplate, index), "缺少索引 " + index);
+        }
+    }
+
+    private static int count(String sql, JdbcTemplate jdbcTemplate, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, args);
+    }
+}
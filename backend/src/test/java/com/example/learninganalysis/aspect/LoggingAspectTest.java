@@ -0,0 +1,79 @@
+package com.example.learninganalysis.aspect;
+
+import com.example.learninganalysis.model.OperationType;
+import com.example.learninganalysis.model.User;
+import com.example.learninganalysis.service.AuditLogWriter;
+import com.example.learninganalysis.service.LogService;
+import org.aspectj.lang.JoinPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 登录审计日志测试
+ *
+ * 登录接口返回 CompletableFuture，审计日志须在异步结果完成且成功后才写入。
+ */
+class LoggingAspectTest {
+
+    private final LoggingAspect aspect = new LoggingAspect();
+    private final AuditLogWriter auditLogWriter = mock(AuditLogWriter.class);
+    private final LogService logService = mock(LogService.class);
+    private final JoinPoint joinPoint = mock(JoinPoint.class);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(aspect, "auditLogWriter", auditLogWriter);
+        ReflectionTestUtils.setField(aspect, "logService", logService);
+        when(logService.getClientIpAddress(any())).thenReturn("10.0.0.1");
+
+        User loginRequest = new User();
+        loginRequest.setUsername("student1");
+        when(joinPoint.getArgs()).thenReturn(new Object[]{loginRequest});
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void asyncLoginIsAuditedOnceItSucceeds() {
+        CompletableFuture<ResponseEntity<?>> result = new CompletableFuture<>();
+        aspect.logLoginOperation(joinPoint, result);
+        verify(auditLogWriter, never()).submit(any(), any(), any(), any(), any());
+
+        // 完成时已离开请求线程，IP 应取自调用时的请求
+        RequestContextHolder.resetRequestAttributes();
+        result.complete(ResponseEntity.ok().build());
+
+        verify(auditLogWriter).submit(eq(OperationType.USER_LOGIN), eq("用户登录成功: student1"), eq("student1"),
+                isNull(), eq("10.0.0.1"));
+    }
+
+    @Test
+    void failedAsyncLoginIsNotAudited() {
+        CompletableFuture<ResponseEntity<?>> result = new CompletableFuture<>();
+        aspect.logLoginOperation(joinPoint, result);
+        result.complete(ResponseEntity.badRequest().build());
+
+        verify(auditLogWriter, never()).submit(any(), any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.learninganalysis.config;
+
+import com.example.learninganalysis.model.User;
+import com.example.learninganalysis.model.UserRole;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 令牌签发与校验测试
+ *
+ * 篡改负载或签名、用其他密钥签名、已过期的令牌都必须被拒绝，包括已在校验缓存中的令牌；
+ * 过期令牌移出缓存，缓存满时淘汰后被淘汰的令牌仍可重新校验。
+ */
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "testSecretKey12345678901234567890123456789012";
+
+    @Test
+    void issuedTokenResolvesToUser() {
+        JwtTokenProvider provider = provider(SECRET, 60_000, 100);
+        String token = provider.generateToken(user());
+
+        AuthenticatedUser resolved = provider.resolve(token);
+        assertNotNull(resolved);
+        assertEquals(7L, resolved.id());
+        assertEquals("student7", resolved.username());
+        assertEquals(UserRole.STUDENT, resolved.role());
+        // 第二次命中缓存，结果相同
+        assertEquals(resolved, provider.resolve(token));
+    }
+
+    @Test
+    void tamperedTokensAreRejected() {
+        JwtTokenProvider provider = provider(SECRET, 60_000, 100);
+        String token = provider.generateToken(user());
+        assertNotNull(provider.resolve(token));
+        String[] parts = token.split("\\.");
+
+        // 负载改为管理员，沿用原签名：签名段与缓存项相同，但令牌原文不同
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)
+                        .replace("STUDENT", "ADMIN").getBytes(StandardCharsets.UTF_8));
+        assertNull(provider.resolve(parts[0] + "." + forgedPayload + "." + parts[2]));
+
+        // 修改签名中间的字符，base64url 末位的填充位不影响解码结果，所以不改最后一位
+        int middle = parts[2].length() / 2;
+        char replaced = parts[2].charAt(middle) == 'A' ? 'B' : 'A';
+        String tamperedSignature = parts[2].substring(0, middle) + replaced + parts[2].substring(middle + 1);
+        assertNull(provider.resolve(parts[0] + "." + parts[1] + "." + tamperedSignature));
+
+        // 其他密钥签发的令牌
+        String foreign = provider("anotherSecret1234567890123456789012345678901", 60_000, 100).generateToken(user());
+        assertNull(provider.resolve(foreign));
+
+        // 格式错误
+        assertNull(provider.resolve("student7.STUDENT.uuid"));
+        assertNull(provider.resolve(token + ".extra"));
+        assertNull(provider.resolve("garbage"));
+    }
+
+    @Test
+    void expiredTokenIsRejectedAndLeavesCache() throws Exception {
+        // 过期时间以秒为单位写入令牌，1 秒的有效期最迟在 2 秒后过期
+        JwtTokenProvider provider = provider(SECRET, 1_000, 100);
+        String token = provider.generateToken(user());
+        assertNotNull(provider.resolve(token));
+        assertEquals(1, cache(provider).size());
+
+        Thread.sleep(2_100);
+
+        assertNull(provider.resolve(token));
+        assertTrue(cache(provider).isEmpty(), "过期令牌仍在缓存中");
+    }
+
+    @Test
+    void evictedTokensAreVerifiedAgain() {
+        JwtTokenProvider provider = provider(SECRET, 60_000, 2);
+        String[] tokens = new String[3];
+        for (int i = 0; i < tokens.length; i++) {
+            User user = user();
+            user.setId(100L + i);
+            user.setUsername("student" + (100 + i));
+            tokens[i] = provider.generateToken(user);
+            assertNotNull(provider.resolve(tokens[i]));
+        }
+        assertFalse(cache(provider).size() > 2, "缓存超出容量");
+
+        for (int i = 0; i < tokens.length; i++) {
+            assertEquals(100L + i, provider.resolve(tokens[i]).id());
+        }
+    }
+
+    private static JwtTokenProvider provider(String secret, long expirationMs, int cacheMaxSize) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(provider, "secret", secret);
+        ReflectionTestUtils.setField(provider, "expirationMs", expirationMs);
+        ReflectionTestUtils.setField(provider, "cacheMaxSize", cacheMaxSize);
+        return provider;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, ?> cache(JwtTokenProvider provider) {
+        return (Map<String, ?>) ReflectionTestUtils.getField(provider, "verifiedTokens");
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("student7");
+        user.setRole(UserRole.STUDENT);
+        return user;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.learninganalysis.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 日志导出 CSV 字段转义测试
+ *
+ * 日志详情、用户名等字段由用户输入，以公式字符开头时导出后不能被表格软件当作公式执行。
+ */
+class AdminControllerCsvTest {
+
+    @Test
+    void plainValuesAreUnchanged() {
+        assertEquals("", AdminController.csvField(null));
+        assertEquals("", AdminController.csvField(""));
+        assertEquals("用户登录成功: student1", AdminController.csvField("用户登录成功: student1"));
+        assertEquals("10.0.0.1", AdminController.csvField("10.0.0.1"));
+    }
+
+    @Test
+    void separatorsAndQuotesAreQuoted() {
+        assertEquals("\"a,b\"", AdminController.csvField("a,b"));
+        assertEquals("\"say \"\"hi\"\"\"", AdminController.csvField("say \"hi\""));
+        assertEquals("\"line1\nline2\"", AdminController.csvField("line1\nline2"));
+    }
+
+    @Test
+    void formulaPrefixesAreNeutralized() {
+        assertEquals("\"'=HYPERLINK(\"\"http://evil\"\")\"", AdminController.csvField("=HYPERLINK(\"http://evil\")"));
+        assertEquals("\"'+1+1\"", AdminController.csvField("+1+1"));
+        assertEquals("\"'-2+3\"", AdminController.csvField("-2+3"));
+        assertEquals("\"'@SUM(A1:A2)\"", AdminController.csvField("@SUM(A1:A2)"));
+        assertEquals("\"'\tcmd\"", AdminController.csvField("\tcmd"));
+        // 公式字符不在开头时不处理
+        assertEquals("a=b", AdminController.csvField("a=b"));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.learninganalysis.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * 记录当前线程在 {@link #reset()} 之后 Hibernate 发出的第一条 SQL，
+ * 用于取得派生查询实际生成的语句；后续加载关联实体的语句不覆盖它
+ */
+public class CapturingStatementInspector implements StatementInspector {
+
+    private static final ThreadLocal<String> FIRST = new ThreadLocal<>();
+
+    public static void reset() {
+        FIRST.remove();
+    }
+
+    public static String first() {
+        return FIRST.get();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (FIRST.get() == null) {
+            FIRST.set(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.learninganalysis.repository;
+
+import com.example.learninganalysis.model.Activity;
+import com.example.learninganalysis.model.ApplicationStatus;
+import com.example.learninganalysis.model.LearningGoal;
+import com.example.learninganalysis.model.OperationType;
+import com.example.learninganalysis.model.ParticipationStatus;
+import com.example.learninganalysis.model.UserRole;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * 合成数据填充
+ *
+ * 按 {@link Scale} 生成教师、班级、成员关系、活动、报名、学习目标、评价、入班申请和操作日志，
+ * 通过 JDBC 分批写入，列名与实体映射一致，主键从 1 开始显式指定，因此要求目标表为空。
+ * 随机数种子固定，同一规模下每次生成的数据相同。全部用户使用同一个密码哈希。
+ * 前 hotActivities 个活动不预置报名，容量为 hotActivityCapacity，供报名高峰场景使用；
+ * 每个班级预置 pendingApplicationsPerClass 条待处理申请，供教师批量审批场景使用。
+ */
+public class DatasetSeeder {
+    private static final Logger logger = Logger.getLogger(DatasetSeeder.class.getName());
+
+    private static final int BATCH_SIZE = 1000;
+    private static final Activity.ActivityType[] ACTIVITY_TYPES = Activity.ActivityType.values();
+    private static final ParticipationStatus[] PARTICIPATION_STATUSES = {
+            ParticipationStatus.REGISTERED, ParticipationStatus.REGISTERED,
+            ParticipationStatus.COMPLETED, ParticipationStatus.CANCELLED};
+    private static final LearningGoal.GoalStatus[] GOAL_STATUSES = LearningGoal.GoalStatus.values();
+    private static final String[] GRADES = {"A", "B", "C", "D"};
+    private static final OperationType[] LOG_TYPES = {
+            OperationType.USER_LOGIN, OperationType.USER_LOGIN, OperationType.USER_LOGOUT,
+            OperationType.ACTIVITY_PARTICIPATE};
+
+    /** 基准测试不走登录时使用的占位哈希 */
+    public static final String PLACEHOLDER_PASSWORD_HASH = "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z5ZhG4g5Jw5H2hxpKJbGmW2e";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Random random = new Random(20250901L);
+
+    public DatasetSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 数据规模
+     */
+    public record Scale(int students, int teachers, int classesPerTeacher, int activities,
+                        int hotActivities, int hotActivityCapacity, int participationsPerStudent,
+                        int goalsPerStudent, int evaluationsPerStudent, int pendingApplicationsPerClass,
+                        int logsPerUser) {
+
+        /**
+         * 按学生数等比例的默认规模：每 100 名学生 1 名教师，每位教师 3 个班级，每 5 名学生 1 个活动，
+         * 每名学生报名 10 个活动、5 个学习目标、2 条评价、5 条操作日志，每个班级 10 条待处理申请
+         */
+        public static Scale of(int students) {
+            return new Scale(students, Math.max(1, students / 100), 3, Math.max(20, students / 5),
+                    5, 100, 10, 5, 2, 10, 5);
+        }
+
+        long participations() {
+            return (long) students * Math.min(participationsPerStudent, activities - hotActivities);
+        }
+    }
+
+    /**
+     * 生成结果的主键范围
+     */
+    public record Dataset(long firstStudentId, int students, long firstTeacherId, int teachers,
+                          int classes, int activities, int hotActivities) {
+    }
+
+    public Dataset seed(int students) {
+        return seed(Scale.of(students), PLACEHOLDER_PASSWORD_HASH);
+    }
+
+    public Dataset seed(Scale scale, String passwordHash) {
+        if (scale.activities() <= scale.hotActivities()) {
+            throw new IllegalArgumentException("活动数必须大于热门活动数");
+        }
+        int students = scale.students();
+        int teachers = scale.teachers();
+        int classes = teachers * scale.classesPerTeacher();
+        int activities = scale.activities();
+        LocalDateTime now = LocalDateTime.of(2025, 9, 1, 8, 0);
+        long started = System.currentTimeMillis();
+
+        // 用户：1 个管理员，其后依次为教师和学生
+        long firstTeacherId = 2;
+        long firstStudentId = firstTeacherId + teachers;
+        try (Batch batch = new Batch("users", "id, username, password, role, name, email, avatar_url, created_at, updated_at")) {
+            batch.add(1L, "admin", passwordHash, UserRole.ADMIN.name(), "管理员", "admin@example.com", null, ts(now), ts(now));
+            for (int i = 0; i < teachers; i++) {
+                Timestamp createdAt = ts(now.minusDays(i % 365));
+                batch.add(firstTeacherId + i, "teacher" + i, passwordHash, UserRole.TEACHER.name(), "教师" + i,
+                        "teacher" + i + "@example.com", avatar(i), createdAt, createdAt);
+            }
+            for (int i = 0; i < students; i++) {
+                Timestamp createdAt = ts(now.minusMinutes(i));
+                batch.add(firstStudentId + i, "student" + i, passwordHash, UserRole.STUDENT.name(), "学生" + i,
+                        "student" + i + "@example.com", avatar(i), createdAt, createdAt);
+            }
+        }
+
+        try (Batch batch = new Batch("classes", "id, name, description, teacher_id, created_at, updated_at")) {
+            for (int i = 0; i < classes; i++) {
+                Timestamp createdAt = ts(now.minusDays(i % 90));
+                batch.add(i + 1L, "班级" + i, "第" + i + "班的课程说明",
+                        firstTeacherId + i / scale.classesPerTeacher(), createdAt, createdAt);
+            }
+        }
+
+        // 每名学生加入 1 到 2 个相邻班级，记录第一个班级用于确定其学习目标和评价的教师
+        int[] firstClass = new int[students];
+        try (Batch batch = new Batch("class_students", "class_id, student_id")) {
+            for (int i = 0; i < students; i++) {
+                firstClass[i] = random.nextInt(classes);
+                batch.add(firstClass[i] + 1L, firstStudentId + i);
+                if (classes > 1 && random.nextBoolean()) {
+                    batch.add((firstClass[i] + 1L) % classes + 1, firstStudentId + i);
+                }
+            }
+        }
+
+        LocalDateTime semesterStart = now.plusDays(7);
+        try (Batch batch = new Batch("activities", "id, title, description, location, organizer, max_participants, "
+                + "current_participants, status, activity_type, start_time, end_time, creator_id, created_at, updated_at")) {
+            for (int i = 0; i < activities; i++) {
+                boolean hot = i < scale.hotActivities();
+                LocalDateTime start = semesterStart.plusHours(i * 3L % (24 * 120));
+                Timestamp createdAt = ts(now.minusDays(i % 30));
+                batch.add(i + 1L, (hot ? "热门活动" : "活动") + i, "第" + i + "个活动的详细介绍",
+                        "教学楼" + (i % 20) + "0" + (i % 9), "学院" + (i % 12),
+                        hot ? scale.hotActivityCapacity() : 200, 0,
+                        !hot && i % 10 == 0 ? Activity.ActivityStatus.COMPLETED.name() : Activity.ActivityStatus.UPCOMING.name(),
+                        ACTIVITY_TYPES[i % ACTIVITY_TYPES.length].name(), ts(start), ts(start.plusHours(2)),
+                        firstTeacherId + i % teachers, createdAt, createdAt);
+            }
+        }
+
+        // 报名只落在非热门活动上，同一学生的活动按固定步长错开，满足 (user_id, activity_id) 唯一约束
+        int regular = activities - scale.hotActivities();
+        int perStudent = Math.min(scale.participationsPerStudent(), regular);
+        int stride = Math.max(1, regular / Math.max(1, perStudent));
+        try (Batch batch = new Batch("activity_participations", "id, user_id, activity_id, status, register_time, "
+                + "created_at, updated_at")) {
+            long id = 1;
+            for (int i = 0; i < students; i++) {
+                int offset = random.nextInt(regular);
+                for (int j = 0; j < perStudent; j++) {
+                    long activityId = scale.hotActivities() + (offset + (long) j * stride) % regular + 1;
+                    Timestamp registeredAt = ts(now.plusDays(j).plusMinutes(i % 1440));
+                    batch.add(id++, firstStudentId + i, activityId,
+                            PARTICIPATION_STATUSES[random.nextInt(PARTICIPATION_STATUSES.length)].name(),
+                            registeredAt, registeredAt, registeredAt);
+                }
+            }
+        }
+
+        try (Batch batch = new Batch("learning_goals", "id, title, description, due_date, progress, status, "
+                + "student_id, teacher_id, created_at, updated_at")) {
+            long id = 1;
+            for (int i = 0; i < students; i++) {
+                long teacherId = firstTeacherId + firstClass[i] / scale.classesPerTeacher();
+                for (int j = 0; j < scale.goalsPerStudent(); j++) {
+                    LearningGoal.GoalStatus status = GOAL_STATUSES[random.nextInt(GOAL_STATUSES.length)];
+                    Timestamp createdAt = ts(now.minusDays(random.nextInt(60)));
+                    batch.add(id++, "学习目标" + j, "第" + j + "个阶段的学习任务", ts(now.plusDays(30 + j * 7L)),
+                            status == LearningGoal.GoalStatus.COMPLETED ? 100 : random.nextInt(100), status.name(),
+                            firstStudentId + i, teacherId, createdAt, createdAt);
+                }
+            }
+        }
+
+        try (Batch batch = new Batch("evaluations", "id, student_id, teacher_id, content, grade, created_at, updated_at")) {
+            long id = 1;
+            for (int i = 0; i < students; i++) {
+                long teacherId = firstTeacherId + firstClass[i] / scale.classesPerTeacher();
+                for (int j = 0; j < scale.evaluationsPerStudent(); j++) {
+                    Timestamp createdAt = ts(now.minusDays(random.nextInt(120)));
+                    batch.add(id++, firstStudentId + i, teacherId, "第" + (j + 1) + "次阶段评价：学习态度认真，按时完成任务。",
+                            GRADES[random.nextInt(GRADES.length)], createdAt, createdAt);
+                }
+            }
+        }
+
+        // 待处理申请来自尚未加入该班级的学生：学生加入的是 first 和 first + 1 两个班级，这里申请 first + 2
+        try (Batch batch = new Batch("class_applications", "id, student_id, class_id, status, message, created_at, updated_at")) {
+            if (classes > 2) {
+                long id = 1;
+                int[] pending = new int[classes];
+                for (int i = 0; i < students; i++) {
+                    int classIndex = (firstClass[i] + 2) % classes;
+                    if (pending[classIndex] < scale.pendingApplicationsPerClass()) {
+                        pending[classIndex]++;
+                        Timestamp createdAt = ts(now.minusHours(i % 72));
+                        batch.add(id++, firstStudentId + i, classIndex + 1L, ApplicationStatus.PENDING.name(),
+                                "申请加入班级" + classIndex, createdAt, createdAt);
+                    }
+                }
+            }
+        }
+
+        try (Batch batch = new Batch("system_logs", "id, operation_type, operation_detail, user_id, user_role, "
+                + "ip_address, created_at")) {
+            long id = 1;
+            long users = 1L + teachers + students;
+            for (long userId = 1; userId <= users; userId++) {
+                UserRole role = userId == 1 ? UserRole.ADMIN : userId < firstStudentId ? UserRole.TEACHER : UserRole.STUDENT;
+                for (int j = 0; j < scale.logsPerUser(); j++) {
+                    OperationType type = LOG_TYPES[random.nextInt(LOG_TYPES.length)];
+                    batch.add(id++, type.name(), "用户" + userId + "执行了" + type.name(), userId, role.name(),
+                            "10.0." + (userId / 250 % 250) + "." + (userId % 250),
+                            ts(now.minusMinutes(random.nextInt(60 * 24 * 90))));
+                }
+            }
+        }
+
+        // 计数列与生成的关联数据保持一致
+        jdbcTemplate.update("UPDATE activities a SET current_participants = (SELECT COUNT(*) FROM activity_participations p "
+                + "WHERE p.activity_id = a.id AND p.status <> 'CANCELLED')");
+        jdbcTemplate.update("UPDATE classes c SET "
+                + "student_count = (SELECT COUNT(*) FROM class_students cs WHERE cs.class_id = c.id), "
+                + "goal_count = (SELECT COUNT(*) FROM learning_goals g JOIN class_students cs "
+                + "ON cs.student_id = g.student_id WHERE cs.class_id = c.id AND g.teacher_id = c.teacher_id), "
+                + "completed_goal_count = (SELECT COUNT(*) FROM learning_goals g JOIN class_students cs "
+                + "ON cs.student_id = g.student_id WHERE cs.class_id = c.id AND g.teacher_id = c.teacher_id "
+                + "AND g.status = 'COMPLETED')");
+        alignIdentities("users", "classes", "activities", "activity_participations", "learning_goals",
+                "evaluations", "class_applications", "system_logs");
+
+        logger.info("数据生成完成: " + students + " 名学生, " + teachers + " 名教师, " + classes + " 个班级, "
+                + activities + " 个活动, " + scale.participations() + " 条报名, 耗时 "
+                + (System.currentTimeMillis() - started) + "ms");
+        return new Dataset(firstStudentId, students, firstTeacherId, teachers, classes, activities, scale.hotActivities());
+    }
+
+    /**
+     * 显式写入主键后 H2 的自增序列不会随之前移，这里推进到最大主键之后；MySQL 的 AUTO_INCREMENT 会自动调整
+     */
+    private void alignIdentities(String... tables) {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"H2".equals(product)) {
+            return;
+        }
+        for (String table : tables) {
+            Long next = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table, Long.class);
+            jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+        }
+    }
+
+    private String avatar(int i) {
+        return i % 3 == 0 ? null : "uploads/avatars/" + String.format("%064x", i) + ".png";
+    }
+
+    private Timestamp ts(LocalDateTime time) {
+        return Timestamp.valueOf(time);
+    }
+
+    /**
+     * 单表分批写入，攒满一批即提交，关闭时写入剩余的行
+     */
+    private class Batch implements AutoCloseable {
+        private final String table;
+        private final String sql;
+        private final List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        private long total;
+
+        Batch(String table, String columns) {
+            this.table = table;
+            int count = columns.split(",").length;
+            this.sql = "INSERT INTO " + table + " (" + columns + ") VALUES (?" + ", ?".repeat(count - 1) + ")";
+        }
+
+        void add(Object... row) {
+            rows.add(row);
+            if (rows.size() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(sql, rows);
+                total += rows.size();
+                rows.clear();
+                if (total % 100_000 == 0) {
+                    logger.info(table + ": 已写入 " + total + " 行");
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            flush();
+            logger.fine(table + ": 共写入 " + total + " 行");
+        }
+    }
+}
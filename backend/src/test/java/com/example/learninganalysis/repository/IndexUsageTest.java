@@ -0,0 +1,189 @@
+package com.example.learninganalysis.repository;
+
+import com.example.learninganalysis.MariaDbTestSupport;
+import com.example.learninganalysis.model.Activity;
+import com.example.learninganalysis.model.ApplicationStatus;
+import com.example.learninganalysis.model.ParticipationStatus;
+import com.example.learninganalysis.model.User;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 索引使用测试
+ *
+ * 在嵌入式 MariaDB 上执行全部迁移并填充合成数据，调用各索引对应的仓库方法，
+ * 取得 Hibernate 实际生成的 SQL，代入参数后执行 EXPLAIN，断言执行计划的 key 列为预期索引。
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.learninganalysis.repository.CapturingStatementInspector")
+@ActiveProfiles("test")
+class IndexUsageTest {
+
+    private static final int STUDENTS = 5000;
+
+    private static final String[] ANALYZED_TABLES = {
+            "activities", "activity_participations", "class_applications", "evaluations", "learning_goals"};
+
+    /** 游标行：排序时间与主键 */
+    private static final RowMapper<Object[]> CURSOR_ROW = (rs, rowNum) ->
+            new Object[] {rs.getObject(1, LocalDateTime.class), rs.getLong(2)};
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        MariaDbTestSupport.register(registry, "la_index");
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private ActivityParticipationRepository participationRepository;
+
+    @Autowired
+    private ClassApplicationRepository applicationRepository;
+
+    @Autowired
+    private EvaluationRepository evaluationRepository;
+
+    @Autowired
+    private LearningGoalRepository goalRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * 一条待检查的查询：invocation 调用仓库方法，literals 按 SQL 中占位符的顺序给出参数字面量
+     */
+    private record Check(String query, String index, Runnable invocation, String... literals) {
+    }
+
+    @TestFactory
+    Stream<DynamicTest> queriesUseExpectedIndexes() {
+        Long users = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+        if (users == null || users == 0) {
+            new DatasetSeeder(jdbcTemplate).seed(STUDENTS);
+        }
+        // 统计信息更新后优化器才会按真实数据分布选择索引
+        for (String table : ANALYZED_TABLES) {
+            jdbcTemplate.queryForList("ANALYZE TABLE " + table);
+        }
+
+        // 取一组实际存在的主键作为参数
+        Long teacherId = jdbcTemplate.queryForObject("SELECT MIN(teacher_id) FROM learning_goals", Long.class);
+        Map<String, Object> evaluation = jdbcTemplate.queryForMap("SELECT student_id, teacher_id FROM evaluations ORDER BY id LIMIT 1");
+        Long studentId = ((Number) evaluation.get("student_id")).longValue();
+        Long evaluationTeacherId = ((Number) evaluation.get("teacher_id")).longValue();
+        Long activityId = jdbcTemplate.queryForObject("SELECT MIN(activity_id) FROM activity_participations", Long.class);
+        Long classId = jdbcTemplate.queryForObject("SELECT MIN(class_id) FROM class_applications", Long.class);
+        LocalDateTime from = jdbcTemplate.queryForObject("SELECT MIN(start_time) FROM activities", LocalDateTime.class);
+        LocalDateTime to = from.plusDays(1);
+        Activity activity = activityRepository.findById(activityId).orElseThrow();
+        User teacher = userRepository.findById(teacherId).orElseThrow();
+        User student = userRepository.findById(studentId).orElseThrow();
+        User evaluationTeacher = userRepository.findById(evaluationTeacherId).orElseThrow();
+        Activity.ActivityType type = Activity.ActivityType.LECTURE;
+        // 键集分页检查翻到第二页：游标取排序后第 50 个活动、第 10 个目标
+        Object[] activityCursor = jdbcTemplate.queryForObject(
+                "SELECT start_time, id FROM activities ORDER BY start_time DESC, id DESC LIMIT 1 OFFSET 49", CURSOR_ROW);
+        LocalDateTime afterStartTime = (LocalDateTime) activityCursor[0];
+        Long afterActivityId = (Long) activityCursor[1];
+        Object[] goalCursor = jdbcTemplate.queryForObject(
+                "SELECT created_at, id FROM learning_goals WHERE teacher_id = ? ORDER BY created_at DESC, id DESC LIMIT 1 OFFSET 9",
+                CURSOR_ROW, teacherId);
+        LocalDateTime afterCreatedAt = (LocalDateTime) goalCursor[0];
+        Long afterGoalId = (Long) goalCursor[1];
+
+        String fromLiteral = "'" + from + "'";
+        String toLiteral = "'" + to + "'";
+        List<Check> checks = List.of(
+                new Check("ActivityRepository.findByStartTimeBetween", "idx_activities_start_time",
+                        () -> activityRepository.findByStartTimeBetween(from, to), fromLiteral, toLiteral),
+                new Check("ActivityRepository.findTop5ByOrderByStartTimeDesc", "idx_activities_start_time",
+                        activityRepository::findTop5ByOrderByStartTimeDesc, "5"),
+                new Check("ActivityRepository.findByTypeAndStartTimeBetween", "idx_activities_type_start_time",
+                        () -> activityRepository.findByTypeAndStartTimeBetween(type, from, to.plusDays(30)),
+                        "'" + type + "'", fromLiteral, "'" + to.plusDays(30) + "'"),
+                new Check("ActivityRepository.findByTypeOrderByStartTimeDesc", "idx_activities_type_start_time",
+                        () -> activityRepository.findByTypeOrderByStartTimeDesc(type), "'" + type + "'"),
+                new Check("ActivityParticipationRepository.findByActivityAndStatus", "idx_activity_participations_activity_status_waitlist",
+                        () -> participationRepository.findByActivityAndStatus(activity, ParticipationStatus.REGISTERED),
+                        activityId.toString(), "'REGISTERED'"),
+                new Check("ActivityParticipationRepository.countRegisteredParticipants", "idx_activity_participations_activity_status_waitlist",
+                        () -> participationRepository.countRegisteredParticipants(activity), activityId.toString()),
+                new Check("ActivityParticipationRepository.countWaitlistAhead", "idx_activity_participations_activity_status_waitlist",
+                        () -> participationRepository.countWaitlistAhead(activityId, from, Long.MAX_VALUE),
+                        activityId.toString(), fromLiteral, fromLiteral, Long.toString(Long.MAX_VALUE)),
+                new Check("ClassApplicationRepository.findByClassEntityIdAndStatus", "idx_class_applications_class_status",
+                        () -> applicationRepository.findByClassEntityIdAndStatus(classId, ApplicationStatus.PENDING),
+                        classId.toString(), "'PENDING'"),
+                new Check("EvaluationRepository.findRowsByStudentIdAndTeacherId", "idx_evaluations_student_teacher_created_at",
+                        () -> evaluationRepository.findRowsByStudentIdAndTeacherId(studentId, evaluationTeacherId),
+                        studentId.toString(), evaluationTeacherId.toString()),
+                new Check("EvaluationRepository.findByStudentAndTeacherOrderByCreatedAtDesc", "idx_evaluations_student_teacher_created_at",
+                        () -> evaluationRepository.findByStudentAndTeacherOrderByCreatedAtDesc(student, evaluationTeacher),
+                        studentId.toString(), evaluationTeacherId.toString()),
+                new Check("ActivityRepository.findListingWithParticipation", "idx_activities_start_time",
+                        () -> activityRepository.findListingWithParticipation(studentId, afterStartTime, afterActivityId,
+                                PageRequest.of(0, 51)),
+                        studentId.toString(), afterActivityId.toString(), "'" + afterStartTime + "'",
+                        "'" + afterStartTime + "'", afterActivityId.toString(), "'" + afterStartTime + "'",
+                        afterActivityId.toString(), "0", "51"),
+                new Check("LearningGoalRepository.findTeacherPage", "idx_learning_goals_teacher_created_at",
+                        () -> goalRepository.findTeacherPage(teacher, afterCreatedAt, afterGoalId, PageRequest.of(0, 51)),
+                        teacherId.toString(), afterGoalId.toString(), "'" + afterCreatedAt + "'",
+                        "'" + afterCreatedAt + "'", afterGoalId.toString(), "0", "51"));
+
+        return checks.stream().map(check -> DynamicTest.dynamicTest(check.query(), () -> assertIndexUsed(check)));
+    }
+
+    private void assertIndexUsed(Check check) {
+        CapturingStatementInspector.reset();
+        check.invocation().run();
+        String sql = bind(CapturingStatementInspector.first(), check.literals());
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + sql);
+        assertTrue(plan.stream().anyMatch(row -> check.index().equalsIgnoreCase(String.valueOf(row.get("key")))),
+                () -> check.query() + " 未使用索引 " + check.index() + "\nSQL: " + sql + "\n"
+                        + plan.stream().map(String::valueOf).collect(Collectors.joining("\n")));
+    }
+
+    /**
+     * 按顺序把占位符替换为字面量
+     */
+    private static String bind(String sql, String... literals) {
+        StringBuilder bound = new StringBuilder();
+        int next = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                if (next >= literals.length) {
+                    throw new IllegalStateException("参数个数不足: " + sql);
+                }
+                bound.append(literals[next++]);
+            } else {
+                bound.append(c);
+            }
+        }
+        if (next != literals.length) {
+            throw new IllegalStateException("参数个数不符: " + sql);
+        }
+        return bound.toString();
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.MariaDbTestSupport;
+import com.example.learninganalysis.dto.ActivityListItem;
+import com.example.learninganalysis.dto.CursorPage;
+import com.example.learninganalysis.model.Activity;
+import com.example.learninganalysis.model.ParticipationStatus;
+import com.example.learninganalysis.model.User;
+import com.example.learninganalysis.model.UserRole;
+import com.example.learninganalysis.repository.ActivityRepository;
+import com.example.learninganalysis.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 活动列表查询语句数回归测试
+ *
+ * 活动列表的活动、创建者和当前用户的参与状态由一条投影查询返回。这里分别在 5 个和 100 个活动
+ * （其中一半已报名）时统计 Hibernate 实际执行的语句数，两者都必须恰好是一条，
+ * 防止列表转换重新引入逐条加载创建者或参与记录的 N+1 查询。
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class ActivityListingQueryCountTest {
+
+    private static final int LISTING_STATEMENTS = 1;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        MariaDbTestSupport.register(registry, "la_listing");
+    }
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void listingUsesOneStatementRegardlessOfActivityCount() {
+        User teacher = userRepository.save(user("listing_teacher", UserRole.TEACHER));
+        String student = userRepository.save(user("listing_student", UserRole.STUDENT)).getUsername();
+
+        createActivities(teacher, student, 5);
+        assertListingStatements(student, 5);
+
+        createActivities(teacher, student, 95);
+        assertListingStatements(student, 100);
+    }
+
+    private void assertListingStatements(String username, int activities) {
+        // 先列一次，让用户解析缓存就绪，只统计列表本身的语句
+        studentService.getActivities(username, null, CursorPage.MAX_LIMIT);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        CursorPage<ActivityListItem> page = studentService.getActivities(username, null, CursorPage.MAX_LIMIT);
+
+        assertEquals(activities, page.items().size(), "活动数");
+        assertEquals((activities + 1) / 2, page.items().stream()
+                .filter(item -> item.participationStatus() == ParticipationStatus.REGISTERED).count(), "已报名活动数");
+        assertEquals(LISTING_STATEMENTS, statistics.getPrepareStatementCount(),
+                activities + " 个活动的列表语句数");
+    }
+
+    /**
+     * 创建指定数量的活动，学生报名其中序号为偶数的活动
+     */
+    private void createActivities(User teacher, String student, int count) {
+        List<Activity> created = new ArrayList<>();
+        long existing = activityRepository.count();
+        for (int i = 0; i < count; i++) {
+            Activity activity = new Activity();
+            activity.setTitle("列表活动" + (existing + i));
+            activity.setLocation("教学楼");
+            activity.setOrganizer("学生会");
+            activity.setType(Activity.ActivityType.WORKSHOP);
+            activity.setMaxParticipants(30);
+            activity.setStartTime(LocalDateTime.now().plusDays(1).plusMinutes(existing + i));
+            activity.setEndTime(LocalDateTime.now().plusDays(1).plusMinutes(existing + i + 60));
+            activity.setCreator(teacher);
+            created.add(activityRepository.save(activity));
+        }
+        for (int i = 0; i < count; i++) {
+            if ((existing + i) % 2 == 0) {
+                studentService.registerActivity(created.get(i).getId(), student);
+            }
+        }
+    }
+
+    private static User user(String username, UserRole role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("{noop}unused");
+        user.setRole(role);
+        user.setName(username);
+        return user;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.MariaDbTestSupport;
+import com.example.learninganalysis.model.Activity;
+import com.example.learninganalysis.model.User;
+import com.example.learninganalysis.model.UserRole;
+import com.example.learninganalysis.repository.ActivityRepository;
+import com.example.learninganalysis.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 活动状态定时切换测试
+ *
+ * 刻度为 1 秒，开始、结束时间落在刻度中间时切换不能提前执行而丢失；
+ * 时间在数据库中被改晚而时间轮未收到通知时，提前执行的切换须按数据库中的时间重新安排；
+ * 已取消的活动到结束时间后仍保持已取消。
+ */
+@SpringBootTest(properties = "activity.status.tick-ms=1000")
+@ActiveProfiles("test")
+class ActivityStatusSchedulerTest {
+
+    private static final AtomicInteger RUN = new AtomicInteger();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        MariaDbTestSupport.register(registry, "la_status");
+    }
+
+    @Autowired
+    private ActivityStatusScheduler activityStatusScheduler;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User teacher;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("status_teacher" + RUN.incrementAndGet());
+        user.setPassword("{noop}unused");
+        user.setRole(UserRole.TEACHER);
+        user.setName(user.getUsername());
+        teacher = userRepository.save(user);
+    }
+
+    @Test
+    void transitionsInsideTickAreNotLost() throws Exception {
+        // 开始、结束时间都在整秒之后 700 毫秒，按刻度向下取整会提前 700 毫秒执行
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(2).plusNanos(700_000_000);
+        Activity activity = save(start, start.plusSeconds(2));
+
+        awaitStatus(activity.getId(), Activity.ActivityStatus.ONGOING, start);
+        awaitStatus(activity.getId(), Activity.ActivityStatus.COMPLETED, start.plusSeconds(2));
+    }
+
+    @Test
+    void startMovedLaterWithoutNoticeIsRescheduled() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusSeconds(2);
+        Activity activity = save(start, start.plusSeconds(10));
+
+        // 绕过服务直接改库，时间轮仍按原开始时间执行，条件不成立；取整秒，与库中保存的精度一致
+        LocalDateTime movedStart = start.truncatedTo(ChronoUnit.SECONDS).plusSeconds(2);
+        jdbcTemplate.update("UPDATE activities SET start_time = ? WHERE id = ?", movedStart, activity.getId());
+
+        awaitStatus(activity.getId(), Activity.ActivityStatus.ONGOING, movedStart);
+    }
+
+    @Test
+    void cancelledActivityIsNotCompleted() throws Exception {
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        Activity activity = save(start, start.plusSeconds(1));
+
+        // 与教师取消活动相同：保存后通知时间轮
+        activity.setStatus(Activity.ActivityStatus.CANCELLED);
+        activityStatusScheduler.onActivitySaved(activityRepository.save(activity));
+
+        awaitPast(start.plusSeconds(3));
+        assertEquals(Activity.ActivityStatus.CANCELLED.name(), currentStatus(activity.getId()));
+    }
+
+    @Test
+    void cancelledWithoutNoticeIsNotCompleted() throws Exception {
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        Activity activity = save(start, start.plusSeconds(1));
+
+        // 绕过服务直接取消，时间轮中仍有结束切换，到期时条件不成立且不再重新安排
+        jdbcTemplate.update("UPDATE activities SET status = 'CANCELLED' WHERE id = ?", activity.getId());
+
+        awaitPast(start.plusSeconds(3));
+        assertEquals(Activity.ActivityStatus.CANCELLED.name(), currentStatus(activity.getId()));
+    }
+
+    private void awaitPast(LocalDateTime time) throws InterruptedException {
+        while (LocalDateTime.now().isBefore(time)) {
+            Thread.sleep(50);
+        }
+    }
+
+    private Activity save(LocalDateTime start, LocalDateTime end) {
+        Activity activity = new Activity();
+        activity.setTitle("状态切换活动");
+        activity.setLocation("操场");
+        activity.setOrganizer("体育部");
+        activity.setType(Activity.ActivityType.OTHER);
+        activity.setMaxParticipants(10);
+        activity.setStartTime(start);
+        activity.setEndTime(end);
+        activity.setCreator(teacher);
+        Activity saved = activityRepository.save(activity);
+        activityStatusScheduler.onActivitySaved(saved);
+        return saved;
+    }
+
+    /**
+     * 等待活动切换到指定状态，切换不得早于 notBefore，超过 notBefore 后 5 秒仍未切换则失败
+     */
+    private void awaitStatus(Long id, Activity.ActivityStatus expected, LocalDateTime notBefore) throws InterruptedException {
+        LocalDateTime deadline = notBefore.plusSeconds(5);
+        String status = currentStatus(id);
+        while (!expected.name().equals(status) && LocalDateTime.now().isBefore(deadline)) {
+            Thread.sleep(50);
+            status = currentStatus(id);
+        }
+        assertEquals(expected.name(), status, "活动状态");
+        assertFalse(LocalDateTime.now().isBefore(notBefore), "切换早于预定时间");
+    }
+
+    private String currentStatus(Long id) {
+        return jdbcTemplate.queryForObject("SELECT status FROM activities WHERE id = ?", String.class, id);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.model.OperationType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 审计日志写入器关闭测试
+ *
+ * 关闭过程中及关闭后提交成功的日志都必须写入，不能在后台线程最后一次取队列之后留在队列里。
+ */
+class AuditLogWriterTest {
+
+    private static final int SUBMITTERS = 8;
+
+    private final AuditLogWriter writer = new AuditLogWriter();
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final AtomicLong written = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any())).thenAnswer(invocation -> {
+            written.addAndGet(((Collection<?>) invocation.getArgument(1)).size());
+            return new int[0][];
+        });
+        ReflectionTestUtils.setField(writer, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(writer, "queueCapacity", 100_000);
+        ReflectionTestUtils.setField(writer, "batchSize", 200);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 50L);
+        ReflectionTestUtils.setField(writer, "offerTimeoutMs", 0L);
+        ReflectionTestUtils.setField(writer, "shutdownTimeoutMs", 10_000L);
+        writer.start();
+    }
+
+    @Test
+    void entrySubmittedAfterStopIsWritten() {
+        writer.stop();
+
+        assertTrue(writer.submit(OperationType.USER_LOGIN, "关闭后登录", "student1", null, "10.0.0.1"));
+        assertEquals(1, written.get());
+    }
+
+    @Test
+    void everyAcceptedEntryIsWrittenWhileStopping() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(SUBMITTERS);
+        AtomicLong accepted = new AtomicLong();
+        AtomicBoolean stopped = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(SUBMITTERS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < SUBMITTERS; i++) {
+                futures.add(executor.submit(() -> {
+                    started.countDown();
+                    // 关闭前后都在提交，关闭后再提交一段时间
+                    long extra = 0;
+                    while (extra < 1000) {
+                        if (writer.submit(OperationType.USER_LOGIN, "登录", "student1", null, "10.0.0.1")) {
+                            accepted.incrementAndGet();
+                        }
+                        if (stopped.get()) {
+                            extra++;
+                        }
+                    }
+                }));
+            }
+            started.await();
+            Thread.sleep(20);
+            writer.stop();
+            stopped.set(true);
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(accepted.get(), written.get(), "已接受的日志全部写入");
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.learninganalysis.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 头像缩略图排队测试
+ *
+ * 列表页每次请求都会调用 thumbnailUrl，无法生成缩略图的头像不能每次都重新排队。
+ */
+class AvatarStorageServiceTest {
+
+    @TempDir
+    Path storageDir;
+
+    private final AvatarStorageService service = new AvatarStorageService();
+    private final CountingExecutor executor = new CountingExecutor();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(service, "storageDir", storageDir.toString());
+        ReflectionTestUtils.setField(service, "maxBytes", 1024 * 1024L);
+        ReflectionTestUtils.setField(service, "thumbnailSizes", new int[]{64, 256});
+        ReflectionTestUtils.setField(service, "maxPixels", 40_000_000L);
+        ReflectionTestUtils.setField(service, "resizeThreads", 1);
+        service.start();
+        service.stop();
+        ReflectionTestUtils.setField(service, "resizeExecutor", executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void webpAvatarIsNeverQueued() throws Exception {
+        byte[] webp = "RIFF\0\0\0\0WEBPVP8 ".getBytes(StandardCharsets.ISO_8859_1);
+        String url = service.store(new MockMultipartFile("file", "a.webp", "image/webp", webp));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(url, service.thumbnailUrl(url));
+        }
+        assertEquals(0, executor.tasks.get());
+    }
+
+    @Test
+    void undecodableAvatarIsQueuedOnce() throws Exception {
+        // 文件头是 PNG 但内容损坏，解码失败后不再排队
+        byte[] corrupt = new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 1, 2, 3, 4};
+        String url = service.store(new MockMultipartFile("file", "a.png", "image/png", corrupt));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(url, service.thumbnailUrl(url));
+        }
+        assertEquals(1, executor.tasks.get());
+    }
+
+    @Test
+    void decodableAvatarGetsThumbnail() throws Exception {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(300, 200, BufferedImage.TYPE_INT_ARGB), "png", png);
+        String url = service.store(new MockMultipartFile("file", "a.png", "image/png", png.toByteArray()));
+
+        assertEquals(url.replace(".png", "-64.png"), service.thumbnailUrl(url));
+        assertEquals(1, executor.tasks.get());
+    }
+
+    /**
+     * 在调用线程上直接执行并计数的执行器
+     */
+    private static class CountingExecutor extends AbstractExecutorService {
+        final AtomicInteger tasks = new AtomicInteger();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.incrementAndGet();
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.MariaDbTestSupport;
+import com.example.learninganalysis.model.ApplicationStatus;
+import com.example.learninganalysis.model.ClassEntity;
+import com.example.learninganalysis.model.User;
+import com.example.learninganalysis.model.UserRole;
+import com.example.learninganalysis.repository.ClassApplicationRepository;
+import com.example.learninganalysis.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 班级申请批量处理测试
+ *
+ * 批量批准按申请ID顺序逐条返回结果，不存在、不属于本教师、已处理的申请不会被批准；
+ * 已在班级中的学生不会重复加入，班级人数计数与教师学生数始终等于实际成员数。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ClassApplicationBulkTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        MariaDbTestSupport.register(registry, "la_bulk_applications");
+    }
+
+    @Autowired
+    private ClassService classService;
+
+    @Autowired
+    private TeacherStatsService teacherStatsService;
+
+    @Autowired
+    private TeacherService teacherService;
+
+    @Autowired
+    private ClassApplicationRepository classApplicationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void bulkApprovalReportsEachItemAndKeepsCountersExact() {
+        User teacher = userRepository.save(user("bulk_teacher", UserRole.TEACHER));
+        User otherTeacher = userRepository.save(user("bulk_other_teacher", UserRole.TEACHER));
+        ClassEntity classEntity = classService.createClass(newClass("批量班"), teacher);
+        ClassEntity otherClass = classService.createClass(newClass("他人班"), otherTeacher);
+        teacherStatsService.getOrRebuild(teacher.getId());
+
+        List<User> students = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            students.add(userRepository.save(user("bulk_student" + i, UserRole.STUDENT)));
+        }
+        Long first = apply(students.get(0), classEntity);
+        Long second = apply(students.get(1), classEntity);
+        Long third = apply(students.get(2), classEntity);
+        Long foreign = apply(students.get(3), otherClass);
+        Long rejected = apply(students.get(4), classEntity);
+        classService.processApplication(rejected, ApplicationStatus.REJECTED, "名额已满", teacher.getId());
+        // 申请待处理期间学生已被单独加入班级
+        teacherService.addStudentToClass(classEntity.getId(), students.get(1).getId(), teacher.getUsername());
+
+        List<Map<String, Object>> results = classService.processApplications(
+                List.of(first, second, third, foreign, rejected, -1L, first),
+                ApplicationStatus.APPROVED, null, teacher.getId());
+
+        // 重复的ID只处理一次，结果顺序与请求一致
+        assertEquals(List.of(first, second, third, foreign, rejected, -1L),
+                results.stream().map(result -> result.get("id")).toList());
+        assertEquals(List.of(true, true, true, false, false, false),
+                results.stream().map(result -> result.get("success")).toList());
+        assertEquals("您无权处理此申请", results.get(3).get("error"));
+        assertEquals("该申请已处理", results.get(4).get("error"));
+        assertEquals("申请不存在", results.get(5).get("error"));
+
+        assertEquals(ApplicationStatus.APPROVED, classApplicationRepository.findById(first).orElseThrow().getStatus());
+        assertEquals(ApplicationStatus.PENDING, classApplicationRepository.findById(foreign).orElseThrow().getStatus());
+        assertEquals(ApplicationStatus.REJECTED, classApplicationRepository.findById(rejected).orElseThrow().getStatus());
+
+        List<Long> members = jdbcTemplate.queryForList(
+                "SELECT student_id FROM class_students WHERE class_id = ? ORDER BY student_id", Long.class, classEntity.getId());
+        assertEquals(List.of(students.get(0).getId(), students.get(1).getId(), students.get(2).getId()), members);
+        assertEquals(members.size(), studentCount(classEntity.getId()), "班级人数计数");
+        assertEquals(0, studentCount(otherClass.getId()), "其他教师班级的人数计数");
+        assertEquals(members.size(), teacherStatsService.getOrRebuild(teacher.getId()).getStudentCount(), "教师学生数");
+
+        // 再次批准同一批申请全部失败，成员与计数不变
+        List<Map<String, Object>> again = classService.processApplications(List.of(first, second, third),
+                ApplicationStatus.APPROVED, null, teacher.getId());
+        assertEquals(List.of(false, false, false), again.stream().map(result -> result.get("success")).toList());
+        assertEquals(members.size(), studentCount(classEntity.getId()));
+    }
+
+    private Long apply(User student, ClassEntity classEntity) {
+        return classService.applyToJoinClass(student.getId(), classEntity.getId(), "申请加入").getId();
+    }
+
+    private int studentCount(Long classId) {
+        return jdbcTemplate.queryForObject("SELECT student_count FROM classes WHERE id = ?", Integer.class, classId);
+    }
+
+    private static ClassEntity newClass(String name) {
+        ClassEntity classEntity = new ClassEntity();
+        classEntity.setName(name);
+        return classEntity;
+    }
+
+    private static User user(String username, UserRole role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("{noop}unused");
+        user.setRole(role);
+        user.setName(username);
+        return user;
+    }
+}
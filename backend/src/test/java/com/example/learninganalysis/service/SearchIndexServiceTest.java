@@ -0,0 +1,203 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.dto.SearchHit;
+import com.example.learninganalysis.model.Activity;
+import com.example.learninganalysis.model.ClassEntity;
+import com.example.learninganalysis.model.User;
+import com.example.learninganalysis.model.UserRole;
+import com.example.learninganalysis.repository.ActivityRepository;
+import com.example.learninganalysis.repository.ClassRepository;
+import com.example.learninganalysis.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 检索索引增量更新与全量重建测试
+ *
+ * 活动、班级、用户的增量写入与删除后检索结果立即正确，旧文本不再命中；
+ * 教师只能检索到自己班级中的学生，成员关系随加入、离开、班级换教师、删除班级变化；
+ * 重建读取期间提交的写入（含成员变化）在切换后保留，不被重建读到的旧数据覆盖。
+ */
+class SearchIndexServiceTest {
+
+    private final SearchIndexService searchIndexService = new SearchIndexService();
+    private final ActivityRepository activityRepository = mock(ActivityRepository.class);
+    private final ClassRepository classRepository = mock(ClassRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    // 重建时数据库中的数据，行格式与各 findSearchRows 查询一致
+    private final List<Object[]> activityRows = new ArrayList<>();
+    private final List<Object[]> classRows = new ArrayList<>();
+    private final List<Object[]> userRows = new ArrayList<>();
+    private final List<Object[]> memberRows = new ArrayList<>();
+    private Runnable duringBuild = () -> { };
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(searchIndexService, "activityRepository", activityRepository);
+        ReflectionTestUtils.setField(searchIndexService, "classRepository", classRepository);
+        ReflectionTestUtils.setField(searchIndexService, "userRepository", userRepository);
+        // 每块 2 行，数据跨多个分块
+        ReflectionTestUtils.setField(searchIndexService, "buildChunkSize", 2);
+        when(activityRepository.findSearchRows(anyLong(), any())).thenAnswer(invocation -> {
+            // 重建开始读取之后、切换之前提交的写入
+            Runnable action = duringBuild;
+            duringBuild = () -> { };
+            action.run();
+            return chunk(activityRows, invocation.getArgument(0), invocation.getArgument(1));
+        });
+        when(classRepository.findSearchRows(anyLong(), any())).thenAnswer(invocation ->
+                chunk(classRows, invocation.getArgument(0), invocation.getArgument(1)));
+        when(userRepository.findSearchRows(anyLong(), any())).thenAnswer(invocation ->
+                chunk(userRows, invocation.getArgument(0), invocation.getArgument(1)));
+        when(classRepository.findMemberRows(anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            Long afterClassId = invocation.getArgument(0);
+            Long afterStudentId = invocation.getArgument(1);
+            Pageable page = invocation.getArgument(2);
+            return memberRows.stream()
+                    .filter(row -> (Long) row[0] > afterClassId
+                            || ((Long) row[0]).equals(afterClassId) && (Long) row[1] > afterStudentId)
+                    .limit(page.getPageSize())
+                    .toList();
+        });
+    }
+
+    @Test
+    void incrementalUpdatesAreSearchable() {
+        searchIndexService.rebuild();
+
+        searchIndexService.onActivitySaved(activity(1L, "数学竞赛", 10L));
+        assertEquals(Set.of(1L), ids(searchIndexService.searchForStudent("数学", null, null)));
+        searchIndexService.onActivitySaved(activity(1L, "物理实验", 10L));
+        assertEquals(Set.of(), ids(searchIndexService.searchForStudent("数学", null, null)));
+        assertEquals(Set.of(1L), ids(searchIndexService.searchForStudent("物理", null, null)));
+        searchIndexService.onActivityDeleted(1L);
+        assertEquals(Set.of(), ids(searchIndexService.searchForStudent("物理", null, null)));
+        assertEquals(0L, searchIndexService.getMetrics().get("grams"), "删除后残留的倒排项");
+
+        searchIndexService.onUserSaved(10L, "teacher10", "王老师", UserRole.TEACHER);
+        searchIndexService.onUserSaved(11L, "teacher11", "李老师", UserRole.TEACHER);
+        searchIndexService.onUserSaved(20L, "student20", "张三", UserRole.STUDENT);
+        searchIndexService.onUserSaved(21L, "student21", "张四", UserRole.STUDENT);
+        searchIndexService.onClassSaved(classEntity(100L, "一班", 10L, "王老师"));
+        searchIndexService.onClassSaved(classEntity(101L, "二班", 10L, "王老师"));
+        assertEquals(Set.of(), students(10L));
+
+        searchIndexService.onStudentJoined(100L, 20L);
+        searchIndexService.onStudentJoined(101L, 20L);
+        searchIndexService.onStudentJoined(100L, 21L);
+        assertEquals(Set.of(20L, 21L), students(10L));
+        assertEquals(Set.of(), students(11L));
+
+        // 离开一个班级后仍在该教师的另一个班级中
+        searchIndexService.onStudentLeft(100L, 20L);
+        assertEquals(Set.of(20L, 21L), students(10L));
+        searchIndexService.onStudentLeft(101L, 20L);
+        assertEquals(Set.of(21L), students(10L));
+
+        // 教师改名后班级文档中的教师姓名同步更新
+        searchIndexService.onUserSaved(10L, "teacher10", "王明", UserRole.TEACHER);
+        assertEquals(Set.of(100L, 101L), ids(searchIndexService.searchForStudent("王明", "CLASS", null)));
+
+        // 班级换教师后学生随之转到新教师名下
+        searchIndexService.onClassSaved(classEntity(100L, "一班", 11L, "李老师"));
+        assertEquals(Set.of(), students(10L));
+        assertEquals(Set.of(21L), students(11L));
+        assertEquals(Set.of(100L), ids(searchIndexService.searchForTeacher(11L, "一班", "CLASS", null)));
+
+        searchIndexService.onClassDeleted(100L);
+        assertEquals(Set.of(), students(11L));
+        assertEquals(Set.of(), ids(searchIndexService.searchForStudent("一班", null, null)));
+    }
+
+    @Test
+    void rebuildKeepsUpdatesCommittedWhileBuilding() {
+        // 首次构建前索引为空，重建读到的是写入前的数据
+        activityRows.add(activityRow(1L, "数学竞赛", 10L));
+        activityRows.add(activityRow(2L, "英语角", 10L));
+        activityRows.add(activityRow(4L, "美术展", 10L));
+        classRows.add(new Object[] {100L, "一班", null, 10L, "王老师"});
+        userRows.add(new Object[] {10L, "teacher10", "王老师", UserRole.TEACHER});
+        userRows.add(new Object[] {20L, "student20", "张三", UserRole.STUDENT});
+        userRows.add(new Object[] {21L, "student21", "张四", UserRole.STUDENT});
+        userRows.add(new Object[] {22L, "student22", "张五", UserRole.STUDENT});
+        memberRows.add(new Object[] {100L, 20L});
+        memberRows.add(new Object[] {100L, 22L});
+        duringBuild = () -> {
+            searchIndexService.onActivitySaved(activity(1L, "物理竞赛", 10L));
+            searchIndexService.onActivityDeleted(2L);
+            searchIndexService.onActivitySaved(activity(3L, "化学实验", 10L));
+            searchIndexService.onStudentJoined(100L, 21L);
+            searchIndexService.onStudentLeft(100L, 20L);
+            searchIndexService.onClassSaved(classEntity(101L, "二班", 10L, "王老师"));
+            searchIndexService.onStudentJoined(101L, 20L);
+        };
+
+        searchIndexService.rebuild();
+
+        assertEquals(Set.of(), ids(searchIndexService.searchForStudent("数学", null, null)));
+        assertEquals(Set.of(1L), ids(searchIndexService.searchForStudent("物理", null, null)));
+        assertEquals(Set.of(), ids(searchIndexService.searchForStudent("英语", null, null)));
+        assertEquals(Set.of(3L), ids(searchIndexService.searchForStudent("化学", null, null)));
+        assertEquals(Set.of(4L), ids(searchIndexService.searchForStudent("美术", null, null)));
+        assertEquals(Set.of(101L), ids(searchIndexService.searchForTeacher(10L, "二班", "CLASS", null)));
+        assertEquals(Set.of(20L, 21L, 22L), students(10L));
+
+        // 重建后的成员计数与逐条更新一致：学生 20 只剩二班，离开后不再属于该教师
+        searchIndexService.onStudentLeft(101L, 20L);
+        assertEquals(Set.of(21L, 22L), students(10L));
+        assertFalse((Boolean) searchIndexService.getMetrics().get("building"));
+    }
+
+    private Set<Long> students(Long teacherId) {
+        return ids(searchIndexService.searchForTeacher(teacherId, "张", "USER", null));
+    }
+
+    private static Set<Long> ids(List<SearchHit> hits) {
+        return hits.stream().map(SearchHit::id).collect(Collectors.toSet());
+    }
+
+    private static List<Object[]> chunk(List<Object[]> rows, Long afterId, Pageable page) {
+        return rows.stream().filter(row -> (Long) row[0] > afterId).limit(page.getPageSize()).toList();
+    }
+
+    private static Object[] activityRow(Long id, String title, Long creatorId) {
+        return new Object[] {id, title, null, null, null, creatorId};
+    }
+
+    private static Activity activity(Long id, String title, Long creatorId) {
+        User creator = new User();
+        creator.setId(creatorId);
+        Activity activity = new Activity();
+        activity.setId(id);
+        activity.setTitle(title);
+        activity.setCreator(creator);
+        return activity;
+    }
+
+    private static ClassEntity classEntity(Long id, String name, Long teacherId, String teacherName) {
+        User teacher = new User();
+        teacher.setId(teacherId);
+        teacher.setName(teacherName);
+        teacher.setRole(UserRole.TEACHER);
+        ClassEntity classEntity = new ClassEntity();
+        classEntity.setId(id);
+        classEntity.setName(name);
+        classEntity.setTeacher(teacher);
+        return classEntity;
+    }
+}
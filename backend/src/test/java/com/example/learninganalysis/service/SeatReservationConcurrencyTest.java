@@ -0,0 +1,237 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.MariaDbTestSupport;
+import com.example.learninganalysis.dto.WaitlistPosition;
+import com.example.learninganalysis.model.Activity;
+import com.example.learninganalysis.model.ParticipationStatus;
+import com.example.learninganalysis.model.User;
+import com.example.learninganalysis.model.UserRole;
+import com.example.learninganalysis.repository.ActivityParticipationRepository;
+import com.example.learninganalysis.repository.ActivityRepository;
+import com.example.learninganalysis.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * 名额预订并发测试
+ *
+ * 在嵌入式 MariaDB 上让多个线程同时报名、取消同一活动，确认已报名人数与 current_participants
+ * 始终等于名额数、其余报名进入候补，并输出并发报名的吞吐量；取消报名或增加名额后候补按入队顺序转正，
+ * 转正失败时名额修改一并回滚。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SeatReservationConcurrencyTest {
+    private static final Logger logger = Logger.getLogger(SeatReservationConcurrencyTest.class.getName());
+
+    private static final int SEATS = 10;
+    private static final int STUDENTS = 60;
+
+    private static final AtomicInteger RUN = new AtomicInteger();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        MariaDbTestSupport.register(registry, "la_seats");
+    }
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private TeacherService teacherService;
+
+    @SpyBean
+    private SeatReservationService seatReservationService;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private ActivityParticipationRepository participationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Activity activity;
+    private List<String> students;
+
+    @BeforeEach
+    void setUp() {
+        String prefix = "seat" + RUN.incrementAndGet() + "_";
+        User teacher = userRepository.save(user(prefix + "teacher", UserRole.TEACHER));
+        students = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            students.add(userRepository.save(user(prefix + "student" + i, UserRole.STUDENT)).getUsername());
+        }
+
+        Activity created = new Activity();
+        created.setTitle(prefix + "热门讲座");
+        created.setLocation("报告厅");
+        created.setOrganizer("教务处");
+        created.setType(Activity.ActivityType.LECTURE);
+        created.setMaxParticipants(SEATS);
+        created.setStartTime(LocalDateTime.now().plusDays(2));
+        created.setEndTime(LocalDateTime.now().plusDays(2).plusHours(2));
+        created.setCreator(teacher);
+        activity = activityRepository.save(created);
+    }
+
+    @Test
+    void concurrentRegistrationsNeverOversell() throws Exception {
+        long started = System.nanoTime();
+        runConcurrently(students, username -> studentService.registerActivity(activity.getId(), username));
+        double seconds = (System.nanoTime() - started) / 1e9;
+        logger.info(String.format("%d 个线程同时报名 %d 个名额，耗时 %.3f 秒，吞吐 %.0f 次/秒",
+                STUDENTS, SEATS, seconds, STUDENTS / seconds));
+
+        assertSeats(SEATS, STUDENTS - SEATS);
+    }
+
+    @Test
+    void concurrentCancellationsPromoteWaitlistInOrder() throws Exception {
+        for (String username : students) {
+            studentService.registerActivity(activity.getId(), username);
+        }
+        List<String> registered = students.subList(0, SEATS);
+        List<String> firstWaitlisted = students.subList(SEATS, SEATS * 2);
+
+        runConcurrently(registered, username -> studentService.cancelActivity(activity.getId(), username));
+
+        assertSeats(SEATS, STUDENTS - SEATS * 2);
+        for (String username : firstWaitlisted) {
+            assertEquals(ParticipationStatus.REGISTERED,
+                    studentService.getWaitlistPosition(activity.getId(), username).participationStatus(), username);
+        }
+    }
+
+    @Test
+    void editingActivityKeepsConcurrentSeatCount() {
+        // 教师编辑前读到的实体人数为 0，期间有学生报名，保存后不能把人数写回 0
+        Activity stale = activityRepository.findById(activity.getId()).orElseThrow();
+        studentService.registerActivity(activity.getId(), students.get(0));
+
+        stale.setTitle(stale.getTitle() + "（更新）");
+        activityRepository.save(stale);
+
+        assertSeats(1, 0);
+    }
+
+    @Test
+    void raisingCapacityPromotesWaitlist() {
+        for (String username : students.subList(0, SEATS + 3)) {
+            studentService.registerActivity(activity.getId(), username);
+        }
+
+        teacherService.updateActivity(activity.getId(), Map.<String, Object>of("maxParticipants", SEATS + 2),
+                activity.getCreator().getUsername());
+
+        assertSeats(SEATS + 2, 1);
+        // 按入队顺序转正，未转正的排到队首
+        assertStatus(students.get(SEATS), ParticipationStatus.REGISTERED, null);
+        assertStatus(students.get(SEATS + 1), ParticipationStatus.REGISTERED, null);
+        assertStatus(students.get(SEATS + 2), ParticipationStatus.WAITLISTED, 1L);
+    }
+
+    @Test
+    void cancellingPromotesWaitlistHead() {
+        for (String username : students.subList(0, SEATS + 2)) {
+            studentService.registerActivity(activity.getId(), username);
+        }
+
+        studentService.cancelActivity(activity.getId(), students.get(0));
+
+        assertSeats(SEATS, 1);
+        assertStatus(students.get(0), ParticipationStatus.CANCELLED, null);
+        assertStatus(students.get(SEATS), ParticipationStatus.REGISTERED, null);
+        assertStatus(students.get(SEATS + 1), ParticipationStatus.WAITLISTED, 1L);
+    }
+
+    @Test
+    void failedPromotionRollsBackCapacityChange() {
+        for (String username : students.subList(0, SEATS + 1)) {
+            studentService.registerActivity(activity.getId(), username);
+        }
+        doThrow(new RuntimeException("转正失败")).when(seatReservationService).promoteWaitlist(activity.getId());
+
+        assertThrows(RuntimeException.class, () -> teacherService.updateActivity(activity.getId(),
+                Map.<String, Object>of("maxParticipants", SEATS + 1), activity.getCreator().getUsername()));
+
+        // 名额修改与转正一起回滚，不会留下有空余名额却仍在候补的学生
+        assertEquals(SEATS, activityRepository.findById(activity.getId()).orElseThrow().getMaxParticipants());
+        assertSeats(SEATS, 1);
+    }
+
+    private void assertStatus(String username, ParticipationStatus status, Long position) {
+        WaitlistPosition waitlist = studentService.getWaitlistPosition(activity.getId(), username);
+        assertEquals(status, waitlist.participationStatus(), username);
+        assertEquals(position, waitlist.position(), username + " 的候补位置");
+    }
+
+    private void assertSeats(int registered, int waitlisted) {
+        Activity reloaded = activityRepository.findById(activity.getId()).orElseThrow();
+        assertEquals(registered, reloaded.getCurrentParticipants(), "current_participants");
+        assertEquals(registered, participationRepository.findByActivityAndStatus(reloaded, ParticipationStatus.REGISTERED).size(),
+                "REGISTERED 记录数");
+        assertEquals(waitlisted, participationRepository.findByActivityAndStatus(reloaded, ParticipationStatus.WAITLISTED).size(),
+                "WAITLISTED 记录数");
+    }
+
+    /**
+     * 所有线程就绪后同时开始，任一调用抛出异常时测试失败
+     */
+    private void runConcurrently(List<String> usernames, Consumer<String> action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(usernames.size());
+        try {
+            CountDownLatch ready = new CountDownLatch(usernames.size());
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<Object>> futures = new ArrayList<>();
+            for (String username : usernames) {
+                futures.add(executor.submit((Callable<Object>) () -> {
+                    ready.countDown();
+                    go.await();
+                    action.accept(username);
+                    return null;
+                }));
+            }
+            ready.await();
+            go.countDown();
+            for (Future<Object> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static User user(String username, UserRole role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("{noop}unused");
+        user.setRole(role);
+        user.setName(username);
+        return user;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.MariaDbTestSupport;
+import com.example.learninganalysis.model.ClassEntity;
+import com.example.learninganalysis.model.User;
+import com.example.learninganalysis.model.UserRole;
+import com.example.learninganalysis.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 学生批量导入测试
+ *
+ * 每块 3 行，文件内重复和与库中已有账号重复的行跨块也能查出；格式错误、缺少字段、班级不存在的行
+ * 按行号报告，其余行正常导入，密码以哈希保存，指定班级的学生加入班级且班级人数计数准确。
+ */
+@SpringBootTest(properties = "student.import.chunk-size=3")
+@ActiveProfiles("test")
+class StudentImportJobTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        MariaDbTestSupport.register(registry, "la_import");
+    }
+
+    @TempDir
+    Path tempDir;
+
+    @Autowired
+    private StudentImportJob studentImportJob;
+
+    @Autowired
+    private ClassService classService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void importDedupesAndReportsBadRows() throws Exception {
+        User existing = user("imp_existing", UserRole.STUDENT);
+        existing.setEmail("taken@example.com");
+        userRepository.save(existing);
+        User teacher = userRepository.save(user("imp_teacher", UserRole.TEACHER));
+        ClassEntity newClass = new ClassEntity();
+        newClass.setName("导入班");
+        Long classId = classService.createClass(newClass, teacher).getId();
+
+        Path file = tempDir.resolve("students.csv");
+        Files.writeString(file, String.join("\n",
+                "﻿username,name,password,email,classId",
+                "imp_s1,学生一,pw1,s1@example.com," + classId,
+                "imp_s2,学生二,pw2,,",
+                "imp_s1,重复用户名,pw,,",
+                "imp_existing,已有用户名,pw,,",
+                "imp_s3,已有邮箱,pw,taken@example.com,",
+                "imp_s4,,pw,,",
+                "imp_s5,班级格式错误,pw,,abc",
+                "imp_s6,重复邮箱,pw,s1@example.com,",
+                "imp_s7,班级不存在,pw,,999999",
+                "\"imp_s8\",\"学生,八\",pw8,," + classId,
+                "",
+                ""), StandardCharsets.UTF_8);
+
+        studentImportJob.start(file, "students.csv");
+        Map<String, Object> status = awaitFinished();
+
+        assertNull(status.get("lastError"));
+        assertEquals(3, status.get("importedRows"));
+        assertEquals(7, status.get("failedRows"));
+        assertEquals(10, status.get("processedRows"));
+        assertEquals(100L, ((Number) status.get("progress")).longValue());
+        // 文件内校验在读取时报告，与库中数据的比对在整块读满后报告，所以只比较集合
+        List<?> errors = (List<?>) status.get("errors");
+        assertEquals(7, errors.size());
+        assertEquals(Set.of(
+                "第4行: 用户名在文件中重复",
+                "第5行: 用户名已存在",
+                "第6行: 邮箱已被注册",
+                "第7行: 用户名、姓名和密码不能为空",
+                "第8行: 班级ID格式错误",
+                "第9行: 邮箱在文件中重复",
+                "第10行: 班级不存在"), Set.copyOf(errors));
+
+        User first = userRepository.findByUsername("imp_s1").orElseThrow();
+        assertEquals("学生一", first.getName());
+        assertEquals(UserRole.STUDENT, first.getRole());
+        assertTrue(passwordEncoder.matches("pw1", first.getPassword()), "密码哈希");
+        assertEquals("学生,八", userRepository.findByUsername("imp_s8").orElseThrow().getName());
+        assertTrue(userRepository.findByUsername("imp_s2").isPresent());
+        for (String rejected : List.of("imp_s3", "imp_s4", "imp_s5", "imp_s6", "imp_s7")) {
+            assertFalse(userRepository.findByUsername(rejected).isPresent(), rejected);
+        }
+        assertEquals("imp_existing", userRepository.findByUsername("imp_existing").orElseThrow().getName());
+
+        List<String> members = jdbcTemplate.queryForList("SELECT u.username FROM class_students cs " +
+                "JOIN users u ON u.id = cs.student_id WHERE cs.class_id = ? ORDER BY u.username", String.class, classId);
+        assertEquals(List.of("imp_s1", "imp_s8"), members);
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT student_count FROM classes WHERE id = ?", Integer.class, classId));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM class_applications WHERE class_id = ? " +
+                "AND status = 'APPROVED'", Integer.class, classId));
+        assertFalse(Files.exists(file), "导入文件未删除");
+    }
+
+    private Map<String, Object> awaitFinished() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        Map<String, Object> status = studentImportJob.getStatus();
+        while (Boolean.TRUE.equals(status.get("running")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            status = studentImportJob.getStatus();
+        }
+        assertFalse((Boolean) status.get("running"), "导入未在 30 秒内结束");
+        return status;
+    }
+
+    private static User user(String username, UserRole role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("{noop}unused");
+        user.setRole(role);
+        user.setName(username);
+        return user;
+    }
+}
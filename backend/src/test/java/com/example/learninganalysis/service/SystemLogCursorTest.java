@@ -0,0 +1,94 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.MariaDbTestSupport;
+import com.example.learninganalysis.dto.CursorPage;
+import com.example.learninganalysis.dto.SystemLogEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 系统日志键集分页测试
+ *
+ * 批量写入的审计日志常有相同的创建时间，游标按 (createdAt, id) 翻页，
+ * 时间相同的行跨页时既不能重复也不能遗漏，带过滤条件时同样如此。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SystemLogCursorTest {
+
+    private static final int LOGS = 30;
+    private static final int PAGE = 4;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        MariaDbTestSupport.register(registry, "la_log_cursor");
+    }
+
+    @Autowired
+    private LogService logService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM system_logs");
+        // 30 条日志只有 3 个不同的创建时间，两种操作类型交替
+        LocalDateTime base = LocalDateTime.of(2024, 9, 1, 8, 0, 0);
+        for (int i = 0; i < LOGS; i++) {
+            jdbcTemplate.update("INSERT INTO system_logs (operation_type, operation_detail, created_at) VALUES (?, ?, ?)",
+                    i % 2 == 0 ? "USER_LOGIN" : "USER_LOGOUT", "日志" + i,
+                    Timestamp.valueOf(base.plusSeconds(i % 3)));
+        }
+    }
+
+    @Test
+    void pagesCoverAllLogsWithEqualTimestampsOnce() {
+        assertEquals(expected(null), pageThrough(null));
+    }
+
+    @Test
+    void filteredPagesCoverMatchingLogsOnce() {
+        assertEquals(expected("USER_LOGIN"), pageThrough("USER_LOGIN"));
+    }
+
+    @Test
+    void exportVisitsEveryLogOnce() {
+        List<Long> visited = new ArrayList<>();
+        logService.forEachLog(null, null, null, null, entry -> visited.add(entry.id()));
+        assertEquals(expected(null), visited);
+    }
+
+    private List<Long> pageThrough(String operationType) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<SystemLogEntry> page = logService.findLogs(operationType, null, null, null, cursor, PAGE);
+            page.items().forEach(entry -> ids.add(entry.id()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null && pages <= LOGS);
+        assertEquals(ids.size(), new HashSet<>(ids).size(), "重复的日志");
+        return ids;
+    }
+
+    private List<Long> expected(String operationType) {
+        return jdbcTemplate.queryForList("SELECT id FROM system_logs WHERE ? IS NULL OR operation_type = ? " +
+                "ORDER BY created_at DESC, id DESC", Long.class, operationType, operationType);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.MariaDbTestSupport;
+import com.example.learninganalysis.model.User;
+import com.example.learninganalysis.model.UserRole;
+import com.example.learninganalysis.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 教师仪表盘汇总测试
+ *
+ * 同一学生同时加入或离开同一教师的两个班级时，教师学生数只能变化一次；
+ * 按班级布置的模板目标在仪表盘目标列表中合为一行，影响学生数为布置人数。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TeacherDashboardStatsTest {
+
+    private static final int ROUNDS = 20;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        MariaDbTestSupport.register(registry, "la_teacher_stats");
+    }
+
+    @Autowired
+    private TeacherService teacherService;
+
+    @Autowired
+    private TeacherStatsService teacherStatsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void concurrentMembershipChangesCountStudentOnce() throws Exception {
+        User teacher = userRepository.save(user("stats_teacher", UserRole.TEACHER));
+        Long classA = createClass("甲班", teacher);
+        Long classB = createClass("乙班", teacher);
+        teacherStatsService.getOrRebuild(teacher.getId());
+
+        List<Long> students = new ArrayList<>();
+        for (int i = 0; i < ROUNDS; i++) {
+            students.add(userRepository.save(user("stats_student" + i, UserRole.STUDENT)).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (Long studentId : students) {
+                concurrently(executor,
+                        () -> teacherService.addStudentToClass(classA, studentId, teacher.getUsername()),
+                        () -> teacherService.addStudentToClass(classB, studentId, teacher.getUsername()));
+            }
+            assertEquals(ROUNDS, teacherStatsService.getOrRebuild(teacher.getId()).getStudentCount(), "加入后的学生数");
+
+            for (Long studentId : students) {
+                concurrently(executor,
+                        () -> teacherService.removeStudentFromClass(classA, studentId, teacher.getUsername()),
+                        () -> teacherService.removeStudentFromClass(classB, studentId, teacher.getUsername()));
+            }
+            assertEquals(0, teacherStatsService.getOrRebuild(teacher.getId()).getStudentCount(), "离开后的学生数");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void templateTargetReportsAssignedStudents() {
+        User teacher = userRepository.save(user("targets_teacher", UserRole.TEACHER));
+        Long classId = createClass("目标班", teacher);
+        List<Long> students = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Long studentId = userRepository.save(user("targets_student" + i, UserRole.STUDENT)).getId();
+            teacherService.addStudentToClass(classId, studentId, teacher.getUsername());
+            students.add(studentId);
+        }
+
+        String deadline = LocalDate.now().plusDays(7).toString();
+        teacherService.createClassGoal(classId, Map.of("title", "班级目标", "deadline", deadline), teacher.getUsername());
+        teacherService.createGoal(Map.of("title", "个人目标", "deadline", LocalDate.now().plusDays(8).toString(),
+                "studentId", students.get(0)), teacher.getUsername());
+
+        List<Map<String, Object>> targets = new ArrayList<>(teacherService.getDashboardTargets(teacher.getUsername()));
+        targets.sort(Comparator.comparing(target -> (String) target.get("deadline")));
+
+        assertEquals(2, targets.size(), "目标行数");
+        assertEquals("班级目标", targets.get(0).get("title"));
+        assertEquals(3, targets.get(0).get("affectedStudents"), "模板目标的影响学生数");
+        assertEquals("个人目标", targets.get(1).get("title"));
+        assertEquals(1, targets.get(1).get("affectedStudents"), "单独目标的影响学生数");
+    }
+
+    private Long createClass(String name, User teacher) {
+        return (Long) teacherService.createClass(Map.of("name", name), teacher.getUsername()).get("id");
+    }
+
+    /**
+     * 两个操作同时开始，等待两者都完成
+     */
+    private static void concurrently(ExecutorService executor, Runnable first, Runnable second) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        Future<?> a = executor.submit(() -> {
+            start.await();
+            first.run();
+            return null;
+        });
+        Future<?> b = executor.submit(() -> {
+            start.await();
+            second.run();
+            return null;
+        });
+        start.countDown();
+        a.get(30, TimeUnit.SECONDS);
+        b.get(30, TimeUnit.SECONDS);
+    }
+
+    private static User user(String username, UserRole role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("{noop}unused");
+        user.setRole(role);
+        user.setName(username);
+        return user;
+    }
+}
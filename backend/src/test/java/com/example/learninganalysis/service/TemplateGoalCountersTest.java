@@ -0,0 +1,146 @@
+package com.example.learninganalysis.service;
+
+import com.example.learninganalysis.MariaDbTestSupport;
+import com.example.learninganalysis.model.TeacherStats;
+import com.example.learninganalysis.model.User;
+import com.example.learninganalysis.model.UserRole;
+import com.example.learninganalysis.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 模板目标计数汇总测试
+ *
+ * 按班级布置的模板目标与单独布置的目标一样计入教师汇总、班级计数和学生统计：
+ * 同一学生在教师的多个班级中时，其目标计入每个班级；完成、删除模板生成的目标后计数同步变化，
+ * 且始终与按源数据重算的结果一致；计数漂移后管理员重算可恢复正确值。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TemplateGoalCountersTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        MariaDbTestSupport.register(registry, "la_template_goals");
+    }
+
+    @Autowired
+    private TeacherService teacherService;
+
+    @Autowired
+    private TeacherStatsService teacherStatsService;
+
+    @Autowired
+    private StudentStatsService studentStatsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void templateGoalsRollUpIntoCounters() {
+        User teacher = userRepository.save(user("tpl_teacher", UserRole.TEACHER));
+        String username = teacher.getUsername();
+        Long classA = (Long) teacherService.createClass(Map.of("name", "甲班"), username).get("id");
+        Long classB = (Long) teacherService.createClass(Map.of("name", "乙班"), username).get("id");
+        Long both = userRepository.save(user("tpl_student_both", UserRole.STUDENT)).getId();
+        Long onlyA = userRepository.save(user("tpl_student_a", UserRole.STUDENT)).getId();
+        Long onlyB = userRepository.save(user("tpl_student_b", UserRole.STUDENT)).getId();
+        teacherService.addStudentToClass(classA, both, username);
+        teacherService.addStudentToClass(classB, both, username);
+        teacherService.addStudentToClass(classA, onlyA, username);
+        teacherService.addStudentToClass(classB, onlyB, username);
+        // 汇总行已存在时走增量路径；两个班级都有的学生先有一个单独目标，其统计行也已存在
+        teacherStatsService.getOrRebuild(teacher.getId());
+        teacherService.createGoal(Map.of("title", "单独目标", "studentId", both), username);
+
+        teacherService.createClassGoal(classA, Map.of("title", "甲班目标",
+                "deadline", LocalDate.now().plusDays(7).toString()), username);
+
+        assertCounters(classA, 3, 0);
+        assertCounters(classB, 2, 0);
+        assertTeacher(teacher.getId(), 3, 0);
+        assertStudent(both, 2, 0);
+        assertStudent(onlyA, 1, 0);
+        assertStudent(onlyB, 0, 0);
+
+        teacherService.updateGoal(templateGoalOf(onlyA), Map.of("status", "COMPLETED", "progress", 100), username);
+
+        assertCounters(classA, 3, 1);
+        assertCounters(classB, 2, 0);
+        assertTeacher(teacher.getId(), 3, 1);
+        assertStudent(onlyA, 1, 1);
+
+        teacherService.deleteGoal(templateGoalOf(both), username);
+
+        assertCounters(classA, 2, 1);
+        assertCounters(classB, 1, 0);
+        assertTeacher(teacher.getId(), 2, 1);
+        assertStudent(both, 1, 0);
+
+        // 计数漂移后由管理员重算恢复
+        jdbcTemplate.update("UPDATE classes SET student_count = 9, goal_count = 9, completed_goal_count = 9");
+        jdbcTemplate.update("UPDATE teacher_stats SET goal_count = 9");
+        teacherStatsService.recountAll();
+        assertCounters(classA, 2, 1);
+        assertCounters(classB, 1, 0);
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT student_count FROM classes WHERE id = ?",
+                Integer.class, classA));
+        assertTeacher(teacher.getId(), 2, 1);
+    }
+
+    private Long templateGoalOf(Long studentId) {
+        return jdbcTemplate.queryForObject("SELECT id FROM learning_goals WHERE student_id = ? " +
+                "AND template_id IS NOT NULL", Long.class, studentId);
+    }
+
+    /**
+     * 班级计数等于预期值，也等于按关联表和目标表重算的值
+     */
+    private void assertCounters(Long classId, int goals, int completed) {
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT goal_count, completed_goal_count FROM classes " +
+                "WHERE id = ?", classId);
+        List<Integer> source = jdbcTemplate.queryForObject("SELECT COUNT(*), " +
+                "COALESCE(SUM(g.status = 'COMPLETED'), 0) FROM learning_goals g " +
+                "JOIN class_students cs ON cs.student_id = g.student_id JOIN classes c ON c.id = cs.class_id " +
+                "WHERE c.id = ? AND g.teacher_id = c.teacher_id",
+                (rs, rowNum) -> List.of(rs.getInt(1), rs.getInt(2)), classId);
+        assertEquals(List.of(goals, completed), source, "源数据");
+        assertEquals(goals, ((Number) row.get("goal_count")).intValue(), "班级目标数");
+        assertEquals(completed, ((Number) row.get("completed_goal_count")).intValue(), "班级已完成目标数");
+    }
+
+    private void assertTeacher(Long teacherId, int goals, int completed) {
+        TeacherStats stats = teacherStatsService.getOrRebuild(teacherId);
+        assertEquals(goals, stats.getGoalCount(), "教师目标数");
+        assertEquals(completed, stats.getCompletedGoalCount(), "教师已完成目标数");
+    }
+
+    private void assertStudent(Long studentId, int goals, int completed) {
+        Map<String, Object> stats = studentStatsService.getStats(studentId);
+        assertEquals(goals, ((Number) stats.get("totalGoals")).intValue(), "学生目标数");
+        assertEquals(completed, ((Number) stats.get("completedGoals")).intValue(), "学生已完成目标数");
+    }
+
+    private static User user(String username, UserRole role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("{noop}unused");
+        user.setRole(role);
+        user.setName(username);
+        return user;
+    }
+}
@@ -25,7 +25,7 @@ import {
   TeamOutlined, 
   UserOutlined 
 } from '@ant-design/icons';
-import axios from '../../utils/axios';
+import axios, { getAllPages } from '../../utils/axios';
 import { useNavigate } from 'react-router-dom';
 
 const { Title } = Typography;
@@ -100,7 +100,7 @@ const ClassManager: React.FC = () => {
   const fetchClasses = async () => {
     setLoading(true);
     try {
-      const response = await axios.get('/api/admin/classes');
+      const response = await getAllPages('/api/admin/classes');
       setClasses(response.data);
     } catch (error) {
       console.error('获取班级列表失败:', error);
@@ -122,7 +122,7 @@ const ClassManager: React.FC = () => {
 
   const fetchUnassignedTeachers = async () => {
     try {
-      const response = await axios.get('/api/admin/teachers/unassigned');
+      const response = await getAllPages('/api/admin/teachers/unassigned');
       setUnassignedTeachers(response.data);
     } catch (error) {
       console.error('获取未分配教师列表失败:', error);
@@ -31,7 +31,9 @@ import {
   HomeOutlined,
   BookOutlined
 } from '@ant-design/icons';
-import axios from '../../utils/axios';
+import type { TablePaginationConfig } from 'antd';
+import type { SorterResult } from 'antd/es/table/interface';
+import axios, { getAllPages } from '../../utils/axios';
 import { useNavigate } from 'react-router-dom';
 
 const { Title, Text } = Typography;
@@ -57,6 +59,13 @@ interface ClassInfo {
   teacherName: string;
 }
 
+interface RosterQuery {
+  page: number;
+  pageSize: number;
+  keyword: string;
+  sort?: string;
+}
+
 const StudentManager: React.FC = () => {
   const [loading, setLoading] = useState<boolean>(false);
   const [students, setStudents] = useState<Student[]>([]);
@@ -67,20 +76,33 @@ const StudentManager: React.FC = () => {
   const [currentStudent, setCurrentStudent] = useState<Student | null>(null);
   const [form] = Form.useForm();
   const [editForm] = Form.useForm();
-  const [searchText, setSearchText] = useState<string>('');
+  const [query, setQuery] = useState<RosterQuery>({ page: 1, pageSize: 10, keyword: '' });
+  const [total, setTotal] = useState<number>(0);
   
   const navigate = useNavigate();
 
   useEffect(() => {
     fetchStudents();
+  }, [query]);
+
+  useEffect(() => {
     fetchClasses();
   }, []);
 
   const fetchStudents = async () => {
     setLoading(true);
     try {
-      const response = await axios.get('/api/admin/students');
+      // 分页、搜索与排序都由后端完成，总条数通过响应头返回
+      const response = await axios.get('/api/admin/students', {
+        params: {
+          page: query.page - 1,
+          size: query.pageSize,
+          keyword: query.keyword || undefined,
+          sort: query.sort
+        }
+      });
       setStudents(response.data || []);
+      setTotal(Number(response.headers['x-total-count']) || 0);
     } catch (error) {
       console.error('获取学生列表失败:', error);
       message.error('获取学生列表失败');
@@ -92,7 +114,7 @@ const StudentManager: React.FC = () => {
 
   const fetchClasses = async () => {
     try {
-      const response = await axios.get('/api/admin/classes/simple');
+      const response = await getAllPages('/api/admin/classes/simple');
       setClasses(response.data || []);
     } catch (error) {
       console.error('获取班级列表失败:', error);
@@ -102,15 +124,22 @@ const StudentManager: React.FC = () => {
   };
 
   const handleSearch = (value: string) => {
-    setSearchText(value);
+    setQuery(prev => ({ ...prev, page: 1, keyword: value.trim() }));
   };
 
-  const filteredStudents = students.filter(student => 
-    student.name.toLowerCase().includes(searchText.toLowerCase()) || 
-    student.username.toLowerCase().includes(searchText.toLowerCase()) ||
-    (student.email && student.email.toLowerCase().includes(searchText.toLowerCase())) ||
-    (student.majorName && student.majorName.toLowerCase().includes(searchText.toLowerCase()))
-  );
+  const handleTableChange = (
+    pagination: TablePaginationConfig,
+    _filters: Record<string, any>,
+    sorter: SorterResult<Student> | SorterResult<Student>[]
+  ) => {
+    const order = Array.isArray(sorter) ? sorter[0] : sorter;
+    setQuery(prev => ({
+      ...prev,
+      page: pagination.current || 1,
+      pageSize: pagination.pageSize || prev.pageSize,
+      sort: order && order.order ? `${order.field},${order.order === 'descend' ? 'desc' : 'asc'}` : undefined
+    }));
+  };
 
   const handleCreateStudent = () => {
     form.resetFields();
@@ -214,6 +243,7 @@ const StudentManager: React.FC = () => {
       title: '姓名',
       dataIndex: 'name',
       key: 'name',
+      sorter: true,
       render: (text: string, record: Student) => (
         <Space>
           <Avatar 
@@ -229,6 +259,7 @@ const StudentManager: React.FC = () => {
       title: '学号',
       dataIndex: 'username',
       key: 'username',
+      sorter: true,
     },
     {
       title: '邮箱',
@@ -260,6 +291,7 @@ const StudentManager: React.FC = () => {
       title: '班级数',
       dataIndex: 'classCount',
       key: 'classCount',
+      sorter: true,
       render: (count: number) => (
         <Badge count={count} showZero color={count > 0 ? 'blue' : 'default'} />
       )
@@ -308,7 +340,7 @@ const StudentManager: React.FC = () => {
       <Card>
         <div style={{ marginBottom: 16, display: 'flex', justifyContent: 'space-between' }}>
           <Input.Search
-            placeholder="搜索学生姓名、学号、邮箱或专业"
+            placeholder="搜索学生姓名、学号或邮箱"
             allowClear
             onSearch={handleSearch}
             style={{ width: 300 }}
@@ -319,10 +351,11 @@ const StudentManager: React.FC = () => {
         </div>
         <Table
           columns={columns}
-          dataSource={filteredStudents}
+          dataSource={students}
           rowKey="id"
           loading={loading}
-          pagination={{ pageSize: 10 }}
+          pagination={{ current: query.page, pageSize: query.pageSize, total }}
+          onChange={handleTableChange}
         />
       </Card>
 
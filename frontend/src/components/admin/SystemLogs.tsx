@@ -91,19 +91,20 @@ const SystemLogs: React.FC = () => {
   const [form] = Form.useForm();
   const [isModalVisible, setIsModalVisible] = useState<boolean>(false);
   const [currentLog, setCurrentLog] = useState<SystemLog | null>(null);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
+  const [currentFilters, setCurrentFilters] = useState<any>(undefined);
 
   useEffect(() => {
     fetchLogs();
   }, []);
 
-  const fetchLogs = async (filters?: any) => {
+  const fetchLogs = async (filters?: any, cursor?: string) => {
     setLoading(true);
     try {
       let url = '/api/admin/logs';
+      const params = new URLSearchParams();
       
       if (filters) {
-        const params = new URLSearchParams();
-        
         if (filters.operationType) {
           params.append('operationType', filters.operationType);
         }
@@ -116,15 +117,22 @@ const SystemLogs: React.FC = () => {
           params.append('startTime', filters.timeRange[0].toISOString());
           params.append('endTime', filters.timeRange[1].toISOString());
         }
-        
-        if (params.toString()) {
-          url += '?' + params.toString();
-        }
+      }
+      
+      if (cursor) {
+        params.append('cursor', cursor);
+      }
+      
+      if (params.toString()) {
+        url += '?' + params.toString();
       }
       
       const response = await axios.get(url);
       
-      setLogs(response.data);
+      // 后端按游标分页，下一页游标通过响应头返回
+      setLogs(cursor ? prev => [...prev, ...response.data] : response.data);
+      setNextCursor(response.headers['x-next-cursor'] || null);
+      setCurrentFilters(filters);
     } catch (error) {
       console.error('获取系统日志失败:', error);
       message.error('获取系统日志失败');
@@ -281,6 +289,13 @@ const SystemLogs: React.FC = () => {
           loading={loading}
           pagination={{ pageSize: 10 }}
         />
+        {nextCursor && (
+          <div style={{ textAlign: 'center', marginTop: 16 }}>
+            <Button onClick={() => fetchLogs(currentFilters, nextCursor)} loading={loading}>
+              加载更多
+            </Button>
+          </div>
+        )}
       </Card>
       
       <Modal
@@ -29,6 +29,8 @@ import {
   PhoneOutlined,
   IdcardOutlined
 } from '@ant-design/icons';
+import type { TablePaginationConfig } from 'antd';
+import type { SorterResult } from 'antd/es/table/interface';
 import axios from '../../utils/axios';
 import { useNavigate } from 'react-router-dom';
 
@@ -48,6 +50,13 @@ interface Teacher {
   createdAt: string;
 }
 
+interface RosterQuery {
+  page: number;
+  pageSize: number;
+  keyword: string;
+  sort?: string;
+}
+
 const TeacherManager: React.FC = () => {
   const [loading, setLoading] = useState<boolean>(false);
   const [teachers, setTeachers] = useState<Teacher[]>([]);
@@ -57,19 +66,29 @@ const TeacherManager: React.FC = () => {
   const [currentTeacher, setCurrentTeacher] = useState<Teacher | null>(null);
   const [form] = Form.useForm();
   const [editForm] = Form.useForm();
-  const [searchText, setSearchText] = useState<string>('');
+  const [query, setQuery] = useState<RosterQuery>({ page: 1, pageSize: 10, keyword: '' });
+  const [total, setTotal] = useState<number>(0);
   
   const navigate = useNavigate();
 
   useEffect(() => {
     fetchTeachers();
-  }, []);
+  }, [query]);
 
   const fetchTeachers = async () => {
     setLoading(true);
     try {
-      const response = await axios.get('/api/admin/teachers');
+      // 分页、搜索与排序都由后端完成，总条数通过响应头返回
+      const response = await axios.get('/api/admin/teachers', {
+        params: {
+          page: query.page - 1,
+          size: query.pageSize,
+          keyword: query.keyword || undefined,
+          sort: query.sort
+        }
+      });
       setTeachers(response.data || []);
+      setTotal(Number(response.headers['x-total-count']) || 0);
     } catch (error) {
       console.error('获取教师列表失败:', error);
       message.error('获取教师列表失败');
@@ -80,14 +99,22 @@ const TeacherManager: React.FC = () => {
   };
 
   const handleSearch = (value: string) => {
-    setSearchText(value);
+    setQuery(prev => ({ ...prev, page: 1, keyword: value.trim() }));
   };
 
-  const filteredTeachers = teachers.filter(teacher => 
-    teacher.name.toLowerCase().includes(searchText.toLowerCase()) || 
-    teacher.username.toLowerCase().includes(searchText.toLowerCase()) ||
-    (teacher.email && teacher.email.toLowerCase().includes(searchText.toLowerCase()))
-  );
+  const handleTableChange = (
+    pagination: TablePaginationConfig,
+    _filters: Record<string, any>,
+    sorter: SorterResult<Teacher> | SorterResult<Teacher>[]
+  ) => {
+    const order = Array.isArray(sorter) ? sorter[0] : sorter;
+    setQuery(prev => ({
+      ...prev,
+      page: pagination.current || 1,
+      pageSize: pagination.pageSize || prev.pageSize,
+      sort: order && order.order ? `${order.field},${order.order === 'descend' ? 'desc' : 'asc'}` : undefined
+    }));
+  };
 
   const handleCreateTeacher = () => {
     form.resetFields();
@@ -177,6 +204,7 @@ const TeacherManager: React.FC = () => {
       title: '姓名',
       dataIndex: 'name',
       key: 'name',
+      sorter: true,
       render: (text: string, record: Teacher) => (
         <Space>
           <Avatar 
@@ -192,6 +220,7 @@ const TeacherManager: React.FC = () => {
       title: '用户名',
       dataIndex: 'username',
       key: 'username',
+      sorter: true,
     },
     {
       title: '邮箱',
@@ -215,6 +244,7 @@ const TeacherManager: React.FC = () => {
       title: '班级数',
       dataIndex: 'managedClassCount',
       key: 'managedClassCount',
+      sorter: true,
       render: (count: number) => (
         <Tag color={count > 0 ? 'blue' : 'default'}>{count}</Tag>
       )
@@ -278,10 +308,11 @@ const TeacherManager: React.FC = () => {
         </div>
         <Table
           columns={columns}
-          dataSource={filteredTeachers}
+          dataSource={teachers}
           rowKey="id"
           loading={loading}
-          pagination={{ pageSize: 10 }}
+          pagination={{ current: query.page, pageSize: query.pageSize, total }}
+          onChange={handleTableChange}
         />
       </Card>
 
@@ -2,7 +2,7 @@ import React, { useState, useEffect } from 'react';
 import { Form, Input, Button, message, Select, Upload, Steps, Card, Row, Col } from 'antd';
 import { UserOutlined, LockOutlined, MailOutlined, UserAddOutlined, UploadOutlined, MobileOutlined, TeamOutlined, BankOutlined } from '@ant-design/icons';
 import { useNavigate } from 'react-router-dom';
-import axios from '../../../utils/axios';
+import axios, { getAllPages } from '../../../utils/axios';
 import type { UploadFile, RcFile } from 'antd/es/upload/interface';
 import './Register.css';
 
@@ -39,7 +39,7 @@ const Register: React.FC = () => {
     // 加载班级列表
     const fetchClasses = async () => {
       try {
-        const response = await axios.get('/api/classes');
+        const response = await getAllPages('/api/classes');
         if (response.data) {
           const classOptions = response.data.map((cls: any) => ({
             id: cls.id,
@@ -26,6 +26,7 @@ const ActivityDetail: React.FC = () => {
     const navigate = useNavigate();
     const [activity, setActivity] = useState<Activity | null>(null);
     const [loading, setLoading] = useState(false);
+    const [waitlistPosition, setWaitlistPosition] = useState<number | null>(null);
 
     // 获取用户角色
     const getUserRole = () => {
@@ -77,12 +78,23 @@ const ActivityDetail: React.FC = () => {
         fetchActivity();
     }, [id]);
 
+    // 候补中时单独查询排队位置，只读取当前用户的参与记录
+    useEffect(() => {
+        if (activity?.participationStatus !== 'WAITLISTED') {
+            setWaitlistPosition(null);
+            return;
+        }
+        axios.get(`/api/student/activities/${id}/waitlist`)
+            .then(response => setWaitlistPosition(response.data.position ?? null))
+            .catch(error => console.error('获取候补位置失败:', error));
+    }, [id, activity?.participationStatus]);
+
     const handleRegister = async () => {
         try {
             setLoading(true);
             const apiPrefix = getApiPrefix();
-            await axios.post(`${apiPrefix}/activities/${id}/register`);
-            message.success('报名成功！');
+            const result = await axios.post(`${apiPrefix}/activities/${id}/register`);
+            message.success(result.data.participationStatus === 'WAITLISTED' ? '名额已满，已加入候补队列' : '报名成功！');
             // 刷新活动状态
             const response = await axios.get(`${apiPrefix}/activities/${id}`);
             setActivity(response.data);
@@ -98,7 +110,7 @@ const ActivityDetail: React.FC = () => {
             setLoading(true);
             const apiPrefix = getApiPrefix();
             await axios.post(`${apiPrefix}/activities/${id}/cancel`);
-            message.success('取消报名成功！');
+            message.success(activity?.participationStatus === 'WAITLISTED' ? '已退出候补队列' : '取消报名成功！');
             // 刷新活动状态
             const response = await axios.get(`${apiPrefix}/activities/${id}`);
             setActivity(response.data);
@@ -163,6 +175,8 @@ const ActivityDetail: React.FC = () => {
                 return <Tag color="green">已完成</Tag>;
             case 'CANCELLED':
                 return <Tag color="red">已取消</Tag>;
+            case 'WAITLISTED':
+                return <Tag color="orange">候补中</Tag>;
             default:
                 return null;
         }
@@ -196,6 +210,9 @@ const ActivityDetail: React.FC = () => {
                             <Descriptions.Item label={<><EnvironmentOutlined /> 活动地点</>}>{activity.location}</Descriptions.Item>
                             <Descriptions.Item label={<><TeamOutlined /> 主办方</>}>{activity.organizer}</Descriptions.Item>
                             <Descriptions.Item label="参与人数">{activity.currentParticipants}/{activity.maxParticipants}</Descriptions.Item>
+                            {waitlistPosition !== null && (
+                                <Descriptions.Item label="候补位次">第 {waitlistPosition} 位</Descriptions.Item>
+                            )}
                         </Descriptions>
                     </Col>
 
@@ -211,13 +228,15 @@ const ActivityDetail: React.FC = () => {
                                 <Button 
                                     type="primary" 
                                     onClick={handleRegister}
-                                    disabled={activity.currentParticipants >= activity.maxParticipants}
                                 >
                                     {activity.currentParticipants >= activity.maxParticipants 
-                                    ? '报名已满' 
+                                    ? '加入候补' 
                                     : '立即报名'}
                                 </Button>
                             )}
+                            {activity.participationStatus === 'WAITLISTED' && (
+                                <Button danger onClick={handleCancel}>退出候补</Button>
+                            )}
                             {activity.participationStatus === 'REGISTERED' && (
                                 <>
                                     <Button danger onClick={handleCancel}>取消报名</Button>
@@ -2,7 +2,7 @@ import React, { useState, useEffect } from 'react';
 import { Card, List, Button, Tag, Space, Tabs, message, Select, Empty } from 'antd';
 import { Link, useNavigate } from 'react-router-dom';
 import { PlusOutlined } from '@ant-design/icons';
-import axios from '../../../utils/axios';
+import axios, { getAllPages } from '../../../utils/axios';
 
 const { TabPane } = Tabs;
 const { Option } = Select;
@@ -16,7 +16,7 @@ interface Activity {
   location: string;
   description: string;
   status: 'ONGOING' | 'UPCOMING' | 'ENDED';
-  participationStatus?: 'REGISTERED' | 'COMPLETED' | 'CANCELLED';
+  participationStatus?: 'REGISTERED' | 'COMPLETED' | 'CANCELLED' | 'WAITLISTED';
   maxParticipants: number;
   currentParticipants: number;
   organizer: string;
@@ -105,13 +105,13 @@ const StudentActivityList: React.FC = () => {
 
       if (filterType) {
         console.log(`请求特定类型活动: ${apiPrefix}/activities/type/${filterType}`);
-        response = await axios.get(`${apiPrefix}/activities/type/${filterType}`);
+        response = await getAllPages<Activity>(`${apiPrefix}/activities/type/${filterType}`);
       } else if (activeTab === 'my') {
         console.log(`获取我的活动列表: ${apiPrefix}/activities/my`);
-        response = await axios.get(`${apiPrefix}/activities/my`);
+        response = await getAllPages<Activity>(`${apiPrefix}/activities/my`);
       } else {
         console.log(`获取全部活动列表: ${apiPrefix}/activities`);
-        response = await axios.get(`${apiPrefix}/activities`);
+        response = await getAllPages<Activity>(`${apiPrefix}/activities`);
       }
       
       console.log('获取活动列表成功:', response.data);
@@ -162,6 +162,8 @@ const StudentActivityList: React.FC = () => {
         return <Tag color="green">已完成</Tag>;
       case 'CANCELLED':
         return <Tag color="red">已取消</Tag>;
+      case 'WAITLISTED':
+        return <Tag color="orange">候补中</Tag>;
       default:
         return null;
     }
@@ -172,15 +174,20 @@ const StudentActivityList: React.FC = () => {
       const apiPrefix = getApiPrefix();
       const response = await axios.post(`${apiPrefix}/activities/${activityId}/register`);
       console.log('报名成功:', response.data);
-      message.success('报名成功！');
+      // 名额已满时后端将报名转入候补队列，有人取消后按顺序自动转正
+      if (response.data.participationStatus === 'WAITLISTED') {
+        message.success('名额已满，已加入候补队列');
+      } else {
+        message.success('报名成功！');
+      }
       
       // 直接更新本地状态，避免重新请求
       const updatedActivities = activities.map(activity => {
         if (activity.id === activityId) {
           return {
             ...activity,
-            participationStatus: 'REGISTERED' as 'REGISTERED',
-            currentParticipants: activity.currentParticipants + 1
+            participationStatus: response.data.participationStatus,
+            currentParticipants: response.data.currentParticipants
           };
         }
         return activity;
@@ -198,9 +205,10 @@ const StudentActivityList: React.FC = () => {
   const handleCancel = async (activityId: number) => {
     try {
       const apiPrefix = getApiPrefix();
+      const waitlisted = activities.find(activity => activity.id === activityId)?.participationStatus === 'WAITLISTED';
       const response = await axios.post(`${apiPrefix}/activities/${activityId}/cancel`);
       console.log('取消报名成功:', response.data);
-      message.success('取消报名成功！');
+      message.success(waitlisted ? '已退出候补队列' : '取消报名成功！');
       
       // 直接更新本地状态，避免重新请求
       const updatedActivities = activities.map(activity => {
@@ -208,7 +216,7 @@ const StudentActivityList: React.FC = () => {
           return {
             ...activity,
             participationStatus: 'CANCELLED' as 'CANCELLED',
-            currentParticipants: Math.max(0, activity.currentParticipants - 1)
+            currentParticipants: response.data.currentParticipants
           };
         }
         return activity;
@@ -330,10 +338,9 @@ const StudentActivityList: React.FC = () => {
                           type="primary" 
                           style={{ marginTop: 16 }}
                           onClick={() => handleRegister(activity.id)}
-                          disabled={activity.currentParticipants >= activity.maxParticipants}
                         >
                           {activity.currentParticipants >= activity.maxParticipants 
-                            ? '报名已满' 
+                            ? '加入候补' 
                             : activity.participationStatus === 'CANCELLED' ? '重新报名' : '立即报名'}
                         </Button>
                       )}
@@ -342,6 +349,11 @@ const StudentActivityList: React.FC = () => {
                           <Button onClick={() => handleCancel(activity.id)}>取消报名</Button>
                         </Space>
                       )}
+                      {activity.participationStatus === 'WAITLISTED' && (
+                        <Space style={{ marginTop: 16 }}>
+                          <Button onClick={() => handleCancel(activity.id)}>退出候补</Button>
+                        </Space>
+                      )}
                     </>
                   )}
                   {activity.status === 'ENDED' && activity.participationStatus === 'REGISTERED' && (
@@ -394,14 +406,18 @@ const StudentActivityList: React.FC = () => {
                       <Button onClick={() => handleCancel(activity.id)}>取消报名</Button>
                     </Space>
                   )}
+                  {activity.participationStatus === 'WAITLISTED' && (
+                    <Space style={{ marginTop: 16 }}>
+                      <Button onClick={() => handleCancel(activity.id)}>退出候补</Button>
+                    </Space>
+                  )}
                   {activity.participationStatus === 'CANCELLED' && activity.status === 'UPCOMING' && (
                     <Button 
                       type="primary" 
                       style={{ marginTop: 16 }}
                       onClick={() => handleRegister(activity.id)}
-                      disabled={activity.currentParticipants >= activity.maxParticipants}
                     >
-                      {activity.currentParticipants >= activity.maxParticipants ? '报名已满' : '重新报名'}
+                      {activity.currentParticipants >= activity.maxParticipants ? '加入候补' : '重新报名'}
                     </Button>
                   )}
                   {activity.participationStatus === 'REGISTERED' && activity.status === 'ENDED' && (
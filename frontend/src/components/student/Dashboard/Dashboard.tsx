@@ -2,7 +2,7 @@ import React, { useEffect, useState } from 'react';
 import { Card, Row, Col, List, Typography, Progress, Tag, Statistic, Button, message } from 'antd';
 import { BookOutlined, CalendarOutlined, FileTextOutlined, BarChartOutlined } from '@ant-design/icons';
 import { useNavigate } from 'react-router-dom';
-import axios from '../../../utils/axios';
+import axios, { getAllPages } from '../../../utils/axios';
 import './Dashboard.css';
 
 const { Title, Text } = Typography;
@@ -55,7 +55,7 @@ const Dashboard: React.FC = () => {
                 
                 const [goalsRes, activitiesRes, statsRes] = await Promise.all([
                     axios.get('/api/student/goals'),
-                    axios.get('/api/student/activities'),
+                    getAllPages('/api/student/activities'),
                     axios.get('/api/student/stats')
                 ]);
 
@@ -1,7 +1,7 @@
 import React, { useState, useEffect } from 'react';
 import { Card, Tabs, Typography, Form, Input, Button, Avatar, Row, Col, Upload, message, Table, Modal, Space, Select } from 'antd';
 import { UserOutlined, UploadOutlined, TeamOutlined, ClockCircleOutlined, CheckCircleOutlined, CloseCircleOutlined } from '@ant-design/icons';
-import axios from '../../utils/axios';
+import axios, { getAllPages } from '../../utils/axios';
 import type { UploadFile } from 'antd/es/upload/interface';
 
 const { Title, Text } = Typography;
@@ -80,7 +80,7 @@ const ProfileCenter: React.FC<ProfileProps> = ({ user, refreshUserInfo }) => {
   useEffect(() => {
     const fetchJoinedClasses = async () => {
       try {
-        const response = await axios.get('/api/classes/student/joined');
+        const response = await getAllPages('/api/classes/student/joined');
         if (response.data) {
           setJoinedClasses(response.data);
         }
@@ -99,7 +99,7 @@ const ProfileCenter: React.FC<ProfileProps> = ({ user, refreshUserInfo }) => {
   useEffect(() => {
     const fetchAvailableClasses = async () => {
       try {
-        const response = await axios.get('/api/classes/student/available');
+        const response = await getAllPages('/api/classes/student/available');
         if (response.data) {
           setAvailableClasses(response.data);
         }
@@ -119,7 +119,7 @@ const ProfileCenter: React.FC<ProfileProps> = ({ user, refreshUserInfo }) => {
     const fetchApplications = async () => {
       try {
         console.log('获取申请历史请求时的token:', localStorage.getItem('token'));
-        const response = await axios.get('/api/classes/applications/student');
+        const response = await getAllPages('/api/classes/applications/student');
         if (response.data) {
           setApplications(response.data);
         }
@@ -187,12 +187,12 @@ const ProfileCenter: React.FC<ProfileProps> = ({ user, refreshUserInfo }) => {
       setApplyModalVisible(false);
       
       // 刷新申请历史和可用班级
-      const availableResponse = await axios.get('/api/classes/student/available');
+      const availableResponse = await getAllPages('/api/classes/student/available');
       if (availableResponse.data) {
         setAvailableClasses(availableResponse.data);
       }
       
-      const applicationsResponse = await axios.get('/api/classes/applications/student');
+      const applicationsResponse = await getAllPages('/api/classes/applications/student');
       if (applicationsResponse.data) {
         setApplications(applicationsResponse.data);
       }
@@ -211,7 +211,7 @@ const ProfileCenter: React.FC<ProfileProps> = ({ user, refreshUserInfo }) => {
       message.success('申请已取消');
       
       // 刷新申请历史
-      const response = await axios.get('/api/classes/applications/student');
+      const response = await getAllPages('/api/classes/applications/student');
       if (response.data) {
         setApplications(response.data);
       }
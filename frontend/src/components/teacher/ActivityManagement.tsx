@@ -10,7 +10,7 @@ import {
   CalendarOutlined, TeamOutlined, FileOutlined
 } from '@ant-design/icons';
 import { useNavigate } from 'react-router-dom';
-import axios from '../../utils/axios';
+import axios, { getAllPages } from '../../utils/axios';
 import type { UploadFile } from 'antd/es/upload/interface';
 import moment from 'moment';
 
@@ -53,7 +53,7 @@ const ActivityManagement: React.FC = () => {
     setLoading(true);
     try {
       // 此处应改为实际API接口
-      const response = await axios.get('/api/teacher/activities');
+      const response = await getAllPages('/api/teacher/activities');
       setActivities(response.data || []);
     } catch (error) {
       console.error('获取活动列表失败:', error);
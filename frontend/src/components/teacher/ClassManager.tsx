@@ -11,7 +11,7 @@ import {
 } from '@ant-design/icons';
 import type { MenuProps } from 'antd';
 import { useNavigate } from 'react-router-dom';
-import axios from '../../utils/axios';
+import axios, { getAllPages } from '../../utils/axios';
 
 const { Title, Text } = Typography;
 const { TabPane } = Tabs;
@@ -80,7 +80,7 @@ const ClassManager: React.FC = () => {
   const fetchClasses = async () => {
     setLoading(true);
     try {
-      const response = await axios.get('/api/teacher/classes');
+      const response = await getAllPages('/api/teacher/classes');
       setClasses(response.data || []);
     } catch (error) {
       console.error('获取班级列表失败:', error);
@@ -93,7 +93,7 @@ const ClassManager: React.FC = () => {
   const fetchStudents = async () => {
     setLoading(true);
     try {
-      const response = await axios.get('/api/teacher/students');
+      const response = await getAllPages('/api/teacher/students');
       setStudents(response.data || []);
     } catch (error) {
       console.error('获取学生列表失败:', error);
@@ -106,7 +106,7 @@ const ClassManager: React.FC = () => {
   const fetchApplications = async () => {
     setLoading(true);
     try {
-      const response = await axios.get('/api/classes/applications/teacher');
+      const response = await getAllPages('/api/classes/applications/teacher');
       console.log('获取到的申请数据:', response.data);
       
       // 处理API返回的数据，确保有正确的字段名称
@@ -8,7 +8,7 @@ import {
   SearchOutlined, EyeOutlined
 } from '@ant-design/icons';
 import { useNavigate } from 'react-router-dom';
-import axios from '../../utils/axios';
+import axios, { getAllPages } from '../../utils/axios';
 import moment from 'moment';
 
 const { Title } = Typography;
@@ -43,7 +43,7 @@ const LearningGoalManagement: React.FC = () => {
     setLoading(true);
     try {
       console.log('获取学习目标列表...');
-      const response = await axios.get('/api/teacher/goals');
+      const response = await getAllPages('/api/teacher/goals');
       console.log('获取到的学习目标数据:', response.data);
       setGoals(response.data || []);
     } catch (error) {
@@ -6,7 +6,7 @@ import {
 } from 'antd';
 import { useNavigate, useLocation } from 'react-router-dom';
 import type { TransferItem } from 'antd/es/transfer';
-import axios from '../../utils/axios';
+import axios, { getAllPages } from '../../utils/axios';
 import { PlusOutlined, SaveOutlined, RollbackOutlined } from '@ant-design/icons';
 
 const { Title, Text } = Typography;
@@ -153,7 +153,7 @@ const LearningTargetForm: React.FC = () => {
   const fetchClasses = async () => {
     try {
       // 此处应改为实际API接口
-      const response = await axios.get('/api/teacher/classes');
+      const response = await getAllPages('/api/teacher/classes');
       setClasses(response.data || []);
     } catch (error) {
       console.error('获取班级列表失败:', error);
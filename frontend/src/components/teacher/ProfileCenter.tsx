@@ -1,7 +1,7 @@
 import React, { useState, useEffect } from 'react';
 import { Card, Tabs, Typography, Form, Input, Button, Upload, message, Table, Modal, Space, Descriptions, Badge, Row, Col } from 'antd';
 import { UserOutlined, UploadOutlined, TeamOutlined, PlusOutlined, EditOutlined, DeleteOutlined, CheckCircleOutlined, CloseCircleOutlined } from '@ant-design/icons';
-import axios from '../../utils/axios';
+import axios, { getAllPages } from '../../utils/axios';
 import type { UploadFile } from 'antd/es/upload/interface';
 
 const { Title, Text, Paragraph } = Typography;
@@ -82,7 +82,7 @@ const ProfileCenter: React.FC<ProfileProps> = ({ user, refreshUserInfo }) => {
   useEffect(() => {
     const fetchMyClasses = async () => {
       try {
-        const response = await axios.get('/api/classes/teacher');
+        const response = await getAllPages('/api/classes/teacher');
         if (response.data) {
           setMyClasses(response.data);
         }
@@ -101,7 +101,7 @@ const ProfileCenter: React.FC<ProfileProps> = ({ user, refreshUserInfo }) => {
   useEffect(() => {
     const fetchApplications = async () => {
       try {
-        const response = await axios.get('/api/classes/applications/teacher');
+        const response = await getAllPages('/api/classes/applications/teacher');
         if (response.data) {
           setApplications(response.data);
         }
@@ -126,7 +126,7 @@ const ProfileCenter: React.FC<ProfileProps> = ({ user, refreshUserInfo }) => {
       classForm.resetFields();
       
       // 刷新班级列表
-      const response = await axios.get('/api/classes/teacher');
+      const response = await getAllPages('/api/classes/teacher');
       if (response.data) {
         setMyClasses(response.data);
       }
@@ -149,7 +149,7 @@ const ProfileCenter: React.FC<ProfileProps> = ({ user, refreshUserInfo }) => {
       setEditClassModalVisible(false);
       
       // 刷新班级列表
-      const response = await axios.get('/api/classes/teacher');
+      const response = await getAllPages('/api/classes/teacher');
       if (response.data) {
         setMyClasses(response.data);
       }
@@ -188,7 +188,7 @@ const ProfileCenter: React.FC<ProfileProps> = ({ user, refreshUserInfo }) => {
       setCurrentClassStudents(prev => prev.filter(student => student.id !== studentId));
       
       // 刷新班级列表
-      const response = await axios.get('/api/classes/teacher');
+      const response = await getAllPages('/api/classes/teacher');
       if (response.data) {
         setMyClasses(response.data);
       }
@@ -207,7 +207,7 @@ const ProfileCenter: React.FC<ProfileProps> = ({ user, refreshUserInfo }) => {
       message.success('已批准申请');
       
       // 刷新申请列表
-      const response = await axios.get('/api/classes/applications/teacher');
+      const response = await getAllPages('/api/classes/applications/teacher');
       if (response.data) {
         setApplications(response.data);
       }
@@ -237,7 +237,7 @@ const ProfileCenter: React.FC<ProfileProps> = ({ user, refreshUserInfo }) => {
       setRejectModalVisible(false);
       
       // 刷新申请列表
-      const response = await axios.get('/api/classes/applications/teacher');
+      const response = await getAllPages('/api/classes/applications/teacher');
       if (response.data) {
         setApplications(response.data);
       }
@@ -8,7 +8,7 @@ import {
   UserOutlined, EditOutlined, PlusOutlined,
   DeleteOutlined, SearchOutlined, TeamOutlined
 } from '@ant-design/icons';
-import axios from '../../utils/axios';
+import axios, { getAllPages } from '../../utils/axios';
 import moment from 'moment';
 
 const { Title, Text, Paragraph } = Typography;
@@ -180,7 +180,7 @@ const StudentEvaluation: React.FC = () => {
   const fetchStudentList = async () => {
     try {
       setLoading(true);
-      const response = await axios.get('/api/teacher/students');
+      const response = await getAllPages('/api/teacher/students');
       setStudentList(response.data);
     } catch (error) {
       console.error('获取学生列表失败:', error);
@@ -136,4 +136,23 @@ instance.interceptors.response.use(
   }
 );
 
+/**
+ * 读取游标分页列表的全部数据：按 X-Next-Cursor 响应头逐页请求，直到没有下一页
+ * 返回值与 axios.get 一样带 data 字段，用于下拉选项等需要完整列表的场景
+ */
+export const getAllPages = async <T = any>(url: string, pageSize = 200): Promise<{ data: T[] }> => {
+  const data: T[] = [];
+  let cursor: string | null = null;
+  do {
+    const params: Record<string, string | number> = { limit: pageSize };
+    if (cursor) {
+      params.cursor = cursor;
+    }
+    const response = await instance.get<T[]>(url, { params });
+    data.push(...response.data);
+    cursor = response.headers['x-next-cursor'] || null;
+  } while (cursor);
+  return { data };
+};
+
 export default instance; 
\ No newline at end of file